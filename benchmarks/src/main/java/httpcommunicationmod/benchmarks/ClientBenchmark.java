@@ -0,0 +1,101 @@
+package httpcommunicationmod.benchmarks;
+
+import com.google.gson.JsonObject;
+import httpcommunicationmod.ReplayGameAccess;
+import httpcommunicationmod.StateOptions;
+import httpcommunicationmod.WebServer;
+import httpcommunicationmod.client.ClientEventLoop;
+import httpcommunicationmod.client.HttpModClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives N game instances concurrently with the asynchronous client, all on one client event loop. Each instance is a
+ * WebServer with a ReplayGameAccess serving the state of a GameFixture, so the instances do not run the game. One
+ * operation is a vector step: a step() on every instance, completed when all of them are ready for the next command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientBenchmark {
+
+    @Param({"1", "8", "32"})
+    public int instances;
+
+    @Param({"JDK", "NIO"})
+    public WebServer.Transport transport;
+
+    private final ArrayList<WebServer> servers = new ArrayList<>();
+    private final ArrayList<HttpModClient> clients = new ArrayList<>();
+    private ClientEventLoop loop;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ArrayList<String> states = new ArrayList<>();
+        states.add(new GameFixture(GameFixture.Scenario.EARLY_ACT).install(GameFixture.View.COMBAT)
+                .getState(StateOptions.DEFAULT));
+
+        loop = new ClientEventLoop();
+        for (int i = 0; i < instances; i++) {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            WebServer server = new WebServer(new ReplayGameAccess(states), transport);
+            server.start("localhost", port);
+            servers.add(server);
+            clients.add(new HttpModClient("localhost", port, loop, 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (HttpModClient client : clients) {
+            client.close();
+        }
+        loop.close();
+        for (WebServer server : servers) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public Object vectorStep() {
+        CompletableFuture<?>[] steps = new CompletableFuture<?>[clients.size()];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = clients.get(i).step("end");
+        }
+        return CompletableFuture.allOf(steps).join();
+    }
+
+    @Benchmark
+    public JsonObject pipelinedStates() {
+        // Sixteen requests in flight on one connection
+        HttpModClient client = clients.get(0);
+        CompletableFuture<JsonObject> last = null;
+        for (int i = 0; i < 16; i++) {
+            last = client.state();
+        }
+        return last.join();
+    }
+}
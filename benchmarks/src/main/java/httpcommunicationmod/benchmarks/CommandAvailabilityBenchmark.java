@@ -0,0 +1,66 @@
+package httpcommunicationmod.benchmarks;
+
+import httpcommunicationmod.ChoiceScreenUtils;
+import httpcommunicationmod.CommandExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the command checks that every state and every POST /command go through, on a GameFixture installed in
+ * the game: CommandExecutor.getAvailableCommands, CommandExecutor.isCommandAvailable and
+ * ChoiceScreenUtils.getCurrentChoiceList.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandAvailabilityBenchmark {
+
+    @Param({"EARLY_ACT", "LATE_ACT", "MULTI_MONSTER"})
+    public GameFixture.Scenario scenario;
+
+    @Param({"COMBAT", "MAP"})
+    public GameFixture.View view;
+
+    private String lastCommand;
+
+    @Setup
+    public void setup() {
+        new GameFixture(scenario).install(view);
+        // The last available command is the one found last when a command is checked against the list
+        ArrayList<String> commands = CommandExecutor.getAvailableCommands();
+        if (commands.isEmpty()) {
+            throw new IllegalStateException("No command is available in the " + scenario + " " + view + " fixture");
+        }
+        lastCommand = commands.get(commands.size() - 1);
+    }
+
+    @Benchmark
+    public ArrayList<String> availableCommands() {
+        return CommandExecutor.getAvailableCommands();
+    }
+
+    @Benchmark
+    public boolean isCommandAvailable() {
+        return CommandExecutor.isCommandAvailable(lastCommand);
+    }
+
+    @Benchmark
+    public ArrayList<String> currentChoiceList() {
+        return ChoiceScreenUtils.getCurrentChoiceList();
+    }
+}
@@ -0,0 +1,101 @@
+package httpcommunicationmod.benchmarks;
+
+import com.google.gson.Gson;
+import com.megacrit.cardcrawl.core.CardCrawlGame;
+import httpcommunicationmod.CommandExecutor;
+import httpcommunicationmod.ContentDictionary;
+import httpcommunicationmod.GameAccess;
+import httpcommunicationmod.GameStateConverter;
+import httpcommunicationmod.InvalidCommandException;
+import httpcommunicationmod.JsonStateWriter;
+import httpcommunicationmod.MapCache;
+import httpcommunicationmod.Scenario;
+import httpcommunicationmod.StateCaptureService;
+import httpcommunicationmod.StateOptions;
+
+import java.util.HashMap;
+
+/**
+ * Game access over a GameFixture installed in the game's static state. States and maps are written by the mod's
+ * own code, as LiveGameAccess does. Commands are checked against the available commands, but not executed, so that
+ * the fixture stays the same from one benchmark operation to the next. There is no observation, since observations
+ * are encoded on the game thread; ObservationBenchmark captures the fixture itself.
+ */
+public class FixtureGameAccess implements GameAccess {
+
+    private static final JsonStateWriter.Key IN_GAME = new JsonStateWriter.Key("in_game");
+    private static final JsonStateWriter.Key MAP_KEY = new JsonStateWriter.Key("map_key");
+    private static final JsonStateWriter.Key ACT = new JsonStateWriter.Key("act");
+    private static final JsonStateWriter.Key MAP = new JsonStateWriter.Key("map");
+
+    @Override
+    public String getState(StateOptions options) {
+        return GameStateConverter.getCommunicationState(options);
+    }
+
+    @Override
+    public boolean supports(StateOptions options) {
+        return true;
+    }
+
+    @Override
+    public boolean executeCommand(String command) throws InvalidCommandException {
+        if (!CommandExecutor.isCommandAvailable(command)) {
+            throw new InvalidCommandException("Invalid command: " + command + ". Possible commands: "
+                    + CommandExecutor.getAvailableCommands());
+        }
+        return false;
+    }
+
+    @Override
+    public void registerCommandExecution() {
+    }
+
+    @Override
+    public HashMap<String, Object> startGame(String characterName, int ascensionLevel, String seedString)
+            throws InvalidCommandException {
+        throw new InvalidCommandException("Runs cannot be started on a fixture");
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public String setUpScenario(Scenario scenario) throws InvalidCommandException {
+        throw new InvalidCommandException("Scenarios cannot be set up on a fixture");
+    }
+
+    @Override
+    public void writeMap(JsonStateWriter writer) {
+        writer.beginObject();
+        writer.name(IN_GAME).value(true);
+        writer.name(MAP_KEY).value(MapCache.getMapKey());
+        writer.name(ACT).value(getActNum());
+        writer.name(MAP);
+        MapCache.writeMap(writer);
+        writer.endObject();
+    }
+
+    @Override
+    public StateCaptureService.Snapshot getObservation() {
+        return null;
+    }
+
+    @Override
+    public String getDictionary() {
+        return new Gson().toJson(ContentDictionary.getDictionary());
+    }
+
+    // CardCrawlGame.dungeon and CardCrawlGame.mode belong to the running game, which the fixture does not start
+
+    @Override
+    public boolean isPlayerInDungeon() {
+        return true;
+    }
+
+    @Override
+    public CardCrawlGame.GameMode getGameMode() {
+        return CardCrawlGame.GameMode.GAMEPLAY;
+    }
+}
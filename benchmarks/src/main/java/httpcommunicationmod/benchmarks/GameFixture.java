@@ -0,0 +1,631 @@
+package httpcommunicationmod.benchmarks;
+
+import com.megacrit.cardcrawl.actions.GameActionManager;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.cards.CardGroup;
+import com.megacrit.cardcrawl.cards.red.Defend_Red;
+import com.megacrit.cardcrawl.cards.red.Inflame;
+import com.megacrit.cardcrawl.cards.red.Strike_Red;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.characters.Ironclad;
+import com.megacrit.cardcrawl.core.AbstractCreature;
+import com.megacrit.cardcrawl.core.CardCrawlGame;
+import com.megacrit.cardcrawl.core.Settings;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.localization.LocalizedStrings;
+import com.megacrit.cardcrawl.map.MapEdge;
+import com.megacrit.cardcrawl.map.MapRoomNode;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+import com.megacrit.cardcrawl.monsters.EnemyMoveInfo;
+import com.megacrit.cardcrawl.monsters.MonsterGroup;
+import com.megacrit.cardcrawl.monsters.exordium.JawWorm;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.potions.BlockPotion;
+import com.megacrit.cardcrawl.potions.FirePotion;
+import com.megacrit.cardcrawl.potions.PotionSlot;
+import com.megacrit.cardcrawl.powers.AbstractPower;
+import com.megacrit.cardcrawl.powers.StrengthPower;
+import com.megacrit.cardcrawl.relics.AbstractRelic;
+import com.megacrit.cardcrawl.relics.Circlet;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+import com.megacrit.cardcrawl.rooms.EventRoom;
+import com.megacrit.cardcrawl.rooms.MonsterRoom;
+import com.megacrit.cardcrawl.rooms.MonsterRoomElite;
+import com.megacrit.cardcrawl.rooms.RestRoom;
+import com.megacrit.cardcrawl.rooms.ShopRoom;
+import com.megacrit.cardcrawl.rooms.TreasureRoom;
+import com.megacrit.cardcrawl.screens.DungeonMapScreen;
+import com.megacrit.cardcrawl.screens.select.GridCardSelectScreen;
+import com.megacrit.cardcrawl.ui.panels.EnergyPanel;
+import httpcommunicationmod.GameAccessProvider;
+import httpcommunicationmod.GameStateListener;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Game states used by the benchmarks, for three scenarios, made of the game's own classes so that the benchmarks run
+ * GameStateConverter, StateCapture, CommandExecutor and ChoiceScreenUtils themselves.
+ *
+ * The game cannot start inside a JMH fork: its constructors load textures, and its strings are loaded by the
+ * launcher. install() therefore allocates the player, cards, monsters, powers, relics, potions and rooms without
+ * running their constructors, sets the fields the mod reads, and puts them in the static fields of AbstractDungeon,
+ * as a run does. Containers with plain constructors (CardGroup, MonsterGroup, MapRoomNode, GameActionManager) are
+ * constructed. A language pack that answers every lookup with blank strings stands in for the game's, which the
+ * static initializers of the game classes read.
+ *
+ * Each kind of content is of one or a few classes (every attack is a Strike_Red, every monster a JawWorm, ...) with
+ * the ids and names of the scenario. The mod only reads their fields, and the checks it calls (canUse, canDiscard,
+ * isDeadOrEscaped) depend on the combat rather than on the class.
+ */
+public class GameFixture {
+
+    public enum Scenario {
+        // Act 1 hallway fight: starter deck, one monster, few relics
+        EARLY_ACT(3, 1, 12, 5, 1, 2, 3, 1),
+        // Act 3 elite fight: 40-card deck, full hand, many relics and powers
+        LATE_ACT(45, 3, 40, 10, 2, 6, 20, 3),
+        // Act 2 fight against five monsters, each with its own powers
+        MULTI_MONSTER(22, 2, 25, 7, 5, 3, 10, 2);
+
+        final int floor;
+        final int act;
+        final int deckSize;
+        final int handSize;
+        final int monsterCount;
+        final int powersPerCreature;
+        final int relicCount;
+        final int potionCount;
+
+        Scenario(int floor, int act, int deckSize, int handSize, int monsterCount, int powersPerCreature,
+                 int relicCount, int potionCount) {
+            this.floor = floor;
+            this.act = act;
+            this.deckSize = deckSize;
+            this.handSize = handSize;
+            this.monsterCount = monsterCount;
+            this.powersPerCreature = powersPerCreature;
+            this.relicCount = relicCount;
+            this.potionCount = potionCount;
+        }
+    }
+
+    public enum View {
+        // The player's turn in the scenario's fight
+        COMBAT,
+        // The map screen once the fight is won, with the next rooms to choose from
+        MAP
+    }
+
+    static class Card {
+        String id;
+        String name;
+        String uuid;
+        String type;
+        String rarity;
+        int cost;
+        int upgrades;
+        int misc;
+        boolean hasTarget;
+        boolean exhausts;
+        boolean ethereal;
+    }
+
+    static class Power {
+        String id;
+        String name;
+        int amount;
+    }
+
+    static class Monster {
+        String id;
+        String name;
+        int currentHp;
+        int maxHp;
+        int block;
+        String intent;
+        int moveId;
+        int moveBaseDamage;
+        int moveAdjustedDamage;
+        int moveHits;
+        List<Power> powers = new ArrayList<>();
+    }
+
+    static class Item {
+        String id;
+        String name;
+        int counter;
+    }
+
+    private static final String[] CARD_IDS = {
+            "Strike_R", "Defend_R", "Bash", "Anger", "Shrug It Off", "Pommel Strike", "Inflame", "Carnage",
+            "Offering", "Feel No Pain", "Whirlwind", "Impervious", "Limit Break", "Reaper", "Uppercut", "Shockwave"
+    };
+    private static final String[] CARD_TYPES = {"ATTACK", "SKILL", "POWER"};
+    private static final String[] CARD_RARITIES = {"BASIC", "COMMON", "UNCOMMON", "RARE"};
+    private static final String[] MONSTER_IDS = {"JawWorm", "Cultist", "GremlinFat", "GremlinThief", "Sentry"};
+    private static final String[] POWER_IDS = {"Strength", "Vulnerable", "Weakened", "Ritual", "Metallicize", "Artifact"};
+    private static final String[] INTENTS = {"ATTACK", "ATTACK_BUFF", "DEFEND", "BUFF", "DEBUFF"};
+    private static final String[] DUNGEON_IDS = {"Exordium", "TheCity", "TheBeyond"};
+    private static final String[] BOSS_KEYS = {"The Guardian", "Champ", "Awakened One"};
+
+    private static final long SEED = 4_815_162_342L;
+    private static final int POTION_SLOTS = 3;
+    private static final int ENERGY = 3;
+    private static final int MAP_HEIGHT = 15;
+    private static final int MAP_WIDTH = 7;
+    // For each column of the map, the columns of the next row its nodes lead to. Columns without any have no rooms.
+    private static final int[][] MAP_PATHS = {{}, {1, 2}, {2}, {}, {4, 5}, {5}, {}};
+    // The column of the path taken through the map
+    private static final int PATH_COLUMN = 1;
+    // Long enough for the indices the game's classes use into their string arrays
+    private static final int BLANK_STRING_COUNT = 64;
+
+    private static final Unsafe UNSAFE = loadUnsafe();
+
+    final Scenario scenario;
+    final int gold;
+    final int currentHp;
+    final int maxHp;
+    final List<Card> deck = new ArrayList<>();
+    final List<Card> hand = new ArrayList<>();
+    final List<Card> drawPile = new ArrayList<>();
+    final List<Card> discardPile = new ArrayList<>();
+    final List<Card> exhaustPile = new ArrayList<>();
+    final List<Monster> monsters = new ArrayList<>();
+    final List<Power> playerPowers = new ArrayList<>();
+    final List<Item> relics = new ArrayList<>();
+    final List<Item> potions = new ArrayList<>();
+
+    public GameFixture(Scenario scenario) {
+        this.scenario = scenario;
+        Random random = new Random(scenario.ordinal());
+        gold = 99 + scenario.floor * 12;
+        maxHp = 80 + scenario.act * 5;
+        currentHp = maxHp - random.nextInt(30);
+        for (int i = 0; i < scenario.deckSize; i++) {
+            deck.add(createCard(random, i));
+        }
+        // The combat piles hold copies of the deck cards, split the way they are a few turns into a fight
+        for (int i = 0; i < deck.size(); i++) {
+            Card card = deck.get(i);
+            if (i < scenario.handSize) {
+                hand.add(card);
+            } else if (i % 3 == 0) {
+                discardPile.add(card);
+            } else if (i % 7 == 0) {
+                exhaustPile.add(card);
+            } else {
+                drawPile.add(card);
+            }
+        }
+        for (int i = 0; i < scenario.monsterCount; i++) {
+            Monster monster = new Monster();
+            monster.id = MONSTER_IDS[i % MONSTER_IDS.length];
+            monster.name = monster.id.replace("Gremlin", "Gremlin ");
+            monster.maxHp = 40 + random.nextInt(40) + scenario.act * 30;
+            monster.currentHp = monster.maxHp - random.nextInt(20);
+            monster.block = random.nextInt(10);
+            monster.intent = INTENTS[random.nextInt(INTENTS.length)];
+            monster.moveId = random.nextInt(5);
+            monster.moveBaseDamage = 6 + random.nextInt(10);
+            monster.moveAdjustedDamage = monster.moveBaseDamage + 2;
+            monster.moveHits = 1 + random.nextInt(2);
+            for (int j = 0; j < scenario.powersPerCreature; j++) {
+                monster.powers.add(createPower(random, j));
+            }
+            monsters.add(monster);
+        }
+        for (int i = 0; i < scenario.powersPerCreature; i++) {
+            playerPowers.add(createPower(random, i));
+        }
+        for (int i = 0; i < scenario.relicCount; i++) {
+            Item relic = new Item();
+            relic.id = "Relic " + i;
+            relic.name = "Relic Name " + i;
+            relic.counter = i % 4 == 0 ? random.nextInt(10) : -1;
+            relics.add(relic);
+        }
+        for (int i = 0; i < scenario.potionCount; i++) {
+            Item potion = new Item();
+            potion.id = "Potion " + i;
+            potion.name = "Potion Name " + i;
+            potions.add(potion);
+        }
+    }
+
+    private static Card createCard(Random random, int index) {
+        Card card = new Card();
+        int kind = index < 10 ? index % 2 : 2 + random.nextInt(CARD_IDS.length - 2);
+        card.id = CARD_IDS[kind];
+        card.name = card.id.replace('_', ' ');
+        card.uuid = new UUID(random.nextLong(), random.nextLong()).toString();
+        card.type = CARD_TYPES[kind % CARD_TYPES.length];
+        card.rarity = CARD_RARITIES[Math.min(kind / 4, CARD_RARITIES.length - 1)];
+        card.cost = random.nextInt(4) - (kind == 10 ? 1 : 0);
+        card.upgrades = random.nextInt(4) == 0 ? 1 : 0;
+        card.misc = 0;
+        card.hasTarget = card.type.equals("ATTACK");
+        card.exhausts = kind == 8;
+        card.ethereal = false;
+        return card;
+    }
+
+    private static Power createPower(Random random, int index) {
+        Power power = new Power();
+        power.id = POWER_IDS[index % POWER_IDS.length];
+        power.name = power.id;
+        power.amount = 1 + random.nextInt(5);
+        return power;
+    }
+
+    /**
+     * Puts the scenario into the game's static state, installs a FixtureGameAccess over it in GameAccessProvider, and
+     * has GameStateListener find the state stable. Replaces the scenario installed before, if any.
+     * @param view Whether the player is in the fight or on the map screen after it
+     * @return The game access that was installed
+     */
+    public FixtureGameAccess install(View view) {
+        installLanguagePack();
+
+        AbstractPlayer player = createPlayer();
+        MonsterRoom room = allocate(MonsterRoom.class);
+        room.mapSymbol = "M";
+        room.phase = view == View.COMBAT ? AbstractRoom.RoomPhase.COMBAT : AbstractRoom.RoomPhase.COMPLETE;
+        room.rewards = new ArrayList<>();
+        ArrayList<AbstractMonster> roomMonsters = new ArrayList<>();
+        for (Monster monster : monsters) {
+            roomMonsters.add(createMonster(monster));
+        }
+        room.monsters = new MonsterGroup(roomMonsters.toArray(new AbstractMonster[0]));
+
+        // The fight is on the path column, at the scenario's floor of the act
+        int row = Math.min((scenario.floor - 1) % 17, MAP_HEIGHT - 2);
+        ArrayList<ArrayList<MapRoomNode>> map = createMap();
+        MapRoomNode currentNode = map.get(row).get(PATH_COLUMN);
+        currentNode.setRoom(room);
+        ArrayList<Integer> pathX = new ArrayList<>();
+        ArrayList<Integer> pathY = new ArrayList<>();
+        for (int y = 0; y <= row; y++) {
+            pathX.add(PATH_COLUMN);
+            pathY.add(y);
+        }
+
+        GameActionManager actionManager = new GameActionManager();
+        actionManager.phase = GameActionManager.Phase.WAITING_ON_USER;
+        DungeonMapScreen mapScreen = allocate(DungeonMapScreen.class);
+        mapScreen.dismissable = false;
+        GridCardSelectScreen gridSelectScreen = allocate(GridCardSelectScreen.class);
+        gridSelectScreen.confirmScreenUp = false;
+
+        Settings.seed = SEED;
+        AbstractDungeon.player = player;
+        AbstractDungeon.map = map;
+        AbstractDungeon.currMapNode = currentNode;
+        AbstractDungeon.pathX = pathX;
+        AbstractDungeon.pathY = pathY;
+        AbstractDungeon.firstRoomChosen = true;
+        AbstractDungeon.floorNum = scenario.floor;
+        AbstractDungeon.actNum = scenario.act;
+        AbstractDungeon.id = DUNGEON_IDS[scenario.act - 1];
+        AbstractDungeon.bossKey = BOSS_KEYS[scenario.act - 1];
+        AbstractDungeon.ascensionLevel = 0;
+        AbstractDungeon.actionManager = actionManager;
+        AbstractDungeon.dungeonMapScreen = mapScreen;
+        AbstractDungeon.gridSelectScreen = gridSelectScreen;
+        AbstractDungeon.screen = view == View.COMBAT ? AbstractDungeon.CurrentScreen.NONE : AbstractDungeon.CurrentScreen.MAP;
+        AbstractDungeon.previousScreen = null;
+        AbstractDungeon.isScreenUp = view == View.MAP;
+        GameActionManager.turn = 3;
+        GameActionManager.totalDiscardedThisTurn = 0;
+        EnergyPanel.totalCount = ENERGY;
+
+        FixtureGameAccess access = new FixtureGameAccess();
+        GameAccessProvider.set(access);
+
+        // Let the mod detect the stable state, as it does once per frame, so that the state is ready for a command.
+        // Out of combat, it waits one more frame after a screen change.
+        GameStateListener.resetStateVariables();
+        GameStateListener.signalTurnStart();
+        for (int frame = 0; frame < 2 && !GameStateListener.isWaitingForCommand(); frame++) {
+            GameStateListener.checkForDungeonStateChange();
+        }
+        if (!GameStateListener.isWaitingForCommand()) {
+            throw new IllegalStateException("The " + scenario + " " + view + " fixture is not stable");
+        }
+        return access;
+    }
+
+    private AbstractPlayer createPlayer() {
+        Ironclad player = allocate(Ironclad.class);
+        player.name = "Ironclad";
+        player.chosenClass = AbstractPlayer.PlayerClass.IRONCLAD;
+        player.currentHealth = currentHp;
+        player.maxHealth = maxHp;
+        player.currentBlock = 0;
+        player.gold = gold;
+        player.damagedThisCombat = 1;
+        player.powers = createPowers(playerPowers, player);
+        player.orbs = new ArrayList<>();
+        player.blights = new ArrayList<>();
+        player.relics = new ArrayList<>();
+        for (Item item : relics) {
+            AbstractRelic relic = allocate(Circlet.class);
+            relic.relicId = item.id;
+            relic.name = item.name;
+            relic.counter = item.counter;
+            player.relics.add(relic);
+        }
+        player.potionSlots = POTION_SLOTS;
+        player.potions = new ArrayList<>();
+        for (int i = 0; i < POTION_SLOTS; i++) {
+            player.potions.add(i < potions.size() ? createPotion(potions.get(i), i) : createPotionSlot());
+        }
+        player.masterDeck = createCardGroup(CardGroup.CardGroupType.MASTER_DECK, deck);
+        player.hand = createCardGroup(CardGroup.CardGroupType.HAND, hand);
+        player.drawPile = createCardGroup(CardGroup.CardGroupType.DRAW_PILE, drawPile);
+        player.discardPile = createCardGroup(CardGroup.CardGroupType.DISCARD_PILE, discardPile);
+        player.exhaustPile = createCardGroup(CardGroup.CardGroupType.EXHAUST_PILE, exhaustPile);
+        player.limbo = createCardGroup(CardGroup.CardGroupType.UNSPECIFIED, new ArrayList<Card>());
+        player.cardInUse = null;
+        return player;
+    }
+
+    // Each pile gets its own card objects, as the combat piles hold copies of the deck cards with the same UUIDs
+    private static CardGroup createCardGroup(CardGroup.CardGroupType type, List<Card> cards) {
+        CardGroup group = new CardGroup(type);
+        for (Card card : cards) {
+            group.group.add(createCard(card));
+        }
+        return group;
+    }
+
+    private static AbstractCard createCard(Card fixtureCard) {
+        AbstractCard card;
+        if (fixtureCard.type.equals("ATTACK")) {
+            card = allocate(Strike_Red.class);
+        } else if (fixtureCard.type.equals("SKILL")) {
+            card = allocate(Defend_Red.class);
+        } else {
+            card = allocate(Inflame.class);
+        }
+        card.cardID = fixtureCard.id;
+        card.name = fixtureCard.name;
+        card.uuid = UUID.fromString(fixtureCard.uuid);
+        card.type = AbstractCard.CardType.valueOf(fixtureCard.type);
+        card.rarity = AbstractCard.CardRarity.valueOf(fixtureCard.rarity);
+        card.color = AbstractCard.CardColor.RED;
+        card.target = fixtureCard.hasTarget ? AbstractCard.CardTarget.ENEMY : AbstractCard.CardTarget.SELF;
+        card.cost = fixtureCard.cost;
+        card.costForTurn = fixtureCard.cost;
+        card.timesUpgraded = fixtureCard.upgrades;
+        card.upgraded = fixtureCard.upgrades > 0;
+        card.misc = fixtureCard.misc;
+        card.exhaust = fixtureCard.exhausts;
+        card.isEthereal = fixtureCard.ethereal;
+        card.tags = new ArrayList<>();
+        return card;
+    }
+
+    private static AbstractMonster createMonster(Monster fixtureMonster) {
+        AbstractMonster monster = allocate(JawWorm.class);
+        monster.id = fixtureMonster.id;
+        monster.name = fixtureMonster.name;
+        monster.currentHealth = fixtureMonster.currentHp;
+        monster.maxHealth = fixtureMonster.maxHp;
+        monster.currentBlock = fixtureMonster.block;
+        monster.intent = AbstractMonster.Intent.valueOf(fixtureMonster.intent);
+        monster.moveHistory = new ArrayList<>(Arrays.asList((byte) 1, (byte) 2, (byte) fixtureMonster.moveId));
+        monster.powers = createPowers(fixtureMonster.powers, monster);
+        setField(monster, AbstractMonster.class, "move", new EnemyMoveInfo((byte) fixtureMonster.moveId,
+                monster.intent, fixtureMonster.moveBaseDamage, fixtureMonster.moveHits, fixtureMonster.moveHits > 1));
+        setField(monster, AbstractMonster.class, "intentDmg", fixtureMonster.moveAdjustedDamage);
+        return monster;
+    }
+
+    private static ArrayList<AbstractPower> createPowers(List<Power> fixturePowers, AbstractCreature owner) {
+        ArrayList<AbstractPower> powers = new ArrayList<>();
+        for (Power fixturePower : fixturePowers) {
+            AbstractPower power = allocate(StrengthPower.class);
+            power.ID = fixturePower.id;
+            power.name = fixturePower.name;
+            power.amount = fixturePower.amount;
+            power.owner = owner;
+            power.type = AbstractPower.PowerType.BUFF;
+            powers.add(power);
+        }
+        return powers;
+    }
+
+    private static AbstractPotion createPotion(Item item, int index) {
+        // Every other potion is thrown at a monster, so that both kinds of potion commands are listed
+        boolean thrown = index % 2 == 0;
+        AbstractPotion potion = thrown ? allocate(FirePotion.class) : allocate(BlockPotion.class);
+        potion.ID = item.id;
+        potion.name = item.name;
+        potion.isThrown = thrown;
+        potion.targetRequired = thrown;
+        return potion;
+    }
+
+    private static AbstractPotion createPotionSlot() {
+        AbstractPotion slot = allocate(PotionSlot.class);
+        slot.ID = "Potion Slot";
+        slot.name = "";
+        return slot;
+    }
+
+    /**
+     * Lays out a map of MAP_HEIGHT rows of MAP_WIDTH nodes, with rooms on the columns of MAP_PATHS, and the boss
+     * above the last row.
+     */
+    private static ArrayList<ArrayList<MapRoomNode>> createMap() {
+        ArrayList<ArrayList<MapRoomNode>> map = new ArrayList<>();
+        for (int y = 0; y < MAP_HEIGHT; y++) {
+            ArrayList<MapRoomNode> row = new ArrayList<>();
+            for (int x = 0; x < MAP_WIDTH; x++) {
+                MapRoomNode node = new MapRoomNode(x, y);
+                if (MAP_PATHS[x].length > 0) {
+                    node.setRoom(createMapRoom(x, y));
+                    if (y == MAP_HEIGHT - 1) {
+                        node.addEdge(createEdge(x, y, MAP_WIDTH / 2, y + 2));
+                    } else {
+                        for (int nextX : MAP_PATHS[x]) {
+                            node.addEdge(createEdge(x, y, nextX, y + 1));
+                        }
+                    }
+                }
+                row.add(node);
+            }
+            map.add(row);
+        }
+        return map;
+    }
+
+    private static AbstractRoom createMapRoom(int x, int y) {
+        AbstractRoom room;
+        if (y == 0) {
+            room = allocate(MonsterRoom.class);
+            room.mapSymbol = "M";
+        } else if (y == 8) {
+            room = allocate(TreasureRoom.class);
+            room.mapSymbol = "T";
+        } else if (y == MAP_HEIGHT - 1) {
+            room = allocate(RestRoom.class);
+            room.mapSymbol = "R";
+        } else if ((x + y) % 5 == 0) {
+            room = allocate(MonsterRoomElite.class);
+            room.mapSymbol = "E";
+        } else if ((x + y) % 7 == 0) {
+            room = allocate(ShopRoom.class);
+            room.mapSymbol = "$";
+        } else if ((x + y) % 2 == 0) {
+            room = allocate(EventRoom.class);
+            room.mapSymbol = "?";
+        } else {
+            room = allocate(MonsterRoom.class);
+            room.mapSymbol = "M";
+        }
+        room.phase = AbstractRoom.RoomPhase.INCOMPLETE;
+        return room;
+    }
+
+    // MapEdge's constructor lays out the dots drawn along the edge, which the mod does not read
+    private static MapEdge createEdge(int srcX, int srcY, int dstX, int dstY) {
+        MapEdge edge = allocate(MapEdge.class);
+        edge.srcX = srcX;
+        edge.srcY = srcY;
+        edge.dstX = dstX;
+        edge.dstY = dstY;
+        return edge;
+    }
+
+    /**
+     * Installs a LocalizedStrings in which every lookup finds blank strings, once per JVM. The static tables of
+     * LocalizedStrings are replaced by tables that hold every key.
+     */
+    private static synchronized void installLanguagePack() {
+        if (CardCrawlGame.languagePack != null) {
+            return;
+        }
+        for (Field field : LocalizedStrings.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) || !Map.class.isAssignableFrom(field.getType())
+                    || !(field.getGenericType() instanceof ParameterizedType)) {
+                continue;
+            }
+            Type valueType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[1];
+            if (valueType instanceof Class) {
+                setField(null, field, new BlankStrings<>(createBlankStrings((Class<?>) valueType)));
+            }
+        }
+        CardCrawlGame.languagePack = allocate(LocalizedStrings.class);
+    }
+
+    private static Object createBlankStrings(Class<?> type) {
+        Object strings = allocate(type);
+        String[] blanks = new String[BLANK_STRING_COUNT];
+        Arrays.fill(blanks, "");
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            if (field.getType() == String.class) {
+                setField(strings, field, "");
+            } else if (field.getType() == String[].class) {
+                setField(strings, field, blanks.clone());
+            } else if (Map.class.isAssignableFrom(field.getType())) {
+                setField(strings, field, new HashMap<String, String>());
+            }
+        }
+        return strings;
+    }
+
+    /**
+     * A string table that holds every key, all with the same strings.
+     */
+    private static class BlankStrings<V> extends HashMap<String, V> {
+        private final V blank;
+
+        BlankStrings(V blank) {
+            this.blank = blank;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return true;
+        }
+
+        @Override
+        public V get(Object key) {
+            return blank;
+        }
+    }
+
+    private static Unsafe loadUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("sun.misc.Unsafe is needed to allocate the game objects", e);
+        }
+    }
+
+    /**
+     * Allocates an object without running its constructors, which would load textures and sounds.
+     */
+    private static <T> T allocate(Class<T> type) {
+        try {
+            return type.cast(UNSAFE.allocateInstance(type));
+        } catch (InstantiationException e) {
+            throw new IllegalStateException("Cannot allocate " + type.getName(), e);
+        }
+    }
+
+    private static void setField(Object target, Class<?> owner, String name, Object value) {
+        try {
+            setField(target, owner.getDeclaredField(name), value);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("No field " + name + " in " + owner.getName(), e);
+        }
+    }
+
+    private static void setField(Object target, Field field, Object value) {
+        try {
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot set " + field.getDeclaringClass().getName() + "." + field.getName(), e);
+        }
+    }
+}
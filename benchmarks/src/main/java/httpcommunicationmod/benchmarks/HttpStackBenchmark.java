@@ -0,0 +1,124 @@
+package httpcommunicationmod.benchmarks;
+
+import httpcommunicationmod.GameAccess;
+import httpcommunicationmod.ReplayGameAccess;
+import httpcommunicationmod.StateOptions;
+import httpcommunicationmod.WebServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures requests through the whole HTTP stack (WebServer and the handlers) on a GameFixture installed in the game.
+ * The GAME backend is a FixtureGameAccess, which writes each state with GameStateConverter and checks each command
+ * with CommandExecutor, as the running game does. The REPLAY backend is a ReplayGameAccess serving the fixture's state
+ * as recorded, which leaves only the cost of the server and the handlers. Run with e.g. "-t 8" to measure throughput
+ * under concurrent clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpStackBenchmark {
+
+    @Param({"EARLY_ACT", "LATE_ACT", "MULTI_MONSTER"})
+    public GameFixture.Scenario scenario;
+
+    @Param({"JDK", "NIO"})
+    public WebServer.Transport transport;
+
+    @Param({"GAME", "REPLAY"})
+    public String backend;
+
+    private WebServer server;
+    private URL stateUrl;
+    private URL commandUrl;
+    private URL mapUrl;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        GameAccess game = new GameFixture(scenario).install(GameFixture.View.COMBAT);
+        if (backend.equals("REPLAY")) {
+            ArrayList<String> states = new ArrayList<>();
+            states.add(game.getState(StateOptions.DEFAULT));
+            game = new ReplayGameAccess(states);
+        }
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new WebServer(game, transport);
+        server.start("localhost", port);
+        stateUrl = new URL("http://localhost:" + port + "/state");
+        commandUrl = new URL("http://localhost:" + port + "/command");
+        mapUrl = new URL("http://localhost:" + port + "/map");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public byte[] getState() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) stateUrl.openConnection();
+        return readResponse(connection);
+    }
+
+    @Benchmark
+    public byte[] getMap() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) mapUrl.openConnection();
+        return readResponse(connection);
+    }
+
+    @Benchmark
+    public byte[] postCommand() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) commandUrl.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write("end".getBytes(StandardCharsets.UTF_8));
+        }
+        return readResponse(connection);
+    }
+
+    private static byte[] readResponse(HttpURLConnection connection) throws IOException {
+        if (connection.getResponseCode() != 200) {
+            throw new IOException("Unexpected response code " + connection.getResponseCode());
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        // Reading the body to the end lets HttpURLConnection reuse the keep-alive connection
+        try (InputStream is = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return body.toByteArray();
+    }
+}
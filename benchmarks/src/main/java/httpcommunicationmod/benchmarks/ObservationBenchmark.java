@@ -0,0 +1,61 @@
+package httpcommunicationmod.benchmarks;
+
+import httpcommunicationmod.ObservationEncoder;
+import httpcommunicationmod.StateCapture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures producing an observation from a GameFixture installed in the game: the game thread's share (the
+ * capture), the encoder thread's share, and the per-request patch done by ObservationHandler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservationBenchmark {
+
+    @Param({"EARLY_ACT", "LATE_ACT", "MULTI_MONSTER"})
+    public GameFixture.Scenario scenario;
+
+    private StateCapture capture;
+    private byte[] observation;
+    private long sequence = 0;
+
+    @Setup
+    public void setup() {
+        new GameFixture(scenario).install(GameFixture.View.COMBAT);
+        capture = new StateCapture();
+        capture.capture(++sequence);
+        observation = ObservationEncoder.encode(capture);
+    }
+
+    @Benchmark
+    public StateCapture capture() {
+        capture.capture(++sequence);
+        return capture;
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ObservationEncoder.encode(capture);
+    }
+
+    @Benchmark
+    public byte[] withReadyForCommand() {
+        return ObservationEncoder.withReadyForCommand(observation, false);
+    }
+}
@@ -0,0 +1,53 @@
+package httpcommunicationmod.benchmarks;
+
+import httpcommunicationmod.GameStateConverter;
+import httpcommunicationmod.StateOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GameStateConverter.getCommunicationState, the body of GET /state, on a GameFixture installed in the game,
+ * with the default options and with map=delta.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateSerializationBenchmark {
+
+    @Param({"EARLY_ACT", "LATE_ACT", "MULTI_MONSTER"})
+    public GameFixture.Scenario scenario;
+
+    @Param({"COMBAT", "MAP"})
+    public GameFixture.View view;
+
+    private final StateOptions mapDelta = new StateOptions(false, true);
+
+    @Setup
+    public void setup() {
+        new GameFixture(scenario).install(view);
+    }
+
+    @Benchmark
+    public String communicationState() {
+        return GameStateConverter.getCommunicationState(StateOptions.DEFAULT);
+    }
+
+    @Benchmark
+    public String communicationStateMapDelta() {
+        return GameStateConverter.getCommunicationState(mapDelta);
+    }
+}
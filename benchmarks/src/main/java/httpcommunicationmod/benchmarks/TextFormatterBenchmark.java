@@ -0,0 +1,50 @@
+package httpcommunicationmod.benchmarks;
+
+import httpcommunicationmod.TextFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares TextFormatter against the regular expressions it replaced, on a typical event body.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextFormatterBenchmark {
+
+    private static final String EVENT_TEXT = "You walk into a room filled with #ygold NL NL A ~shimmering~ light "
+            + "@shakes@ the walls. #rLose #r7 #rHP. NL You feel @uneasy~ as the #bvoice speaks: ~\"Take~ ~it.\"~";
+
+    @Benchmark
+    public String formattingRegex() {
+        return EVENT_TEXT.replaceAll("~|@(\\S+)~|@", "$1").replaceAll("#.|NL", "");
+    }
+
+    @Benchmark
+    public String formattingCached() {
+        return TextFormatter.removeTextFormatting(EVENT_TEXT);
+    }
+
+    @Benchmark
+    public String colorCodesRegex() {
+        return EVENT_TEXT.replaceAll("#.|NL", "");
+    }
+
+    @Benchmark
+    public String colorCodesSinglePass() {
+        // Not cached, so this measures the single pass itself
+        return TextFormatter.removeColorCodes(EVENT_TEXT);
+    }
+}
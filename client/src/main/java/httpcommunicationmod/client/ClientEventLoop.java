@@ -0,0 +1,164 @@
+package httpcommunicationmod.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A selector thread that runs the connections of any number of HttpModClients.
+ * One loop can drive many game instances; share it between their clients.
+ */
+public class ClientEventLoop implements Closeable {
+
+    private final Selector selector;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private long timerSequence = 0;
+    private volatile boolean running = true;
+
+    public ClientEventLoop() throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this::run, "HttpModClient-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs a task on the loop thread.
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Runs a task on the loop thread after a delay.
+     */
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(delay);
+        execute(() -> timers.add(new Timer(deadline, timerSequence++, task)));
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    /**
+     * The read buffer shared by the connections of this loop. Only used on the loop thread.
+     */
+    ByteBuffer readBuffer() {
+        return readBuffer;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                Timer next = timers.peek();
+                if (!tasks.isEmpty()) {
+                    selector.selectNow();
+                } else if (next == null) {
+                    selector.select();
+                } else {
+                    long waitMillis = TimeUnit.NANOSECONDS.toMillis(next.deadline - System.nanoTime());
+                    if (waitMillis > 0) {
+                        selector.select(waitMillis);
+                    } else {
+                        selector.selectNow();
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid()) {
+                        handle(key);
+                    }
+                }
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    runTask(task);
+                }
+
+                long now = System.nanoTime();
+                while (!timers.isEmpty() && timers.peek().deadline - now <= 0) {
+                    runTask(timers.poll().task);
+                }
+            }
+        } catch (IOException e) {
+            running = false;
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                ((HttpConnection) key.attachment()).fail(new IOException("The event loop is closed"));
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        HttpConnection connection = (HttpConnection) key.attachment();
+        try {
+            connection.handle(key);
+        } catch (RuntimeException e) {
+            // A response that cannot be handled fails its own connection, not every other connection on the loop
+            readBuffer.clear();
+            connection.fail(new IOException("Could not handle the response", e));
+        }
+    }
+
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            // A failing task must not stop the connections of every other client on the loop
+            e.printStackTrace();
+        }
+    }
+
+    private static class Timer implements Comparable<Timer> {
+        private final long deadline;
+        private final long sequence;
+        private final Runnable task;
+
+        Timer(long deadline, long sequence, Runnable task) {
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            long difference = deadline - other.deadline;
+            if (difference != 0) {
+                return difference < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
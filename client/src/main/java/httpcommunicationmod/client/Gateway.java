@@ -0,0 +1,431 @@
+package httpcommunicationmod.client;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway to a pool of game instances, each running the mod (or MockServer) on its own port.
+ *
+ * Instances are listed with --instance ID=HOST:PORT, discovered on a range of ports with --ports FIRST-LAST, read from
+ * the announcement files the mod writes to HTTP_MOD_ANNOUNCE_DIR with --announce-dir DIR, or launched with
+ * --launch COMMAND --count N, which starts N processes with HTTP_MOD_PORT set to consecutive ports from --base-port.
+ * They are health-checked through /health every --health-interval-ms.
+ *
+ * Endpoints:
+ * - POST /step with {"actions": {"ID": "COMMAND", ...}} runs step() on every listed instance at once and answers with
+ *   {"states": {"ID": STATE, ...}, "errors": {"ID": "MESSAGE", ...}} once all of them are ready for a command.
+ * - POST /start with {"character": ..., "ascension_level": ..., "seed": ..., "envs": [ID, ...]} starts a run on the
+ *   listed instances, or on all of them, and answers with their next stable states.
+ * - GET /envs lists the instances and their health.
+ *
+ * Usage: java -cp HttpCommunicationMod-client.jar:gson.jar httpcommunicationmod.client.Gateway
+ *            [--listen HOST] [--port PORT]
+ *            (--instance ID=HOST:PORT ... | --ports FIRST-LAST [--host HOST] | --announce-dir DIR
+ *            | --launch COMMAND --count N [--base-port PORT]) [--health-interval-ms MILLIS] [--timeout-ms MILLIS]
+ */
+public class Gateway {
+
+    private final Map<String, Instance> instances;
+    private final ClientEventLoop loop;
+    private final long timeoutMillis;
+    private HttpServer server;
+
+    /**
+     * An instance of the pool.
+     */
+    public static class Instance {
+        public final String id;
+        public final String host;
+        public final int port;
+        final HttpModClient client;
+        final Process process;
+        volatile boolean healthy = false;
+
+        Instance(String id, String host, int port, HttpModClient client, Process process) {
+            this.id = id;
+            this.host = host;
+            this.port = port;
+            this.client = client;
+            this.process = process;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+
+    /**
+     * @param instances The instances by id, with clients on the given loop
+     * @param timeoutMillis How long a batch waits for its instances before answering with errors
+     */
+    public Gateway(Map<String, Instance> instances, ClientEventLoop loop, long timeoutMillis) {
+        this.instances = new LinkedHashMap<>(instances);
+        this.loop = loop;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static Instance connect(String id, String host, int port, ClientEventLoop loop) {
+        return new Instance(id, host, port, new HttpModClient(host, port, loop, 1), null);
+    }
+
+    public Map<String, Instance> getInstances() {
+        return instances;
+    }
+
+    public void start(String host, int port, long healthIntervalMillis) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/step", exchange -> handle(exchange, "POST", this::step));
+        server.createContext("/start", exchange -> handle(exchange, "POST", this::startRuns));
+        server.createContext("/envs", exchange -> handle(exchange, "GET", body -> listInstances()));
+        server.setExecutor(Executors.newCachedThreadPool());
+        checkHealth(healthIntervalMillis);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            server = null;
+        }
+        for (Instance instance : instances.values()) {
+            instance.client.close();
+            if (instance.process != null) {
+                instance.process.destroy();
+            }
+        }
+        loop.close();
+    }
+
+    /**
+     * Steps every instance listed in the batch, in parallel.
+     */
+    JsonObject step(JsonObject body) {
+        JsonElement actions = body.get("actions");
+        if (actions == null || !actions.isJsonObject()) {
+            throw new IllegalArgumentException("The body must have an \"actions\" object");
+        }
+        Map<String, CompletableFuture<JsonObject>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> action : actions.getAsJsonObject().entrySet()) {
+            Instance instance = instances.get(action.getKey());
+            if (instance == null) {
+                results.put(action.getKey(), failed("Unknown env"));
+            } else if (!action.getValue().isJsonPrimitive()) {
+                results.put(action.getKey(), failed("The action must be a command string"));
+            } else {
+                results.put(action.getKey(), instance.client.step(action.getValue().getAsString()));
+            }
+        }
+        return collect(results);
+    }
+
+    /**
+     * Starts a run on the listed instances, or on all of them.
+     */
+    JsonObject startRuns(JsonObject body) {
+        String character = body.has("character") ? body.get("character").getAsString() : "IRONCLAD";
+        int ascensionLevel = body.has("ascension_level") ? body.get("ascension_level").getAsInt() : 0;
+        String seed = body.has("seed") ? body.get("seed").getAsString() : null;
+        List<String> ids = new ArrayList<>();
+        if (body.has("envs")) {
+            for (JsonElement id : body.getAsJsonArray("envs")) {
+                ids.add(id.getAsString());
+            }
+        } else {
+            ids.addAll(instances.keySet());
+        }
+        Map<String, CompletableFuture<JsonObject>> results = new LinkedHashMap<>();
+        for (String id : ids) {
+            Instance instance = instances.get(id);
+            if (instance == null) {
+                results.put(id, failed("Unknown env"));
+            } else {
+                results.put(id, instance.client.start(character, ascensionLevel, seed)
+                        .thenCompose(response -> instance.client.awaitReady()));
+            }
+        }
+        return collect(results);
+    }
+
+    JsonObject listInstances() {
+        JsonObject envs = new JsonObject();
+        for (Instance instance : instances.values()) {
+            JsonObject env = new JsonObject();
+            env.addProperty("address", instance.host + ":" + instance.port);
+            env.addProperty("healthy", instance.healthy);
+            envs.add(instance.id, env);
+        }
+        JsonObject response = new JsonObject();
+        response.add("envs", envs);
+        return response;
+    }
+
+    private JsonObject collect(Map<String, CompletableFuture<JsonObject>> results) {
+        try {
+            CompletableFuture.allOf(results.values().toArray(new CompletableFuture<?>[0]))
+                    .get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // The instances that failed or timed out are reported below
+        }
+        JsonObject states = new JsonObject();
+        JsonObject errors = new JsonObject();
+        for (Map.Entry<String, CompletableFuture<JsonObject>> result : results.entrySet()) {
+            CompletableFuture<JsonObject> future = result.getValue();
+            if (!future.isDone()) {
+                errors.addProperty(result.getKey(), "Timed out after " + timeoutMillis + " ms");
+            } else {
+                try {
+                    states.add(result.getKey(), future.join());
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    errors.addProperty(result.getKey(), String.valueOf(cause.getMessage()));
+                }
+            }
+        }
+        JsonObject response = new JsonObject();
+        response.add("states", states);
+        response.add("errors", errors);
+        return response;
+    }
+
+    private void checkHealth(long intervalMillis) {
+        for (Instance instance : instances.values()) {
+            instance.client.health().whenComplete((health, error) -> instance.healthy =
+                    error == null && health.has("status") && "healthy".equals(health.get("status").getAsString()));
+        }
+        loop.schedule(() -> {
+            if (server != null) {
+                checkHealth(intervalMillis);
+            }
+        }, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private interface Endpoint {
+        JsonObject handle(JsonObject body);
+    }
+
+    private static void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        int status = 200;
+        JsonObject response;
+        if (!method.equals(exchange.getRequestMethod())) {
+            status = 405;
+            response = error("Method not allowed. Use " + method + ".");
+        } else {
+            try {
+                JsonObject body = new JsonObject();
+                if (method.equals("POST")) {
+                    try (InputStream in = exchange.getRequestBody()) {
+                        JsonElement parsed = JsonParser.parseReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                        if (parsed.isJsonObject()) {
+                            body = parsed.getAsJsonObject();
+                        }
+                    }
+                }
+                response = endpoint.handle(body);
+            } catch (RuntimeException e) {
+                status = 400;
+                response = error(e.getMessage());
+            }
+        }
+        byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error;
+    }
+
+    private static CompletableFuture<JsonObject> failed(String message) {
+        CompletableFuture<JsonObject> future = new CompletableFuture<>();
+        future.completeExceptionally(new HttpModClientException(400, message));
+        return future;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = 8000;
+        String instanceHost = "localhost";
+        String ports = null;
+        String announceDir = null;
+        String launch = null;
+        int count = 0;
+        int basePort = 8080;
+        long healthIntervalMillis = 5000;
+        long timeoutMillis = 60000;
+        Map<String, String> listed = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--host":
+                    instanceHost = require(args[i], value);
+                    break;
+                case "--listen":
+                    host = require(args[i], value);
+                    break;
+                case "--port":
+                    port = Integer.parseInt(require(args[i], value));
+                    break;
+                case "--instance":
+                    String[] instance = require(args[i], value).split("=", 2);
+                    if (instance.length != 2) {
+                        exitWithUsage("Expected --instance ID=HOST:PORT");
+                    }
+                    listed.put(instance[0], instance[1]);
+                    break;
+                case "--ports":
+                    ports = require(args[i], value);
+                    break;
+                case "--announce-dir":
+                    announceDir = require(args[i], value);
+                    break;
+                case "--launch":
+                    launch = require(args[i], value);
+                    break;
+                case "--count":
+                    count = Integer.parseInt(require(args[i], value));
+                    break;
+                case "--base-port":
+                    basePort = Integer.parseInt(require(args[i], value));
+                    break;
+                case "--health-interval-ms":
+                    healthIntervalMillis = Long.parseLong(require(args[i], value));
+                    break;
+                case "--timeout-ms":
+                    timeoutMillis = Long.parseLong(require(args[i], value));
+                    break;
+                default:
+                    exitWithUsage("Unexpected argument: " + args[i]);
+            }
+            i++;
+        }
+
+        ClientEventLoop loop = new ClientEventLoop();
+        Map<String, Instance> instances = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : listed.entrySet()) {
+            int colon = entry.getValue().lastIndexOf(':');
+            if (colon < 0) {
+                exitWithUsage("Expected --instance ID=HOST:PORT");
+            }
+            instances.put(entry.getKey(), connect(entry.getKey(), entry.getValue().substring(0, colon),
+                    Integer.parseInt(entry.getValue().substring(colon + 1)), loop));
+        }
+        if (ports != null) {
+            discover(instances, instanceHost, ports, loop);
+        }
+        if (announceDir != null) {
+            readAnnouncements(instances, Paths.get(announceDir), loop);
+        }
+        if (launch != null) {
+            for (int i = 0; i < count; i++) {
+                String id = "env" + instances.size();
+                ProcessBuilder builder = new ProcessBuilder(launch.trim().split("\\s+"));
+                builder.environment().put("HTTP_MOD_PORT", Integer.toString(basePort + i));
+                builder.environment().put("HTTP_MOD_HOST", instanceHost);
+                builder.inheritIO();
+                instances.put(id, new Instance(id, instanceHost, basePort + i,
+                        new HttpModClient(instanceHost, basePort + i, loop, 1), builder.start()));
+            }
+        }
+        if (instances.isEmpty()) {
+            exitWithUsage("No instances");
+        }
+
+        Gateway gateway = new Gateway(instances, loop, timeoutMillis);
+        gateway.start(host, port, healthIntervalMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(gateway::stop));
+        System.out.println("Gateway for " + instances.size() + " instances on http://" + host + ":" + port);
+    }
+
+    /**
+     * Adds the instances answering /health on a range of ports, with the ids env0, env1, ...
+     */
+    private static void discover(Map<String, Instance> instances, String host, String range, ClientEventLoop loop) {
+        String[] bounds = range.split("-", 2);
+        int first = Integer.parseInt(bounds[0]);
+        int last = bounds.length > 1 ? Integer.parseInt(bounds[1]) : first;
+        Map<Integer, CompletableFuture<JsonObject>> probes = new LinkedHashMap<>();
+        Map<Integer, HttpModClient> clients = new LinkedHashMap<>();
+        for (int port = first; port <= last; port++) {
+            HttpModClient client = new HttpModClient(host, port, loop, 1);
+            clients.put(port, client);
+            probes.put(port, client.health());
+        }
+        for (Map.Entry<Integer, CompletableFuture<JsonObject>> probe : probes.entrySet()) {
+            HttpModClient client = clients.get(probe.getKey());
+            try {
+                probe.getValue().get(2, TimeUnit.SECONDS);
+                String id = "env" + instances.size();
+                Instance instance = new Instance(id, host, probe.getKey(), client, null);
+                instance.healthy = true;
+                instances.put(id, instance);
+            } catch (Exception e) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * Adds the instances announced in a directory, with the ids from their announcement files.
+     */
+    private static void readAnnouncements(Map<String, Instance> instances, Path dir, ClientEventLoop loop)
+            throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.json")) {
+            for (Path file : files) {
+                JsonObject announcement;
+                try {
+                    announcement = JsonParser.parseString(
+                            new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).getAsJsonObject();
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping unreadable announcement " + file);
+                    continue;
+                }
+                String id = announcement.get("instance_id").getAsString();
+                String host = announcement.get("host").getAsString();
+                int port = announcement.get("port").getAsInt();
+                instances.put(id, connect(id, host, port, loop));
+            }
+        }
+    }
+
+    private static String require(String name, String value) {
+        if (value == null) {
+            exitWithUsage("Missing value for " + name);
+        }
+        return value;
+    }
+
+    private static void exitWithUsage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: Gateway [--listen HOST] [--port PORT] (--instance ID=HOST:PORT ... | --ports FIRST-LAST"
+                + " [--host HOST] | --announce-dir DIR | --launch COMMAND --count N [--base-port PORT]) [--health-interval-ms MILLIS]"
+                + " [--timeout-ms MILLIS]");
+        System.exit(2);
+    }
+}
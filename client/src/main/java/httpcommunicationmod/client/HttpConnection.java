@@ -0,0 +1,147 @@
+package httpcommunicationmod.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One keep-alive connection to a server. Requests are written as soon as they are sent, without waiting for the
+ * previous responses, and their futures are completed in order as the responses arrive. All methods run on the
+ * event loop thread.
+ */
+class HttpConnection {
+
+    private final ClientEventLoop loop;
+    private final InetSocketAddress address;
+    private final ArrayDeque<CompletableFuture<ResponseParser.Response>> inFlight = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> outgoing = new ArrayDeque<>();
+    private final ResponseParser parser = new ResponseParser();
+    private SocketChannel channel;
+    private SelectionKey key;
+    private boolean connected;
+
+    HttpConnection(ClientEventLoop loop, InetSocketAddress address) {
+        this.loop = loop;
+        this.address = address;
+    }
+
+    int pending() {
+        return inFlight.size();
+    }
+
+    void send(byte[] request, CompletableFuture<ResponseParser.Response> future) {
+        try {
+            if (channel == null) {
+                open();
+            }
+            inFlight.add(future);
+            outgoing.add(ByteBuffer.wrap(request));
+            if (connected) {
+                flush();
+            }
+        } catch (IOException e) {
+            inFlight.remove(future);
+            future.completeExceptionally(e);
+            fail(e);
+        }
+    }
+
+    void handle(SelectionKey key) {
+        try {
+            if (key.isConnectable()) {
+                channel.finishConnect();
+                connected = true;
+                key.interestOps(SelectionKey.OP_READ);
+                flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Closes the connection and fails the requests waiting on it. The next request opens a new connection.
+     */
+    void fail(IOException cause) {
+        if (key != null) {
+            key.cancel();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already failing
+            }
+        }
+        channel = null;
+        key = null;
+        connected = false;
+        outgoing.clear();
+        parser.reset();
+        CompletableFuture<ResponseParser.Response> future;
+        while ((future = inFlight.poll()) != null) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private void open() throws IOException {
+        channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        connected = channel.connect(address);
+        key = channel.register(loop.selector(), connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+    }
+
+    private void read() throws IOException {
+        ByteBuffer buffer = loop.readBuffer();
+        int read;
+        while ((read = channel.read(buffer)) > 0) {
+            buffer.flip();
+            parser.feed(buffer);
+            buffer.clear();
+            ResponseParser.Response response;
+            while ((response = parser.next()) != null) {
+                CompletableFuture<ResponseParser.Response> future = inFlight.poll();
+                if (future == null) {
+                    throw new IOException("Unexpected response from " + address);
+                }
+                if (response.close) {
+                    // The server answers no more requests on this connection
+                    fail(new IOException("Connection closed by " + address));
+                    future.complete(response);
+                    return;
+                }
+                future.complete(response);
+            }
+        }
+        if (read < 0) {
+            fail(new IOException("Connection closed by " + address));
+        }
+    }
+
+    private void flush() throws IOException {
+        while (!outgoing.isEmpty()) {
+            ByteBuffer[] buffers = outgoing.toArray(new ByteBuffer[0]);
+            channel.write(buffers);
+            while (!outgoing.isEmpty() && !outgoing.peek().hasRemaining()) {
+                outgoing.poll();
+            }
+            if (!outgoing.isEmpty()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+}
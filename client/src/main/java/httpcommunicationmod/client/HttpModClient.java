@@ -0,0 +1,235 @@
+package httpcommunicationmod.client;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous client for one HTTP Communication Mod instance.
+ *
+ * Requests go over persistent keep-alive connections and are pipelined: a request is written without waiting for
+ * the responses before it. Responses are parsed as they arrive, on the event loop thread, which also completes the
+ * futures. Don't block in their callbacks; use the *Async variants of CompletableFuture for heavy work.
+ *
+ * Requests that fail with an HTTP error status complete exceptionally with an HttpModClientException.
+ */
+public class HttpModClient implements Closeable {
+
+    private static final long DEFAULT_POLL_INTERVAL_MILLIS = 2;
+
+    private final ClientEventLoop loop;
+    private final boolean ownsLoop;
+    private final String hostHeader;
+    private final HttpConnection[] connections;
+    private long pollIntervalMillis = DEFAULT_POLL_INTERVAL_MILLIS;
+    private int nextConnection = 0;
+
+    /**
+     * Creates a client with its own event loop and one connection.
+     */
+    public HttpModClient(String host, int port) throws IOException {
+        this(host, port, new ClientEventLoop(), 1, true);
+    }
+
+    /**
+     * Creates a client on a shared event loop.
+     * @param connections The number of connections. Requests are spread over them, and pipelined on each.
+     */
+    public HttpModClient(String host, int port, ClientEventLoop loop, int connections) {
+        this(host, port, loop, connections, false);
+    }
+
+    private HttpModClient(String host, int port, ClientEventLoop loop, int connections, boolean ownsLoop) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("At least one connection is needed");
+        }
+        this.loop = loop;
+        this.ownsLoop = ownsLoop;
+        this.hostHeader = host + ":" + port;
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        this.connections = new HttpConnection[connections];
+        for (int i = 0; i < connections; i++) {
+            this.connections[i] = new HttpConnection(loop, address);
+        }
+    }
+
+    /**
+     * Sets how often step() polls /state while the game is not ready for a command. Defaults to 2 ms.
+     */
+    public void setPollInterval(long interval, TimeUnit unit) {
+        pollIntervalMillis = Math.max(0, unit.toMillis(interval));
+    }
+
+    /**
+     * GET /state
+     */
+    public CompletableFuture<JsonObject> state() {
+        return get("/state");
+    }
+
+    /**
+     * GET /health
+     */
+    public CompletableFuture<JsonObject> health() {
+        return get("/health");
+    }
+
+    /**
+     * POST /command
+     * @return The response, with "success", "state_changed" and "game_state", or "error"
+     */
+    public CompletableFuture<JsonObject> command(String command) {
+        return post("/command", "text/plain", command);
+    }
+
+    /**
+     * POST /start
+     * @param seed The seed, or null for a random one
+     */
+    public CompletableFuture<JsonObject> start(String character, int ascensionLevel, String seed) {
+        JsonObject body = new JsonObject();
+        body.addProperty("character", character);
+        body.addProperty("ascension_level", ascensionLevel);
+        if (seed != null) {
+            body.addProperty("seed", seed);
+        }
+        return post("/start", "application/json", body.toString());
+    }
+
+    /**
+     * Executes a command and waits until the game is ready for the next one.
+     * @return The next state the game is ready for a command in. Completes exceptionally with an
+     *         HttpModClientException if the command fails.
+     */
+    public CompletableFuture<JsonObject> step(String command) {
+        return command(command).thenCompose(response -> {
+            JsonElement success = response.get("success");
+            if (success == null || !success.getAsBoolean()) {
+                JsonElement error = response.get("error");
+                return failed(new HttpModClientException(200,
+                        error != null && error.isJsonPrimitive() ? error.getAsString() : response.toString()));
+            }
+            JsonElement stateChanged = response.get("state_changed");
+            JsonElement gameState = response.get("game_state");
+            if (stateChanged != null && !stateChanged.getAsBoolean() && gameState != null && gameState.isJsonObject()) {
+                return CompletableFuture.completedFuture(gameState.getAsJsonObject());
+            }
+            return awaitReady();
+        });
+    }
+
+    /**
+     * Polls /state until the game is ready for a command.
+     */
+    public CompletableFuture<JsonObject> awaitReady() {
+        CompletableFuture<JsonObject> result = new CompletableFuture<>();
+        pollUntilReady(result);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        loop.execute(() -> {
+            for (HttpConnection connection : connections) {
+                connection.fail(new IOException("The client is closed"));
+            }
+        });
+        if (ownsLoop) {
+            loop.close();
+        }
+    }
+
+    private void pollUntilReady(CompletableFuture<JsonObject> result) {
+        state().whenComplete((state, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            JsonElement ready = state.get("ready_for_command");
+            if (ready == null || ready.getAsBoolean()) {
+                result.complete(state);
+            } else if (pollIntervalMillis == 0) {
+                pollUntilReady(result);
+            } else {
+                loop.schedule(() -> pollUntilReady(result), pollIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private CompletableFuture<JsonObject> get(String path) {
+        String request = "GET " + path + " HTTP/1.1\r\nHost: " + hostHeader + "\r\n\r\n";
+        return send(request.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private CompletableFuture<JsonObject> post(String path, String contentType, String body) {
+        byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        String head = "POST " + path + " HTTP/1.1\r\nHost: " + hostHeader + "\r\nContent-Type: " + contentType
+                + "\r\nContent-Length: " + bodyBytes.length + "\r\n\r\n";
+        ByteArrayOutputStream request = new ByteArrayOutputStream(head.length() + bodyBytes.length);
+        byte[] headBytes = head.getBytes(StandardCharsets.ISO_8859_1);
+        request.write(headBytes, 0, headBytes.length);
+        request.write(bodyBytes, 0, bodyBytes.length);
+        return send(request.toByteArray());
+    }
+
+    private CompletableFuture<JsonObject> send(byte[] request) {
+        CompletableFuture<ResponseParser.Response> response = new CompletableFuture<>();
+        loop.execute(() -> pickConnection().send(request, response));
+        return response.thenApply(HttpModClient::parse);
+    }
+
+    /**
+     * Picks the connection with the fewest requests in flight, starting after the last one used. Runs on the loop.
+     */
+    private HttpConnection pickConnection() {
+        HttpConnection best = null;
+        for (int i = 0; i < connections.length; i++) {
+            HttpConnection connection = connections[(nextConnection + i) % connections.length];
+            if (best == null || connection.pending() < best.pending()) {
+                best = connection;
+            }
+        }
+        nextConnection = (nextConnection + 1) % connections.length;
+        return best;
+    }
+
+    private static JsonObject parse(ResponseParser.Response response) {
+        JsonElement body = null;
+        if (response.body.length > 0) {
+            try {
+                JsonReader reader = new JsonReader(new InputStreamReader(
+                        new ByteArrayInputStream(response.body), StandardCharsets.UTF_8));
+                body = JsonParser.parseReader(reader);
+            } catch (RuntimeException e) {
+                body = null;
+            }
+        }
+        if (response.status / 100 != 2) {
+            String message = body != null && body.isJsonObject() && body.getAsJsonObject().has("error")
+                    ? body.getAsJsonObject().get("error").getAsString()
+                    : new String(response.body, StandardCharsets.UTF_8);
+            throw new HttpModClientException(response.status, message);
+        }
+        if (body == null || !body.isJsonObject()) {
+            return new JsonObject();
+        }
+        return body.getAsJsonObject();
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+}
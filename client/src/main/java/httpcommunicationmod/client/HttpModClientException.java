@@ -0,0 +1,21 @@
+package httpcommunicationmod.client;
+
+/**
+ * A request that the server answered with an error: an HTTP error status, or a command that was not executed.
+ */
+public class HttpModClientException extends RuntimeException {
+
+    private final int status;
+
+    public HttpModClientException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * @return The HTTP status of the response
+     */
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,203 @@
+package httpcommunicationmod.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental parser of HTTP/1.1 responses on one connection. Bytes are fed as they arrive, and each call to next()
+ * returns the next complete response, so pipelined responses are read in order without blocking.
+ */
+class ResponseParser {
+
+    /**
+     * A complete response.
+     */
+    static class Response {
+        final int status;
+        final byte[] body;
+        final boolean close;
+
+        Response(int status, byte[] body, boolean close) {
+            this.status = status;
+            this.body = body;
+            this.close = close;
+        }
+    }
+
+    private byte[] input = new byte[8 * 1024];
+    private int start = 0;
+    private int end = 0;
+
+    // The head of the response being read, once its headers are complete
+    private int headLength = -1;
+    private int status;
+    private long contentLength;
+    private boolean chunked;
+    private boolean close;
+
+    void feed(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        if (end + length > input.length) {
+            int used = end - start;
+            if (used + length > input.length) {
+                byte[] grown = new byte[Math.max(input.length * 2, used + length)];
+                System.arraycopy(input, start, grown, 0, used);
+                input = grown;
+            } else {
+                System.arraycopy(input, start, input, 0, used);
+            }
+            // The head length is relative to start, so it stays valid
+            start = 0;
+            end = used;
+        }
+        buffer.get(input, end, length);
+        end += length;
+    }
+
+    /**
+     * @return The next complete response, or null if more bytes are needed
+     * @throws IOException If the response is malformed
+     */
+    Response next() throws IOException {
+        if (headLength < 0 && !parseHead()) {
+            return null;
+        }
+        int bodyStart = start + headLength;
+        byte[] body;
+        int consumed;
+        if (chunked) {
+            int[] result = new int[1];
+            body = readChunked(bodyStart, result);
+            if (body == null) {
+                return null;
+            }
+            consumed = result[0];
+        } else {
+            if (end - bodyStart < contentLength) {
+                return null;
+            }
+            body = Arrays.copyOfRange(input, bodyStart, bodyStart + (int) contentLength);
+            consumed = headLength + (int) contentLength;
+        }
+        start += consumed;
+        if (start == end) {
+            start = 0;
+            end = 0;
+        }
+        headLength = -1;
+        return new Response(status, body, close);
+    }
+
+    void reset() {
+        start = 0;
+        end = 0;
+        headLength = -1;
+    }
+
+    private boolean parseHead() throws IOException {
+        int headerEnd = indexOf(start, "\r\n\r\n");
+        if (headerEnd < 0) {
+            return false;
+        }
+        String[] lines = new String(input, start, headerEnd - start, StandardCharsets.ISO_8859_1).split("\r\n");
+        String[] statusLine = lines[0].split(" ", 3);
+        if (statusLine.length < 2 || !statusLine[0].startsWith("HTTP/1.")) {
+            throw new IOException("Malformed status line: " + lines[0]);
+        }
+        try {
+            status = Integer.parseInt(statusLine[1]);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed status line: " + lines[0]);
+        }
+        contentLength = 0;
+        chunked = false;
+        close = statusLine[0].equals("HTTP/1.0");
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = lines[i].substring(0, colon).trim();
+            String value = lines[i].substring(colon + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                try {
+                    contentLength = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed Content-Length: " + value);
+                }
+            } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                chunked = value.toLowerCase().contains("chunked");
+            } else if (name.equalsIgnoreCase("Connection")) {
+                close = value.equalsIgnoreCase("close");
+            }
+        }
+        if (status / 100 == 1 || status == 204 || status == 304) {
+            contentLength = 0;
+            chunked = false;
+        }
+        if (status / 100 == 1) {
+            // An interim response: skip it and read the final one
+            start = headerEnd + 4;
+            return parseHead();
+        }
+        headLength = headerEnd + 4 - start;
+        return true;
+    }
+
+    /**
+     * @param result Receives the number of bytes of the response, head included
+     * @return The decoded body, or null if the last chunk has not arrived
+     */
+    private byte[] readChunked(int position, int[] result) throws IOException {
+        byte[] body = new byte[0];
+        int length = 0;
+        while (true) {
+            int lineEnd = indexOf(position, "\r\n");
+            if (lineEnd < 0) {
+                return null;
+            }
+            String sizeLine = new String(input, position, lineEnd - position, StandardCharsets.ISO_8859_1);
+            int semicolon = sizeLine.indexOf(';');
+            int size;
+            try {
+                size = Integer.parseInt((semicolon >= 0 ? sizeLine.substring(0, semicolon) : sizeLine).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed chunk size: " + sizeLine);
+            }
+            position = lineEnd + 2;
+            if (size == 0) {
+                int trailerEnd = indexOf(position - 2, "\r\n\r\n");
+                if (trailerEnd < 0) {
+                    return null;
+                }
+                result[0] = trailerEnd + 4 - start;
+                return Arrays.copyOf(body, length);
+            }
+            if (end - position < size + 2) {
+                return null;
+            }
+            if (length + size > body.length) {
+                body = Arrays.copyOf(body, Math.max(body.length * 2, length + size));
+            }
+            System.arraycopy(input, position, body, length, size);
+            length += size;
+            position += size + 2;
+        }
+    }
+
+    private int indexOf(int from, String pattern) {
+        int last = end - pattern.length();
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < pattern.length(); j++) {
+                if (input[i + j] != pattern.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
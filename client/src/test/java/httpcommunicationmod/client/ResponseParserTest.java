@@ -0,0 +1,84 @@
+package httpcommunicationmod.client;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ResponseParserTest {
+
+    @Test
+    public void growsBufferAfterPartiallyConsumedResponse() throws IOException {
+        ResponseParser parser = new ResponseParser();
+        byte[] smallBody = bytes("{\"ok\":true}");
+        byte[] largeBody = new byte[40 * 1024];
+        Arrays.fill(largeBody, (byte) 'x');
+        byte[] small = response(smallBody);
+        byte[] large = response(largeBody);
+
+        // The small response and the start of the large one arrive together, so the small one is consumed from
+        // the middle of the buffer before the rest of the large one has to fit in a bigger buffer
+        int firstPart = 8 * 1024 - small.length;
+        byte[] first = new byte[small.length + firstPart];
+        System.arraycopy(small, 0, first, 0, small.length);
+        System.arraycopy(large, 0, first, small.length, firstPart);
+        parser.feed(ByteBuffer.wrap(first));
+
+        ResponseParser.Response response = parser.next();
+        assertEquals(200, response.status);
+        assertArrayEquals(smallBody, response.body);
+        assertNull(parser.next());
+
+        parser.feed(ByteBuffer.wrap(large, firstPart, large.length - firstPart));
+        response = parser.next();
+        assertEquals(200, response.status);
+        assertArrayEquals(largeBody, response.body);
+        assertNull(parser.next());
+    }
+
+    @Test
+    public void readsResponsesFedByteByByte() throws IOException {
+        ResponseParser parser = new ResponseParser();
+        byte[] body = bytes("{\"state\":1}");
+        byte[] pipelined = concat(response(body), chunked(body));
+        int responses = 0;
+        for (byte b : pipelined) {
+            parser.feed(ByteBuffer.wrap(new byte[]{b}));
+            ResponseParser.Response response = parser.next();
+            if (response != null) {
+                assertArrayEquals(body, response.body);
+                responses++;
+            }
+        }
+        assertEquals(2, responses);
+    }
+
+    private static byte[] response(byte[] body) {
+        return concat(bytes("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + body.length
+                + "\r\n\r\n"), body);
+    }
+
+    private static byte[] chunked(byte[] body) {
+        int half = body.length / 2;
+        return concat(bytes("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n" + Integer.toHexString(half) + "\r\n"),
+                concat(Arrays.copyOfRange(body, 0, half),
+                        concat(bytes("\r\n" + Integer.toHexString(body.length - half) + "\r\n"),
+                                concat(Arrays.copyOfRange(body, half, body.length), bytes("\r\n0\r\n\r\n")))));
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,36 @@
+package httpcommunicationmod;
+
+/**
+ * Built-in DecisionPlugin that executes forced moves, so that clients only see states with a genuine decision.
+ * Registered when the mod initializes, if HTTP_MOD_AUTO_RESOLVE=true.
+ *
+ * A stable state is forced when it offers a single command, not counting potion discards: "proceed" once the combat
+ * rewards are taken, "proceed" on the game over screen, a lone map node, "choose 0" on a one-option event, or "end"
+ * with no playable card and no potion. A potion that can be used, in or out of combat (e.g. Fruit Juice on the
+ * reward screen), is a choice, so the state is not forced.
+ */
+public class AutoResolver implements DecisionPlugin {
+
+    public static boolean isEnabled() {
+        String envValue = System.getenv("HTTP_MOD_AUTO_RESOLVE");
+        return envValue != null && (envValue.trim().equalsIgnoreCase("true") || envValue.trim().equals("1"));
+    }
+
+    /**
+     * @return The only command that can be taken in the state, or null if the state is a decision
+     */
+    @Override
+    public String decide(StableState state) {
+        String forced = null;
+        for (String command : state.getAvailableCommands()) {
+            if (command.startsWith("potion discard")) {
+                continue;
+            }
+            if (forced != null) {
+                return null;
+            }
+            forced = command;
+        }
+        return forced;
+    }
+}
@@ -67,29 +67,33 @@ public class ChoiceScreenUtils {
         IMAGE, ROOM, NONE
     }
 
+    private static GameAccess game() {
+        return GameAccessProvider.get();
+    }
+
     public static ChoiceType getCurrentChoiceType() {
-        if (!AbstractDungeon.isScreenUp) {
+        if (!game().isScreenUp()) {
             // During transitions, the current room may be null
-            if (AbstractDungeon.getCurrRoom() == null) {
+            if (game().getCurrentRoom() == null) {
                 return ChoiceType.NONE;
             }
-            if (AbstractDungeon.getCurrRoom().phase == AbstractRoom.RoomPhase.EVENT || (AbstractDungeon.getCurrRoom().event != null && AbstractDungeon.getCurrRoom().phase == AbstractRoom.RoomPhase.COMPLETE)) {
+            if (game().getCurrentRoom().phase == AbstractRoom.RoomPhase.EVENT || (game().getCurrentRoom().event != null && game().getCurrentRoom().phase == AbstractRoom.RoomPhase.COMPLETE)) {
                 return ChoiceType.EVENT;
-            } else if (AbstractDungeon.getCurrRoom() instanceof TreasureRoomBoss || AbstractDungeon.getCurrRoom() instanceof TreasureRoom) {
+            } else if (game().getCurrentRoom() instanceof TreasureRoomBoss || game().getCurrentRoom() instanceof TreasureRoom) {
                 return ChoiceType.CHEST;
-            } else if (AbstractDungeon.getCurrRoom() instanceof ShopRoom) {
+            } else if (game().getCurrentRoom() instanceof ShopRoom) {
                 return ChoiceType.SHOP_ROOM;
-            } else if (AbstractDungeon.getCurrRoom() instanceof RestRoom) {
+            } else if (game().getCurrentRoom() instanceof RestRoom) {
                 return ChoiceType.REST;
-            } else if (AbstractDungeon.getCurrRoom().phase == AbstractRoom.RoomPhase.COMPLETE && AbstractDungeon.actionManager.isEmpty() && !AbstractDungeon.isFadingOut) {
-                if (AbstractDungeon.getCurrRoom().event == null || (!(AbstractDungeon.getCurrRoom().event instanceof AbstractImageEvent) && (!AbstractDungeon.getCurrRoom().event.hasFocus))) {
+            } else if (game().getCurrentRoom().phase == AbstractRoom.RoomPhase.COMPLETE && game().getActionManager().isEmpty() && !game().isFadingOut()) {
+                if (game().getCurrentRoom().event == null || (!(game().getCurrentRoom().event instanceof AbstractImageEvent) && (!game().getCurrentRoom().event.hasFocus))) {
                     return ChoiceType.COMPLETE;
                 }
             } else {
                 return ChoiceType.NONE;
             }
         }
-        AbstractDungeon.CurrentScreen screen = AbstractDungeon.screen;
+        AbstractDungeon.CurrentScreen screen = game().getScreen();
         switch(screen) {
             case CARD_REWARD:
                 return ChoiceType.CARD_REWARD;
@@ -218,7 +222,7 @@ public class ChoiceScreenUtils {
             case COMBAT_REWARD:
                 return isCombatRewardCloseAvailable();
             case MAP:
-                return AbstractDungeon.dungeonMapScreen.dismissable;
+                return game().getDungeonMapScreen().dismissable;
             case BOSS_REWARD:
                 return true;
             case SHOP_SCREEN:
@@ -273,7 +277,7 @@ public class ChoiceScreenUtils {
                 clickCancelButton();
                 return;
             case BOSS_REWARD:
-                MenuCancelButton button = (MenuCancelButton)ReflectionHacks.getPrivate(AbstractDungeon.bossRelicScreen, BossRelicSelectScreen.class, "cancelButton");
+                MenuCancelButton button = (MenuCancelButton)ReflectionHacks.getPrivate(game().getBossRelicScreen(), BossRelicSelectScreen.class, "cancelButton");
                 button.hb.clicked = true;
                 return;
             case SHOP_SCREEN:
@@ -386,7 +390,7 @@ public class ChoiceScreenUtils {
 
     public static ArrayList<String> getCardRewardScreenChoices() {
         ArrayList<String> choices = new ArrayList<>();
-        for(AbstractCard card : AbstractDungeon.cardRewardScreen.rewardGroup) {
+        for(AbstractCard card : game().getCardRewardScreen().rewardGroup) {
             choices.add(card.name.toLowerCase());
         }
         if(isBowlAvailable()) {
@@ -396,29 +400,29 @@ public class ChoiceScreenUtils {
     }
 
     public static boolean isBowlAvailable() {
-        SingingBowlButton bowlButton = (SingingBowlButton) ReflectionHacks.getPrivate(AbstractDungeon.cardRewardScreen, CardRewardScreen.class, "bowlButton");
+        SingingBowlButton bowlButton = (SingingBowlButton) ReflectionHacks.getPrivate(game().getCardRewardScreen(), CardRewardScreen.class, "bowlButton");
         return !((boolean) ReflectionHacks.getPrivate(bowlButton, SingingBowlButton.class, "isHidden"));
     }
 
     public static boolean isCardRewardSkipAvailable() {
-        SkipCardButton skipButton = (SkipCardButton) ReflectionHacks.getPrivate(AbstractDungeon.cardRewardScreen, CardRewardScreen.class, "skipButton");
+        SkipCardButton skipButton = (SkipCardButton) ReflectionHacks.getPrivate(game().getCardRewardScreen(), CardRewardScreen.class, "skipButton");
         return !((boolean) ReflectionHacks.getPrivate(skipButton, SkipCardButton.class, "isHidden"));
     }
 
     public static boolean isCombatRewardCloseAvailable() {
-        CancelButton cancelButton = AbstractDungeon.overlayMenu.cancelButton;
+        CancelButton cancelButton = game().getOverlayMenu().cancelButton;
         return !cancelButton.isHidden;
     }
 
     public static void makeCardRewardChoice(int choice) {
         ArrayList<String> choices = getCardRewardScreenChoices();
         if(choices.get(choice).equals("bowl")) {
-            SingingBowlButton bowlButton = (SingingBowlButton) ReflectionHacks.getPrivate(AbstractDungeon.cardRewardScreen, CardRewardScreen.class, "bowlButton");
+            SingingBowlButton bowlButton = (SingingBowlButton) ReflectionHacks.getPrivate(game().getCardRewardScreen(), CardRewardScreen.class, "bowlButton");
             bowlButton.onClick();
-            AbstractDungeon.cardRewardScreen.closeFromBowlButton();
+            game().getCardRewardScreen().closeFromBowlButton();
             AbstractDungeon.closeCurrentScreen();
         } else {
-            AbstractCard selectedCard = AbstractDungeon.cardRewardScreen.rewardGroup.get(choice);
+            AbstractCard selectedCard = game().getCardRewardScreen().rewardGroup.get(choice);
             CardRewardScreenPatch.doHover = true;
             CardRewardScreenPatch.hoverCard = selectedCard;
             selectedCard.hb.clicked = true;
@@ -427,19 +431,19 @@ public class ChoiceScreenUtils {
 
     public static ArrayList<String> getHandSelectScreenChoices() {
         ArrayList<String> choices = new ArrayList<>();
-        HandCardSelectScreen screen = AbstractDungeon.handCardSelectScreen;
+        HandCardSelectScreen screen = game().getHandCardSelectScreen();
         if(screen.numCardsToSelect == screen.selectedCards.group.size()) {
             return choices;
         }
-        for(AbstractCard card : AbstractDungeon.player.hand.group) {
+        for(AbstractCard card : game().getPlayer().hand.group) {
             choices.add(card.name.toLowerCase());
         }
         return choices;
     }
 
     public static void makeHandSelectScreenChoice(int choice) {
-        HandCardSelectScreen screen = AbstractDungeon.handCardSelectScreen;
-        screen.hoveredCard = AbstractDungeon.player.hand.group.get(choice);
+        HandCardSelectScreen screen = game().getHandCardSelectScreen();
+        screen.hoveredCard = game().getPlayer().hand.group.get(choice);
         screen.hoveredCard.setAngle(0.0f, false); // This might not be necessary
         try {
             Method hotkeyCheck = HandCardSelectScreen.class.getDeclaredMethod("selectHoveredCard");
@@ -452,26 +456,26 @@ public class ChoiceScreenUtils {
     }
 
     private static void clickHandSelectScreenConfirmButton() {
-        HandCardSelectScreen screen = AbstractDungeon.handCardSelectScreen;
+        HandCardSelectScreen screen = game().getHandCardSelectScreen();
         screen.button.hb.clicked = true;
     }
 
     private static boolean isHandSelectConfirmButtonEnabled() {
-        CardSelectConfirmButton button = AbstractDungeon.handCardSelectScreen.button;
+        CardSelectConfirmButton button = game().getHandCardSelectScreen().button;
         boolean isHidden = (boolean)ReflectionHacks.getPrivate(button, CardSelectConfirmButton.class, "isHidden");
         boolean isDisabled = button.isDisabled;
         return !(isHidden || isDisabled);
     }
 
     public static ArrayList<AbstractCard> getGridScreenCards() {
-        GridCardSelectScreen screen = AbstractDungeon.gridSelectScreen;
+        GridCardSelectScreen screen = game().getGridSelectScreen();
         CardGroup cards = (CardGroup) ReflectionHacks.getPrivate(screen, GridCardSelectScreen.class, "targetGroup");
         return cards.group;
     }
 
     public static ArrayList<String> getGridScreenChoices() {
         ArrayList<String> choices = new ArrayList<>();
-        if(AbstractDungeon.gridSelectScreen.confirmScreenUp || AbstractDungeon.gridSelectScreen.isJustForConfirming) {
+        if(game().getGridSelectScreen().confirmScreenUp || game().getGridSelectScreen().isJustForConfirming) {
             return choices;
         }
         for(AbstractCard card : getGridScreenCards()) {
@@ -481,24 +485,24 @@ public class ChoiceScreenUtils {
     }
 
     public static void makeGridScreenChoice (int choice) {
-        GridCardSelectScreen screen = AbstractDungeon.gridSelectScreen;
+        GridCardSelectScreen screen = game().getGridSelectScreen();
         GridCardSelectScreenPatch.hoverCard = getGridScreenCards().get(choice);
         GridCardSelectScreenPatch.replaceHoverCard = true;
     }
 
     private static void clickGridScreenConfirmButton() {
-        GridCardSelectScreen screen = AbstractDungeon.gridSelectScreen;
+        GridCardSelectScreen screen = game().getGridSelectScreen();
         screen.confirmButton.hb.clicked = true;
-        if (AbstractDungeon.previousScreen == AbstractDungeon.CurrentScreen.SHOP) {
+        if (game().getPreviousScreen() == AbstractDungeon.CurrentScreen.SHOP) {
             // The rest of the associated shop purge logic will not run in this update, so we need to block until it does.
             GameStateListener.blockStateUpdate();
         }
     }
 
     private static boolean isGridScreenCancelAvailable() {
-        GridCardSelectScreen screen = AbstractDungeon.gridSelectScreen;
+        GridCardSelectScreen screen = game().getGridSelectScreen();
         boolean canCancel = (boolean)ReflectionHacks.getPrivate(screen, GridCardSelectScreen.class, "canCancel");
-        if(canCancel && (screen.forPurge || screen.forTransform || screen.forUpgrade || (AbstractDungeon.previousScreen == AbstractDungeon.CurrentScreen.SHOP))) {
+        if(canCancel && (screen.forPurge || screen.forTransform || screen.forUpgrade || (game().getPreviousScreen() == AbstractDungeon.CurrentScreen.SHOP))) {
             return true;
         } else {
             return screen.confirmScreenUp;
@@ -506,7 +510,7 @@ public class ChoiceScreenUtils {
     }
 
     private static boolean isGridScreenConfirmAvailable() {
-        GridCardSelectScreen screen = AbstractDungeon.gridSelectScreen;
+        GridCardSelectScreen screen = game().getGridSelectScreen();
         if (screen.confirmScreenUp || screen.isJustForConfirming) {
             return true;
         } else if ((!screen.confirmButton.isDisabled) && (!(boolean)ReflectionHacks.getPrivate(screen.confirmButton, GridSelectConfirmButton.class, "isHidden")) ) {
@@ -519,27 +523,27 @@ public class ChoiceScreenUtils {
 
     public static ArrayList<String> getCombatRewardScreenChoices() {
         ArrayList<String> choices = new ArrayList<>();
-        for(RewardItem reward : AbstractDungeon.combatRewardScreen.rewards) {
+        for(RewardItem reward : game().getCombatRewardScreen().rewards) {
             choices.add(reward.type.name().toLowerCase());
         }
         return choices;
     }
 
     public static void makeCombatRewardChoice(int choice) {
-        RewardItem reward = AbstractDungeon.combatRewardScreen.rewards.get(choice);
+        RewardItem reward = game().getCombatRewardScreen().rewards.get(choice);
         reward.isDone = true;
     }
 
     public static ArrayList<String> getBossRewardScreenChoices() {
         ArrayList<String> choices = new ArrayList<>();
-        for(AbstractRelic relic : AbstractDungeon.bossRelicScreen.relics) {
+        for(AbstractRelic relic : game().getBossRelicScreen().relics) {
             choices.add(relic.name);
         }
         return choices;
     }
 
     public static void makeBossRewardChoice(int choice) {
-        AbstractRelic chosenRelic = AbstractDungeon.bossRelicScreen.relics.get(choice);
+        AbstractRelic chosenRelic = game().getBossRelicScreen().relics.get(choice);
         AbstractRelicUpdatePatch.doHover = true;
         AbstractRelicUpdatePatch.hoverRelic = chosenRelic;
         InputHelper.justClickedLeft = true;
@@ -548,10 +552,10 @@ public class ChoiceScreenUtils {
     public static ArrayList<String> getChestRoomChoices() {
         ArrayList<String> choices = new ArrayList<>();
         AbstractChest chest = null;
-        if (AbstractDungeon.getCurrRoom() instanceof TreasureRoomBoss) {
-            chest = ((TreasureRoomBoss) AbstractDungeon.getCurrRoom()).chest;
-        } else if (AbstractDungeon.getCurrRoom() instanceof TreasureRoom) {
-            chest = ((TreasureRoom) AbstractDungeon.getCurrRoom()).chest;
+        if (game().getCurrentRoom() instanceof TreasureRoomBoss) {
+            chest = ((TreasureRoomBoss) game().getCurrentRoom()).chest;
+        } else if (game().getCurrentRoom() instanceof TreasureRoom) {
+            chest = ((TreasureRoom) game().getCurrentRoom()).chest;
         }
         if (chest != null && !chest.isOpen) {
             choices.add("open");
@@ -560,12 +564,12 @@ public class ChoiceScreenUtils {
     }
 
     public static void makeChestRoomChoice (int choice) {
-        if (AbstractDungeon.getCurrRoom() instanceof TreasureRoomBoss) {
-            AbstractChest chest = ((TreasureRoomBoss) AbstractDungeon.getCurrRoom()).chest;
+        if (game().getCurrentRoom() instanceof TreasureRoomBoss) {
+            AbstractChest chest = ((TreasureRoomBoss) game().getCurrentRoom()).chest;
             chest.isOpen = true;
             chest.open(false);
-        } else if (AbstractDungeon.getCurrRoom() instanceof TreasureRoom) {
-            AbstractChest chest = ((TreasureRoom) AbstractDungeon.getCurrRoom()).chest;
+        } else if (game().getCurrentRoom() instanceof TreasureRoom) {
+            AbstractChest chest = ((TreasureRoom) game().getCurrentRoom()).chest;
             chest.isOpen = true;
             chest.open(false);
         }
@@ -601,7 +605,7 @@ public class ChoiceScreenUtils {
     @SuppressWarnings("unchecked")
     public static ArrayList<AbstractCard> getShopScreenCards() {
         ArrayList<AbstractCard> cards = new ArrayList<>();
-        ShopScreen screen = AbstractDungeon.shopScreen;
+        ShopScreen screen = game().getShopScreen();
         ArrayList<AbstractCard> coloredCards = (ArrayList<AbstractCard>) ReflectionHacks.getPrivate(screen, ShopScreen.class, "coloredCards");
         ArrayList<AbstractCard> colorlessCards = (ArrayList<AbstractCard>) ReflectionHacks.getPrivate(screen, ShopScreen.class, "colorlessCards");
         cards.addAll(coloredCards);
@@ -611,34 +615,34 @@ public class ChoiceScreenUtils {
 
     @SuppressWarnings("unchecked")
     public static ArrayList<StoreRelic> getShopScreenRelics() {
-        ShopScreen screen = AbstractDungeon.shopScreen;
+        ShopScreen screen = game().getShopScreen();
         return (ArrayList<StoreRelic>) ReflectionHacks.getPrivate(screen, ShopScreen.class, "relics");
     }
 
     @SuppressWarnings("unchecked")
     public static ArrayList<StorePotion> getShopScreenPotions() {
-        ShopScreen screen = AbstractDungeon.shopScreen;
+        ShopScreen screen = game().getShopScreen();
         return (ArrayList<StorePotion>) ReflectionHacks.getPrivate(screen, ShopScreen.class, "potions");
     }
 
     private static ArrayList<Object> getAvailableShopItems() {
         ArrayList<Object> choices = new ArrayList<>();
-        ShopScreen screen = AbstractDungeon.shopScreen;
-        if(screen.purgeAvailable && AbstractDungeon.player.gold >= ShopScreen.actualPurgeCost) {
+        ShopScreen screen = game().getShopScreen();
+        if(screen.purgeAvailable && game().getPlayer().gold >= ShopScreen.actualPurgeCost) {
             choices.add("purge");
         }
         for(AbstractCard card : getShopScreenCards()) {
-            if(card.price <= AbstractDungeon.player.gold) {
+            if(card.price <= game().getPlayer().gold) {
                 choices.add(card);
             }
         }
         for(StoreRelic relic : getShopScreenRelics()) {
-            if(relic.price <= AbstractDungeon.player.gold) {
+            if(relic.price <= game().getPlayer().gold) {
                 choices.add(relic);
             }
         }
         for(StorePotion potion : getShopScreenPotions()) {
-            if(potion.price <= AbstractDungeon.player.gold) {
+            if(potion.price <= game().getPlayer().gold) {
                 choices.add(potion);
             }
         }
@@ -650,8 +654,8 @@ public class ChoiceScreenUtils {
         Object shopItem = shopItems.get(choice);
         if (shopItem instanceof String) {
             AbstractDungeon.previousScreen = AbstractDungeon.CurrentScreen.SHOP;
-            AbstractDungeon.gridSelectScreen.open(
-                    CardGroup.getGroupWithoutBottledCards(AbstractDungeon.player.masterDeck.getPurgeableCards()),
+            game().getGridSelectScreen().open(
+                    CardGroup.getGroupWithoutBottledCards(game().getPlayer().masterDeck.getPurgeableCards()),
                     1, ShopScreen.NAMES[13], false, false, true, true);
         } else if (shopItem instanceof AbstractCard) {
             AbstractCard card = (AbstractCard)shopItem;
@@ -668,13 +672,13 @@ public class ChoiceScreenUtils {
     }
 
     private static void clickProceedButton() {
-        AbstractDungeon.overlayMenu.proceedButton.show();
-        Hitbox hb = (Hitbox) ReflectionHacks.getPrivate(AbstractDungeon.overlayMenu.proceedButton, ProceedButton.class, "hb");
+        game().getOverlayMenu().proceedButton.show();
+        Hitbox hb = (Hitbox) ReflectionHacks.getPrivate(game().getOverlayMenu().proceedButton, ProceedButton.class, "hb");
         hb.clicked = true;
     }
 
     private static void clickCancelButton() {
-        AbstractDungeon.overlayMenu.cancelButton.hb.clicked = true;
+        game().getOverlayMenu().cancelButton.hb.clicked = true;
     }
 
     private static void setCursorPosition(float x, float y) {
@@ -683,20 +687,20 @@ public class ChoiceScreenUtils {
     }
 
     public static boolean bossNodeAvailable() {
-        MapRoomNode currMapNode = AbstractDungeon.getCurrMapNode();
-        return (currMapNode.y == 14 || (AbstractDungeon.id.equals(TheEnding.ID) && currMapNode.y == 2));
+        MapRoomNode currMapNode = game().getCurrentMapNode();
+        return (currMapNode.y == 14 || (game().getDungeonId().equals(TheEnding.ID) && currMapNode.y == 2));
     }
 
     public static ArrayList<String> getMapScreenChoices() {
         ArrayList<String> choices = new ArrayList<>();
 
         // Only allow navigation when room is complete
-        if (AbstractDungeon.getCurrRoom() != null
-                && AbstractDungeon.getCurrRoom().phase != AbstractRoom.RoomPhase.COMPLETE) {
+        if (game().getCurrentRoom() != null
+                && game().getCurrentRoom().phase != AbstractRoom.RoomPhase.COMPLETE) {
             return choices;
         }
 
-        MapRoomNode currMapNode = AbstractDungeon.getCurrMapNode();
+        MapRoomNode currMapNode = game().getCurrentMapNode();
         if(bossNodeAvailable()) {
             choices.add("boss");
             return choices;
@@ -710,9 +714,9 @@ public class ChoiceScreenUtils {
 
     public static ArrayList<MapRoomNode> getMapScreenNodeChoices() {
         ArrayList<MapRoomNode> choices = new ArrayList<>();
-        MapRoomNode currMapNode = AbstractDungeon.getCurrMapNode();
-        ArrayList<ArrayList<MapRoomNode>> map = AbstractDungeon.map;
-        if(!AbstractDungeon.firstRoomChosen) {
+        MapRoomNode currMapNode = game().getCurrentMapNode();
+        ArrayList<ArrayList<MapRoomNode>> map = game().getMap();
+        if(!game().isFirstRoomChosen()) {
             for(MapRoomNode node : map.get(0)) {
                 if (node.hasEdges()) {
                     choices.add(node);
@@ -735,8 +739,8 @@ public class ChoiceScreenUtils {
     }
 
     public static void makeMapChoice(int choice) {
-        MapRoomNode currMapNode = AbstractDungeon.getCurrMapNode();
-        if(currMapNode.y == 14 || (AbstractDungeon.id.equals(TheEnding.ID) && currMapNode.y == 2)) {
+        MapRoomNode currMapNode = game().getCurrentMapNode();
+        if(currMapNode.y == 14 || (game().getDungeonId().equals(TheEnding.ID) && currMapNode.y == 2)) {
             if(choice == 0) {
                 DungeonMapPatch.doBossHover = true;
                 return;
@@ -747,13 +751,14 @@ public class ChoiceScreenUtils {
         ArrayList<MapRoomNode> nodeChoices = getMapScreenNodeChoices();
         MapRoomNodeHoverPatch.hoverNode = nodeChoices.get(choice);
         MapRoomNodeHoverPatch.doHover = true;
-        AbstractDungeon.dungeonMapScreen.clicked = true;
+        game().getDungeonMapScreen().clicked = true;
     }
 
+    private static final Pattern optionNamePattern = Pattern.compile("\\[(.*?)\\]");
+
     public static String getOptionName(String input) {
-        String unformatted = input.replaceAll("#.|NL", "");
-        Pattern regex = Pattern.compile("\\[(.*?)\\]");
-        Matcher matcher = regex.matcher(unformatted);
+        String unformatted = TextFormatter.removeColorCodes(input);
+        Matcher matcher = optionNamePattern.matcher(unformatted);
         if(matcher.find()) {
             return matcher.group(1).trim();
         } else {
@@ -767,7 +772,7 @@ public class ChoiceScreenUtils {
         if (genericShown) {
             return EventDialogType.IMAGE;
         }
-        boolean roomShown = (boolean) ReflectionHacks.getPrivate(AbstractDungeon.getCurrRoom().event.roomEventText, RoomEventDialog.class, "show");
+        boolean roomShown = (boolean) ReflectionHacks.getPrivate(game().getCurrentRoom().event.roomEventText, RoomEventDialog.class, "show");
         if (roomShown) {
             return EventDialogType.ROOM;
         } else {
@@ -779,7 +784,7 @@ public class ChoiceScreenUtils {
         EventDialogType eventType = getEventDialogType();
         switch(eventType) {
             case IMAGE:
-                return AbstractDungeon.getCurrRoom().event.imageEventText.optionList;
+                return game().getCurrentRoom().event.imageEventText.optionList;
             case ROOM:
                 return RoomEventDialog.optionList;
             default:
@@ -806,9 +811,9 @@ public class ChoiceScreenUtils {
             for(LargeDialogOptionButton button : activeButtons) {
                 choiceList.add(getOptionName(button.msg).toLowerCase());
             }
-        } else if(AbstractDungeon.getCurrRoom().event instanceof GremlinWheelGame) {
+        } else if(game().getCurrentRoom().event instanceof GremlinWheelGame) {
             choiceList.add("spin");
-        } else if(AbstractDungeon.getCurrRoom().event instanceof GremlinMatchGame) {
+        } else if(game().getCurrentRoom().event instanceof GremlinMatchGame) {
             ArrayList<AbstractCard> pickableCards = GremlinMatchGamePatch.getOrderedCards();
             for (AbstractCard c : pickableCards) {
                 if (GremlinMatchGamePatch.revealedCards.contains(c.uuid)) {
@@ -825,11 +830,11 @@ public class ChoiceScreenUtils {
         ArrayList<LargeDialogOptionButton> activeButtons = getActiveEventButtons();
         if (activeButtons.size() > 0) {
             activeButtons.get(choice).pressed = true;
-        } else if (AbstractDungeon.getCurrRoom().event instanceof GremlinWheelGame) {
-            GremlinWheelGame event = (GremlinWheelGame) AbstractDungeon.getCurrRoom().event;
+        } else if (game().getCurrentRoom().event instanceof GremlinWheelGame) {
+            GremlinWheelGame event = (GremlinWheelGame) game().getCurrentRoom().event;
             ReflectionHacks.setPrivate(event, GremlinWheelGame.class, "buttonPressed", true);
             CardCrawlGame.sound.play("WHEEL");
-        } else if (AbstractDungeon.getCurrRoom().event instanceof GremlinMatchGame) {
+        } else if (game().getCurrentRoom().event instanceof GremlinMatchGame) {
             ArrayList<AbstractCard> pickable = GremlinMatchGamePatch.getOrderedCards();
             GremlinMatchGamePatch.HoverCardPatch.hoverCard = pickable.get(choice);
             GremlinMatchGamePatch.HoverCardPatch.doHover = true;
@@ -848,19 +853,19 @@ public class ChoiceScreenUtils {
     public static void makeRestRoomChoice(int choice_index) {
         ArrayList<AbstractCampfireOption> buttons = getValidRestRoomButtons();
         AbstractCampfireOption button = buttons.get(choice_index);
-        RestRoom room = (RestRoom) AbstractDungeon.getCurrRoom();
+        RestRoom room = (RestRoom) game().getCurrentRoom();
         button.useOption();
         room.campfireUI.somethingSelected = true;
     }
 
     private static boolean isRestRoomProceedAvailable() {
-        return AbstractDungeon.getCurrRoom().phase == AbstractRoom.RoomPhase.COMPLETE;
+        return game().getCurrentRoom().phase == AbstractRoom.RoomPhase.COMPLETE;
     }
 
     @SuppressWarnings("unchecked")
     private static ArrayList<AbstractCampfireOption> getValidRestRoomButtons() {
         ArrayList<AbstractCampfireOption> choiceList = new ArrayList<>();
-        RestRoom room = (RestRoom) AbstractDungeon.getCurrRoom();
+        RestRoom room = (RestRoom) game().getCurrentRoom();
         if(!isRestRoomProceedAvailable()) {
             ArrayList<AbstractCampfireOption> buttons = (ArrayList<AbstractCampfireOption>) ReflectionHacks.getPrivate(room.campfireUI, CampfireUI.class, "buttons");
             for (AbstractCampfireOption button : buttons) {
@@ -30,6 +30,10 @@ public class CommandExecutor {
 
     private static final Logger logger = LogManager.getLogger(CommandExecutor.class.getName());
 
+    private static GameAccess game() {
+        return GameAccessProvider.get();
+    }
+
     public static boolean executeCommand(String command) throws InvalidCommandException {
         command = command.toLowerCase();
         String [] tokens = command.split("\\s+");
@@ -126,22 +130,24 @@ public class CommandExecutor {
             return isConfirmCommandAvailable();
         } else if (command.equals("skip") || command.equals("cancel") || command.equals("return") || command.equals("leave")) {
             return isCancelCommandAvailable();
+        } else if (command.startsWith("choose ") && MultiChoice.isMultiChoice(command.substring(7).trim())) {
+            return isChooseCommandAvailable();
         } else {
             return getAvailableCommands().contains(command);
         }
     }
 
     public static boolean isInDungeon() {
-        return CardCrawlGame.mode == CardCrawlGame.GameMode.GAMEPLAY && AbstractDungeon.isPlayerInDungeon() && AbstractDungeon.currMapNode != null;
+        return game().getGameMode() == CardCrawlGame.GameMode.GAMEPLAY && game().isPlayerInDungeon() && game().getCurrentMapNode() != null;
     }
 
     private static boolean isPlayCommandAvailable() {
         if(isInDungeon()) {
-            if(AbstractDungeon.getCurrRoom().phase == AbstractRoom.RoomPhase.COMBAT && !AbstractDungeon.isScreenUp) {
+            if(game().getCurrentRoom().phase == AbstractRoom.RoomPhase.COMBAT && !game().isScreenUp()) {
                 // Play command is not available if none of the cards are playable.
                 // TODO: this does not check the case where there is no legal target for a target card.
-                for (AbstractCard card : AbstractDungeon.player.hand.group) {
-                    if (card.canUse(AbstractDungeon.player, null)) {
+                for (AbstractCard card : game().getPlayer().hand.group) {
+                    if (card.canUse(game().getPlayer(), null)) {
                         return true;
                     }
                 }
@@ -151,7 +157,7 @@ public class CommandExecutor {
     }
 
     public static boolean isEndCommandAvailable() {
-        return isInDungeon() && AbstractDungeon.getCurrRoom().phase == AbstractRoom.RoomPhase.COMBAT && !AbstractDungeon.isScreenUp;
+        return isInDungeon() && game().getCurrentRoom().phase == AbstractRoom.RoomPhase.COMBAT && !game().isScreenUp();
     }
 
     public static boolean isChooseCommandAvailable() {
@@ -164,7 +170,7 @@ public class CommandExecutor {
 
     public static boolean isPotionCommandAvailable() {
         if(isInDungeon()) {
-            for(AbstractPotion potion : AbstractDungeon.player.potions) {
+            for(AbstractPotion potion : game().getPlayer().potions) {
                 if(!(potion instanceof PotionSlot)) {
                     return true;
                 }
@@ -190,7 +196,7 @@ public class CommandExecutor {
     }
 
     public static boolean isStartCommandAvailable() {
-        return !isInDungeon() && CardCrawlGame.mainMenuScreen != null;
+        return !isInDungeon() && game().getMainMenuScreen() != null;
     }
 
     private static void executeStateCommand() {
@@ -210,7 +216,7 @@ public class CommandExecutor {
         if(card_index == 0) {
             card_index = 10;
         }
-        if((card_index < 1) || (card_index > AbstractDungeon.player.hand.size())) {
+        if((card_index < 1) || (card_index > game().getPlayer().hand.size())) {
             throw new InvalidCommandException(tokens, InvalidCommandException.InvalidCommandFormat.OUT_OF_BOUNDS, Integer.toString(card_index));
         }
         int monster_index = -1;
@@ -223,28 +229,28 @@ public class CommandExecutor {
         }
         AbstractMonster target_monster = null;
         if (monster_index != -1) {
-            if (monster_index < 0 || monster_index >= AbstractDungeon.getCurrRoom().monsters.monsters.size()) {
+            if (monster_index < 0 || monster_index >= game().getCurrentRoom().monsters.monsters.size()) {
                 throw new InvalidCommandException(tokens, InvalidCommandException.InvalidCommandFormat.OUT_OF_BOUNDS, Integer.toString(monster_index));
             } else {
-                target_monster = AbstractDungeon.getCurrRoom().monsters.monsters.get(monster_index);
+                target_monster = game().getCurrentRoom().monsters.monsters.get(monster_index);
             }
         }
-        if((card_index < 1) || (card_index > AbstractDungeon.player.hand.size()) || !(AbstractDungeon.player.hand.group.get(card_index - 1).canUse(AbstractDungeon.player, target_monster))) {
+        if((card_index < 1) || (card_index > game().getPlayer().hand.size()) || !(game().getPlayer().hand.group.get(card_index - 1).canUse(game().getPlayer(), target_monster))) {
             throw new InvalidCommandException("Selected card cannot be played with the selected target.");
         }
-        AbstractCard card = AbstractDungeon.player.hand.group.get(card_index - 1);
+        AbstractCard card = game().getPlayer().hand.group.get(card_index - 1);
         if(card.target == AbstractCard.CardTarget.ENEMY || card.target == AbstractCard.CardTarget.SELF_AND_ENEMY) {
             if(target_monster == null) {
                 throw new InvalidCommandException("Selected card requires an enemy target.");
             }
-            AbstractDungeon.actionManager.cardQueue.add(new CardQueueItem(card, target_monster));
+            game().getActionManager().cardQueue.add(new CardQueueItem(card, target_monster));
         } else {
-            AbstractDungeon.actionManager.cardQueue.add(new CardQueueItem(card, null));
+            game().getActionManager().cardQueue.add(new CardQueueItem(card, null));
         }
     }
 
     private static void executeEndCommand() throws InvalidCommandException {
-        AbstractDungeon.overlayMenu.endTurnButton.disable(true);
+        game().getOverlayMenu().endTurnButton.disable(true);
     }
 
     private static void executeChooseCommand(String[] tokens) throws InvalidCommandException {
@@ -252,6 +258,11 @@ public class CommandExecutor {
         if(validChoices.size() == 0) {
             throw new InvalidCommandException("The choice command is not implemented on this screen.");
         }
+        String argument = merge_arguments(tokens);
+        if (MultiChoice.isMultiChoice(argument)) {
+            MultiChoice.execute(argument);
+            return;
+        }
         int choice_index = getValidChoiceIndex(tokens, validChoices);
         ChoiceScreenUtils.executeChoice(choice_index);
     }
@@ -274,10 +285,10 @@ public class CommandExecutor {
         } catch (NumberFormatException e) {
             throw new InvalidCommandException(tokens, InvalidCommandException.InvalidCommandFormat.INVALID_ARGUMENT, tokens[2]);
         }
-        if(potion_index < 0 || potion_index >= AbstractDungeon.player.potionSlots) {
+        if(potion_index < 0 || potion_index >= game().getPlayer().potionSlots) {
             throw new InvalidCommandException("Potion index out of bounds.");
         }
-        AbstractPotion selectedPotion = AbstractDungeon.player.potions.get(potion_index);
+        AbstractPotion selectedPotion = game().getPlayer().potions.get(potion_index);
         if(selectedPotion instanceof PotionSlot) {
             throw new InvalidCommandException("No potion in the selected slot.");
         }
@@ -299,20 +310,20 @@ public class CommandExecutor {
                 } catch (NumberFormatException e) {
                     throw new InvalidCommandException(tokens, InvalidCommandException.InvalidCommandFormat.INVALID_ARGUMENT, tokens[3]);
                 }
-                if (monster_index < 0 || monster_index >= AbstractDungeon.getCurrRoom().monsters.monsters.size()) {
+                if (monster_index < 0 || monster_index >= game().getCurrentRoom().monsters.monsters.size()) {
                     throw new InvalidCommandException(tokens, InvalidCommandException.InvalidCommandFormat.OUT_OF_BOUNDS, Integer.toString(monster_index));
                 } else {
-                    target_monster = AbstractDungeon.getCurrRoom().monsters.monsters.get(monster_index);
+                    target_monster = game().getCurrentRoom().monsters.monsters.get(monster_index);
                 }
                 selectedPotion.use(target_monster);
             } else {
-                selectedPotion.use(AbstractDungeon.player);
+                selectedPotion.use(game().getPlayer());
             }
-            for (AbstractRelic r : AbstractDungeon.player.relics) {
+            for (AbstractRelic r : game().getPlayer().relics) {
                 r.onUsePotion();
             }
         }
-        AbstractDungeon.topPanel.destroyPotion(selectedPotion.slot);
+        game().getTopPanel().destroyPotion(selectedPotion.slot);
         GameStateListener.registerStateChange();
     }
 
@@ -377,8 +388,8 @@ public class CommandExecutor {
         AbstractDungeon.ascensionLevel = ascensionLevel;
         AbstractDungeon.isAscensionMode = ascensionLevel > 0;
         CardCrawlGame.startOver = true;
-        CardCrawlGame.mainMenuScreen.isFadingOut = true;
-        CardCrawlGame.mainMenuScreen.fadeOutMusic();
+        game().getMainMenuScreen().isFadingOut = true;
+        game().getMainMenuScreen().fadeOutMusic();
         CharacterManager manager = new CharacterManager();
         manager.setChosenCharacter(selectedClass);
         CardCrawlGame.chosenCharacter = selectedClass;
@@ -473,6 +484,14 @@ public class CommandExecutor {
     }
 
     public static void executeStartOver(String[] tokens) {
+        startOver();
+        GameStateListener.setTimeout(200);
+    }
+
+    /**
+     * Abandons the current run and returns to the main menu, without waiting for the state to be reported.
+     */
+    public static void startOver() {
         //Copying the functionality from VictoryScreen.update(), always skipping credits
         AbstractDungeon.unlocks.clear();
         Settings.isTrial = false;
@@ -480,8 +499,6 @@ public class CommandExecutor {
         Settings.isEndless = false;
         CardCrawlGame.trial = null;
         CardCrawlGame.startOver();
-
-        GameStateListener.setTimeout(200);
     }
 
     private static int getKeycode(String keyName) {
@@ -608,7 +625,7 @@ public class CommandExecutor {
             return commands;
         }
 
-        ArrayList<AbstractCard> hand = AbstractDungeon.player.hand.group;
+        ArrayList<AbstractCard> hand = game().getPlayer().hand.group;
         for (int cardIndex = 0; cardIndex < hand.size(); cardIndex++) {
             AbstractCard card = hand.get(cardIndex);
             int displayIndex = cardIndex + 1;
@@ -616,15 +633,15 @@ public class CommandExecutor {
             // Check if card requires a target
             if (card.target == AbstractCard.CardTarget.ENEMY || card.target == AbstractCard.CardTarget.SELF_AND_ENEMY) {
                 // Enumerate all valid monster targets
-                for (int monsterIndex = 0; monsterIndex < AbstractDungeon.getCurrRoom().monsters.monsters.size(); monsterIndex++) {
-                    AbstractMonster monster = AbstractDungeon.getCurrRoom().monsters.monsters.get(monsterIndex);
-                    if (card.canUse(AbstractDungeon.player, monster)) {
+                for (int monsterIndex = 0; monsterIndex < game().getCurrentRoom().monsters.monsters.size(); monsterIndex++) {
+                    AbstractMonster monster = game().getCurrentRoom().monsters.monsters.get(monsterIndex);
+                    if (card.canUse(game().getPlayer(), monster)) {
                         commands.add("play " + displayIndex + " " + monsterIndex);
                     }
                 }
             } else {
                 // Card doesn't require a target
-                if (card.canUse(AbstractDungeon.player, null)) {
+                if (card.canUse(game().getPlayer(), null)) {
                     commands.add("play " + displayIndex);
                 }
             }
@@ -664,8 +681,8 @@ public class CommandExecutor {
             return commands;
         }
 
-        for (int potionIndex = 0; potionIndex < AbstractDungeon.player.potionSlots; potionIndex++) {
-            AbstractPotion potion = AbstractDungeon.player.potions.get(potionIndex);
+        for (int potionIndex = 0; potionIndex < game().getPlayer().potionSlots; potionIndex++) {
+            AbstractPotion potion = game().getPlayer().potions.get(potionIndex);
 
             // Skip empty potion slots
             if (potion instanceof PotionSlot) {
@@ -676,7 +693,7 @@ public class CommandExecutor {
             if (potion.canUse()) {
                 if (potion.targetRequired) {
                     // Enumerate all valid monster targets
-                    for (int monsterIndex = 0; monsterIndex < AbstractDungeon.getCurrRoom().monsters.monsters.size(); monsterIndex++) {
+                    for (int monsterIndex = 0; monsterIndex < game().getCurrentRoom().monsters.monsters.size(); monsterIndex++) {
                         commands.add("potion use " + potionIndex + " " + monsterIndex);
                     }
                 } else {
@@ -1,6 +1,5 @@
 package httpcommunicationmod;
 
-import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.apache.logging.log4j.LogManager;
@@ -11,11 +10,22 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 
 public class CommandHandler implements HttpHandler {
     private static final Logger logger = LogManager.getLogger(CommandHandler.class.getName());
 
+    private static final JsonStateWriter.Key SUCCESS = new JsonStateWriter.Key("success");
+    private static final JsonStateWriter.Key COMMAND = new JsonStateWriter.Key("command");
+    private static final JsonStateWriter.Key STATE_CHANGED = new JsonStateWriter.Key("state_changed");
+    private static final JsonStateWriter.Key ERROR = new JsonStateWriter.Key("error");
+    private static final JsonStateWriter.Key GAME_STATE = new JsonStateWriter.Key("game_state");
+
+    private final GameAccess game;
+
+    public CommandHandler(GameAccess game) {
+        this.game = game;
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         String method = exchange.getRequestMethod();
@@ -35,17 +45,19 @@ public class CommandHandler implements HttpHandler {
                 return;
             }
 
+            StateOptions options = StateOptions.fromQuery(exchange.getRequestURI().getRawQuery());
+            if (!game.supports(options)) {
+                sendBadRequest(exchange, "State options are not supported by this server");
+                return;
+            }
+
             logger.info("Executing command: " + command);
 
             // Log command to file
-            HttpCommunicationMod.logCommand(command.trim());
+            CommunicationLog.logCommand(command.trim());
 
             // Execute command and get response
-            HashMap<String, Object> response = executeCommand(command.trim());
-
-            // Send JSON response
-            Gson gson = new Gson();
-            String jsonResponse = gson.toJson(response);
+            String jsonResponse = executeCommand(command.trim(), options);
 
             exchange.getResponseHeaders().set("Content-Type", "application/json");
             exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
@@ -81,51 +93,53 @@ public class CommandHandler implements HttpHandler {
         }
     }
 
-    private HashMap<String, Object> executeCommand(String command) {
-        HashMap<String, Object> response = new HashMap<>();
+    /**
+     * Executes the command and writes the response envelope. The game state is already JSON, so it is spliced in as
+     * a raw value rather than parsed and written again.
+     */
+    private String executeCommand(String command, StateOptions options) {
+        JsonStateWriter writer = new JsonStateWriter();
+        writer.beginObject();
 
         try {
             // Execute the command using existing CommandExecutor
-            boolean stateChanged = CommandExecutor.executeCommand(command);
-
-            // Build successful response
-            response.put("success", true);
-            response.put("command", command);
-            response.put("state_changed", stateChanged);
+            boolean stateChanged = game.executeCommand(command);
 
             // Include current game state in response
-            String currentState = HttpCommunicationMod.getCurrentGameState();
-            Gson gson = new Gson();
-            Object gameStateObject = gson.fromJson(currentState, Object.class);
-            response.put("game_state", gameStateObject);
+            String currentState = game.getState(options);
 
             if (stateChanged) {
-                GameStateListener.registerCommandExecution();
+                game.registerCommandExecution();
             }
 
+            // Build successful response
+            writer.name(SUCCESS).value(true);
+            writer.name(COMMAND).value(command);
+            writer.name(STATE_CHANGED).value(stateChanged);
+            writer.name(GAME_STATE).rawValue(currentState);
+
         } catch (InvalidCommandException e) {
             // Build error response
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            response.put("command", command);
+            writer.name(SUCCESS).value(false);
+            writer.name(ERROR).value(e.getMessage());
+            writer.name(COMMAND).value(command);
 
             // Still include current game state even on error
             try {
-                String currentState = HttpCommunicationMod.getCurrentGameState();
-                Gson gson = new Gson();
-                Object gameStateObject = gson.fromJson(currentState, Object.class);
-                response.put("game_state", gameStateObject);
+                String currentState = game.getState(options);
+                writer.name(GAME_STATE).rawValue(currentState);
             } catch (Exception stateException) {
                 logger.error("Error getting game state for error response: " + stateException.getMessage());
             }
         } catch (Exception e) {
             // Build general error response
-            response.put("success", false);
-            response.put("error", "Unexpected error: " + e.getMessage());
-            response.put("command", command);
+            writer.name(SUCCESS).value(false);
+            writer.name(ERROR).value("Unexpected error: " + e.getMessage());
+            writer.name(COMMAND).value(command);
         }
 
-        return response;
+        writer.endObject();
+        return writer.toString();
     }
 
     private void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
@@ -0,0 +1,80 @@
+package httpcommunicationmod;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Commands from transports other than the HTTP handlers, executed on the game thread.
+ * Transports submit commands from any thread, and the mod drains the queue in receivePreUpdate.
+ */
+public class CommandQueue {
+    private static final Logger logger = LogManager.getLogger(CommandQueue.class.getName());
+
+    private static final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Receives the outcome of a queued command, on the game thread.
+     */
+    public interface Callback {
+        /**
+         * @param command The executed command
+         * @param stateChanged Whether the command changes the game state. If so, the next stable state is published
+         *                     through OnStateChangeSubscriber.
+         * @param error The reason the command failed, or null if it was executed
+         */
+        void onExecuted(String command, boolean stateChanged, String error);
+    }
+
+    /**
+     * Queues a command for the next frame.
+     * @param command The command, as accepted by POST /command
+     * @param callback Receives the outcome, or null
+     */
+    public static void submit(String command, Callback callback) {
+        queue.add(new Entry(command.trim(), callback));
+    }
+
+    /**
+     * Executes the queued commands. Must be called on the game thread.
+     */
+    public static void drain() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            execute(entry);
+        }
+    }
+
+    private static void execute(Entry entry) {
+        GameAccess game = GameAccessProvider.get();
+        CommunicationLog.logCommand(entry.command);
+        boolean stateChanged = false;
+        String error = null;
+        try {
+            stateChanged = game.executeCommand(entry.command);
+            if (stateChanged) {
+                game.registerCommandExecution();
+            }
+        } catch (InvalidCommandException e) {
+            error = e.getMessage();
+            logger.error("Error executing command: " + error);
+        } catch (Exception e) {
+            error = "Error executing command: " + e.getMessage();
+            logger.error(error, e);
+        }
+        if (entry.callback != null) {
+            entry.callback.onExecuted(entry.command, stateChanged, error);
+        }
+    }
+
+    private static class Entry {
+        private final String command;
+        private final Callback callback;
+
+        Entry(String command, Callback callback) {
+            this.command = command;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package httpcommunicationmod;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Writes the states and commands sent through the HTTP API to the log file (HTTP_MOD_LOG_PATH).
+ */
+public class CommunicationLog {
+    private static final Logger logger = LogManager.getLogger(CommunicationLog.class.getName());
+
+    private static final String DEFAULT_LOG_PATH = "http_mod.log";
+
+    private static String logFilePath;
+    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+    public static void initialize() {
+        String envLogPath = System.getenv("HTTP_MOD_LOG_PATH");
+        if (envLogPath != null && !envLogPath.trim().isEmpty()) {
+            logFilePath = envLogPath.trim();
+            logger.info("Using HTTP_MOD_LOG_PATH environment variable: " + logFilePath);
+        } else {
+            logFilePath = DEFAULT_LOG_PATH;
+            logger.info("HTTP_MOD_LOG_PATH environment variable not set, using default: " + logFilePath);
+        }
+
+        try {
+            if (logFilePath.contains("/") || logFilePath.contains("\\")) {
+                String directory = Paths.get(logFilePath).getParent().toString();
+                Files.createDirectories(Paths.get(directory));
+            }
+            logger.info("File logging initialized with path: " + logFilePath);
+        } catch (IOException e) {
+            logger.error("Failed to initialize log file directory: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public static void logGameState(String gameState) {
+        if (logFilePath == null)
+            return;
+
+        String timestamp = dateFormat.format(new Date());
+        String logEntry = String.format("[%s] GAME_STATE: %s%n", timestamp, gameState);
+        writeToLogFile(logEntry);
+    }
+
+    public static void logCommand(String command) {
+        if (logFilePath == null)
+            return;
+
+        String timestamp = dateFormat.format(new Date());
+        String logEntry = String.format("[%s] COMMAND: %s%n", timestamp, command);
+        writeToLogFile(logEntry);
+    }
+
+    /**
+     * Logs a command that the mod executed by itself, such as a forced move. Replays skip these lines.
+     */
+    public static void logAutoCommand(String command) {
+        if (logFilePath == null)
+            return;
+
+        String timestamp = dateFormat.format(new Date());
+        String logEntry = String.format("[%s] AUTO_COMMAND: %s%n", timestamp, command);
+        writeToLogFile(logEntry);
+    }
+
+    private static synchronized void writeToLogFile(String content) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(logFilePath, true))) {
+            writer.print(content);
+        } catch (IOException e) {
+            logger.error("Failed to write to log file: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public static String getCurrentLogPath() {
+        return logFilePath;
+    }
+}
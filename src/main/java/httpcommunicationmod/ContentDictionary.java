@@ -0,0 +1,358 @@
+package httpcommunicationmod;
+
+import basemod.BaseMod;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.events.AbstractEvent;
+import com.megacrit.cardcrawl.helpers.CardLibrary;
+import com.megacrit.cardcrawl.helpers.PotionHelper;
+import com.megacrit.cardcrawl.helpers.RelicLibrary;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.relics.AbstractRelic;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Assigns small integer codes to the string IDs used by the game (cards, relics, potions, powers, monsters, events).
+ * Codes for content known to the game's registries are assigned in sorted ID order when the dictionary is built,
+ * so they are stable across runs as long as the installed content does not change. The game has no registry of
+ * monsters and events, so their IDs are read from the classes of the game jar. IDs that are only seen at runtime
+ * (for example monsters and events added by mods, or content from mods that bypass the registries) are appended
+ * after the registered ones in the order they are first encountered.
+ * Code 0 is reserved for "no content" (empty slot, null ID, or a dictionary that has not been built yet).
+ *
+ * Code lookups run on the game thread during state capture, so they do not lock: the codes are kept in concurrent
+ * maps, and the lock is only taken to assign a code to a new ID or to copy the ID lists.
+ */
+public class ContentDictionary {
+
+    private static final Logger logger = LogManager.getLogger(ContentDictionary.class.getName());
+
+    static final String NEOW_EVENT_ID = "Neow Event";
+
+    public enum Category {
+        CARD,
+        RELIC,
+        POTION,
+        POWER,
+        MONSTER,
+        EVENT
+    }
+
+    private static class Table {
+        // Guarded by the ContentDictionary class lock
+        private final ArrayList<String> ids = new ArrayList<>();
+        private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>();
+        // Static metadata of the registered IDs, filled by initialize() and read-only afterwards
+        private final HashMap<String, HashMap<String, Object>> metadata = new HashMap<>();
+    }
+
+    // Replaced as a whole by initialize(), null until then
+    private static volatile EnumMap<Category, Table> tables = null;
+    private static volatile String checksum = "";
+
+    /**
+     * Builds the dictionary from the game's content registries. Must be called after the game has loaded its
+     * content (i.e. from receivePostInitialize), otherwise the registered codes would be incomplete.
+     * The static metadata of cards, relics and potions is read here, on the game thread, since reading it creates
+     * content instances, and getDictionary serves the stored copy.
+     */
+    public static synchronized void initialize() {
+        EnumMap<Category, Table> newTables = new EnumMap<>(Category.class);
+        newTables.put(Category.CARD, register(CardLibrary.cards.keySet()));
+        newTables.put(Category.RELIC, register(BaseMod.listAllRelicIDs()));
+        newTables.put(Category.POTION, register(PotionHelper.getPotions(null, true)));
+        newTables.put(Category.POWER, register(BaseMod.getPowerKeys()));
+        newTables.put(Category.MONSTER, register(getGameIds(AbstractMonster.class, "com/megacrit/cardcrawl/monsters/")));
+        ArrayList<String> eventIds = getGameIds(AbstractEvent.class, "com/megacrit/cardcrawl/events/");
+        // GameStateConverter names the Neow event itself, since NeowEvent has no ID
+        eventIds.add(NEOW_EVENT_ID);
+        newTables.put(Category.EVENT, register(eventIds));
+        addMetadata(newTables);
+        checksum = computeChecksum(newTables);
+        tables = newTables;
+        for (Category category : Category.values()) {
+            logger.info("Content dictionary: " + newTables.get(category).ids.size() + " " + category.name().toLowerCase() + " ids");
+        }
+    }
+
+    /**
+     * Reads the static "ID" field of every concrete subclass of the given class in a package of the game jar, as
+     * the base game declares one in each monster and event. Reading the field loads the class.
+     * @param base The class the content extends
+     * @param packagePath The package to look into, with its subpackages, as a jar entry prefix
+     * @return The IDs found, or an empty list if the game jar cannot be read
+     */
+    private static ArrayList<String> getGameIds(Class<?> base, String packagePath) {
+        ArrayList<String> ids = new ArrayList<>();
+        CodeSource source = base.getProtectionDomain().getCodeSource();
+        if (source == null) {
+            logger.warn("Could not locate the game jar for " + base.getSimpleName() + " ids");
+            return ids;
+        }
+        try (JarFile jar = new JarFile(new File(source.getLocation().toURI()))) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (!name.startsWith(packagePath) || !name.endsWith(".class") || name.contains("$")) {
+                    continue;
+                }
+                String className = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+                try {
+                    Class<?> contentClass = Class.forName(className, false, base.getClassLoader());
+                    if (!base.isAssignableFrom(contentClass) || Modifier.isAbstract(contentClass.getModifiers())) {
+                        continue;
+                    }
+                    Field idField = contentClass.getDeclaredField("ID");
+                    if (Modifier.isStatic(idField.getModifiers()) && idField.getType() == String.class) {
+                        idField.setAccessible(true);
+                        String id = (String) idField.get(null);
+                        if (id != null) {
+                            ids.add(id);
+                        }
+                    }
+                } catch (NoSuchFieldException e) {
+                    // Not every class in the package is content with an ID
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    logger.warn("Could not read the ID of " + className + ": " + e);
+                }
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            logger.warn("Could not read " + base.getSimpleName() + " ids from the game jar: " + e);
+        }
+        return ids;
+    }
+
+    private static Table register(Collection<String> registeredIds) {
+        Table table = new Table();
+        for (String id : new TreeSet<>(registeredIds)) {
+            table.ids.add(id);
+            table.codes.put(id, table.ids.size());
+        }
+        return table;
+    }
+
+    private static void addMetadata(EnumMap<Category, Table> newTables) {
+        Table cards = newTables.get(Category.CARD);
+        for (String id : cards.ids) {
+            AbstractCard card = CardLibrary.getCard(id);
+            if (card != null) {
+                HashMap<String, Object> entry = new HashMap<>();
+                entry.put("name", card.name);
+                entry.put("type", card.type.name());
+                entry.put("rarity", card.rarity.name());
+                entry.put("color", card.color.name());
+                entry.put("cost", card.cost);
+                entry.put("has_target", card.target == AbstractCard.CardTarget.SELF_AND_ENEMY || card.target == AbstractCard.CardTarget.ENEMY);
+                cards.metadata.put(id, entry);
+            }
+        }
+        Table relics = newTables.get(Category.RELIC);
+        for (String id : relics.ids) {
+            if (RelicLibrary.isARelic(id)) {
+                AbstractRelic relic = RelicLibrary.getRelic(id);
+                HashMap<String, Object> entry = new HashMap<>();
+                entry.put("name", relic.name);
+                entry.put("tier", relic.tier.name());
+                relics.metadata.put(id, entry);
+            }
+        }
+        Table potions = newTables.get(Category.POTION);
+        for (String id : potions.ids) {
+            if (PotionHelper.isAPotion(id)) {
+                AbstractPotion potion = PotionHelper.getPotion(id);
+                HashMap<String, Object> entry = new HashMap<>();
+                entry.put("name", potion.name);
+                entry.put("rarity", potion.rarity.name());
+                entry.put("requires_target", potion.isThrown);
+                potions.metadata.put(id, entry);
+            }
+        }
+    }
+
+    /**
+     * Hashes the registered IDs of every category (64-bit FNV-1a), so that clients can tell whether a cached copy
+     * of the dictionary still matches the installed content.
+     */
+    private static String computeChecksum(EnumMap<Category, Table> registeredTables) {
+        long hash = 0xcbf29ce484222325L;
+        for (Category category : Category.values()) {
+            for (String id : registeredTables.get(category).ids) {
+                for (int i = 0; i < id.length(); i++) {
+                    hash ^= id.charAt(i);
+                    hash *= 0x100000001b3L;
+                }
+                hash ^= '\n';
+                hash *= 0x100000001b3L;
+            }
+            hash ^= '|';
+            hash *= 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * Gets the code for the given ID, assigning a new code if the ID has not been seen before.
+     * @param category The kind of content the ID refers to
+     * @param id The game ID (may be null)
+     * @return The code for the ID, or 0 if the ID is null or the dictionary has not been built yet
+     */
+    public static int getCode(Category category, String id) {
+        EnumMap<Category, Table> current = tables;
+        if (current == null || id == null) {
+            return 0;
+        }
+        Table table = current.get(category);
+        Integer code = table.codes.get(id);
+        return code != null ? code : assignCode(table, id);
+    }
+
+    private static synchronized int assignCode(Table table, String id) {
+        Integer code = table.codes.get(id);
+        if (code == null) {
+            table.ids.add(id);
+            code = table.ids.size();
+            table.codes.put(id, code);
+        }
+        return code;
+    }
+
+    /**
+     * Gets the code for the given ID like getCode(category, id), and remembers the display name of the content
+     * for IDs that have no static metadata in the game's registries (powers, monsters and events).
+     * @param category The kind of content the ID refers to
+     * @param id The game ID (may be null)
+     * @param name The display name of the content, in the currently selected language (may be null)
+     * @return The code for the ID, or 0 if the ID is null or the dictionary has not been built yet
+     */
+    public static int getCode(Category category, String id, String name) {
+        int code = getCode(category, id);
+        if (code != 0 && name != null) {
+            ConcurrentHashMap<String, String> categoryNames = tables.get(category).names;
+            if (!categoryNames.containsKey(id)) {
+                categoryNames.putIfAbsent(id, name);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * @param category The kind of content
+     * @return A copy of the IDs in the category, where the ID at index i has code i + 1
+     */
+    public static synchronized ArrayList<String> getIds(Category category) {
+        if (tables == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(tables.get(category).ids);
+    }
+
+    /**
+     * @param category The kind of content
+     * @param id The game ID
+     * @return The display name recorded by getCode(category, id, name), or null if none has been seen
+     */
+    public static String getRecordedName(Category category, String id) {
+        EnumMap<Category, Table> current = tables;
+        if (current == null) {
+            return null;
+        }
+        return current.get(category).names.get(id);
+    }
+
+    /**
+     * @return A checksum of the registered (not runtime-assigned) IDs, or an empty string before initialization
+     */
+    public static String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Creates a JSON representation of the whole dictionary, which will be sent to the client.
+     * The dictionary object contains:
+     * - "checksum" (string): See getChecksum()
+     * - "cards", "relics", "potions", "powers", "monsters", "events" (list): The entries of each category, ordered
+     *   by code. Every entry contains "code" (int) and "id" (string), plus static metadata where available:
+     *   - cards: "name", "type", "rarity", "color", "cost", "has_target"
+     *   - relics: "name", "tier"
+     *   - potions: "name", "rarity", "requires_target"
+     *   - powers, monsters, events: "name", if the content has been seen in a game state
+     * The card, relic and potion metadata is the copy read by initialize(), so cards, relics and potions first seen
+     * at runtime have no metadata. The ID lists are copied under the lock, and the entries are built without it, so
+     * that code lookups on the game thread never wait for a /dictionary request, and no game content is read here.
+     * @return A HashMap encoding the JSON representation of the dictionary
+     */
+    public static HashMap<String, Object> getDictionary() {
+        HashMap<String, Object> dictionary = new HashMap<>();
+        dictionary.put("checksum", checksum);
+        dictionary.put("cards", getEntries(Category.CARD));
+        dictionary.put("relics", getEntries(Category.RELIC));
+        dictionary.put("potions", getEntries(Category.POTION));
+        dictionary.put("powers", getEntries(Category.POWER));
+        dictionary.put("monsters", getEntries(Category.MONSTER));
+        dictionary.put("events", getEntries(Category.EVENT));
+        return dictionary;
+    }
+
+    private static ArrayList<Object> getEntries(Category category) {
+        ArrayList<Object> entries = new ArrayList<>();
+        EnumMap<Category, Table> current = tables;
+        if (current == null) {
+            return entries;
+        }
+        Table table = current.get(category);
+        ArrayList<String> categoryIds;
+        synchronized (ContentDictionary.class) {
+            categoryIds = new ArrayList<>(table.ids);
+        }
+        for (int i = 0; i < categoryIds.size(); i++) {
+            String id = categoryIds.get(i);
+            HashMap<String, Object> entry = new HashMap<>();
+            entry.put("code", i + 1);
+            entry.put("id", id);
+            HashMap<String, Object> metadata = table.metadata.get(id);
+            if (metadata != null) {
+                entry.putAll(metadata);
+            } else {
+                String name = table.names.get(id);
+                if (name != null) {
+                    entry.put("name", name);
+                }
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * @param category The kind of content
+     * @return The number of codes currently assigned in the category (the highest code in use)
+     */
+    public static synchronized int size(Category category) {
+        if (tables == null) {
+            return 0;
+        }
+        return tables.get(category).ids.size();
+    }
+
+    public static boolean isInitialized() {
+        return tables != null;
+    }
+}
@@ -0,0 +1,20 @@
+package httpcommunicationmod;
+
+/**
+ * A policy that runs inside the game, for decisions that do not need the HTTP agent, such as always taking the gold
+ * of a combat reward.
+ *
+ * Mods loaded by ModTheSpire register plugins with HttpCommunicationMod.registerDecisionPlugin, typically from their
+ * @SpireInitializer. Each time the game becomes stable in the dungeon, the plugins are asked in registration order,
+ * on the game thread. The first command returned is executed in the same frame and logged as AUTO_COMMAND, and the
+ * HTTP agent only sees the states that every plugin declines.
+ */
+public interface DecisionPlugin {
+
+    /**
+     * @param state The stable state. Only valid during this call.
+     * @return A command from state.getAvailableCommands(), in the format of POST /command, or null to let the next
+     *         plugin or the HTTP agent decide
+     */
+    String decide(StableState state);
+}
@@ -0,0 +1,87 @@
+package httpcommunicationmod;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The registered DecisionPlugins, and the execution of their commands on the game thread.
+ */
+public class DecisionPlugins {
+    private static final Logger logger = LogManager.getLogger(DecisionPlugins.class.getName());
+
+    // Stops deciding if plugin commands keep leading to plugin decisions, e.g. a command that does not change the
+    // screen, so that the agent gets the state instead of the game looping
+    private static final int MAX_CONSECUTIVE = 100;
+
+    private static final CopyOnWriteArrayList<DecisionPlugin> plugins = new CopyOnWriteArrayList<>();
+    private static int consecutive = 0;
+
+    public static void register(DecisionPlugin plugin) {
+        plugins.add(plugin);
+        logger.info("Registered decision plugin " + plugin.getClass().getName());
+    }
+
+    public static void unregister(DecisionPlugin plugin) {
+        plugins.remove(plugin);
+    }
+
+    /**
+     * Asks the plugins for a command in the current stable state, and executes the first one returned. Must be called
+     * on the game thread, when a dungeon state change has been detected and before it is published (see
+     * GameStateListener.checkForDungeonStateChange()).
+     * @return Whether a command was executed, in which case the state should not be reported
+     */
+    public static boolean resolve() {
+        if (plugins.isEmpty()) {
+            return false;
+        }
+        if (!CommandExecutor.isInDungeon()) {
+            return false;
+        }
+        if (consecutive >= MAX_CONSECUTIVE) {
+            logger.warn("Stopped after " + consecutive + " consecutive plugin decisions, reporting the state");
+            consecutive = 0;
+            return false;
+        }
+        GameAccess game = GameAccessProvider.get();
+        StableState state = new StableState(game);
+        for (DecisionPlugin plugin : plugins) {
+            String command;
+            try {
+                command = plugin.decide(state);
+            } catch (Exception e) {
+                logger.error("Decision plugin " + plugin.getClass().getName() + " failed", e);
+                continue;
+            }
+            if (command != null) {
+                if (execute(game, plugin, command.trim())) {
+                    consecutive++;
+                    return true;
+                }
+                break;
+            }
+        }
+        consecutive = 0;
+        return false;
+    }
+
+    private static boolean execute(GameAccess game, DecisionPlugin plugin, String command) {
+        try {
+            boolean stateChanged = game.executeCommand(command);
+            CommunicationLog.logAutoCommand(command);
+            if (!stateChanged) {
+                return false;
+            }
+            game.registerCommandExecution();
+            return true;
+        } catch (InvalidCommandException e) {
+            logger.error("Decision plugin " + plugin.getClass().getName() + " returned an invalid command: "
+                    + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error executing " + command + " from decision plugin " + plugin.getClass().getName(), e);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+package httpcommunicationmod;
+
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.cards.CardGroup;
+
+/**
+ * Caches the JSON representation of the player's master deck. The deck only changes on rewards, shops, events and
+ * campfires, so the encoded card list is reused until the deck's modification stamp changes.
+ * The stamp is a hash over every field that convertDeckCardToJson() reads from a deck card (card instance, upgrades,
+ * misc, cost, exhaust and ethereal), so it also catches changes made by mods or by game code that modifies cards in
+ * place, without patching every method of CardGroup and AbstractCard that can touch the deck. In compact mode, deck
+ * cards have no "is_playable", so the stamp does not depend on the combat and needs no per-card canUse(). The default
+ * output keeps "is_playable", so its stamp also covers the playability of every card during combat.
+ */
+public class DeckCache {
+
+    private static class Entry {
+        private long stamp;
+        private String deck = null;
+        private long fingerprint;
+    }
+
+    private static final Entry fullEntry = new Entry();
+    private static final Entry compactEntry = new Entry();
+
+    private static GameAccess game() {
+        return GameAccessProvider.get();
+    }
+
+    /**
+     * Writes the master deck as a list of card objects (see GameStateConverter.convertDeckCardToJson()).
+     * @param writer The writer to write the list to
+     * @param options The serialization options for this request
+     */
+    public static synchronized void writeDeck(JsonStateWriter writer, StateOptions options) {
+        CardGroup masterDeck = game().getPlayer().masterDeck;
+        long stamp = computeStamp(masterDeck);
+        if (options.compact) {
+            // The card instance numbers in the compact deck start over with every act
+            stamp = mix(stamp, GameStateConverter.getCardInstanceGeneration());
+        } else {
+            stamp = mixPlayability(stamp, masterDeck);
+        }
+        Entry entry = options.compact ? compactEntry : fullEntry;
+        if (entry.deck == null || entry.stamp != stamp) {
+            JsonStateWriter deckWriter = new JsonStateWriter().startFingerprint();
+            deckWriter.beginArray();
+            for(AbstractCard card : masterDeck.group) {
+                GameStateConverter.convertDeckCardToJson(deckWriter, card, options);
+            }
+            deckWriter.endArray();
+            entry.deck = deckWriter.toString();
+            entry.fingerprint = deckWriter.getFingerprint();
+            entry.stamp = stamp;
+        }
+        writer.rawValue(entry.deck, entry.fingerprint);
+    }
+
+    /**
+     * Hashes the fields of the deck cards that appear in the card objects.
+     * @param masterDeck The deck to hash
+     * @return The modification stamp of the deck
+     */
+    private static long computeStamp(CardGroup masterDeck) {
+        long hash = mix(0L, masterDeck.size());
+        for(AbstractCard card : masterDeck.group) {
+            int flags = (card.exhaust ? 1 : 0) | (card.isEthereal ? 2 : 0);
+            hash = mix(hash, card.uuid.getMostSignificantBits());
+            hash = mix(hash, card.uuid.getLeastSignificantBits());
+            hash = mix(hash, card.cardID.hashCode());
+            hash = mix(hash, card.timesUpgraded);
+            hash = mix(hash, card.misc);
+            hash = mix(hash, card.costForTurn);
+            hash = mix(hash, flags);
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes whether each deck card can be played, which the default output writes as "is_playable" during combat.
+     */
+    private static long mixPlayability(long hash, CardGroup masterDeck) {
+        boolean inCombat = game().getMonsters() != null;
+        hash = mix(hash, inCombat ? 1 : 0);
+        if (inCombat) {
+            for(AbstractCard card : masterDeck.group) {
+                hash = mix(hash, card.canUse(game().getPlayer(), null) ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x9e3779b97f4a7c15L;
+        return hash ^ (hash >>> 32);
+    }
+}
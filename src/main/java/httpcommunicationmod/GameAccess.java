@@ -0,0 +1,269 @@
+package httpcommunicationmod;
+
+import com.megacrit.cardcrawl.actions.GameActionManager;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.core.CardCrawlGame;
+import com.megacrit.cardcrawl.core.OverlayMenu;
+import com.megacrit.cardcrawl.core.Settings;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.map.MapRoomNode;
+import com.megacrit.cardcrawl.monsters.MonsterGroup;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+import com.megacrit.cardcrawl.screens.CardRewardScreen;
+import com.megacrit.cardcrawl.screens.CombatRewardScreen;
+import com.megacrit.cardcrawl.screens.DeathScreen;
+import com.megacrit.cardcrawl.screens.DungeonMapScreen;
+import com.megacrit.cardcrawl.screens.VictoryScreen;
+import com.megacrit.cardcrawl.screens.mainMenu.MainMenuScreen;
+import com.megacrit.cardcrawl.screens.select.BossRelicSelectScreen;
+import com.megacrit.cardcrawl.screens.select.GridCardSelectScreen;
+import com.megacrit.cardcrawl.screens.select.HandCardSelectScreen;
+import com.megacrit.cardcrawl.shop.ShopScreen;
+import com.megacrit.cardcrawl.ui.panels.EnergyPanel;
+import com.megacrit.cardcrawl.ui.panels.TopPanel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Access to the game, at two levels.
+ *
+ * The request-level operations (getState, executeCommand, startGame, ...) are what the HTTP handlers perform.
+ * LiveGameAccess implements them with GameStateConverter, CommandExecutor, ChoiceScreenUtils and
+ * GameStateListener. ReplayGameAccess implements them with recorded states, so that the HTTP stack can be run and
+ * load tested without the game.
+ *
+ * The dungeon-level reads (getPlayer, getCurrentRoom, getScreen, ...) are what GameStateConverter, CommandExecutor,
+ * ChoiceScreenUtils, GameStateListener, StateCapture, DeckCache and MapCache read from the game, through
+ * GameAccessProvider.get(), instead of reading the game's static fields directly. They default to the running game, so a backend that drives the game logic
+ * from fixture objects only overrides the reads it needs. Backends that answer every request-level operation
+ * themselves, like ReplayGameAccess, never reach them.
+ */
+public interface GameAccess {
+
+    /**
+     * @param options The serialization options of the request, which have been checked with supports(options)
+     * @return The current communication state as JSON, as returned by GET /state
+     */
+    String getState(StateOptions options);
+
+    /**
+     * @param options The serialization options of a request
+     * @return Whether getState can apply the options. Handlers reject requests with unsupported options.
+     */
+    boolean supports(StateOptions options);
+
+    /**
+     * Executes a command from POST /command.
+     * @param command The trimmed command
+     * @return Whether the command changes the game state
+     * @throws InvalidCommandException If the command is not available in the current state
+     */
+    boolean executeCommand(String command) throws InvalidCommandException;
+
+    /**
+     * Called after a command that changes the game state has been executed and its response state has been read,
+     * so that the next state is only reported once the game is stable again.
+     */
+    void registerCommandExecution();
+
+    /**
+     * Starts a new run from POST /start. The ascension level and seed format have already been validated.
+     * @param characterName The requested character, e.g. "IRONCLAD" or "silent"
+     * @param ascensionLevel The ascension level, between 0 and 20
+     * @param seedString The seed in the game's alphanumeric format, or null for a random seed
+     * @return The fields of the response: "character", "ascension_level", "seed" and "seed_string"
+     * @throws InvalidCommandException If the character is not valid
+     */
+    HashMap<String, Object> startGame(String characterName, int ascensionLevel, String seedString)
+            throws InvalidCommandException;
+
+    /**
+     * Abandons the current run and returns to the main menu, from POST /reset.
+     */
+    void reset();
+
+    /**
+     * Sets up a scenario from POST /encounter or POST /scenario: starts a new run or takes the current one, applies
+     * the scenario to it, and waits until its state is stable.
+     * @return The stable state as JSON, as returned by GET /state
+     * @throws InvalidCommandException If the scenario refers to unknown content or cannot be set up
+     */
+    String setUpScenario(Scenario scenario) throws InvalidCommandException;
+
+    /**
+     * Writes the body of GET /map: "in_game", and while in game "map_key", "act" and "map".
+     * @param writer The writer to write the object to
+     */
+    void writeMap(JsonStateWriter writer);
+
+    /**
+     * @return The latest encoded observation for GET /observation, or null if none is available
+     */
+    StateCaptureService.Snapshot getObservation();
+
+    /**
+     * @return The body of GET /dictionary as JSON
+     */
+    String getDictionary();
+
+    default AbstractPlayer getPlayer() {
+        return AbstractDungeon.player;
+    }
+
+    default AbstractRoom getCurrentRoom() {
+        return AbstractDungeon.getCurrRoom();
+    }
+
+    default MapRoomNode getCurrentMapNode() {
+        return AbstractDungeon.currMapNode;
+    }
+
+    default MonsterGroup getMonsters() {
+        return AbstractDungeon.getMonsters();
+    }
+
+    default ArrayList<ArrayList<MapRoomNode>> getMap() {
+        return AbstractDungeon.map;
+    }
+
+    default String getDungeonId() {
+        return AbstractDungeon.id;
+    }
+
+    default String getBossKey() {
+        return AbstractDungeon.bossKey;
+    }
+
+    default int getFloorNum() {
+        return AbstractDungeon.floorNum;
+    }
+
+    default int getActNum() {
+        return AbstractDungeon.actNum;
+    }
+
+    default int getAscensionLevel() {
+        return AbstractDungeon.ascensionLevel;
+    }
+
+    default Long getSeed() {
+        return Settings.seed;
+    }
+
+    default boolean hasRubyKey() {
+        return Settings.hasRubyKey;
+    }
+
+    default boolean hasEmeraldKey() {
+        return Settings.hasEmeraldKey;
+    }
+
+    default boolean hasSapphireKey() {
+        return Settings.hasSapphireKey;
+    }
+
+    default ArrayList<Integer> getPathX() {
+        return AbstractDungeon.pathX;
+    }
+
+    default ArrayList<Integer> getPathY() {
+        return AbstractDungeon.pathY;
+    }
+
+    default int getTurn() {
+        return GameActionManager.turn;
+    }
+
+    default int getCardsDiscardedThisTurn() {
+        return GameActionManager.totalDiscardedThisTurn;
+    }
+
+    default int getEnergy() {
+        return EnergyPanel.totalCount;
+    }
+
+    default boolean isFirstRoomChosen() {
+        return AbstractDungeon.firstRoomChosen;
+    }
+
+    default boolean isPlayerInDungeon() {
+        return AbstractDungeon.isPlayerInDungeon();
+    }
+
+    default boolean isFadingIn() {
+        return AbstractDungeon.isFadingIn;
+    }
+
+    default boolean isFadingOut() {
+        return AbstractDungeon.isFadingOut;
+    }
+
+    default AbstractDungeon.CurrentScreen getScreen() {
+        return AbstractDungeon.screen;
+    }
+
+    default AbstractDungeon.CurrentScreen getPreviousScreen() {
+        return AbstractDungeon.previousScreen;
+    }
+
+    default boolean isScreenUp() {
+        return AbstractDungeon.isScreenUp;
+    }
+
+    default GameActionManager getActionManager() {
+        return AbstractDungeon.actionManager;
+    }
+
+    default HandCardSelectScreen getHandCardSelectScreen() {
+        return AbstractDungeon.handCardSelectScreen;
+    }
+
+    default GridCardSelectScreen getGridSelectScreen() {
+        return AbstractDungeon.gridSelectScreen;
+    }
+
+    default CardRewardScreen getCardRewardScreen() {
+        return AbstractDungeon.cardRewardScreen;
+    }
+
+    default CombatRewardScreen getCombatRewardScreen() {
+        return AbstractDungeon.combatRewardScreen;
+    }
+
+    default BossRelicSelectScreen getBossRelicScreen() {
+        return AbstractDungeon.bossRelicScreen;
+    }
+
+    default ShopScreen getShopScreen() {
+        return AbstractDungeon.shopScreen;
+    }
+
+    default DeathScreen getDeathScreen() {
+        return AbstractDungeon.deathScreen;
+    }
+
+    default VictoryScreen getVictoryScreen() {
+        return AbstractDungeon.victoryScreen;
+    }
+
+    default DungeonMapScreen getDungeonMapScreen() {
+        return AbstractDungeon.dungeonMapScreen;
+    }
+
+    default OverlayMenu getOverlayMenu() {
+        return AbstractDungeon.overlayMenu;
+    }
+
+    default TopPanel getTopPanel() {
+        return AbstractDungeon.topPanel;
+    }
+
+    default CardCrawlGame.GameMode getGameMode() {
+        return CardCrawlGame.mode;
+    }
+
+    default MainMenuScreen getMainMenuScreen() {
+        return CardCrawlGame.mainMenuScreen;
+    }
+}
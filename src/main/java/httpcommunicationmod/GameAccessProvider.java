@@ -0,0 +1,17 @@
+package httpcommunicationmod;
+
+/**
+ * Holds the GameAccess that the game logic classes read the game through. Defaults to the running game.
+ */
+public class GameAccessProvider {
+
+    private static volatile GameAccess current = new LiveGameAccess();
+
+    public static GameAccess get() {
+        return current;
+    }
+
+    public static void set(GameAccess access) {
+        current = access;
+    }
+}
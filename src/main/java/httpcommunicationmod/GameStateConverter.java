@@ -1,15 +1,11 @@
 package httpcommunicationmod;
 
 import basemod.ReflectionHacks;
-import com.google.gson.Gson;
-import com.megacrit.cardcrawl.actions.GameActionManager;
 import com.megacrit.cardcrawl.cards.AbstractCard;
 import com.megacrit.cardcrawl.characters.AbstractPlayer;
 import com.megacrit.cardcrawl.core.AbstractCreature;
-import com.megacrit.cardcrawl.core.Settings;
 import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
 import com.megacrit.cardcrawl.events.AbstractEvent;
-import com.megacrit.cardcrawl.map.MapEdge;
 import com.megacrit.cardcrawl.map.MapRoomNode;
 import com.megacrit.cardcrawl.monsters.AbstractMonster;
 import com.megacrit.cardcrawl.monsters.EnemyMoveInfo;
@@ -30,45 +26,226 @@ import com.megacrit.cardcrawl.shop.ShopScreen;
 import com.megacrit.cardcrawl.shop.StorePotion;
 import com.megacrit.cardcrawl.shop.StoreRelic;
 import com.megacrit.cardcrawl.ui.buttons.LargeDialogOptionButton;
-import com.megacrit.cardcrawl.ui.panels.EnergyPanel;
 import httpcommunicationmod.patches.UpdateBodyTextPatch;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.UUID;
 
 public class GameStateConverter {
 
+    // Guarded by the GameStateConverter class lock. The numbers start over with every act, so that the cards created
+    // and thrown away during combats do not pile up over the whole run.
+    private static final HashMap<UUID, Integer> cardInstances = new HashMap<>();
+    private static Long cardInstancesSeed = null;
+    private static int cardInstancesAct = 0;
+    private static int cardInstancesGeneration = 0;
+
+    // Each HTTP worker thread reuses its buffer, so that writing a state does not grow a new one every time
+    private static final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(64 * 1024);
+        }
+    };
+
+    private static final JsonStateWriter.Key ACT = new JsonStateWriter.Key("act");
+    private static final JsonStateWriter.Key ACT_BOSS = new JsonStateWriter.Key("act_boss");
+    private static final JsonStateWriter.Key ACTION_PHASE = new JsonStateWriter.Key("action_phase");
+    private static final JsonStateWriter.Key AMOUNT = new JsonStateWriter.Key("amount");
+    private static final JsonStateWriter.Key ANY_NUMBER = new JsonStateWriter.Key("any_number");
+    private static final JsonStateWriter.Key ASCENSION_LEVEL = new JsonStateWriter.Key("ascension_level");
+    private static final JsonStateWriter.Key AVAILABLE_COMMANDS = new JsonStateWriter.Key("available_commands");
+    private static final JsonStateWriter.Key BLOCK = new JsonStateWriter.Key("block");
+    private static final JsonStateWriter.Key BODY_TEXT = new JsonStateWriter.Key("body_text");
+    private static final JsonStateWriter.Key BOSS_AVAILABLE = new JsonStateWriter.Key("boss_available");
+    private static final JsonStateWriter.Key BOWL_AVAILABLE = new JsonStateWriter.Key("bowl_available");
+    private static final JsonStateWriter.Key CAN_DISCARD = new JsonStateWriter.Key("can_discard");
+    private static final JsonStateWriter.Key CAN_PICK_ZERO = new JsonStateWriter.Key("can_pick_zero");
+    private static final JsonStateWriter.Key CAN_USE = new JsonStateWriter.Key("can_use");
+    private static final JsonStateWriter.Key CARD = new JsonStateWriter.Key("card");
+    private static final JsonStateWriter.Key CARD_IN_PLAY = new JsonStateWriter.Key("card_in_play");
+    private static final JsonStateWriter.Key CARDS = new JsonStateWriter.Key("cards");
+    private static final JsonStateWriter.Key CARDS_DISCARDED_THIS_TURN = new JsonStateWriter.Key("cards_discarded_this_turn");
+    private static final JsonStateWriter.Key CHEST_OPEN = new JsonStateWriter.Key("chest_open");
+    private static final JsonStateWriter.Key CHEST_TYPE = new JsonStateWriter.Key("chest_type");
+    private static final JsonStateWriter.Key CHOICE_INDEX = new JsonStateWriter.Key("choice_index");
+    private static final JsonStateWriter.Key CHOICE_LIST = new JsonStateWriter.Key("choice_list");
+    private static final JsonStateWriter.Key CLASS = new JsonStateWriter.Key("class");
+    private static final JsonStateWriter.Key CODE = new JsonStateWriter.Key("code", false);
+    private static final JsonStateWriter.Key COMBAT_STATE = new JsonStateWriter.Key("combat_state");
+    private static final JsonStateWriter.Key CONFIRM_UP = new JsonStateWriter.Key("confirm_up");
+    private static final JsonStateWriter.Key COST = new JsonStateWriter.Key("cost");
+    private static final JsonStateWriter.Key COUNTER = new JsonStateWriter.Key("counter");
+    private static final JsonStateWriter.Key CURRENT_ACTION = new JsonStateWriter.Key("current_action");
+    private static final JsonStateWriter.Key CURRENT_HP = new JsonStateWriter.Key("current_hp");
+    private static final JsonStateWriter.Key CURRENT_NODE = new JsonStateWriter.Key("current_node");
+    private static final JsonStateWriter.Key DAMAGE = new JsonStateWriter.Key("damage");
+    private static final JsonStateWriter.Key DECK = new JsonStateWriter.Key("deck");
+    private static final JsonStateWriter.Key DICTIONARY_CHECKSUM = new JsonStateWriter.Key("dictionary_checksum", false);
+    private static final JsonStateWriter.Key DISABLED = new JsonStateWriter.Key("disabled");
+    private static final JsonStateWriter.Key DISCARD_PILE = new JsonStateWriter.Key("discard_pile");
+    private static final JsonStateWriter.Key DRAW_PILE = new JsonStateWriter.Key("draw_pile");
+    private static final JsonStateWriter.Key EMERALD = new JsonStateWriter.Key("emerald");
+    private static final JsonStateWriter.Key ENERGY = new JsonStateWriter.Key("energy");
+    private static final JsonStateWriter.Key ETHEREAL = new JsonStateWriter.Key("ethereal");
+    private static final JsonStateWriter.Key EVENT_CODE = new JsonStateWriter.Key("event_code", false);
+    private static final JsonStateWriter.Key EVENT_ID = new JsonStateWriter.Key("event_id");
+    private static final JsonStateWriter.Key EVENT_NAME = new JsonStateWriter.Key("event_name", false);
+    private static final JsonStateWriter.Key EVOKE_AMOUNT = new JsonStateWriter.Key("evoke_amount");
+    private static final JsonStateWriter.Key EXHAUST_PILE = new JsonStateWriter.Key("exhaust_pile");
+    private static final JsonStateWriter.Key EXHAUSTS = new JsonStateWriter.Key("exhausts");
+    private static final JsonStateWriter.Key FIRST_NODE_CHOSEN = new JsonStateWriter.Key("first_node_chosen");
+    private static final JsonStateWriter.Key FLOOR = new JsonStateWriter.Key("floor");
+    private static final JsonStateWriter.Key FOR_PURGE = new JsonStateWriter.Key("for_purge");
+    private static final JsonStateWriter.Key FOR_TRANSFORM = new JsonStateWriter.Key("for_transform");
+    private static final JsonStateWriter.Key FOR_UPGRADE = new JsonStateWriter.Key("for_upgrade");
+    private static final JsonStateWriter.Key GAME_STATE = new JsonStateWriter.Key("game_state");
+    private static final JsonStateWriter.Key GOLD = new JsonStateWriter.Key("gold");
+    private static final JsonStateWriter.Key HALF_DEAD = new JsonStateWriter.Key("half_dead");
+    private static final JsonStateWriter.Key HAND = new JsonStateWriter.Key("hand");
+    private static final JsonStateWriter.Key HAS_RESTED = new JsonStateWriter.Key("has_rested");
+    private static final JsonStateWriter.Key HAS_TARGET = new JsonStateWriter.Key("has_target", false);
+    private static final JsonStateWriter.Key ID = new JsonStateWriter.Key("id");
+    private static final JsonStateWriter.Key IN_GAME = new JsonStateWriter.Key("in_game");
+    private static final JsonStateWriter.Key INSTANCE = new JsonStateWriter.Key("instance", false);
+    private static final JsonStateWriter.Key INTENT = new JsonStateWriter.Key("intent");
+    private static final JsonStateWriter.Key IS_GONE = new JsonStateWriter.Key("is_gone");
+    private static final JsonStateWriter.Key IS_PLAYABLE = new JsonStateWriter.Key("is_playable");
+    private static final JsonStateWriter.Key IS_SCREEN_UP = new JsonStateWriter.Key("is_screen_up");
+    private static final JsonStateWriter.Key JUST_APPLIED = new JsonStateWriter.Key("just_applied");
+    private static final JsonStateWriter.Key KEYS = new JsonStateWriter.Key("keys");
+    private static final JsonStateWriter.Key LABEL = new JsonStateWriter.Key("label");
+    private static final JsonStateWriter.Key LAST_MOVE_ID = new JsonStateWriter.Key("last_move_id");
+    private static final JsonStateWriter.Key LIMBO = new JsonStateWriter.Key("limbo");
+    private static final JsonStateWriter.Key LINK = new JsonStateWriter.Key("link");
+    private static final JsonStateWriter.Key MAP = new JsonStateWriter.Key("map", false);
+    private static final JsonStateWriter.Key MAP_CURRENT_NODE = new JsonStateWriter.Key("map_current_node", false);
+    private static final JsonStateWriter.Key MAP_KEY = new JsonStateWriter.Key("map_key", false);
+    private static final JsonStateWriter.Key MAP_PATH = new JsonStateWriter.Key("map_path", false);
+    private static final JsonStateWriter.Key MAX_CARDS = new JsonStateWriter.Key("max_cards");
+    private static final JsonStateWriter.Key MAX_HP = new JsonStateWriter.Key("max_hp");
+    private static final JsonStateWriter.Key MISC = new JsonStateWriter.Key("misc");
+    private static final JsonStateWriter.Key MONSTERS = new JsonStateWriter.Key("monsters");
+    private static final JsonStateWriter.Key MOVE_ADJUSTED_DAMAGE = new JsonStateWriter.Key("move_adjusted_damage");
+    private static final JsonStateWriter.Key MOVE_BASE_DAMAGE = new JsonStateWriter.Key("move_base_damage");
+    private static final JsonStateWriter.Key MOVE_HITS = new JsonStateWriter.Key("move_hits");
+    private static final JsonStateWriter.Key MOVE_ID = new JsonStateWriter.Key("move_id");
+    private static final JsonStateWriter.Key NAME = new JsonStateWriter.Key("name", false);
+    private static final JsonStateWriter.Key NEXT_NODES = new JsonStateWriter.Key("next_nodes");
+    private static final JsonStateWriter.Key NUM_CARDS = new JsonStateWriter.Key("num_cards");
+    private static final JsonStateWriter.Key OPTIONS = new JsonStateWriter.Key("options");
+    private static final JsonStateWriter.Key ORBS = new JsonStateWriter.Key("orbs");
+    private static final JsonStateWriter.Key PASSIVE_AMOUNT = new JsonStateWriter.Key("passive_amount");
+    private static final JsonStateWriter.Key PLAYER = new JsonStateWriter.Key("player");
+    private static final JsonStateWriter.Key POTION = new JsonStateWriter.Key("potion");
+    private static final JsonStateWriter.Key POTIONS = new JsonStateWriter.Key("potions");
+    private static final JsonStateWriter.Key POWERS = new JsonStateWriter.Key("powers");
+    private static final JsonStateWriter.Key PRICE = new JsonStateWriter.Key("price");
+    private static final JsonStateWriter.Key PURGE_AVAILABLE = new JsonStateWriter.Key("purge_available");
+    private static final JsonStateWriter.Key PURGE_COST = new JsonStateWriter.Key("purge_cost");
+    private static final JsonStateWriter.Key RARITY = new JsonStateWriter.Key("rarity", false);
+    private static final JsonStateWriter.Key READY_FOR_COMMAND = new JsonStateWriter.Key("ready_for_command", false);
+    private static final JsonStateWriter.Key RELIC = new JsonStateWriter.Key("relic");
+    private static final JsonStateWriter.Key RELICS = new JsonStateWriter.Key("relics");
+    private static final JsonStateWriter.Key REQUIRES_TARGET = new JsonStateWriter.Key("requires_target", false);
+    private static final JsonStateWriter.Key REST_OPTIONS = new JsonStateWriter.Key("rest_options");
+    private static final JsonStateWriter.Key REWARD_TYPE = new JsonStateWriter.Key("reward_type");
+    private static final JsonStateWriter.Key REWARDS = new JsonStateWriter.Key("rewards");
+    private static final JsonStateWriter.Key ROOM_PHASE = new JsonStateWriter.Key("room_phase");
+    private static final JsonStateWriter.Key ROOM_TYPE = new JsonStateWriter.Key("room_type");
+    private static final JsonStateWriter.Key RUBY = new JsonStateWriter.Key("ruby");
+    private static final JsonStateWriter.Key SAPPHIRE = new JsonStateWriter.Key("sapphire");
+    private static final JsonStateWriter.Key SCORE = new JsonStateWriter.Key("score");
+    private static final JsonStateWriter.Key SCREEN_NAME = new JsonStateWriter.Key("screen_name");
+    private static final JsonStateWriter.Key SCREEN_STATE = new JsonStateWriter.Key("screen_state");
+    private static final JsonStateWriter.Key SCREEN_TYPE = new JsonStateWriter.Key("screen_type");
+    private static final JsonStateWriter.Key SECOND_LAST_MOVE_ID = new JsonStateWriter.Key("second_last_move_id");
+    private static final JsonStateWriter.Key SEED = new JsonStateWriter.Key("seed", false);
+    private static final JsonStateWriter.Key SELECTED = new JsonStateWriter.Key("selected");
+    private static final JsonStateWriter.Key SELECTED_CARDS = new JsonStateWriter.Key("selected_cards");
+    private static final JsonStateWriter.Key SKIP_AVAILABLE = new JsonStateWriter.Key("skip_available");
+    private static final JsonStateWriter.Key STATE_FINGERPRINT = new JsonStateWriter.Key("state_fingerprint");
+    private static final JsonStateWriter.Key SYMBOL = new JsonStateWriter.Key("symbol");
+    private static final JsonStateWriter.Key TEXT = new JsonStateWriter.Key("text");
+    private static final JsonStateWriter.Key TIMES_DAMAGED = new JsonStateWriter.Key("times_damaged");
+    private static final JsonStateWriter.Key TURN = new JsonStateWriter.Key("turn");
+    private static final JsonStateWriter.Key TYPE = new JsonStateWriter.Key("type", false);
+    private static final JsonStateWriter.Key UPGRADES = new JsonStateWriter.Key("upgrades");
+    private static final JsonStateWriter.Key UUID_KEY = new JsonStateWriter.Key("uuid", false);
+    private static final JsonStateWriter.Key VICTORY = new JsonStateWriter.Key("victory");
+    private static final JsonStateWriter.Key X = new JsonStateWriter.Key("x");
+    private static final JsonStateWriter.Key Y = new JsonStateWriter.Key("y");
+
+    private static GameAccess game() {
+        return GameAccessProvider.get();
+    }
+
     /**
      * Creates a JSON representation of the status of HttpCommunicationMod that will be sent to the external process.
      * The JSON object returned contains:
      * - "available_commands" (list): A list of commands (strings) available to the user
      * - "ready_for_command" (boolean): Denotes whether the game state is stable and ready to receive a command
      * - "in_game" (boolean): True if in the main menu, False if the player is in the dungeon
-     * - "game_state" (object): Present if in_game=True, contains the game state object returned by getGameState()
+     * - "game_state" (object): Present if in_game=True, contains the game state object written by writeGameState()
      * @return A string containing the JSON representation of HttpCommunicationMod's status
      */
     public static String getCommunicationState() {
-        HashMap<String, Object> response = new HashMap<>();
-        response.put("available_commands", CommandExecutor.getAvailableCommands());
-        response.put("ready_for_command", GameStateListener.isWaitingForCommand());
+        return getCommunicationState(StateOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a JSON representation of the status of HttpCommunicationMod, as getCommunicationState() does, using
+     * the given serialization options. The object also contains:
+     * - "state_fingerprint" (string): A 64-bit hash of the state, as 16 hex digits. It is computed while the state is
+     *   written, and leaves out what depends on the history of the run rather than the position: card UUIDs and
+     *   instance numbers, the seed, the map and the path taken. Names and other fields that follow from an id are left
+     *   out too, so that the fingerprint is the same with and without compact mode.
+     * In compact mode, the object also contains:
+     * - "dictionary_checksum" (string): The checksum of the ContentDictionary that the codes refer to
+     * @param options The serialization options for this request
+     * @return A string containing the JSON representation of HttpCommunicationMod's status
+     */
+    public static String getCommunicationState(StateOptions options) {
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        JsonStateWriter writer = new JsonStateWriter(buffer);
+        writer.startFingerprint();
+        writer.beginObject();
+        writer.name(AVAILABLE_COMMANDS).value(CommandExecutor.getAvailableCommands());
+        writer.name(READY_FOR_COMMAND).value(GameStateListener.isWaitingForCommand());
         boolean isInGame = CommandExecutor.isInDungeon();
-        response.put("in_game", isInGame);
+        writer.name(IN_GAME).value(isInGame);
         if(isInGame) {
-            response.put("game_state", getGameState());
+            writer.name(GAME_STATE);
+            writeGameState(writer, options);
+        }
+        if(options.compact) {
+            writer.name(DICTIONARY_CHECKSUM).value(ContentDictionary.getChecksum());
         }
-        Gson gson = new Gson();
-        return gson.toJson(response);
+        writer.name(STATE_FINGERPRINT).value(toHex(writer.getFingerprint()));
+        writer.endObject();
+        return writer.toString();
     }
 
 
+    private static String toHex(long value) {
+        char[] digits = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            digits[i] = Character.forDigit((int) (value & 0xf), 16);
+            value >>>= 4;
+        }
+        return new String(digits);
+    }
+
     /**
-     * Creates a JSON representation of the game state, which will be sent to the client.
+     * Writes a JSON representation of the game state, which will be sent to the client.
      * Always present:
      * - "screen_name" (string): The name of the Enum representing the current screen (defined by Mega Crit)
      * - "is_screen_up" (boolean): The game's isScreenUp variable
      * - "screen_type" (string): The type of screen (or decision) that the user if facing (defined by Communication Mod)
-     * - "screen_state" (object): The state of the current state, see getScreenState() (as defined by Communication Mod)
+     * - "screen_state" (object): The state of the current state, see writeScreenState() (as defined by Communication Mod)
      * - "room_phase" (string): The phase of the current room (COMBAT, EVENT, etc.)
      * - "action_phase" (string): The phase of the action manager (WAITING_FOR_USER_INPUT, EXECUTING_ACTIONS)
      * - "room_type" (string): The name of the class of the current room (ShopRoom, TreasureRoom, MonsterRoom, etc.)
@@ -84,91 +261,103 @@ public class GameStateConverter {
      * - "relics" (list): A list of the player's current relics
      * - "deck" (list): A list of the cards in the player's deck
      * - "potions" (list): A list of the player's potions (empty slots are PotionSlots)
-     * - "map" (list): The current dungeon map
+     * - "map" (list): The current dungeon map, unless the map=delta option is used
      * - "keys" (object): Contains booleans for each of the three keys to reach Act 4
      * Sometimes present:
      * - "current_action" (list): The class name of the action in the action manager queue, if not empty
      * - "combat_state" (list): The state of the combat (draw pile, monsters, etc.)
      * - "choice_list" (list): If the command is available, the possible choices for the choose command
-     * @return A HashMap encoding the JSON representation of the game state
+     * With the map=delta option, "map" is replaced by:
+     * - "map_key" (string): A key identifying the current map, see GET /map
+     * - "map_path" (list): The nodes visited so far in the current act
+     * - "map_current_node" (object): The current node, if any
+     * @param writer The writer to write the game state object to
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> getGameState() {
-        HashMap<String, Object> state = new HashMap<>();
+    private static void writeGameState(JsonStateWriter writer, StateOptions options) {
+        writer.beginObject();
 
-        state.put("screen_name", AbstractDungeon.screen.name());
-        state.put("is_screen_up", AbstractDungeon.isScreenUp);
-        state.put("screen_type", ChoiceScreenUtils.getCurrentChoiceType());
-        if (AbstractDungeon.getCurrRoom() != null) {
-            state.put("room_phase", AbstractDungeon.getCurrRoom().phase.toString());
-            state.put("room_type", AbstractDungeon.getCurrRoom().getClass().getSimpleName());
+        writer.name(SCREEN_NAME).value(game().getScreen().name());
+        writer.name(IS_SCREEN_UP).value(game().isScreenUp());
+        writer.name(SCREEN_TYPE).value(ChoiceScreenUtils.getCurrentChoiceType());
+        if (game().getCurrentRoom() != null) {
+            writer.name(ROOM_PHASE).value(game().getCurrentRoom().phase.toString());
+            writer.name(ROOM_TYPE).value(game().getCurrentRoom().getClass().getSimpleName());
         }
-        state.put("action_phase", AbstractDungeon.actionManager.phase.toString());
-        if(AbstractDungeon.actionManager.currentAction != null) {
-            state.put("current_action", AbstractDungeon.actionManager.currentAction.getClass().getSimpleName());
+        writer.name(ACTION_PHASE).value(game().getActionManager().phase.toString());
+        if(game().getActionManager().currentAction != null) {
+            writer.name(CURRENT_ACTION).value(game().getActionManager().currentAction.getClass().getSimpleName());
         }
-        state.put("current_hp", AbstractDungeon.player.currentHealth);
-        state.put("max_hp", AbstractDungeon.player.maxHealth);
-        state.put("floor", AbstractDungeon.floorNum);
-        state.put("act", AbstractDungeon.actNum);
-        state.put("act_boss", AbstractDungeon.bossKey);
-        state.put("gold", AbstractDungeon.player.gold);
-        state.put("seed", Settings.seed);
-        state.put("class", AbstractDungeon.player.chosenClass.name());
-        state.put("ascension_level", AbstractDungeon.ascensionLevel);
+        writer.name(CURRENT_HP).value(game().getPlayer().currentHealth);
+        writer.name(MAX_HP).value(game().getPlayer().maxHealth);
+        writer.name(FLOOR).value(game().getFloorNum());
+        writer.name(ACT).value(game().getActNum());
+        writer.name(ACT_BOSS).value(game().getBossKey());
+        writer.name(GOLD).value(game().getPlayer().gold);
+        writer.name(SEED).value(game().getSeed());
+        writer.name(CLASS).value(game().getPlayer().chosenClass.name());
+        writer.name(ASCENSION_LEVEL).value(game().getAscensionLevel());
 
-        ArrayList<Object> relics = new ArrayList<>();
-        for(AbstractRelic relic : AbstractDungeon.player.relics) {
-            relics.add(convertRelicToJson(relic));
+        writer.name(RELICS).beginArray();
+        for(AbstractRelic relic : game().getPlayer().relics) {
+            convertRelicToJson(writer, relic, options);
         }
+        writer.endArray();
 
-        state.put("relics", relics);
+        writer.name(DECK);
+        DeckCache.writeDeck(writer, options);
 
-        ArrayList<Object> deck = new ArrayList<>();
-        for(AbstractCard card : AbstractDungeon.player.masterDeck.group) {
-            deck.add(convertCardToJson(card));
+        writer.name(POTIONS).beginArray();
+        for(AbstractPotion potion : game().getPlayer().potions) {
+            convertPotionToJson(writer, potion, options);
         }
+        writer.endArray();
 
-        state.put("deck", deck);
-
-        ArrayList<Object> potions = new ArrayList<>();
-        for(AbstractPotion potion : AbstractDungeon.player.potions) {
-            potions.add(convertPotionToJson(potion));
+        if(options.mapDelta) {
+            writer.name(MAP_KEY).value(MapCache.getMapKey());
+            writer.name(MAP_PATH);
+            MapCache.writeVisitedPath(writer);
+            if(game().getCurrentMapNode() != null) {
+                writer.name(MAP_CURRENT_NODE);
+                convertMapRoomNodeToJson(writer, game().getCurrentMapNode());
+            }
+        } else {
+            writer.name(MAP);
+            MapCache.writeMap(writer);
         }
-
-        state.put("potions", potions);
-
-        state.put("map", convertMapToJson());
         if(CommandExecutor.isChooseCommandAvailable()) {
-            state.put("choice_list", ChoiceScreenUtils.getCurrentChoiceList());
+            writer.name(CHOICE_LIST).value(ChoiceScreenUtils.getCurrentChoiceList());
         }
-        if(AbstractDungeon.getCurrRoom() != null && AbstractDungeon.getCurrRoom().phase.equals(AbstractRoom.RoomPhase.COMBAT)) {
-            state.put("combat_state", getCombatState());
+        if(game().getCurrentRoom() != null && game().getCurrentRoom().phase.equals(AbstractRoom.RoomPhase.COMBAT)) {
+            writer.name(COMBAT_STATE);
+            writeCombatState(writer, options);
         }
-        state.put("screen_state", getScreenState());
+        writer.name(SCREEN_STATE);
+        writeScreenState(writer, options);
 
-        HashMap<String, Boolean> keys = new HashMap<>();
-        keys.put("ruby", Settings.hasRubyKey);
-        keys.put("emerald", Settings.hasEmeraldKey);
-        keys.put("sapphire", Settings.hasSapphireKey);
-        state.put("keys", keys);
+        writer.name(KEYS).beginObject();
+        writer.name(RUBY).value(game().hasRubyKey());
+        writer.name(EMERALD).value(game().hasEmeraldKey());
+        writer.name(SAPPHIRE).value(game().hasSapphireKey());
+        writer.endObject();
 
-        return state;
+        writer.endObject();
     }
 
-    private static HashMap<String, Object> getRoomState() {
-        AbstractRoom currentRoom = AbstractDungeon.getCurrRoom();
-        HashMap<String, Object> state = new HashMap<>();
+    private static void writeRoomState(JsonStateWriter writer) {
+        AbstractRoom currentRoom = game().getCurrentRoom();
+        writer.beginObject();
         if(currentRoom instanceof TreasureRoom) {
-            state.put("chest_type", ((TreasureRoom)currentRoom).chest.getClass().getSimpleName());
-            state.put("chest_open", ((TreasureRoom) currentRoom).chest.isOpen);
+            writer.name(CHEST_TYPE).value(((TreasureRoom)currentRoom).chest.getClass().getSimpleName());
+            writer.name(CHEST_OPEN).value(((TreasureRoom) currentRoom).chest.isOpen);
         } else if(currentRoom instanceof TreasureRoomBoss) {
-            state.put("chest_type", ((TreasureRoomBoss)currentRoom).chest.getClass().getSimpleName());
-            state.put("chest_open", ((TreasureRoomBoss) currentRoom).chest.isOpen);
+            writer.name(CHEST_TYPE).value(((TreasureRoomBoss)currentRoom).chest.getClass().getSimpleName());
+            writer.name(CHEST_OPEN).value(((TreasureRoomBoss) currentRoom).chest.isOpen);
         } else if(currentRoom instanceof RestRoom) {
-            state.put("has_rested", currentRoom.phase == AbstractRoom.RoomPhase.COMPLETE);
-            state.put("rest_options", ChoiceScreenUtils.getRestRoomChoices());
+            writer.name(HAS_RESTED).value(currentRoom.phase == AbstractRoom.RoomPhase.COMPLETE);
+            writer.name(REST_OPTIONS).value(ChoiceScreenUtils.getRestRoomChoices());
         }
-        return state;
+        writer.endObject();
     }
 
     /**
@@ -179,8 +368,7 @@ public class GameStateConverter {
      * @return The input text, with the formatting characters removed
      */
     private static String removeTextFormatting(String text) {
-        text = text.replaceAll("~|@(\\S+)~|@", "$1");
-        return text.replaceAll("#.|NL", "");
+        return TextFormatter.removeTextFormatting(text);
     }
 
     /**
@@ -193,54 +381,61 @@ public class GameStateConverter {
      * - "disabled" (boolean): Whether the current option or button is disabled. Disabled buttons cannot be chosen
      * - "label" (string): The simple label of a button or option (Eg. "Banana")
      * - "choice_index" (int): The index of the option for the choose command, if applicable
-     * @return The event state object
+     * In compact mode, "event_name" and "event_id" are replaced by:
+     * "event_code" (int): The ContentDictionary code of the event
+     * @param writer The writer to write the event state object to
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> getEventState() {
-        HashMap<String, Object> state = new HashMap<>();
-        ArrayList<Object> options = new ArrayList<>();
+    private static void writeEventState(JsonStateWriter writer, StateOptions options) {
         ChoiceScreenUtils.EventDialogType eventDialogType = ChoiceScreenUtils.getEventDialogType();
-        AbstractEvent event = AbstractDungeon.getCurrRoom().event;
+        AbstractEvent event = game().getCurrentRoom().event;
         int choice_index = 0;
+        writer.beginObject();
         if (eventDialogType == ChoiceScreenUtils.EventDialogType.IMAGE || eventDialogType == ChoiceScreenUtils.EventDialogType.ROOM) {
+            writer.name(OPTIONS).beginArray();
             for (LargeDialogOptionButton button : ChoiceScreenUtils.getEventButtons()) {
-                HashMap<String, Object> json_button = new HashMap<>();
-                json_button.put("text", removeTextFormatting(button.msg));
-                json_button.put("disabled", button.isDisabled);
-                json_button.put("label", ChoiceScreenUtils.getOptionName(button.msg));
+                writer.beginObject();
+                writer.name(TEXT).value(removeTextFormatting(button.msg));
+                writer.name(DISABLED).value(button.isDisabled);
+                writer.name(LABEL).value(ChoiceScreenUtils.getOptionName(button.msg));
                 if (!button.isDisabled) {
-                    json_button.put("choice_index", choice_index);
+                    writer.name(CHOICE_INDEX).value(choice_index);
                     choice_index += 1;
                 }
-                options.add(json_button);
+                writer.endObject();
             }
-            state.put("body_text", removeTextFormatting(UpdateBodyTextPatch.bodyText));
+            writer.endArray();
+            writer.name(BODY_TEXT).value(removeTextFormatting(UpdateBodyTextPatch.bodyText));
         } else {
+            writer.name(OPTIONS).beginArray();
             for (String misc_option : ChoiceScreenUtils.getEventScreenChoices()) {
-                HashMap<String, Object> json_button = new HashMap<>();
-                json_button.put("text", misc_option);
-                json_button.put("disabled", false);
-                json_button.put("label", misc_option);
-                json_button.put("choice_index", choice_index);
+                writer.beginObject();
+                writer.name(TEXT).value(misc_option);
+                writer.name(DISABLED).value(false);
+                writer.name(LABEL).value(misc_option);
+                writer.name(CHOICE_INDEX).value(choice_index);
                 choice_index += 1;
-                options.add(json_button);
+                writer.endObject();
             }
-            state.put("body_text", "");
+            writer.endArray();
+            writer.name(BODY_TEXT).value("");
         }
-        state.put("event_name", ReflectionHacks.getPrivateStatic(event.getClass(), "NAME"));
+        String eventName = (String) ReflectionHacks.getPrivateStatic(event.getClass(), "NAME");
+        String eventId;
         if (event instanceof NeowEvent) {
-            state.put("event_id", "Neow Event");
+            eventId = ContentDictionary.NEOW_EVENT_ID;
         } else {
-            try {
-                // AbstractEvent does not have a static "ID" field, but all of the events in the base game do.
-                Field targetField = event.getClass().getDeclaredField("ID");
-                state.put("event_id", (String)targetField.get(null));
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                state.put("event_id", "");
-            }
-            state.put("event_id", ReflectionHacks.getPrivateStatic(event.getClass(), "ID"));
+            // AbstractEvent does not have a static "ID" field, but all of the events in the base game do.
+            eventId = (String) ReflectionHacks.getPrivateStatic(event.getClass(), "ID");
+        }
+        if (options.compact) {
+            writer.name(EVENT_CODE).value(ContentDictionary.getCode(ContentDictionary.Category.EVENT, eventId, eventName));
+            writer.fingerprintOnly(EVENT_ID, eventId);
+        } else {
+            writer.name(EVENT_NAME).value(eventName);
+            writer.name(EVENT_ID).value(eventId);
         }
-        state.put("options", options);
-        return state;
+        writer.endObject();
     }
 
     /**
@@ -248,18 +443,16 @@ public class GameStateConverter {
      * "bowl_available" (boolean): Whether the Singing Bowl button is present
      * "skip_available" (boolean): Whether the card reward is skippable
      * "cards" (list): The list of cards that can be chosen
-     * @return The card reward state object
+     * @param writer The writer to write the card reward state object to
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> getCardRewardState() {
-        HashMap<String, Object> state = new HashMap<>();
-        state.put("bowl_available", ChoiceScreenUtils.isBowlAvailable());
-        state.put("skip_available", ChoiceScreenUtils.isCardRewardSkipAvailable());
-        ArrayList<Object> cardRewardJson = new ArrayList<>();
-        for(AbstractCard card : AbstractDungeon.cardRewardScreen.rewardGroup) {
-            cardRewardJson.add(convertCardToJson(card));
-        }
-        state.put("cards", cardRewardJson);
-        return state;
+    private static void writeCardRewardState(JsonStateWriter writer, StateOptions options) {
+        writer.beginObject();
+        writer.name(BOWL_AVAILABLE).value(ChoiceScreenUtils.isBowlAvailable());
+        writer.name(SKIP_AVAILABLE).value(ChoiceScreenUtils.isCardRewardSkipAvailable());
+        writer.name(CARDS);
+        convertCardsToJson(writer, game().getCardRewardScreen().rewardGroup, options);
+        writer.endObject();
     }
 
     /**
@@ -270,32 +463,36 @@ public class GameStateConverter {
      * - "relic" (object): The relic in the reward, if applicable
      * - "potion" (object): The potion in the reward, if applicable
      * - "link" (object): The relic that the sapphire key is linked to, if applicable
-     * @return The combat reward screen state object
+     * @param writer The writer to write the combat reward screen state object to
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> getCombatRewardState() {
-        HashMap<String, Object> state = new HashMap<>();
-        ArrayList<Object> rewards = new ArrayList<>();
-        for(RewardItem reward : AbstractDungeon.combatRewardScreen.rewards) {
-            HashMap<String, Object> jsonReward = new HashMap<>();
-            jsonReward.put("reward_type", reward.type.name());
+    private static void writeCombatRewardState(JsonStateWriter writer, StateOptions options) {
+        writer.beginObject();
+        writer.name(REWARDS).beginArray();
+        for(RewardItem reward : game().getCombatRewardScreen().rewards) {
+            writer.beginObject();
+            writer.name(REWARD_TYPE).value(reward.type.name());
             switch(reward.type) {
                 case GOLD:
                 case STOLEN_GOLD:
-                    jsonReward.put("gold", reward.goldAmt + reward.bonusGold);
+                    writer.name(GOLD).value(reward.goldAmt + reward.bonusGold);
                     break;
                 case RELIC:
-                    jsonReward.put("relic", convertRelicToJson(reward.relic));
+                    writer.name(RELIC);
+                    convertRelicToJson(writer, reward.relic, options);
                     break;
                 case POTION:
-                    jsonReward.put("potion", convertPotionToJson(reward.potion));
+                    writer.name(POTION);
+                    convertPotionToJson(writer, reward.potion, options);
                     break;
                 case SAPPHIRE_KEY:
-                    jsonReward.put("link", convertRelicToJson(reward.relicLink.relic));
+                    writer.name(LINK);
+                    convertRelicToJson(writer, reward.relicLink.relic, options);
             }
-            rewards.add(jsonReward);
+            writer.endObject();
         }
-        state.put("rewards", rewards);
-        return state;
+        writer.endArray();
+        writer.endObject();
     }
 
     /**
@@ -304,37 +501,39 @@ public class GameStateConverter {
      * "next_nodes" (list): A list of nodes that can be chosen next
      * "first_node_chosen" (boolean): Whether the first node in the act has already been chosen
      * "boss_available" (boolean): Whether the next node choice is a boss
-     * @return The map screen state object
+     * @param writer The writer to write the map screen state object to
      */
-    private static HashMap<String, Object> getMapScreenState() {
-        HashMap<String, Object> state = new HashMap<>();
-        if (AbstractDungeon.getCurrMapNode() != null) {
-            state.put("current_node", convertMapRoomNodeToJson(AbstractDungeon.getCurrMapNode()));
+    private static void writeMapScreenState(JsonStateWriter writer) {
+        writer.beginObject();
+        if (game().getCurrentMapNode() != null) {
+            writer.name(CURRENT_NODE);
+            convertMapRoomNodeToJson(writer, game().getCurrentMapNode());
         }
-        ArrayList<Object> nextNodesJson = new ArrayList<>();
+        writer.name(NEXT_NODES).beginArray();
         for(MapRoomNode node : ChoiceScreenUtils.getMapScreenNodeChoices()) {
-            nextNodesJson.add(convertMapRoomNodeToJson(node));
+            convertMapRoomNodeToJson(writer, node);
         }
-        state.put("next_nodes", nextNodesJson);
-        state.put("first_node_chosen", AbstractDungeon.firstRoomChosen);
-        state.put("boss_available", ChoiceScreenUtils.bossNodeAvailable());
-        return state;
+        writer.endArray();
+        writer.name(FIRST_NODE_CHOSEN).value(game().isFirstRoomChosen());
+        writer.name(BOSS_AVAILABLE).value(ChoiceScreenUtils.bossNodeAvailable());
+        writer.endObject();
     }
 
     /**
      * The boss reward screen state contains:
      * "relics" (list): A list of relics that can be chosen from the boss
      * Note: Blights are not supported.
-     * @return The boss reward screen state object
+     * @param writer The writer to write the boss reward screen state object to
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> getBossRewardState() {
-        HashMap<String, Object> state = new HashMap<>();
-        ArrayList<Object> bossRelics = new ArrayList<>();
-        for(AbstractRelic relic : AbstractDungeon.bossRelicScreen.relics) {
-            bossRelics.add(convertRelicToJson(relic));
+    private static void writeBossRewardState(JsonStateWriter writer, StateOptions options) {
+        writer.beginObject();
+        writer.name(RELICS).beginArray();
+        for(AbstractRelic relic : game().getBossRelicScreen().relics) {
+            convertRelicToJson(writer, relic, options);
         }
-        state.put("relics", bossRelics);
-        return state;
+        writer.endArray();
+        writer.endObject();
     }
 
     /**
@@ -344,34 +543,38 @@ public class GameStateConverter {
      * "potions" (list): A list of potions available to buy
      * "purge_available" (boolean): Whether the card remove option is available
      * "purge_cost" (int): The cost of the card remove option
-     * @return The shop screen state object
+     * @param writer The writer to write the shop screen state object to
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> getShopScreenState() {
-        HashMap<String, Object> state = new HashMap<>();
-        ArrayList<Object> shopCards = new ArrayList<>();
-        ArrayList<Object> shopRelics = new ArrayList<>();
-        ArrayList<Object> shopPotions = new ArrayList<>();
+    private static void writeShopScreenState(JsonStateWriter writer, StateOptions options) {
+        writer.beginObject();
+        writer.name(CARDS).beginArray();
         for(AbstractCard card : ChoiceScreenUtils.getShopScreenCards()) {
-            HashMap<String, Object> jsonCard = convertCardToJson(card);
-            jsonCard.put("price", card.price);
-            shopCards.add(jsonCard);
+            writer.beginObject();
+            writeCardFields(writer, card, options, true);
+            writer.name(PRICE).value(card.price);
+            writer.endObject();
         }
+        writer.endArray();
+        writer.name(RELICS).beginArray();
         for(StoreRelic relic : ChoiceScreenUtils.getShopScreenRelics()) {
-            HashMap<String, Object> jsonRelic = convertRelicToJson(relic.relic);
-            jsonRelic.put("price", relic.price);
-            shopRelics.add(jsonRelic);
+            writer.beginObject();
+            writeRelicFields(writer, relic.relic, options);
+            writer.name(PRICE).value(relic.price);
+            writer.endObject();
         }
+        writer.endArray();
+        writer.name(POTIONS).beginArray();
         for(StorePotion potion : ChoiceScreenUtils.getShopScreenPotions()) {
-            HashMap<String, Object> jsonPotion = convertPotionToJson(potion.potion);
-            jsonPotion.put("price", potion.price);
-            shopPotions.add(jsonPotion);
+            writer.beginObject();
+            writePotionFields(writer, potion.potion, options);
+            writer.name(PRICE).value(potion.price);
+            writer.endObject();
         }
-        state.put("cards", shopCards);
-        state.put("relics", shopRelics);
-        state.put("potions", shopPotions);
-        state.put("purge_available", AbstractDungeon.shopScreen.purgeAvailable);
-        state.put("purge_cost", ShopScreen.actualPurgeCost);
-        return state;
+        writer.endArray();
+        writer.name(PURGE_AVAILABLE).value(game().getShopScreen().purgeAvailable);
+        writer.name(PURGE_COST).value(ShopScreen.actualPurgeCost);
+        writer.endObject();
     }
 
     /**
@@ -384,33 +587,28 @@ public class GameStateConverter {
      * "for_transform" (boolean): Whether the selected cards will be transformed
      * _for_purge" (boolean): Whether the selected cards will be removed from the deck
      * "confirm_up" (boolean): Whether the confirm screen is up, and cards cannot be selected
-     * @return The grid select screen state object
+     * @param writer The writer to write the grid select screen state object to
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> getGridState() {
-        HashMap<String, Object> state = new HashMap<>();
-        ArrayList<Object> gridJson = new ArrayList<>();
-        ArrayList<Object> gridSelectedJson = new ArrayList<>();
+    private static void writeGridState(JsonStateWriter writer, StateOptions options) {
         ArrayList<AbstractCard> gridCards = ChoiceScreenUtils.getGridScreenCards();
-        GridCardSelectScreen screen = AbstractDungeon.gridSelectScreen;
-        for(AbstractCard card : gridCards) {
-            gridJson.add(convertCardToJson(card));
-        }
-        for(AbstractCard card : screen.selectedCards) {
-            gridSelectedJson.add(convertCardToJson(card));
-        }
+        GridCardSelectScreen screen = game().getGridSelectScreen();
         int numCards = (int) ReflectionHacks.getPrivate(screen, GridCardSelectScreen.class, "numCards");
         boolean forUpgrade = (boolean) ReflectionHacks.getPrivate(screen, GridCardSelectScreen.class, "forUpgrade");
         boolean forTransform = (boolean) ReflectionHacks.getPrivate(screen, GridCardSelectScreen.class, "forTransform");
         boolean forPurge = (boolean) ReflectionHacks.getPrivate(screen, GridCardSelectScreen.class, "forPurge");
-        state.put("cards", gridJson);
-        state.put("selected_cards", gridSelectedJson);
-        state.put("num_cards", numCards);
-        state.put("any_number", screen.anyNumber);
-        state.put("for_upgrade", forUpgrade);
-        state.put("for_transform", forTransform);
-        state.put("for_purge", forPurge);
-        state.put("confirm_up", screen.confirmScreenUp || screen.isJustForConfirming);
-        return state;
+        writer.beginObject();
+        writer.name(CARDS);
+        convertCardsToJson(writer, gridCards, options);
+        writer.name(SELECTED_CARDS);
+        convertCardsToJson(writer, screen.selectedCards, options);
+        writer.name(NUM_CARDS).value(numCards);
+        writer.name(ANY_NUMBER).value(screen.anyNumber);
+        writer.name(FOR_UPGRADE).value(forUpgrade);
+        writer.name(FOR_TRANSFORM).value(forTransform);
+        writer.name(FOR_PURGE).value(forPurge);
+        writer.name(CONFIRM_UP).value(screen.confirmScreenUp || screen.isJustForConfirming);
+        writer.endObject();
     }
 
     /**
@@ -419,85 +617,100 @@ public class GameStateConverter {
      * "selected" (list): The list of currently selected cards
      * "max_cards" (int): The maximum number of cards that can be selected
      * "can_pick_zero" (boolean): Whether zero cards can be selected
-     * @return The hand select screen state object
+     * @param writer The writer to write the hand select screen state object to
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> getHandSelectState() {
-        HashMap<String, Object> state = new HashMap<>();
-        ArrayList<Object> handJson = new ArrayList<>();
-        ArrayList<Object> selectedJson = new ArrayList<>();
-        ArrayList<AbstractCard> handCards = AbstractDungeon.player.hand.group;
-        // As far as I can tell, this comment is a Java 8 analogue of a Python list comprehension? I think just looping is more readable.
-        // handJson = handCards.stream().map(GameStateConverter::convertCardToJson).collect(Collectors.toCollection(ArrayList::new));
-        for(AbstractCard card : handCards) {
-            handJson.add(convertCardToJson(card));
-        }
-        state.put("hand", handJson);
-        ArrayList<AbstractCard> selectedCards = AbstractDungeon.handCardSelectScreen.selectedCards.group;
-        for(AbstractCard card : selectedCards) {
-            selectedJson.add(convertCardToJson(card));
-        }
-        state.put("selected", selectedJson);
-        state.put("max_cards", AbstractDungeon.handCardSelectScreen.numCardsToSelect);
-        state.put("can_pick_zero", AbstractDungeon.handCardSelectScreen.canPickZero);
-        return state;
+    private static void writeHandSelectState(JsonStateWriter writer, StateOptions options) {
+        writer.beginObject();
+        writer.name(HAND);
+        convertCardsToJson(writer, game().getPlayer().hand.group, options);
+        writer.name(SELECTED);
+        convertCardsToJson(writer, game().getHandCardSelectScreen().selectedCards.group, options);
+        writer.name(MAX_CARDS).value(game().getHandCardSelectScreen().numCardsToSelect);
+        writer.name(CAN_PICK_ZERO).value(game().getHandCardSelectScreen().canPickZero);
+        writer.endObject();
     }
 
     /**
      * The game over screen state contains:
      * "score" (int): Your final score
      * "victory" (boolean): Whether you won
-     * @return The game over screen state object
+     * @param writer The writer to write the game over screen state object to
      */
-    private static HashMap<String, Object> getGameOverState() {
-        HashMap<String, Object> state = new HashMap<>();
-        int score = 0;
-        boolean victory = false;
-        if(AbstractDungeon.screen == AbstractDungeon.CurrentScreen.DEATH) {
-            score = (int) ReflectionHacks.getPrivate(AbstractDungeon.deathScreen, GameOverScreen.class, "score");
-            victory = GameOverScreen.isVictory;
-        } else if(AbstractDungeon.screen == AbstractDungeon.CurrentScreen.VICTORY) {
-            score = (int) ReflectionHacks.getPrivate(AbstractDungeon.victoryScreen, GameOverScreen.class, "score");
-            victory = true;
-        }
-        state.put("score", score);
-        state.put("victory", victory);
-        return state;
+    private static void writeGameOverState(JsonStateWriter writer) {
+        writer.beginObject();
+        writer.name(SCORE).value(getGameOverScore());
+        writer.name(VICTORY).value(isGameOverVictory());
+        writer.endObject();
     }
 
     /**
-     * Gets the appropriate screen state object
-     * @return An object containing your current screen state
+     * @return The final score shown on the death or victory screen, or 0 on the other game over screens
      */
-    private static HashMap<String, Object> getScreenState() {
+    public static int getGameOverScore() {
+        if(game().getScreen() == AbstractDungeon.CurrentScreen.DEATH) {
+            return (int) ReflectionHacks.getPrivate(game().getDeathScreen(), GameOverScreen.class, "score");
+        } else if(game().getScreen() == AbstractDungeon.CurrentScreen.VICTORY) {
+            return (int) ReflectionHacks.getPrivate(game().getVictoryScreen(), GameOverScreen.class, "score");
+        }
+        return 0;
+    }
+
+    /**
+     * @return Whether the run shown on the game over screen was won
+     */
+    public static boolean isGameOverVictory() {
+        if(game().getScreen() == AbstractDungeon.CurrentScreen.DEATH) {
+            return GameOverScreen.isVictory;
+        }
+        return game().getScreen() == AbstractDungeon.CurrentScreen.VICTORY;
+    }
+
+    /**
+     * Writes the appropriate screen state object
+     * @param writer The writer to write the screen state object to
+     * @param options The serialization options for this request
+     */
+    private static void writeScreenState(JsonStateWriter writer, StateOptions options) {
         ChoiceScreenUtils.ChoiceType screenType = ChoiceScreenUtils.getCurrentChoiceType();
         switch (screenType) {
             case EVENT:
-                return getEventState();
+                writeEventState(writer, options);
+                return;
             case CHEST:
             case REST:
-                return getRoomState();
+                writeRoomState(writer);
+                return;
             case CARD_REWARD:
-                return getCardRewardState();
+                writeCardRewardState(writer, options);
+                return;
             case COMBAT_REWARD:
-                return getCombatRewardState();
+                writeCombatRewardState(writer, options);
+                return;
             case MAP:
-                return getMapScreenState();
+                writeMapScreenState(writer);
+                return;
             case BOSS_REWARD:
-                return getBossRewardState();
+                writeBossRewardState(writer, options);
+                return;
             case SHOP_SCREEN:
-                return getShopScreenState();
+                writeShopScreenState(writer, options);
+                return;
             case GRID:
-                return getGridState();
+                writeGridState(writer, options);
+                return;
             case HAND_SELECT:
-                return getHandSelectState();
+                writeHandSelectState(writer, options);
+                return;
             case GAME_OVER:
-                return getGameOverState();
+                writeGameOverState(writer);
+                return;
         }
-        return new HashMap<>();
+        writer.beginObject().endObject();
     }
 
     /**
-     * Gets the state of the current combat in game.
+     * Writes the state of the current combat in game.
      * The combat state object contains:
      * "draw_pile" (list): The list of cards in your draw pile
      * "discard_pile" (list): The list of cards in your discard pile
@@ -511,109 +724,78 @@ public class GameStateConverter {
      * "cards_discarded_this_turn" (int): The number of cards discarded this turn.
      * "times_damaged" (int): The number of times the player has been damaged this combat (for Blood for Blood).
      * Note: The order of the draw pile is not currently randomized when sent to the client.
-     * @return The combat state object
-     */
-    private static HashMap<String, Object> getCombatState() {
-        HashMap<String, Object> state = new HashMap<>();
-        ArrayList<Object> monsters = new ArrayList<>();
-        for(AbstractMonster monster : AbstractDungeon.getCurrRoom().monsters.monsters) {
-            monsters.add(convertMonsterToJson(monster));
-        }
-        state.put("monsters", monsters);
-        ArrayList<Object> draw_pile = new ArrayList<>();
-        for(AbstractCard card : AbstractDungeon.player.drawPile.group) {
-            draw_pile.add(convertCardToJson(card));
-        }
-        ArrayList<Object> discard_pile = new ArrayList<>();
-        for(AbstractCard card : AbstractDungeon.player.discardPile.group) {
-            discard_pile.add(convertCardToJson(card));
-        }
-        ArrayList<Object> exhaust_pile = new ArrayList<>();
-        for(AbstractCard card : AbstractDungeon.player.exhaustPile.group) {
-            exhaust_pile.add(convertCardToJson(card));
-        }
-        ArrayList<Object> hand = new ArrayList<>();
-        for(AbstractCard card : AbstractDungeon.player.hand.group) {
-            hand.add(convertCardToJson(card));
-        }
-        ArrayList<Object> limbo = new ArrayList<>();
-        for(AbstractCard card : AbstractDungeon.player.limbo.group) {
-            limbo.add(convertCardToJson(card));
-        }
-        state.put("draw_pile", draw_pile);
-        state.put("discard_pile", discard_pile);
-        state.put("exhaust_pile", exhaust_pile);
-        state.put("hand", hand);
-        state.put("limbo", limbo);
-        if (AbstractDungeon.player.cardInUse != null) {
-            state.put("card_in_play", convertCardToJson(AbstractDungeon.player.cardInUse));
-        }
-        state.put("player", convertPlayerToJson(AbstractDungeon.player));
-        state.put("turn", GameActionManager.turn);
-        state.put("cards_discarded_this_turn", GameActionManager.totalDiscardedThisTurn);
-        state.put("times_damaged", AbstractDungeon.player.damagedThisCombat);
-        return state;
-    }
-
-    /**
-     * Creates a GSON-compatible representation of the game map
-     * The map object is a list of nodes, each of which with two extra fields:
-     * "parents" (list): Not implemented
-     * "children" (list): The nodes connected by an edge out of the node in question
-     * @return A list of node objects
+     * @param writer The writer to write the combat state object to
+     * @param options The serialization options for this request
      */
-    private static ArrayList<Object> convertMapToJson() {
-        ArrayList<ArrayList<MapRoomNode>> map = AbstractDungeon.map;
-        ArrayList<Object> jsonMap = new ArrayList<>();
-        for(ArrayList<MapRoomNode> layer : map) {
-            for(MapRoomNode node : layer) {
-                if(node.hasEdges()) {
-                    HashMap<String, Object> json_node = convertMapRoomNodeToJson(node);
-                    ArrayList<Object> json_children = new ArrayList<>();
-                    ArrayList<Object> json_parents = new ArrayList<>();
-                    for(MapEdge edge : node.getEdges()) {
-                        if (edge.srcX == node.x && edge.srcY == node.y) {
-                            json_children.add(convertCoordinatesToJson(edge.dstX, edge.dstY));
-                        } else {
-                            json_parents.add(convertCoordinatesToJson(edge.srcX, edge.srcY));
-                        }
-                    }
-
-                    json_node.put("parents", json_parents);
-                    json_node.put("children", json_children);
-                    jsonMap.add(json_node);
-                }
-            }
+    private static void writeCombatState(JsonStateWriter writer, StateOptions options) {
+        writer.beginObject();
+        writer.name(MONSTERS).beginArray();
+        for(AbstractMonster monster : game().getCurrentRoom().monsters.monsters) {
+            convertMonsterToJson(writer, monster, options);
         }
-        return jsonMap;
+        writer.endArray();
+        writer.name(DRAW_PILE);
+        convertCardsToJson(writer, game().getPlayer().drawPile.group, options);
+        writer.name(DISCARD_PILE);
+        convertCardsToJson(writer, game().getPlayer().discardPile.group, options);
+        writer.name(EXHAUST_PILE);
+        convertCardsToJson(writer, game().getPlayer().exhaustPile.group, options);
+        writer.name(HAND);
+        convertCardsToJson(writer, game().getPlayer().hand.group, options);
+        writer.name(LIMBO);
+        convertCardsToJson(writer, game().getPlayer().limbo.group, options);
+        if (game().getPlayer().cardInUse != null) {
+            writer.name(CARD_IN_PLAY);
+            convertCardToJson(writer, game().getPlayer().cardInUse, options);
+        }
+        writer.name(PLAYER);
+        convertPlayerToJson(writer, game().getPlayer(), options);
+        writer.name(TURN).value(game().getTurn());
+        writer.name(CARDS_DISCARDED_THIS_TURN).value(game().getCardsDiscardedThisTurn());
+        writer.name(TIMES_DAMAGED).value(game().getPlayer().damagedThisCombat);
+        writer.endObject();
     }
 
-    private static HashMap<String, Object> convertCoordinatesToJson(int x, int y) {
-        HashMap<String, Object> jsonNode = new HashMap<>();
-        jsonNode.put("x", x);
-        jsonNode.put("y", y);
-        return jsonNode;
+    static void convertCoordinatesToJson(JsonStateWriter writer, int x, int y) {
+        writer.beginObject();
+        writer.name(X).value(x);
+        writer.name(Y).value(y);
+        writer.endObject();
     }
 
     /**
-     * Creates a GSON-compatible representation of the given node
+     * Writes a JSON representation of the given node
      * The node object contains:
      * "x" (int): The node's x coordinate
      * "y" (int): The node's y coordinate
      * "symbol" (string, optional): The map symbol for the node (?, $, T, M, E, R)
      * "children" (list, optional): The nodes connected by an edge out of the provided node
-     * Note: children are added by convertMapToJson()
+     * Note: children are added by MapCache, using writeMapRoomNodeFields()
+     * @param writer The writer to write the node object to
      * @param node The node to convert
-     * @return A node object
      */
-    private static HashMap<String, Object> convertMapRoomNodeToJson(MapRoomNode node) {
-        HashMap<String, Object> jsonNode = convertCoordinatesToJson(node.x, node.y);
-        jsonNode.put("symbol", node.getRoomSymbol(true));
-        return jsonNode;
+    static void convertMapRoomNodeToJson(JsonStateWriter writer, MapRoomNode node) {
+        writer.beginObject();
+        writeMapRoomNodeFields(writer, node);
+        writer.endObject();
+    }
+
+    static void writeMapRoomNodeFields(JsonStateWriter writer, MapRoomNode node) {
+        writer.name(X).value(node.x);
+        writer.name(Y).value(node.y);
+        writer.name(SYMBOL).value(node.getRoomSymbol(true));
+    }
+
+    private static void convertCardsToJson(JsonStateWriter writer, ArrayList<AbstractCard> cards, StateOptions options) {
+        writer.beginArray();
+        for(AbstractCard card : cards) {
+            convertCardToJson(writer, card, options);
+        }
+        writer.endArray();
     }
 
     /**
-     * Creates a GSON-compatible representation of the given cards
+     * Writes a JSON representation of the given card
      * The card object contains:
      * "name" (string): The name of the card, in the currently selected language
      * "uuid" (string): The unique identifier of the card
@@ -627,32 +809,91 @@ public class GameStateConverter {
      * "has_target" (boolean): Whether the card requires a target to be played
      * "exhausts" (boolean): Whether the card exhausts when played
      * "ethereal" (boolean): Whether the card is ethereal
+     * In compact mode, "name", "id", "type", "rarity" and "has_target" are omitted, and "uuid" is replaced by:
+     * "code" (int): The ContentDictionary code of the card id
+     * "instance" (int): A small number identifying the card, unique within the current run
+     * @param writer The writer to write the card object to
+     * @param card The card to convert
+     * @param options The serialization options for this request
+     */
+    static void convertCardToJson(JsonStateWriter writer, AbstractCard card, StateOptions options) {
+        writer.beginObject();
+        writeCardFields(writer, card, options, true);
+        writer.endObject();
+    }
+
+    /**
+     * Writes a card of the master deck like convertCardToJson(). In compact mode, it leaves out "is_playable": the
+     * master deck is not the hand, and leaving it out lets DeckCache reuse the deck during combat.
+     * @param writer The writer to write the card object to
      * @param card The card to convert
-     * @return A card object
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> convertCardToJson(AbstractCard card) {
-        HashMap<String, Object> jsonCard = new HashMap<>();
-        jsonCard.put("name", card.name);
-        jsonCard.put("uuid", card.uuid.toString());
+    static void convertDeckCardToJson(JsonStateWriter writer, AbstractCard card, StateOptions options) {
+        writer.beginObject();
+        writeCardFields(writer, card, options, !options.compact);
+        writer.endObject();
+    }
+
+    private static void writeCardFields(JsonStateWriter writer, AbstractCard card, StateOptions options, boolean withPlayability) {
+        if(options.compact) {
+            writer.name(CODE).value(ContentDictionary.getCode(ContentDictionary.Category.CARD, card.cardID));
+            writer.fingerprintOnly(ID, card.cardID);
+            writer.name(INSTANCE).value(getCardInstance(card));
+        } else {
+            writer.name(NAME).value(card.name);
+            writer.name(UUID_KEY).value(card.uuid.toString());
+            writer.name(ID).value(card.cardID);
+            writer.name(TYPE).value(card.type.name());
+            writer.name(RARITY).value(card.rarity.name());
+            writer.name(HAS_TARGET).value(card.target== AbstractCard.CardTarget.SELF_AND_ENEMY || card.target == AbstractCard.CardTarget.ENEMY);
+        }
         if(card.misc != 0) {
-            jsonCard.put("misc", card.misc);
+            writer.name(MISC).value(card.misc);
         }
-        if(AbstractDungeon.getMonsters() != null) {
-            jsonCard.put("is_playable", card.canUse(AbstractDungeon.player, null));
+        if(withPlayability && game().getMonsters() != null) {
+            writer.name(IS_PLAYABLE).value(card.canUse(game().getPlayer(), null));
         }
-        jsonCard.put("cost", card.costForTurn);
-        jsonCard.put("upgrades", card.timesUpgraded);
-        jsonCard.put("id", card.cardID);
-        jsonCard.put("type", card.type.name());
-        jsonCard.put("rarity", card.rarity.name());
-        jsonCard.put("has_target", card.target== AbstractCard.CardTarget.SELF_AND_ENEMY || card.target == AbstractCard.CardTarget.ENEMY);
-        jsonCard.put("exhausts", card.exhaust);
-        jsonCard.put("ethereal", card.isEthereal);
-        return jsonCard;
+        writer.name(COST).value(card.costForTurn);
+        writer.name(UPGRADES).value(card.timesUpgraded);
+        writer.name(EXHAUSTS).value(card.exhaust);
+        writer.name(ETHEREAL).value(card.isEthereal);
     }
 
     /**
-     * Creates a GSON-compatible representation of the given monster
+     * Gets a small number identifying the given card, used in place of its UUID in compact mode.
+     * Numbers are assigned in the order cards are first seen, and start over when a new run (seed) or act begins.
+     * @param card The card
+     * @return The instance number of the card
+     */
+    private static synchronized int getCardInstance(AbstractCard card) {
+        getCardInstanceGeneration();
+        Integer instance = cardInstances.get(card.uuid);
+        if (instance == null) {
+            instance = cardInstances.size() + 1;
+            cardInstances.put(card.uuid, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Starts the card instance numbers over if a new run or act has begun since they were assigned.
+     * @return A number that changes every time the instance numbers start over
+     */
+    static synchronized int getCardInstanceGeneration() {
+        Long seed = game().getSeed();
+        int act = game().getActNum();
+        if (cardInstancesSeed == null || !cardInstancesSeed.equals(seed) || cardInstancesAct != act) {
+            cardInstances.clear();
+            cardInstancesSeed = seed;
+            cardInstancesAct = act;
+            cardInstancesGeneration++;
+        }
+        return cardInstancesGeneration;
+    }
+
+    /**
+     * Writes a JSON representation of the given monster
      * The monster object contains:
      * "name" (string): The monster's name, in the currently selected language
      * "id" (string): The monster's id
@@ -670,52 +911,61 @@ public class GameStateConverter {
      * "is_gone" (boolean): Whether the monster is dead or has run away
      * "powers" (list): The monster's current powers
      * Note: If the player has Runic Dome, intent will always return NONE
+     * In compact mode, "name" and "id" are replaced by:
+     * "code" (int): The ContentDictionary code of the monster id
+     * @param writer The writer to write the monster object to
      * @param monster The monster to convert
-     * @return A monster object
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> convertMonsterToJson(AbstractMonster monster) {
-        HashMap<String, Object> jsonMonster = new HashMap<>();
-        jsonMonster.put("id", monster.id);
-        jsonMonster.put("name", monster.name);
-        jsonMonster.put("current_hp", monster.currentHealth);
-        jsonMonster.put("max_hp", monster.maxHealth);
-        if (AbstractDungeon.player.hasRelic(RunicDome.ID)) {
-            jsonMonster.put("intent", AbstractMonster.Intent.NONE);
+    private static void convertMonsterToJson(JsonStateWriter writer, AbstractMonster monster, StateOptions options) {
+        writer.beginObject();
+        if(options.compact) {
+            writer.name(CODE).value(ContentDictionary.getCode(ContentDictionary.Category.MONSTER, monster.id, monster.name));
+            writer.fingerprintOnly(ID, monster.id);
+        } else {
+            writer.name(ID).value(monster.id);
+            writer.name(NAME).value(monster.name);
+        }
+        writer.name(CURRENT_HP).value(monster.currentHealth);
+        writer.name(MAX_HP).value(monster.maxHealth);
+        if (game().getPlayer().hasRelic(RunicDome.ID)) {
+            writer.name(INTENT).value(AbstractMonster.Intent.NONE);
         } else {
-            jsonMonster.put("intent", monster.intent.name());
+            writer.name(INTENT).value(monster.intent.name());
             EnemyMoveInfo moveInfo = (EnemyMoveInfo)ReflectionHacks.getPrivate(monster, AbstractMonster.class, "move");
             if (moveInfo != null) {
-                jsonMonster.put("move_id", moveInfo.nextMove);
-                jsonMonster.put("move_base_damage", moveInfo.baseDamage);
+                writer.name(MOVE_ID).value(moveInfo.nextMove);
+                writer.name(MOVE_BASE_DAMAGE).value(moveInfo.baseDamage);
                 int intentDmg = (int)ReflectionHacks.getPrivate(monster, AbstractMonster.class, "intentDmg");
                 if (moveInfo.baseDamage > 0) {
-                    jsonMonster.put("move_adjusted_damage", intentDmg);
+                    writer.name(MOVE_ADJUSTED_DAMAGE).value(intentDmg);
                 } else {
-                    jsonMonster.put("move_adjusted_damage", moveInfo.baseDamage);
+                    writer.name(MOVE_ADJUSTED_DAMAGE).value(moveInfo.baseDamage);
                 }
                 int move_hits = moveInfo.multiplier;
                 // If isMultiDamage is not set, the multiplier is probably 0, but there is really 1 attack.
                 if (!moveInfo.isMultiDamage) {
                     move_hits = 1;
                 }
-                jsonMonster.put("move_hits", move_hits);
+                writer.name(MOVE_HITS).value(move_hits);
             }
         }
         if(monster.moveHistory.size() >= 2) {
-            jsonMonster.put("last_move_id", monster.moveHistory.get(monster.moveHistory.size() - 2));
+            writer.name(LAST_MOVE_ID).value(monster.moveHistory.get(monster.moveHistory.size() - 2));
         }
         if(monster.moveHistory.size() >= 3) {
-            jsonMonster.put("second_last_move_id", monster.moveHistory.get(monster.moveHistory.size() - 3));
+            writer.name(SECOND_LAST_MOVE_ID).value(monster.moveHistory.get(monster.moveHistory.size() - 3));
         }
-        jsonMonster.put("half_dead", monster.halfDead);
-        jsonMonster.put("is_gone", monster.isDeadOrEscaped());
-        jsonMonster.put("block", monster.currentBlock);
-        jsonMonster.put("powers", convertCreaturePowersToJson(monster));
-        return jsonMonster;
+        writer.name(HALF_DEAD).value(monster.halfDead);
+        writer.name(IS_GONE).value(monster.isDeadOrEscaped());
+        writer.name(BLOCK).value(monster.currentBlock);
+        writer.name(POWERS);
+        convertCreaturePowersToJson(writer, monster, options);
+        writer.endObject();
     }
 
     /**
-     * Creates a GSON-compatible representation of the given player
+     * Writes a JSON representation of the given player
      * The player object contains:
      * "max_hp" (int): The player's maximum hp
      * "current_hp" (int): The player's current hp
@@ -724,22 +974,24 @@ public class GameStateConverter {
      * "energy" (int): The player's current energy
      * "orbs" (list): The player's current orb slots
      * Note: many other things, like draw pile and discard pile, are in the combat state
+     * @param writer The writer to write the player object to
      * @param player The player to convert
-     * @return A player object
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> convertPlayerToJson(AbstractPlayer player) {
-        HashMap<String, Object> jsonPlayer = new HashMap<>();
-        jsonPlayer.put("max_hp", player.maxHealth);
-        jsonPlayer.put("current_hp", player.currentHealth);
-        jsonPlayer.put("powers", convertCreaturePowersToJson(player));
-        jsonPlayer.put("energy", EnergyPanel.totalCount);
-        jsonPlayer.put("block", player.currentBlock);
-        ArrayList<Object> orbs = new ArrayList<>();
+    private static void convertPlayerToJson(JsonStateWriter writer, AbstractPlayer player, StateOptions options) {
+        writer.beginObject();
+        writer.name(MAX_HP).value(player.maxHealth);
+        writer.name(CURRENT_HP).value(player.currentHealth);
+        writer.name(POWERS);
+        convertCreaturePowersToJson(writer, player, options);
+        writer.name(ENERGY).value(game().getEnergy());
+        writer.name(BLOCK).value(player.currentBlock);
+        writer.name(ORBS).beginArray();
         for(AbstractOrb orb : player.orbs) {
-            orbs.add(convertOrbToJson(orb));
+            convertOrbToJson(writer, orb);
         }
-        jsonPlayer.put("orbs", orbs);
-        return jsonPlayer;
+        writer.endArray();
+        writer.endObject();
     }
 
     /**
@@ -765,7 +1017,7 @@ public class GameStateConverter {
     }
 
     /**
-     * Creates a GSON-compatible representation of the given creature's powers
+     * Writes a JSON representation of the given creature's powers
      * The power object contains:
      * "id" (string): The id of the power
      * "name" (string): The name of the power, in the currently selected language
@@ -774,23 +1026,32 @@ public class GameStateConverter {
      * "card" (object, optional): The card associated with the power (for powers like Nightmare)
      * "misc" (int, optional): Contains misc values that don't fit elsewhere (such as the base value for Flight)
      * "just_applied" (boolean, optional): Used with many powers to prevent them from expiring immediately
+     * In compact mode, "id" and "name" are replaced by:
+     * "code" (int): The ContentDictionary code of the power id
+     * @param writer The writer to write the list of power objects to
      * @param creature The creature whose powers are to be converted
-     * @return A list of power objects
+     * @param options The serialization options for this request
      */
-    private static ArrayList<Object> convertCreaturePowersToJson(AbstractCreature creature) {
-        ArrayList<Object> powers = new ArrayList<>();
+    private static void convertCreaturePowersToJson(JsonStateWriter writer, AbstractCreature creature, StateOptions options) {
+        writer.beginArray();
         for(AbstractPower power : creature.powers) {
-            HashMap<String, Object> json_power = new HashMap<>();
-            json_power.put("id", power.ID);
-            json_power.put("name", power.name);
-            json_power.put("amount", power.amount);
+            writer.beginObject();
+            if(options.compact) {
+                writer.name(CODE).value(ContentDictionary.getCode(ContentDictionary.Category.POWER, power.ID, power.name));
+                writer.fingerprintOnly(ID, power.ID);
+            } else {
+                writer.name(ID).value(power.ID);
+                writer.name(NAME).value(power.name);
+            }
+            writer.name(AMOUNT).value(power.amount);
             Object damage = getFieldIfExists(power, "damage");
             if (damage != null) {
-                json_power.put("damage", (int)damage);
+                writer.name(DAMAGE).value((int)damage);
             }
             Object card = getFieldIfExists(power, "card");
             if (card != null) {
-                json_power.put("card", convertCardToJson((AbstractCard)card));
+                writer.name(CARD);
+                convertCardToJson(writer, (AbstractCard)card, options);
             }
             String[] miscFieldNames = {
                     "basePower", "maxAmt", "storedAmount", "hpLoss", "cardsDoubledThisTurn"
@@ -804,7 +1065,7 @@ public class GameStateConverter {
             for (String fieldName : miscFieldNames) {
                 misc = getFieldIfExists(power, fieldName);
                 if (misc != null) {
-                    json_power.put("misc", (int)misc);
+                    writer.name(MISC).value((int)misc);
                     break;
                 }
             }
@@ -818,76 +1079,100 @@ public class GameStateConverter {
             for (String fieldName : justAppliedNames) {
                 justApplied = getFieldIfExists(power, fieldName);
                 if (justApplied != null) {
-                    json_power.put("just_applied", (boolean)justApplied);
+                    writer.name(JUST_APPLIED).value((boolean)justApplied);
                     break;
                 }
             }
 
-            powers.add(json_power);
+            writer.endObject();
         }
-        return powers;
+        writer.endArray();
     }
 
     /**
-     * Creates a GSON-compatible representation of the given relic
+     * Writes a JSON representation of the given relic
      * The relic object contains:
      * "id" (string): The id of the relic
      * "name" (string): The name of the relic, in the currently selected language
      * "counter" (int): The counter on the relic
+     * In compact mode, "id" and "name" are replaced by:
+     * "code" (int): The ContentDictionary code of the relic id
+     * @param writer The writer to write the relic object to
      * @param relic The relic to convert
-     * @return A relic object
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> convertRelicToJson(AbstractRelic relic) {
-        HashMap<String, Object> jsonRelic = new HashMap<>();
-        jsonRelic.put("id", relic.relicId);
-        jsonRelic.put("name", relic.name);
-        jsonRelic.put("counter", relic.counter);
-        return jsonRelic;
+    private static void convertRelicToJson(JsonStateWriter writer, AbstractRelic relic, StateOptions options) {
+        writer.beginObject();
+        writeRelicFields(writer, relic, options);
+        writer.endObject();
+    }
+
+    private static void writeRelicFields(JsonStateWriter writer, AbstractRelic relic, StateOptions options) {
+        if(options.compact) {
+            writer.name(CODE).value(ContentDictionary.getCode(ContentDictionary.Category.RELIC, relic.relicId));
+            writer.fingerprintOnly(ID, relic.relicId);
+        } else {
+            writer.name(ID).value(relic.relicId);
+            writer.name(NAME).value(relic.name);
+        }
+        writer.name(COUNTER).value(relic.counter);
     }
 
     /**
-     * Creates a GSON-compatible representation of the given potion
+     * Writes a JSON representation of the given potion
      * The potion object contains:
      * "id" (string): The id of the potion
      * "name" (string): The name of the potion, in the currently selected language
      * "can_use" (boolean): Whether the potion can currently be used
      * "can_discard" (boolean): Whether the potion can currently be discarded
      * "requires_target" (boolean): Whether the potion must be used with a target
+     * In compact mode, "id", "name" and "requires_target" are replaced by:
+     * "code" (int): The ContentDictionary code of the potion id, or 0 for an empty slot
+     * @param writer The writer to write the potion object to
      * @param potion The potion to convert
-     * @return A potion object
+     * @param options The serialization options for this request
      */
-    private static HashMap<String, Object> convertPotionToJson(AbstractPotion potion) {
-        HashMap<String, Object> jsonPotion = new HashMap<>();
-        jsonPotion.put("id", potion.ID);
-        jsonPotion.put("name", potion.name);
+    private static void convertPotionToJson(JsonStateWriter writer, AbstractPotion potion, StateOptions options) {
+        writer.beginObject();
+        writePotionFields(writer, potion, options);
+        writer.endObject();
+    }
+
+    private static void writePotionFields(JsonStateWriter writer, AbstractPotion potion, StateOptions options) {
+        if(options.compact) {
+            writer.name(CODE).value(potion instanceof PotionSlot ? 0 : ContentDictionary.getCode(ContentDictionary.Category.POTION, potion.ID));
+            writer.fingerprintOnly(ID, potion.ID);
+        } else {
+            writer.name(ID).value(potion.ID);
+            writer.name(NAME).value(potion.name);
+            writer.name(REQUIRES_TARGET).value(potion.isThrown);
+        }
         boolean canUse = potion.canUse();
         boolean canDiscard = potion.canDiscard();
         if (potion instanceof PotionSlot) {
             canDiscard = canUse = false;
         }
-        jsonPotion.put("can_use", canUse);
-        jsonPotion.put("can_discard", canDiscard);
-        jsonPotion.put("requires_target", potion.isThrown);
-        return jsonPotion;
+        writer.name(CAN_USE).value(canUse);
+        writer.name(CAN_DISCARD).value(canDiscard);
     }
 
     /**
-     * Creates a GSON-compatible representation of the given orb
+     * Writes a JSON representation of the given orb
      * The orb object contains:
      * "id" (string): The id of the orb
      * "name" (string): The name of the orb, in the currently selected language
      * "evoke_amount" (int): The evoke amount of the orb
      * "passive_amount" (int): The passive amount of the orb
+     * @param writer The writer to write the orb object to
      * @param orb The orb to convert
-     * @return An orb object
      */
-    private static HashMap<String, Object> convertOrbToJson(AbstractOrb orb) {
-        HashMap<String, Object> jsonOrb =  new HashMap<>();
-        jsonOrb.put("id", orb.ID);
-        jsonOrb.put("name", orb.name);
-        jsonOrb.put("evoke_amount", orb.evokeAmount);
-        jsonOrb.put("passive_amount", orb.passiveAmount);
-        return jsonOrb;
+    private static void convertOrbToJson(JsonStateWriter writer, AbstractOrb orb) {
+        writer.beginObject();
+        writer.name(ID).value(orb.ID);
+        writer.name(NAME).value(orb.name);
+        writer.name(EVOKE_AMOUNT).value(orb.evokeAmount);
+        writer.name(PASSIVE_AMOUNT).value(orb.passiveAmount);
+        writer.endObject();
     }
 
 }
@@ -17,11 +17,17 @@ public class GameStateListener {
     private static boolean externalChange = false;
     private static boolean myTurn = false;
     private static boolean blocked = false;
-    private static boolean waitingForCommand = false;
+    private static volatile boolean waitingForCommand = false;
+    // Incremented before waitingForCommand is set for each new stable state
+    private static volatile long stableStateCount = 0;
     private static boolean hasPresentedOutOfGameState = false;
     private static boolean waitOneUpdate = false;
     private static int timeout = 0;
 
+    private static GameAccess game() {
+        return GameAccessProvider.get();
+    }
+
     /**
      * Used to indicate that something (in game logic, not external command) has been done that will change the game state,
      * and hasStateChanged() should indicate a state change when the state next becomes stable.
@@ -101,16 +107,16 @@ public class GameStateListener {
             return false;
         }
         // During transitions, the current room may be null
-        if (AbstractDungeon.getCurrRoom() == null) {
+        if (game().getCurrentRoom() == null) {
             return false;
         }
         hasPresentedOutOfGameState = false;
-        AbstractDungeon.CurrentScreen newScreen = AbstractDungeon.screen;
-        boolean newScreenUp = AbstractDungeon.isScreenUp;
-        AbstractRoom.RoomPhase newPhase = AbstractDungeon.getCurrRoom().phase;
+        AbstractDungeon.CurrentScreen newScreen = game().getScreen();
+        boolean newScreenUp = game().isScreenUp();
+        AbstractRoom.RoomPhase newPhase = game().getCurrentRoom().phase;
         boolean inCombat = (newPhase == AbstractRoom.RoomPhase.COMBAT);
         // Lots of stuff can happen while the dungeon is fading out, but nothing that requires input from the user.
-        if (AbstractDungeon.isFadingOut || AbstractDungeon.isFadingIn) {
+        if (game().isFadingOut() || game().isFadingIn()) {
             return false;
         }
         // This check happens before the rest since dying can happen in combat and messes with the other cases.
@@ -122,17 +128,17 @@ public class GameStateListener {
             return false;
         }
         // We are not ready to receive commands when it is not our turn, except for some pesky screens
-        if (inCombat && ((!myTurn && !AbstractDungeon.actionManager.phase.equals(GameActionManager.Phase.WAITING_ON_USER)) || AbstractDungeon.getMonsters().areMonstersBasicallyDead())) {
+        if (inCombat && ((!myTurn && !game().getActionManager().phase.equals(GameActionManager.Phase.WAITING_ON_USER)) || game().getMonsters().areMonstersBasicallyDead())) {
             if (!newScreenUp) {
                 return false;
             }
         }
         // In event rooms, we need to wait for the event wait timer to reach 0 before we can accurately assess its state.
-        AbstractRoom currentRoom = AbstractDungeon.getCurrRoom();
+        AbstractRoom currentRoom = game().getCurrentRoom();
         if ((currentRoom instanceof EventRoom
                 || currentRoom instanceof NeowRoom
                 || (currentRoom instanceof VictoryRoom && ((VictoryRoom) currentRoom).eType == VictoryRoom.EventType.HEART))
-                && AbstractDungeon.getCurrRoom().event.waitTimer != 0.0F
+                && game().getCurrentRoom().event.waitTimer != 0.0F
                 && newScreen != AbstractDungeon.CurrentScreen.MAP) {
             return false;
         }
@@ -145,9 +151,9 @@ public class GameStateListener {
                     return true;
                 }
                 // In combat, if no screen is up, we should wait for all actions to complete before indicating a state change.
-                else if (AbstractDungeon.actionManager.phase.equals(GameActionManager.Phase.WAITING_ON_USER)
-                        && AbstractDungeon.actionManager.cardQueue.isEmpty()
-                        && AbstractDungeon.actionManager.actions.isEmpty()) {
+                else if (game().getActionManager().phase.equals(GameActionManager.Phase.WAITING_ON_USER)
+                        && game().getActionManager().cardQueue.isEmpty()
+                        && game().getActionManager().actions.isEmpty()) {
                     return true;
                 }
 
@@ -167,22 +173,22 @@ public class GameStateListener {
         // our attention, like retaining a card, occur after the end turn is queued, but the previous cases
         // cover those actions. We would like to avoid registering other state changes after the end turn
         // command but before the game actually ends your turn.
-        if (inCombat && AbstractDungeon.player.endTurnQueued) {
+        if (inCombat && game().getPlayer().endTurnQueued) {
             return false;
         }
         // If some other code registered a state change through registerStateChange(), or if we notice a state
         // change through the gold amount changing, we still need to wait until all actions are finished
         // resolving to claim a stable state and ask for a new command.
-        if ((externalChange || previousGold != AbstractDungeon.player.gold)
-                && AbstractDungeon.actionManager.phase.equals(GameActionManager.Phase.WAITING_ON_USER)
-                && AbstractDungeon.actionManager.preTurnActions.isEmpty()
-                && AbstractDungeon.actionManager.actions.isEmpty()
-                && AbstractDungeon.actionManager.cardQueue.isEmpty()) {
+        if ((externalChange || previousGold != game().getPlayer().gold)
+                && game().getActionManager().phase.equals(GameActionManager.Phase.WAITING_ON_USER)
+                && game().getActionManager().preTurnActions.isEmpty()
+                && game().getActionManager().actions.isEmpty()
+                && game().getActionManager().cardQueue.isEmpty()) {
             return true;
         }
         // In a grid select screen, if a confirm screen comes up or goes away, it doesn't change any other state.
         if (newScreen == AbstractDungeon.CurrentScreen.GRID) {
-            boolean newGridSelectConfirmUp = AbstractDungeon.gridSelectScreen.confirmScreenUp;
+            boolean newGridSelectConfirmUp = game().getGridSelectScreen().confirmScreenUp;
             if (previousScreen == AbstractDungeon.CurrentScreen.GRID && newGridSelectConfirmUp != previousGridSelectConfirmUp) {
                 return true;
             }
@@ -209,12 +215,13 @@ public class GameStateListener {
      */
     public static boolean checkForMenuStateChange() {
         boolean stateChange = false;
-        if (!hasPresentedOutOfGameState && CardCrawlGame.mode == CardCrawlGame.GameMode.CHAR_SELECT && CardCrawlGame.mainMenuScreen != null) {
+        if (!hasPresentedOutOfGameState && game().getGameMode() == CardCrawlGame.GameMode.CHAR_SELECT && game().getMainMenuScreen() != null) {
             stateChange = true;
             hasPresentedOutOfGameState = true;
         }
         if (stateChange) {
             externalChange = false;
+            stableStateCount += 1;
             waitingForCommand = true;
         }
         return stateChange;
@@ -222,10 +229,12 @@ public class GameStateListener {
 
     /**
      * Detects a state change in AbstractDungeon, and updates all of the local variables used to detect
-     * changes in the dungeon state. Sets waitingForCommand = true if a state change was registered since
-     * the last command was sent.
+     * changes in the dungeon state. When a state change was registered since the last command was sent, the decision
+     * plugins are asked for a command first, and only if none executes one is the state published:
+     * waitingForCommand is set and the stable state count incremented. A state that a plugin moves on from is never
+     * reported ready, so no command from a client can run alongside the plugin's.
      *
-     * @return Whether a dungeon state change was detected
+     * @return Whether a dungeon state change was detected and published
      */
     public static boolean checkForDungeonStateChange() {
         boolean stateChange = false;
@@ -233,13 +242,17 @@ public class GameStateListener {
             stateChange = hasDungeonStateChanged();
             if (stateChange) {
                 externalChange = false;
-                waitingForCommand = true;
-                previousPhase = AbstractDungeon.getCurrRoom().phase;
-                previousScreen = AbstractDungeon.screen;
-                previousScreenUp = AbstractDungeon.isScreenUp;
-                previousGold = AbstractDungeon.player.gold;
-                previousGridSelectConfirmUp = AbstractDungeon.gridSelectScreen.confirmScreenUp;
+                previousPhase = game().getCurrentRoom().phase;
+                previousScreen = game().getScreen();
+                previousScreenUp = game().isScreenUp();
+                previousGold = game().getPlayer().gold;
+                previousGridSelectConfirmUp = game().getGridSelectScreen().confirmScreenUp;
                 timeout = 0;
+                if (DecisionPlugins.resolve()) {
+                    return false;
+                }
+                stableStateCount += 1;
+                waitingForCommand = true;
             }
         } else {
             myTurn = false;
@@ -250,4 +263,12 @@ public class GameStateListener {
     public static boolean isWaitingForCommand() {
         return waitingForCommand;
     }
+
+    /**
+     * @return The number of stable states so far. A state captured while this count had the same value as now is
+     *         the current state.
+     */
+    public static long getStableStateCount() {
+        return stableStateCount;
+    }
 }
\ No newline at end of file
@@ -28,7 +28,7 @@ public class HealthHandler implements HttpHandler {
             healthResponse.put("status", "healthy");
             healthResponse.put("mod_name", "HTTP Communication Mod");
             healthResponse.put("version", "3.0.0");
-            healthResponse.put("endpoints", new String[]{"/state", "/command", "/start", "/reset", "/health"});
+            healthResponse.put("endpoints", new String[]{"/state", "/command", "/start", "/reset", "/health", "/observation", "/dictionary", "/map", "/runs/queue", "/runs/results", "/encounter", "/scenario", "/route"});
 
             Gson gson = new Gson();
             String jsonResponse = gson.toJson(healthResponse);
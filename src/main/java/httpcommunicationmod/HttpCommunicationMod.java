@@ -14,14 +14,7 @@ import httpcommunicationmod.patches.InputActionPatch;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 
 @SpireInitializer
 public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdateSubscriber,
@@ -37,19 +30,24 @@ public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdat
     private static final int DEFAULT_PORT = 8080;
     private static final String DEFAULT_HOST = "localhost";
     private static final boolean DEFAULT_VERBOSITY = true;
-    private static final String DEFAULT_LOG_PATH = "http_mod.log";
 
     private static WebServer webServer;
-    private static String logFilePath;
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
     public HttpCommunicationMod() {
         BaseMod.subscribe(this);
         onStateChangeSubscribers = new ArrayList<>();
         HttpCommunicationMod.subscribe(this);
 
-        initializeLogFile();
+        CommunicationLog.initialize();
+        DecisionPlugins.register(new RoutePlanner());
+        if (AutoResolver.isEnabled()) {
+            logger.info("Forced moves are executed automatically (HTTP_MOD_AUTO_RESOLVE)");
+            DecisionPlugins.register(new AutoResolver());
+        }
+        StateCaptureService.start();
         startWebServer();
+        SharedMemoryTransport.start();
+        PipeTransport.start();
     }
 
     public static void initialize() {
@@ -57,14 +55,24 @@ public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdat
     }
 
     public void receivePreUpdate() {
-        // HTTP-based communication doesn't need to check for subprocess messages
-        // Commands arrive via HTTP POST requests instead
+        // HTTP commands are executed by the handlers. Commands from the other transports are queued and executed
+        // here, on the game thread.
+        SharedMemoryTransport.pollCommands();
+        PipeTransport.pollRequests();
+        CommandQueue.drain();
     }
 
     public static void subscribe(OnStateChangeSubscriber sub) {
         onStateChangeSubscribers.add(sub);
     }
 
+    /**
+     * Registers a policy that decides in-game, before the HTTP agent sees the state. See DecisionPlugin.
+     */
+    public static void registerDecisionPlugin(DecisionPlugin plugin) {
+        DecisionPlugins.register(plugin);
+    }
+
     public static void publishOnGameStateChange() {
         for (OnStateChangeSubscriber sub : onStateChangeSubscribers) {
             sub.receiveOnStateChange();
@@ -72,23 +80,20 @@ public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdat
     }
 
     public void receiveOnStateChange() {
-        // State changes are now handled via HTTP GET /state requests
-        // No automatic sending to subprocess needed
+        // The JSON state is still built per HTTP GET /state request, but the observation is captured here,
+        // on the game thread, and encoded off-thread
+        StateCaptureService.capture();
+        SharedMemoryTransport.publishState();
+        PipeTransport.publishState();
     }
 
     public static void queueCommand(String command) {
-        try {
-            boolean stateChanged = CommandExecutor.executeCommand(command);
-            if (stateChanged) {
-                GameStateListener.registerCommandExecution();
-            }
-        } catch (InvalidCommandException e) {
-            logger.error("Error executing command: " + e.getMessage());
-        }
+        CommandQueue.submit(command, null);
     }
 
     public void receivePostInitialize() {
         setUpOptionsMenu();
+        ContentDictionary.initialize();
     }
 
     public void receivePostUpdate() {
@@ -99,6 +104,9 @@ public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdat
             publishOnGameStateChange();
             mustSendGameState = false;
         }
+        MultiChoice.update();
+        RunQueue.update();
+        ScenarioSetup.update();
         InputActionPatch.doKeypress = false;
     }
 
@@ -117,7 +125,8 @@ public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdat
         ModLabel portLabel = new ModLabel(
                 "", 350, 600, Settings.CREAM_COLOR, FontHelper.charDescFont,
                 settingsPanel, modLabel -> {
-                    modLabel.text = String.format("Web Server Port: %d", getWebServerPort());
+                    int port = webServer != null && webServer.isRunning() ? webServer.getPort() : getWebServerPort();
+                    modLabel.text = String.format("Web Server Port: %d", port);
                 });
         settingsPanel.addUIElement(portLabel);
 
@@ -143,7 +152,7 @@ public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdat
         settingsPanel.addUIElement(restartServerLabel);
 
         ModLabel envVarLabel = new ModLabel(
-                "Configuration via environment variables: HTTP_MOD_PORT, HTTP_MOD_HOST, HTTP_MOD_LOG_PATH",
+                "Configuration via environment variables: HTTP_MOD_PORT, HTTP_MOD_HOST, HTTP_MOD_LOG_PATH, HTTP_MOD_ANNOUNCE_DIR",
                 350, 500, Settings.CREAM_COLOR, FontHelper.charDescFont,
                 settingsPanel, modLabel -> {
                 });
@@ -155,10 +164,10 @@ public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdat
 
     private boolean startWebServer() {
         try {
-            webServer = new WebServer();
+            webServer = new WebServer(new LiveGameAccess(), getWebServerTransport());
             webServer.start(getWebServerHost(), getWebServerPort());
-            logger.info(
-                    "HTTP Communication Mod web server started on " + getWebServerHost() + ":" + getWebServerPort());
+            logger.info("HTTP Communication Mod web server started on " + webServer.getAddress());
+            InstanceAnnouncement.announce(getWebServerHost(), webServer.getPort());
             return true;
         } catch (Exception e) {
             logger.error("Failed to start web server: " + e.getMessage());
@@ -176,9 +185,13 @@ public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdat
 
     public static void dispose() {
         logger.info("Shutting down web server...");
+        InstanceAnnouncement.withdraw();
         if (webServer != null) {
             webServer.stop();
         }
+        StateCaptureService.stop();
+        SharedMemoryTransport.stop();
+        PipeTransport.stop();
     }
 
     private static int getWebServerPort() {
@@ -208,64 +221,33 @@ public class HttpCommunicationMod implements PostInitializeSubscriber, PostUpdat
         return DEFAULT_HOST;
     }
 
-    private static boolean getVerbosityOption() {
-        return DEFAULT_VERBOSITY;
-    }
-
-    public static String getCurrentGameState() {
-        return GameStateConverter.getCommunicationState();
-    }
-
-    private void initializeLogFile() {
-        String envLogPath = System.getenv("HTTP_MOD_LOG_PATH");
-        if (envLogPath != null && !envLogPath.trim().isEmpty()) {
-            logFilePath = envLogPath.trim();
-            logger.info("Using HTTP_MOD_LOG_PATH environment variable: " + logFilePath);
-        } else {
-            logFilePath = DEFAULT_LOG_PATH;
-            logger.info("HTTP_MOD_LOG_PATH environment variable not set, using default: " + logFilePath);
-        }
-
-        try {
-            if (logFilePath.contains("/") || logFilePath.contains("\\")) {
-                String directory = Paths.get(logFilePath).getParent().toString();
-                Files.createDirectories(Paths.get(directory));
+    private static WebServer.Transport getWebServerTransport() {
+        String envServer = System.getenv("HTTP_MOD_SERVER");
+        if (envServer != null && !envServer.trim().isEmpty()) {
+            try {
+                WebServer.Transport transport = WebServer.Transport.valueOf(envServer.trim().toUpperCase());
+                logger.info("Using HTTP_MOD_SERVER environment variable: " + transport);
+                return transport;
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid HTTP_MOD_SERVER value '" + envServer + "', using default: " + WebServer.Transport.JDK);
             }
-            logger.info("File logging initialized with path: " + logFilePath);
-        } catch (IOException e) {
-            logger.error("Failed to initialize log file directory: " + e.getMessage());
-            e.printStackTrace();
         }
+        return WebServer.Transport.JDK;
     }
 
-    public static void logGameState(String gameState) {
-        if (logFilePath == null)
-            return;
-
-        String timestamp = dateFormat.format(new Date());
-        String logEntry = String.format("[%s] GAME_STATE: %s%n", timestamp, gameState);
-        writeToLogFile(logEntry);
+    private static boolean getVerbosityOption() {
+        return DEFAULT_VERBOSITY;
     }
 
-    public static void logCommand(String command) {
-        if (logFilePath == null)
-            return;
-
-        String timestamp = dateFormat.format(new Date());
-        String logEntry = String.format("[%s] COMMAND: %s%n", timestamp, command);
-        writeToLogFile(logEntry);
+    public static String getCurrentGameState() {
+        return GameStateConverter.getCommunicationState();
     }
 
-    private static void writeToLogFile(String content) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(logFilePath, true))) {
-            writer.print(content);
-        } catch (IOException e) {
-            logger.error("Failed to write to log file: " + e.getMessage());
-            e.printStackTrace();
-        }
+    public static String getCurrentGameState(StateOptions options) {
+        return GameStateConverter.getCommunicationState(options);
     }
 
     public static String getCurrentLogPath() {
-        return logFilePath;
+        return CommunicationLog.getCurrentLogPath();
     }
 }
\ No newline at end of file
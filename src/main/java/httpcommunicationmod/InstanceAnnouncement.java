@@ -0,0 +1,107 @@
+package httpcommunicationmod;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Announces the address of the running web server in a file, so that an orchestrator can launch many instances with
+ * HTTP_MOD_PORT=0 and find the port each one is bound to.
+ *
+ * When HTTP_MOD_ANNOUNCE_DIR is set, the file <instance id>.json is written there each time the web server starts:
+ * {"instance_id": ..., "host": ..., "port": ..., "pid": ..., "start_time": ...}, with the start time in milliseconds
+ * since the epoch. The file is written to a temporary name and renamed, so readers never see a partial file. It is
+ * removed on dispose. The instance id is HTTP_MOD_INSTANCE_ID, or a random UUID.
+ */
+public class InstanceAnnouncement {
+    private static final Logger logger = LogManager.getLogger(InstanceAnnouncement.class.getName());
+
+    private static final JsonStateWriter.Key INSTANCE_ID = new JsonStateWriter.Key("instance_id");
+    private static final JsonStateWriter.Key HOST = new JsonStateWriter.Key("host");
+    private static final JsonStateWriter.Key PORT = new JsonStateWriter.Key("port");
+    private static final JsonStateWriter.Key PID = new JsonStateWriter.Key("pid");
+    private static final JsonStateWriter.Key START_TIME = new JsonStateWriter.Key("start_time");
+
+    private static final String instanceId = getInstanceId();
+    private static final long startTime = System.currentTimeMillis();
+    private static Path announcementFile;
+
+    /**
+     * Writes or replaces the announcement file, if HTTP_MOD_ANNOUNCE_DIR is set.
+     * @param host The host the web server is bound to
+     * @param port The port the web server is bound to
+     */
+    public static void announce(String host, int port) {
+        String envDir = System.getenv("HTTP_MOD_ANNOUNCE_DIR");
+        if (envDir == null || envDir.trim().isEmpty()) {
+            return;
+        }
+        JsonStateWriter writer = new JsonStateWriter();
+        writer.beginObject();
+        writer.name(INSTANCE_ID).value(instanceId);
+        writer.name(HOST).value(host);
+        writer.name(PORT).value(port);
+        writer.name(PID).value(getPid());
+        writer.name(START_TIME).value(startTime);
+        writer.endObject();
+
+        try {
+            Path dir = Paths.get(envDir.trim());
+            Files.createDirectories(dir);
+            Path file = dir.resolve(instanceId + ".json");
+            Path temporary = Files.createTempFile(dir, instanceId, ".tmp");
+            Files.write(temporary, writer.toString().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            announcementFile = file;
+            logger.info("Announced " + host + ":" + port + " in " + file);
+        } catch (IOException e) {
+            logger.error("Failed to write announcement file in " + envDir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the announcement file, if one was written.
+     */
+    public static void withdraw() {
+        if (announcementFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(announcementFile);
+        } catch (IOException e) {
+            logger.error("Failed to remove announcement file " + announcementFile + ": " + e.getMessage());
+        }
+        announcementFile = null;
+    }
+
+    private static String getInstanceId() {
+        String envId = System.getenv("HTTP_MOD_INSTANCE_ID");
+        if (envId != null && !envId.trim().isEmpty()) {
+            return envId.trim();
+        }
+        return UUID.randomUUID().toString();
+    }
+
+    private static long getPid() {
+        // The runtime name is "pid@hostname" on the JVMs the game ships with
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
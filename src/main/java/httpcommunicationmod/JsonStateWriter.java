@@ -0,0 +1,354 @@
+package httpcommunicationmod;
+
+import java.util.List;
+
+/**
+ * A minimal streaming JSON writer used to serialize the game state without building intermediate maps.
+ * Object member names are precomputed Key tokens, and numbers and booleans are appended without boxing.
+ * The output uses the same formatting as the default Gson instance used elsewhere in the mod: no whitespace,
+ * HTML-safe string escaping, and object members with a null value are omitted.
+ *
+ * The writer can also compute a 64-bit fingerprint of what it writes, see startFingerprint().
+ */
+public class JsonStateWriter {
+
+    /**
+     * A precomputed object member name, including its quotes and the trailing colon.
+     */
+    public static final class Key {
+        private final String token;
+        private final long hash;
+        private final boolean fingerprinted;
+
+        public Key(String name) {
+            this(name, true);
+        }
+
+        /**
+         * @param name The member name
+         * @param fingerprinted Whether the members with this name are part of the fingerprint. Members that are not
+         *        are skipped with their whole value.
+         */
+        public Key(String name, boolean fingerprinted) {
+            StringBuilder builder = new StringBuilder(name.length() + 3);
+            appendString(builder, name);
+            builder.append(':');
+            token = builder.toString();
+            hash = stringHash(name);
+            this.fingerprinted = fingerprinted;
+        }
+    }
+
+    private static final long BEGIN_OBJECT = 1;
+    private static final long END_OBJECT = 2;
+    private static final long BEGIN_ARRAY = 3;
+    private static final long END_ARRAY = 4;
+    private static final long NULL = 5;
+
+    private static final String[] REPLACEMENT_CHARS = new String[128];
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            REPLACEMENT_CHARS[i] = String.format("\\u%04x", i);
+        }
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+        REPLACEMENT_CHARS['<'] = "\\u003c";
+        REPLACEMENT_CHARS['>'] = "\\u003e";
+        REPLACEMENT_CHARS['&'] = "\\u0026";
+        REPLACEMENT_CHARS['='] = "\\u003d";
+        REPLACEMENT_CHARS['\''] = "\\u0027";
+    }
+
+    private final StringBuilder out;
+    // empty[depth] is true until the first element of the object or array at that depth has been written
+    private boolean[] empty = new boolean[32];
+    private int depth = 0;
+    private Key pendingKey = null;
+    private boolean fingerprinting = false;
+    private long fingerprint = 0;
+    // The depth of the container whose values are left out of the fingerprint, or 0
+    private int skipDepth = 0;
+
+    public JsonStateWriter() {
+        this(new StringBuilder(1024));
+    }
+
+    public JsonStateWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    /**
+     * Starts fingerprinting: from now on, the names and values written are hashed into getFingerprint(), in order,
+     * except for the members whose Key is not fingerprinted. Strings are hashed with String.hashCode(), so that the
+     * fingerprint is the same in every JVM.
+     */
+    public JsonStateWriter startFingerprint() {
+        fingerprinting = true;
+        return this;
+    }
+
+    /**
+     * @return The fingerprint of what was written since startFingerprint()
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Adds a member to the fingerprint without writing it, as if name(key).value(value) had been written. Used where
+     * a value is written in another form, such as a ContentDictionary code for an id, to keep the fingerprint the same.
+     */
+    public JsonStateWriter fingerprintOnly(Key key, String value) {
+        if (isFingerprinting() && key.fingerprinted) {
+            mix(key.hash);
+            mix(value == null ? NULL : stringHash(value));
+        }
+        return this;
+    }
+
+    public JsonStateWriter beginObject() {
+        beginContainer(BEGIN_OBJECT);
+        out.append('{');
+        push();
+        return this;
+    }
+
+    public JsonStateWriter endObject() {
+        endContainer(END_OBJECT);
+        depth -= 1;
+        out.append('}');
+        return this;
+    }
+
+    public JsonStateWriter beginArray() {
+        beginContainer(BEGIN_ARRAY);
+        out.append('[');
+        push();
+        return this;
+    }
+
+    public JsonStateWriter endArray() {
+        endContainer(END_ARRAY);
+        depth -= 1;
+        out.append(']');
+        return this;
+    }
+
+    /**
+     * Sets the name of the next object member. The name is only written together with the member's value, so that
+     * members with a null value can be omitted.
+     */
+    public JsonStateWriter name(Key key) {
+        pendingKey = key;
+        return this;
+    }
+
+    public JsonStateWriter value(int value) {
+        if (beforeValue()) {
+            mix(value);
+        }
+        out.append(value);
+        return this;
+    }
+
+    public JsonStateWriter value(long value) {
+        if (beforeValue()) {
+            mix(value);
+        }
+        out.append(value);
+        return this;
+    }
+
+    public JsonStateWriter value(boolean value) {
+        if (beforeValue()) {
+            mix(value ? 1 : 0);
+        }
+        out.append(value);
+        return this;
+    }
+
+    public JsonStateWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        if (beforeValue()) {
+            mix(stringHash(value));
+        }
+        appendString(out, value);
+        return this;
+    }
+
+    /**
+     * Writes an enum constant by name, as Gson does.
+     */
+    public JsonStateWriter value(Enum<?> value) {
+        if (value == null) {
+            return nullValue();
+        }
+        return value(value.name());
+    }
+
+    /**
+     * Writes a list of strings as an array.
+     */
+    public JsonStateWriter value(List<String> values) {
+        if (values == null) {
+            return nullValue();
+        }
+        beginArray();
+        for (int i = 0; i < values.size(); i++) {
+            value(values.get(i));
+        }
+        return endArray();
+    }
+
+    /**
+     * Writes null in an array. As an object member value, the member is omitted instead.
+     */
+    public JsonStateWriter nullValue() {
+        if (pendingKey != null) {
+            pendingKey = null;
+            return this;
+        }
+        if (beforeValue()) {
+            mix(NULL);
+        }
+        out.append("null");
+        return this;
+    }
+
+    /**
+     * Writes an already encoded JSON value, such as a fragment cached from another JsonStateWriter. The fingerprint
+     * hashes the encoded value as a string.
+     */
+    public JsonStateWriter rawValue(String json) {
+        if (beforeValue()) {
+            mix(stringHash(json));
+        }
+        out.append(json);
+        return this;
+    }
+
+    /**
+     * Writes an already encoded JSON value, with its fingerprint from the writer that encoded it.
+     */
+    public JsonStateWriter rawValue(String json, long fingerprint) {
+        if (beforeValue()) {
+            mix(fingerprint);
+        }
+        out.append(json);
+        return this;
+    }
+
+    /**
+     * Writes the separator and the pending member name before a value.
+     * @return Whether the value is part of the fingerprint
+     */
+    private boolean beforeValue() {
+        if (depth > 0) {
+            if (!empty[depth]) {
+                out.append(',');
+            }
+            empty[depth] = false;
+        }
+        boolean fingerprinted = isFingerprinting();
+        if (pendingKey != null) {
+            out.append(pendingKey.token);
+            if (fingerprinted) {
+                if (pendingKey.fingerprinted) {
+                    mix(pendingKey.hash);
+                } else {
+                    fingerprinted = false;
+                }
+            }
+            pendingKey = null;
+        }
+        return fingerprinted;
+    }
+
+    private void beginContainer(long token) {
+        boolean wasFingerprinting = isFingerprinting();
+        if (beforeValue()) {
+            mix(token);
+        } else if (wasFingerprinting) {
+            // Not fingerprinted member: skip the container, which will be at depth + 1 after push()
+            skipDepth = depth + 1;
+        }
+    }
+
+    private void endContainer(long token) {
+        if (skipDepth == depth) {
+            skipDepth = 0;
+        } else if (isFingerprinting()) {
+            mix(token);
+        }
+    }
+
+    private boolean isFingerprinting() {
+        return fingerprinting && skipDepth == 0;
+    }
+
+    private void mix(long value) {
+        long hash = (fingerprint ^ value) * 0x9e3779b97f4a7c15L;
+        fingerprint = hash ^ (hash >>> 32);
+    }
+
+    private static long stringHash(String value) {
+        return ((long) value.length() << 32) | (value.hashCode() & 0xffffffffL);
+    }
+
+    private void push() {
+        depth += 1;
+        if (depth == empty.length) {
+            boolean[] newEmpty = new boolean[empty.length * 2];
+            System.arraycopy(empty, 0, newEmpty, 0, empty.length);
+            empty = newEmpty;
+        }
+        empty[depth] = true;
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENT_CHARS[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (last < i) {
+                builder.append(value, last, i);
+            }
+            builder.append(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            builder.append(value, last, length);
+        }
+        builder.append('"');
+    }
+
+    /**
+     * @return The JSON written so far
+     */
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,179 @@
+package httpcommunicationmod;
+
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.characters.CharacterManager;
+import com.megacrit.cardcrawl.core.CardCrawlGame;
+import com.megacrit.cardcrawl.core.Settings;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.helpers.SeedHelper;
+import com.megacrit.cardcrawl.helpers.TrialHelper;
+import com.megacrit.cardcrawl.random.Random;
+import com.google.gson.Gson;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Game access backed by the running game.
+ */
+public class LiveGameAccess implements GameAccess {
+    private static final Logger logger = LogManager.getLogger(LiveGameAccess.class.getName());
+
+    private static final JsonStateWriter.Key IN_GAME = new JsonStateWriter.Key("in_game");
+    private static final JsonStateWriter.Key MAP_KEY = new JsonStateWriter.Key("map_key");
+    private static final JsonStateWriter.Key ACT = new JsonStateWriter.Key("act");
+    private static final JsonStateWriter.Key MAP = new JsonStateWriter.Key("map");
+
+    private static final int SCENARIO_TIMEOUT_SECONDS = 60;
+
+    @Override
+    public String getState(StateOptions options) {
+        return GameStateConverter.getCommunicationState(options);
+    }
+
+    @Override
+    public boolean supports(StateOptions options) {
+        return true;
+    }
+
+    @Override
+    public boolean executeCommand(String command) throws InvalidCommandException {
+        return CommandExecutor.executeCommand(command);
+    }
+
+    @Override
+    public void registerCommandExecution() {
+        GameStateListener.registerCommandExecution();
+    }
+
+    @Override
+    public HashMap<String, Object> startGame(String characterName, int ascensionLevel, String seedString)
+            throws InvalidCommandException {
+        AbstractPlayer.PlayerClass selectedClass = parseCharacter(characterName);
+        if (selectedClass == null) {
+            throw new InvalidCommandException("Invalid character: " + characterName + ". Valid options: IRONCLAD, THE_SILENT, DEFECT, WATCHER, or SILENT");
+        }
+
+        long seed;
+        boolean seedSet = false;
+        if (seedString != null) {
+            String upperSeed = seedString.toUpperCase();
+            seedSet = true;
+            seed = SeedHelper.getLong(upperSeed);
+            boolean isTrialSeed = TrialHelper.isTrialSeed(upperSeed);
+            if (isTrialSeed) {
+                Settings.specialSeed = seed;
+                Settings.isTrial = true;
+                seedSet = false;
+            }
+        } else {
+            seed = SeedHelper.generateUnoffensiveSeed(new Random(System.nanoTime()));
+        }
+
+        // Start the game
+        Settings.seed = seed;
+        Settings.seedSet = seedSet;
+        AbstractDungeon.generateSeeds();
+        AbstractDungeon.ascensionLevel = ascensionLevel;
+        AbstractDungeon.isAscensionMode = ascensionLevel > 0;
+        CardCrawlGame.startOver = true;
+        CardCrawlGame.mainMenuScreen.isFadingOut = true;
+        CardCrawlGame.mainMenuScreen.fadeOutMusic();
+        CharacterManager manager = new CharacterManager();
+        manager.setChosenCharacter(selectedClass);
+        CardCrawlGame.chosenCharacter = selectedClass;
+        GameStateListener.resetStateVariables();
+
+        logger.info("Starting game: character=" + selectedClass + ", ascension=" + ascensionLevel + ", seed=" + seed);
+
+        HashMap<String, Object> response = new HashMap<>();
+        response.put("character", selectedClass.name());
+        response.put("ascension_level", ascensionLevel);
+        response.put("seed", seed);
+        response.put("seed_string", SeedHelper.getString(seed));
+        return response;
+    }
+
+    @Override
+    public void reset() {
+        CommandExecutor.executeStartOver(new String[]{"reset"});
+    }
+
+    @Override
+    public String setUpScenario(Scenario scenario) throws InvalidCommandException {
+        ScenarioSetup.validate(scenario);
+        CompletableFuture<String> result = ScenarioSetup.submit(scenario);
+        try {
+            return result.get(SCENARIO_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            throw new IllegalStateException("The scenario was not set up within " + SCENARIO_TIMEOUT_SECONDS + " seconds");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvalidCommandException) {
+                throw (InvalidCommandException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to set up the scenario: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while setting up the scenario");
+        }
+    }
+
+    @Override
+    public void writeMap(JsonStateWriter writer) {
+        boolean isInGame = CommandExecutor.isInDungeon();
+        writer.beginObject();
+        writer.name(IN_GAME).value(isInGame);
+        if (isInGame) {
+            writer.name(MAP_KEY).value(MapCache.getMapKey());
+            writer.name(ACT).value(getActNum());
+            writer.name(MAP);
+            MapCache.writeMap(writer);
+        }
+        writer.endObject();
+    }
+
+    @Override
+    public StateCaptureService.Snapshot getObservation() {
+        StateCaptureService.Snapshot snapshot = StateCaptureService.getLatestSnapshot();
+        if (snapshot == null) {
+            return null;
+        }
+        // The snapshot is encoded asynchronously, so it can still be the previous state's while the game waits for a
+        // command in a new one. It is only ready if it was captured in the current stable state.
+        boolean ready = GameStateListener.isWaitingForCommand()
+                && snapshot.stableState == GameStateListener.getStableStateCount();
+        return new StateCaptureService.Snapshot(snapshot.sequence, snapshot.stableState,
+                ObservationEncoder.withReadyForCommand(snapshot.observation, ready));
+    }
+
+    @Override
+    public String getDictionary() {
+        Gson gson = new Gson();
+        return gson.toJson(ContentDictionary.getDictionary());
+    }
+
+    static AbstractPlayer.PlayerClass parseCharacter(String characterName) {
+        String upperName = characterName.toUpperCase();
+
+        // Handle "SILENT" as an alias for "THE_SILENT"
+        if (upperName.equals("SILENT")) {
+            return AbstractPlayer.PlayerClass.THE_SILENT;
+        }
+
+        // Try to match against PlayerClass enum values
+        for (AbstractPlayer.PlayerClass playerClass : AbstractPlayer.PlayerClass.values()) {
+            if (playerClass.name().equals(upperName)) {
+                return playerClass;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,162 @@
+package httpcommunicationmod;
+
+import com.megacrit.cardcrawl.map.MapEdge;
+import com.megacrit.cardcrawl.map.MapRoomNode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Caches the JSON representation of the dungeon map. The map graph only changes when an act is generated, so the
+ * node objects are encoded once per act and copied into every state request. The cache is keyed by the act number,
+ * the seed and the identity of the map list (AbstractDungeon.map), which is replaced whenever the game generates
+ * (or loads) a map.
+ * Only the nodes on the visited path are encoded per request, since entering a "?" room can change its symbol.
+ */
+public class MapCache {
+
+    private static final JsonStateWriter.Key PARENTS = new JsonStateWriter.Key("parents");
+    private static final JsonStateWriter.Key CHILDREN = new JsonStateWriter.Key("children");
+
+    private static ArrayList<ArrayList<MapRoomNode>> cachedMap = null;
+    private static int cachedAct;
+    private static long cachedSeed;
+    private static int generation = 0;
+    private static String mapKey = null;
+    private static final ArrayList<MapRoomNode> cachedNodes = new ArrayList<>();
+    private static final ArrayList<String> cachedJsonNodes = new ArrayList<>();
+
+    private static GameAccess game() {
+        return GameAccessProvider.get();
+    }
+
+    /**
+     * Re-encodes the cached node objects if the dungeon map has changed since they were encoded.
+     */
+    private static void validate() {
+        GameAccess game = game();
+        if (cachedMap == game.getMap() && cachedAct == game.getActNum() && cachedSeed == game.getSeed()) {
+            return;
+        }
+        cachedMap = game.getMap();
+        cachedAct = game.getActNum();
+        cachedSeed = game.getSeed();
+        generation += 1;
+        mapKey = cachedAct + "-" + Long.toString(cachedSeed, 36) + "-" + generation;
+        cachedNodes.clear();
+        cachedJsonNodes.clear();
+        for(ArrayList<MapRoomNode> layer : cachedMap) {
+            for(MapRoomNode node : layer) {
+                if(node.hasEdges()) {
+                    JsonStateWriter writer = new JsonStateWriter();
+                    convertMapNodeToJson(writer, node);
+                    cachedNodes.add(node);
+                    cachedJsonNodes.add(writer.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a JSON representation of a node of the game map, with two extra fields:
+     * "parents" (list): Not implemented
+     * "children" (list): The nodes connected by an edge out of the node in question
+     * @param writer The writer to write the node object to
+     * @param node The node to convert
+     */
+    private static void convertMapNodeToJson(JsonStateWriter writer, MapRoomNode node) {
+        writer.beginObject();
+        GameStateConverter.writeMapRoomNodeFields(writer, node);
+        writer.name(PARENTS).beginArray();
+        for(MapEdge edge : node.getEdges()) {
+            if (edge.srcX != node.x || edge.srcY != node.y) {
+                GameStateConverter.convertCoordinatesToJson(writer, edge.srcX, edge.srcY);
+            }
+        }
+        writer.endArray();
+        writer.name(CHILDREN).beginArray();
+        for(MapEdge edge : node.getEdges()) {
+            if (edge.srcX == node.x && edge.srcY == node.y) {
+                GameStateConverter.convertCoordinatesToJson(writer, edge.dstX, edge.dstY);
+            }
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    /**
+     * Writes the game map as a list of node objects (see convertMapNodeToJson()).
+     * @param writer The writer to write the list to
+     */
+    public static synchronized void writeMap(JsonStateWriter writer) {
+        validate();
+        HashSet<Long> visited = getVisitedCoordinates();
+        writer.beginArray();
+        for (int i = 0; i < cachedNodes.size(); i++) {
+            MapRoomNode node = cachedNodes.get(i);
+            if (visited.contains(coordinateKey(node.x, node.y))) {
+                convertMapNodeToJson(writer, node);
+            } else {
+                writer.rawValue(cachedJsonNodes.get(i));
+            }
+        }
+        writer.endArray();
+    }
+
+    /**
+     * Gets a key identifying the current map. The key changes whenever a new map is generated, so clients can cache
+     * the result of GET /map and refetch it only when the key in the state changes.
+     * @return The map key
+     */
+    public static synchronized String getMapKey() {
+        validate();
+        return mapKey;
+    }
+
+    /**
+     * Writes the nodes visited so far in the current act, in the order they were visited.
+     * @param writer The writer to write the list of node objects, without edges, to
+     */
+    public static synchronized void writeVisitedPath(JsonStateWriter writer) {
+        validate();
+        ArrayList<Integer> pathX = game().getPathX();
+        ArrayList<Integer> pathY = game().getPathY();
+        writer.beginArray();
+        for (int i = 0; i < pathX.size() && i < pathY.size(); i++) {
+            int x = pathX.get(i);
+            int y = pathY.get(i);
+            MapRoomNode node = findNode(x, y);
+            if (node != null) {
+                GameStateConverter.convertMapRoomNodeToJson(writer, node);
+            } else {
+                GameStateConverter.convertCoordinatesToJson(writer, x, y);
+            }
+        }
+        writer.endArray();
+    }
+
+    private static MapRoomNode findNode(int x, int y) {
+        if (y >= 0 && y < cachedMap.size()) {
+            for (MapRoomNode node : cachedMap.get(y)) {
+                if (node.x == x) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static HashSet<Long> getVisitedCoordinates() {
+        HashSet<Long> visited = new HashSet<>();
+        ArrayList<Integer> pathX = game().getPathX();
+        ArrayList<Integer> pathY = game().getPathY();
+        for (int i = 0; i < pathX.size() && i < pathY.size(); i++) {
+            visited.add(coordinateKey(pathX.get(i), pathY.get(i)));
+        }
+        return visited;
+    }
+
+    private static long coordinateKey(int x, int y) {
+        return ((long) y << 32) | (x & 0xffffffffL);
+    }
+}
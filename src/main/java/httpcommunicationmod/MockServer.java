@@ -0,0 +1,96 @@
+package httpcommunicationmod;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Standalone launcher that serves the HTTP API (WebServer and the same handlers as the mod) from a recording,
+ * without the game. See ReplayRecording for the recording formats and ReplayGameAccess for how states advance.
+ *
+ * Usage: java -cp HttpCommunicationMod.jar:LOG4J_JARS httpcommunicationmod.MockServer RECORDING
+ *            [--host HOST] [--port PORT] [--latency-ms MILLIS] [--server jdk|nio]
+ * The host, port and server default to HTTP_MOD_HOST, HTTP_MOD_PORT and HTTP_MOD_SERVER, like the mod. Like the mod,
+ * it writes an announcement file when HTTP_MOD_ANNOUNCE_DIR is set (see InstanceAnnouncement).
+ */
+public class MockServer {
+    private static final Logger logger = LogManager.getLogger(MockServer.class.getName());
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final String DEFAULT_HOST = "localhost";
+
+    public static void main(String[] args) throws Exception {
+        Path recording = null;
+        String host = getEnv("HTTP_MOD_HOST", DEFAULT_HOST);
+        int port = Integer.parseInt(getEnv("HTTP_MOD_PORT", Integer.toString(DEFAULT_PORT)));
+        long latencyMillis = 0;
+        String server = getEnv("HTTP_MOD_SERVER", "jdk");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host":
+                    host = requireValue(args, ++i);
+                    break;
+                case "--port":
+                    port = Integer.parseInt(requireValue(args, ++i));
+                    break;
+                case "--latency-ms":
+                    latencyMillis = Long.parseLong(requireValue(args, ++i));
+                    break;
+                case "--server":
+                    server = requireValue(args, ++i);
+                    break;
+                default:
+                    if (args[i].startsWith("--") || recording != null) {
+                        exitWithUsage("Unexpected argument: " + args[i]);
+                    }
+                    recording = Paths.get(args[i]);
+            }
+        }
+        if (recording == null) {
+            exitWithUsage("Missing recording");
+        }
+        if (latencyMillis < 0) {
+            exitWithUsage("The latency cannot be negative");
+        }
+        WebServer.Transport transport = null;
+        try {
+            transport = WebServer.Transport.valueOf(server.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            exitWithUsage("Unknown server: " + server);
+        }
+
+        List<String> states = ReplayRecording.load(recording);
+        logger.info("Loaded " + states.size() + " states from " + recording);
+
+        WebServer webServer = new WebServer(new ReplayGameAccess(states, latencyMillis), transport);
+        webServer.start(host, port);
+        InstanceAnnouncement.announce(host, webServer.getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            InstanceAnnouncement.withdraw();
+            webServer.stop();
+        }));
+        logger.info("Mock server replaying " + recording + " on " + webServer.getAddress()
+                + " with " + latencyMillis + " ms stabilization latency");
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+    }
+
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            exitWithUsage("Missing value for " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    private static void exitWithUsage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: MockServer <http_mod.log or trajectory file> [--host HOST] [--port PORT] [--latency-ms MILLIS] [--server jdk|nio]");
+        System.exit(2);
+    }
+}
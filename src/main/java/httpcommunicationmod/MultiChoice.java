@@ -0,0 +1,177 @@
+package httpcommunicationmod;
+
+import basemod.ReflectionHacks;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.screens.select.GridCardSelectScreen;
+import com.megacrit.cardcrawl.screens.select.HandCardSelectScreen;
+import httpcommunicationmod.patches.GridCardSelectScreenPatch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.regex.Pattern;
+
+/**
+ * Choose commands with several indices on the grid and hand select screens, e.g. "choose 0,3,5" or "choose [0, 3, 5]".
+ *
+ * The screens take one selection per update, so the cards are selected one per frame from update(), and the
+ * selection is confirmed once the last card is taken. State updates are blocked meanwhile, so that the command only
+ * has one stable state, after the confirmation, like a single choice.
+ */
+public class MultiChoice {
+    private static final Logger logger = LogManager.getLogger(MultiChoice.class.getName());
+
+    private static final Pattern INDEX_LIST = Pattern.compile("^\\[?\\s*\\d+(\\s*,\\s*\\d+)*\\s*]?$");
+
+    // Frames to wait for the screen to take a selection or enable its confirm button before giving up
+    private static final int MAX_WAIT_FRAMES = 60;
+
+    private static final Object lock = new Object();
+    // The cards left to select, or null if no multiple choice is in progress
+    private static ArrayDeque<AbstractCard> pending;
+    private static ChoiceScreenUtils.ChoiceType choiceType;
+    private static int waitFrames;
+
+    private static GameAccess game() {
+        return GameAccessProvider.get();
+    }
+
+    /**
+     * @param argument The arguments of a choose command
+     * @return Whether the arguments are a list of indices rather than a single choice
+     */
+    public static boolean isMultiChoice(String argument) {
+        return (argument.contains(",") || argument.startsWith("[")) && INDEX_LIST.matcher(argument).matches();
+    }
+
+    /**
+     * Starts selecting the cards at the given indices of the current grid or hand select screen.
+     * @param argument A list of indices, as accepted by isMultiChoice
+     * @throws InvalidCommandException If the screen does not take several cards, or the indices do not match the
+     *         number of cards it takes
+     */
+    public static void execute(String argument) throws InvalidCommandException {
+        ChoiceScreenUtils.ChoiceType type = ChoiceScreenUtils.getCurrentChoiceType();
+        if (type != ChoiceScreenUtils.ChoiceType.GRID && type != ChoiceScreenUtils.ChoiceType.HAND_SELECT) {
+            throw new InvalidCommandException("Several choices can only be made on grid and hand select screens.");
+        }
+        ArrayList<Integer> indices = parseIndices(argument);
+        int choiceCount = ChoiceScreenUtils.getCurrentChoiceList().size();
+        HashSet<Integer> seen = new HashSet<>();
+        for (int index : indices) {
+            if (index >= choiceCount) {
+                throw new InvalidCommandException("Choice index out of bounds: " + index);
+            }
+            if (!seen.add(index)) {
+                throw new InvalidCommandException("Choice index repeated: " + index);
+            }
+        }
+
+        ArrayList<AbstractCard> cards = new ArrayList<>();
+        if (type == ChoiceScreenUtils.ChoiceType.GRID) {
+            GridCardSelectScreen screen = game().getGridSelectScreen();
+            int numCards = (int) ReflectionHacks.getPrivate(screen, GridCardSelectScreen.class, "numCards");
+            int remaining = numCards - screen.selectedCards.size();
+            if (screen.anyNumber ? indices.size() > remaining : indices.size() != remaining) {
+                throw new InvalidCommandException("This screen takes " + (screen.anyNumber ? "up to " : "") + remaining
+                        + " more cards, not " + indices.size() + ".");
+            }
+            for (int index : indices) {
+                cards.add(ChoiceScreenUtils.getGridScreenCards().get(index));
+            }
+        } else {
+            HandCardSelectScreen screen = game().getHandCardSelectScreen();
+            int remaining = screen.numCardsToSelect - screen.selectedCards.group.size();
+            if (indices.size() > remaining) {
+                throw new InvalidCommandException("This screen takes up to " + remaining + " more cards, not "
+                        + indices.size() + ".");
+            }
+            // The hand shrinks as cards are selected, so the cards are kept rather than their indices
+            for (int index : indices) {
+                cards.add(game().getPlayer().hand.group.get(index));
+            }
+        }
+
+        synchronized (lock) {
+            pending = new ArrayDeque<>(cards);
+            choiceType = type;
+            waitFrames = 0;
+            GameStateListener.blockStateUpdate();
+            selectNext();
+        }
+    }
+
+    /**
+     * Selects the next card of the multiple choice in progress, or confirms the selection. Must be called on the game
+     * thread, once per frame.
+     */
+    public static void update() {
+        synchronized (lock) {
+            if (pending == null) {
+                return;
+            }
+            if (!CommandExecutor.isInDungeon() || ChoiceScreenUtils.getCurrentChoiceType() != choiceType) {
+                // The screen closed by itself, e.g. once it had the number of cards it takes
+                finish();
+                return;
+            }
+            if (choiceType == ChoiceScreenUtils.ChoiceType.GRID && GridCardSelectScreenPatch.replaceHoverCard) {
+                waitOrGiveUp();
+                return;
+            }
+            if (!pending.isEmpty()) {
+                selectNext();
+                return;
+            }
+            if (ChoiceScreenUtils.isConfirmButtonAvailable()) {
+                finish();
+                ChoiceScreenUtils.pressConfirmButton();
+                return;
+            }
+            waitOrGiveUp();
+        }
+    }
+
+    private static void selectNext() {
+        AbstractCard card = pending.poll();
+        waitFrames = 0;
+        if (choiceType == ChoiceScreenUtils.ChoiceType.GRID) {
+            ChoiceScreenUtils.makeGridScreenChoice(ChoiceScreenUtils.getGridScreenCards().indexOf(card));
+        } else {
+            int index = game().getPlayer().hand.group.indexOf(card);
+            if (index < 0) {
+                logger.error("Selected card left the hand, stopping the multiple choice");
+                finish();
+                return;
+            }
+            ChoiceScreenUtils.makeHandSelectScreenChoice(index);
+        }
+    }
+
+    private static void waitOrGiveUp() {
+        if (++waitFrames > MAX_WAIT_FRAMES) {
+            logger.error("Screen did not take the multiple choice, stopping with " + pending.size() + " cards left");
+            finish();
+        }
+    }
+
+    private static void finish() {
+        pending = null;
+        choiceType = null;
+        GameStateListener.resumeStateUpdate();
+    }
+
+    private static ArrayList<Integer> parseIndices(String argument) throws InvalidCommandException {
+        ArrayList<Integer> indices = new ArrayList<>();
+        for (String index : argument.replace("[", "").replace("]", "").split(",")) {
+            try {
+                indices.add(Integer.parseInt(index.trim()));
+            } catch (NumberFormatException e) {
+                throw new InvalidCommandException("Invalid choice index: " + index.trim());
+            }
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,455 @@
+package httpcommunicationmod;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A single-threaded HTTP/1.1 server on a NIO selector, as an alternative to com.sun.net.httpserver.
+ *
+ * One thread accepts connections, reads requests and runs the handlers, so there is no handoff to a worker thread
+ * per request. The read and write buffers are direct and shared by all connections. Connections are kept alive, and
+ * pipelined requests are answered in order, with their responses written together.
+ *
+ * The handlers are the same HttpHandlers as for the JDK server, called with a NioHttpExchange. They must not block,
+ * since every connection waits for them. Handlers that wait for the game (BlockingHandler) run on a worker thread
+ * instead; their connection reads no further requests until the response is written, so that pipelined responses
+ * stay in order, while the other connections are served as usual.
+ */
+public class NioWebServer {
+
+    /**
+     * A handler that waits for the game, e.g. for a state to become stable, and therefore runs on a worker thread.
+     */
+    public interface BlockingHandler extends HttpHandler {
+    }
+
+    private static final Logger logger = LogManager.getLogger(NioWebServer.class.getName());
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final Map<String, HttpHandler> contexts;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // Responses of blocking handlers, handed back to the selector thread
+    private final ConcurrentLinkedQueue<Runnable> completions = new ConcurrentLinkedQueue<>();
+    private ExecutorService workers;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * @param contexts The handler of each path prefix. A request goes to the handler of the longest matching prefix,
+     *                 like HttpServer.createContext.
+     */
+    public NioWebServer(Map<String, HttpHandler> contexts) {
+        this.contexts = new LinkedHashMap<>(contexts);
+    }
+
+    public void start(String host, int port) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(host, port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        workers = Executors.newCachedThreadPool(task -> {
+            Thread worker = new Thread(task, "HttpCommunicationMod-nio-worker");
+            worker.setDaemon(true);
+            return worker;
+        });
+        thread = new Thread(this::run, "HttpCommunicationMod-nio");
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException e) {
+                        close(key);
+                    }
+                }
+                Runnable completion;
+                while ((completion = completions.poll()) != null) {
+                    completion.run();
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            logger.error("NIO web server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                logger.error("Error closing NIO web server: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        int read;
+        while ((read = connection.channel.read(readBuffer)) > 0) {
+            readBuffer.flip();
+            connection.append(readBuffer);
+            readBuffer.clear();
+        }
+        if (read < 0) {
+            close(key);
+            return;
+        }
+        connection.handleRequests();
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        ArrayDeque<ByteBuffer> pending = connection.pending;
+        while (!pending.isEmpty()) {
+            writeBuffer.clear();
+            for (ByteBuffer response : pending) {
+                if (!writeBuffer.hasRemaining()) {
+                    break;
+                }
+                ByteBuffer chunk = response.duplicate();
+                chunk.limit(chunk.position() + Math.min(chunk.remaining(), writeBuffer.remaining()));
+                writeBuffer.put(chunk);
+            }
+            writeBuffer.flip();
+            int written = connection.channel.write(writeBuffer);
+            while (written > 0) {
+                ByteBuffer response = pending.peek();
+                int consumed = Math.min(response.remaining(), written);
+                response.position(response.position() + consumed);
+                written -= consumed;
+                if (!response.hasRemaining()) {
+                    pending.poll();
+                }
+            }
+            if (writeBuffer.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+        if (connection.closing) {
+            close(key);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            logger.error("Error closing connection: " + e.getMessage());
+        }
+    }
+
+    private HttpHandler findHandler(String path) {
+        HttpHandler handler = null;
+        int matched = -1;
+        for (Map.Entry<String, HttpHandler> context : contexts.entrySet()) {
+            String prefix = context.getKey();
+            if (path.startsWith(prefix) && prefix.length() > matched) {
+                handler = context.getValue();
+                matched = prefix.length();
+            }
+        }
+        return handler;
+    }
+
+    private class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        private byte[] input = new byte[1024];
+        private int inputLength = 0;
+        private int scanned = 0;
+        private boolean continueSent = false;
+        private boolean closing = false;
+        // Whether a blocking handler is running for this connection
+        private boolean waiting = false;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void handleRequests() throws IOException {
+            while (!closing && !waiting && handleRequest()) {
+            }
+        }
+
+        void append(ByteBuffer buffer) {
+            int length = buffer.remaining();
+            if (inputLength + length > input.length) {
+                input = Arrays.copyOf(input, Math.max(input.length * 2, inputLength + length));
+            }
+            buffer.get(input, inputLength, length);
+            inputLength += length;
+        }
+
+        /**
+         * Handles the first buffered request, if it is complete.
+         * @return Whether a request was handled
+         */
+        boolean handleRequest() throws IOException {
+            int headerEnd = findHeaderEnd();
+            if (headerEnd < 0) {
+                if (inputLength > MAX_HEADER_BYTES) {
+                    sendError(431, "Request header too large");
+                }
+                return false;
+            }
+
+            String[] lines = new String(input, 0, headerEnd, StandardCharsets.ISO_8859_1).split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+                sendError(400, "Malformed request line");
+                return false;
+            }
+            Headers headers = new Headers();
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon <= 0) {
+                    sendError(400, "Malformed header");
+                    return false;
+                }
+                headers.add(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+            }
+
+            if (headers.containsKey("Transfer-Encoding")) {
+                sendError(501, "Chunked request bodies are not supported");
+                return false;
+            }
+            int contentLength = 0;
+            String contentLengthHeader = headers.getFirst("Content-Length");
+            if (contentLengthHeader != null) {
+                try {
+                    contentLength = Integer.parseInt(contentLengthHeader);
+                } catch (NumberFormatException e) {
+                    contentLength = -1;
+                }
+                if (contentLength < 0) {
+                    sendError(400, "Invalid Content-Length");
+                    return false;
+                }
+                if (contentLength > MAX_BODY_BYTES) {
+                    sendError(413, "Request body too large");
+                    return false;
+                }
+            }
+
+            int bodyStart = headerEnd + 4;
+            if (inputLength - bodyStart < contentLength) {
+                if (!continueSent && "100-continue".equalsIgnoreCase(headers.getFirst("Expect"))) {
+                    pending.add(ByteBuffer.wrap(CONTINUE));
+                    continueSent = true;
+                }
+                return false;
+            }
+            byte[] body = Arrays.copyOfRange(input, bodyStart, bodyStart + contentLength);
+            consume(bodyStart + contentLength);
+            continueSent = false;
+
+            String protocol = requestLine[2];
+            String connectionHeader = headers.getFirst("Connection");
+            boolean keepAlive = protocol.equals("HTTP/1.1")
+                    ? !"close".equalsIgnoreCase(connectionHeader)
+                    : "keep-alive".equalsIgnoreCase(connectionHeader);
+
+            URI uri;
+            try {
+                uri = new URI(requestLine[1]);
+            } catch (URISyntaxException e) {
+                sendError(400, "Malformed request URI");
+                return false;
+            }
+            HttpHandler handler = findHandler(uri.getPath() == null ? "" : uri.getPath());
+            if (handler == null) {
+                sendResponse(404, "No context found for request", keepAlive);
+                return true;
+            }
+
+            NioHttpExchange exchange = new NioHttpExchange(requestLine[0], uri, protocol, headers, body,
+                    (InetSocketAddress) channel.getLocalAddress(), (InetSocketAddress) channel.getRemoteAddress());
+            String request = requestLine[0] + " " + requestLine[1];
+            if (handler instanceof BlockingHandler) {
+                waiting = true;
+                workers.execute(() -> {
+                    byte[] response = run(handler, exchange, request, keepAlive);
+                    completions.add(() -> complete(response, keepAlive));
+                    selector.wakeup();
+                });
+                return false;
+            }
+            byte[] response = run(handler, exchange, request, keepAlive);
+            if (response == null) {
+                sendError(500, "Internal server error");
+                return false;
+            }
+            pending.add(ByteBuffer.wrap(response));
+            closing = !keepAlive;
+            return true;
+        }
+
+        /**
+         * @return The encoded response, or null if the handler failed
+         */
+        private byte[] run(HttpHandler handler, NioHttpExchange exchange, String request, boolean keepAlive) {
+            try {
+                handler.handle(exchange);
+            } catch (Exception e) {
+                logger.error("Error handling " + request + ": " + e.getMessage());
+                return null;
+            }
+            return exchange.encodeResponse(keepAlive);
+        }
+
+        /**
+         * Queues the response of a blocking handler, on the selector thread, and goes on with the requests that
+         * arrived in the meantime.
+         */
+        private void complete(byte[] response, boolean keepAlive) {
+            waiting = false;
+            if (!key.isValid()) {
+                return;
+            }
+            if (response == null) {
+                sendError(500, "Internal server error");
+            } else {
+                pending.add(ByteBuffer.wrap(response));
+                closing = !keepAlive;
+            }
+            try {
+                handleRequests();
+                write(key);
+            } catch (IOException e) {
+                close(key);
+            }
+        }
+
+        private int findHeaderEnd() {
+            for (int i = Math.max(scanned, 0); i + 3 < inputLength; i++) {
+                if (input[i] == '\r' && input[i + 1] == '\n' && input[i + 2] == '\r' && input[i + 3] == '\n') {
+                    return i;
+                }
+            }
+            scanned = Math.max(0, inputLength - 3);
+            return -1;
+        }
+
+        private void consume(int length) {
+            System.arraycopy(input, length, input, 0, inputLength - length);
+            inputLength -= length;
+            scanned = 0;
+        }
+
+        private void sendError(int code, String message) {
+            sendResponse(code, message, false);
+            inputLength = 0;
+            closing = true;
+        }
+
+        private void sendResponse(int code, String message, boolean keepAlive) {
+            byte[] body = message.getBytes(StandardCharsets.UTF_8);
+            String head = "HTTP/1.1 " + code + " " + NioHttpExchange.getReasonPhrase(code) + "\r\n"
+                    + "Content-Type: text/plain; charset=UTF-8\r\n"
+                    + "Content-Length: " + body.length + "\r\n"
+                    + (keepAlive ? "" : "Connection: close\r\n")
+                    + "\r\n";
+            byte[] headBytes = head.getBytes(StandardCharsets.ISO_8859_1);
+            ByteBuffer response = ByteBuffer.allocate(headBytes.length + body.length);
+            response.put(headBytes).put(body);
+            response.flip();
+            pending.add(response);
+        }
+    }
+}
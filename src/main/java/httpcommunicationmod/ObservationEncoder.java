@@ -0,0 +1,263 @@
+package httpcommunicationmod;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes the current game state as a flat, fixed-layout little-endian buffer that can be loaded without parsing
+ * (e.g. with numpy.frombuffer). The buffer has four consecutive sections:
+ *
+ * 1. Header: HEADER_LENGTH int16 values
+ *    [0] layout version (LAYOUT_VERSION)
+ *    [1] number of int16 values in the header
+ *    [2] number of float32 values in the numeric section
+ *    [3] number of int16 values in the code section
+ *    [4] number of bytes in the relic bitset
+ *    [5] hand slots, [6] monster slots, [7] power slots per creature, [8] potion slots
+ *    [9..15] reserved (0)
+ * 2. Numeric section: float32 values, see the NUM_* offsets below
+ * 3. Code section: int16 values holding ContentDictionary codes and enum codes, see the CODE_* offsets below
+ * 4. Relic bitset: bit (code - 1) is set if the player has the relic with that ContentDictionary code
+ *    (byte i holds codes 8i+1 to 8i+8, least significant bit first)
+ *
+ * Empty slots are all zeroes. Enum codes are the enum ordinal + 1, so 0 always means "none".
+ * Values come from the same game fields that GameStateConverter reports in the JSON game state, copied on the game
+ * thread by StateCapture.
+ * Any change to the layout must bump LAYOUT_VERSION.
+ */
+public class ObservationEncoder {
+
+    public static final int LAYOUT_VERSION = 1;
+
+    public static final int HEADER_LENGTH = 16;
+    public static final int MAX_HAND = 10;
+    public static final int MAX_MONSTERS = 5;
+    public static final int MAX_POWERS = 12;
+    public static final int MAX_POTIONS = 5;
+
+    // Numeric section: global values
+    public static final int NUM_IN_GAME = 0;
+    public static final int NUM_IN_COMBAT = 1;
+    public static final int NUM_READY_FOR_COMMAND = 2;
+    public static final int NUM_FLOOR = 3;
+    public static final int NUM_ACT = 4;
+    public static final int NUM_ASCENSION_LEVEL = 5;
+    public static final int NUM_GOLD = 6;
+    public static final int NUM_CURRENT_HP = 7;
+    public static final int NUM_MAX_HP = 8;
+    public static final int NUM_BLOCK = 9;
+    public static final int NUM_ENERGY = 10;
+    public static final int NUM_TURN = 11;
+    public static final int NUM_CARDS_DISCARDED_THIS_TURN = 12;
+    public static final int NUM_TIMES_DAMAGED = 13;
+    public static final int NUM_POTION_SLOTS = 14;
+    public static final int NUM_RELIC_COUNT = 15;
+    // Numeric section: pile counts
+    public static final int NUM_DECK_SIZE = 16;
+    public static final int NUM_DRAW_PILE_SIZE = 17;
+    public static final int NUM_DISCARD_PILE_SIZE = 18;
+    public static final int NUM_EXHAUST_PILE_SIZE = 19;
+    public static final int NUM_HAND_SIZE = 20;
+    public static final int NUM_LIMBO_SIZE = 21;
+    // Numeric section: hand slots, HAND_STRIDE values per card
+    public static final int NUM_HAND = 22;
+    public static final int HAND_STRIDE = 8;
+    public static final int CARD_PRESENT = 0;
+    public static final int CARD_COST = 1;
+    public static final int CARD_UPGRADES = 2;
+    public static final int CARD_IS_PLAYABLE = 3;
+    public static final int CARD_HAS_TARGET = 4;
+    public static final int CARD_EXHAUSTS = 5;
+    public static final int CARD_ETHEREAL = 6;
+    public static final int CARD_MISC = 7;
+    // Numeric section: monster slots, MONSTER_STRIDE values per monster (the last MAX_POWERS are power amounts)
+    public static final int NUM_MONSTERS = NUM_HAND + MAX_HAND * HAND_STRIDE;
+    public static final int MONSTER_STRIDE = 10 + MAX_POWERS;
+    public static final int MONSTER_PRESENT = 0;
+    public static final int MONSTER_CURRENT_HP = 1;
+    public static final int MONSTER_MAX_HP = 2;
+    public static final int MONSTER_BLOCK = 3;
+    public static final int MONSTER_MOVE_BASE_DAMAGE = 4;
+    public static final int MONSTER_MOVE_ADJUSTED_DAMAGE = 5;
+    public static final int MONSTER_MOVE_HITS = 6;
+    public static final int MONSTER_HALF_DEAD = 7;
+    public static final int MONSTER_IS_GONE = 8;
+    public static final int MONSTER_POWER_COUNT = 9;
+    public static final int MONSTER_POWER_AMOUNTS = 10;
+    // Numeric section: player power amounts
+    public static final int NUM_PLAYER_POWERS = NUM_MONSTERS + MAX_MONSTERS * MONSTER_STRIDE;
+    // Numeric section: potion slots, POTION_STRIDE values per potion
+    public static final int NUM_POTIONS = NUM_PLAYER_POWERS + MAX_POWERS;
+    public static final int POTION_STRIDE = 3;
+    public static final int POTION_CAN_USE = 0;
+    public static final int POTION_CAN_DISCARD = 1;
+    public static final int POTION_REQUIRES_TARGET = 2;
+    public static final int NUM_LENGTH = NUM_POTIONS + MAX_POTIONS * POTION_STRIDE;
+
+    // Code section
+    public static final int CODE_SCREEN_TYPE = 0;
+    public static final int CODE_CLASS = 1;
+    public static final int CODE_HAND = 2;
+    public static final int CODE_MONSTERS = CODE_HAND + MAX_HAND;
+    public static final int CODE_MONSTER_INTENTS = CODE_MONSTERS + MAX_MONSTERS;
+    public static final int CODE_MONSTER_POWERS = CODE_MONSTER_INTENTS + MAX_MONSTERS;
+    public static final int CODE_PLAYER_POWERS = CODE_MONSTER_POWERS + MAX_MONSTERS * MAX_POWERS;
+    public static final int CODE_POTIONS = CODE_PLAYER_POWERS + MAX_POWERS;
+    public static final int CODE_LENGTH = CODE_POTIONS + MAX_POTIONS;
+
+    /**
+     * Encodes a captured game state. Only reads the capture, so it can run on any thread.
+     * @param capture The captured game state
+     * @return A little-endian buffer laid out as described in the class documentation
+     */
+    public static byte[] encode(StateCapture capture) {
+        float[] numeric = new float[NUM_LENGTH];
+        short[] codes = new short[CODE_LENGTH];
+        byte[] relicBits = new byte[(ContentDictionary.size(ContentDictionary.Category.RELIC) + 7) / 8];
+
+        numeric[NUM_IN_GAME] = bool(capture.inGame);
+        numeric[NUM_READY_FOR_COMMAND] = bool(capture.readyForCommand);
+        if (capture.inGame) {
+            encodeGameState(capture, numeric, codes, relicBits);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH * 2 + NUM_LENGTH * 4 + CODE_LENGTH * 2 + relicBits.length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        short[] header = new short[HEADER_LENGTH];
+        header[0] = LAYOUT_VERSION;
+        header[1] = HEADER_LENGTH;
+        header[2] = NUM_LENGTH;
+        header[3] = CODE_LENGTH;
+        header[4] = (short) relicBits.length;
+        header[5] = MAX_HAND;
+        header[6] = MAX_MONSTERS;
+        header[7] = MAX_POWERS;
+        header[8] = MAX_POTIONS;
+        for (short value : header) {
+            buffer.putShort(value);
+        }
+        for (float value : numeric) {
+            buffer.putFloat(value);
+        }
+        for (short value : codes) {
+            buffer.putShort(value);
+        }
+        buffer.put(relicBits);
+        return buffer.array();
+    }
+
+    /**
+     * Returns a copy of an encoded observation with a different ready_for_command value. The flag changes as soon as
+     * a command is executed, without a new capture being taken.
+     * @param observation An observation returned by encode()
+     * @param readyForCommand The new value of the flag
+     * @return The updated observation, or the same array if the flag already had that value
+     */
+    public static byte[] withReadyForCommand(byte[] observation, boolean readyForCommand) {
+        int offset = HEADER_LENGTH * 2 + NUM_READY_FOR_COMMAND * 4;
+        ByteBuffer buffer = ByteBuffer.wrap(observation).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getFloat(offset) == bool(readyForCommand)) {
+            return observation;
+        }
+        byte[] copy = observation.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putFloat(offset, bool(readyForCommand));
+        return copy;
+    }
+
+    private static void encodeGameState(StateCapture capture, float[] numeric, short[] codes, byte[] relicBits) {
+        numeric[NUM_IN_COMBAT] = bool(capture.inCombat);
+        numeric[NUM_FLOOR] = capture.floor;
+        numeric[NUM_ACT] = capture.act;
+        numeric[NUM_ASCENSION_LEVEL] = capture.ascensionLevel;
+        numeric[NUM_GOLD] = capture.gold;
+        numeric[NUM_CURRENT_HP] = capture.currentHp;
+        numeric[NUM_MAX_HP] = capture.maxHp;
+        numeric[NUM_POTION_SLOTS] = capture.potionSlots;
+        numeric[NUM_RELIC_COUNT] = capture.relicCount;
+        numeric[NUM_DECK_SIZE] = capture.deckSize;
+        codes[CODE_SCREEN_TYPE] = (short) capture.screenType;
+        codes[CODE_CLASS] = (short) capture.playerClass;
+
+        for (int i = 0; i < capture.relicCount; i++) {
+            int code = capture.relicCodes[i];
+            if (code > 0 && (code - 1) / 8 < relicBits.length) {
+                relicBits[(code - 1) / 8] |= (byte) (1 << ((code - 1) % 8));
+            }
+        }
+
+        for (int i = 0; i < MAX_POTIONS && i < capture.potionCount; i++) {
+            if (capture.potionCodes[i] == 0) {
+                continue;
+            }
+            int offset = NUM_POTIONS + i * POTION_STRIDE;
+            numeric[offset + POTION_CAN_USE] = bool(capture.potionCanUse[i]);
+            numeric[offset + POTION_CAN_DISCARD] = bool(capture.potionCanDiscard[i]);
+            numeric[offset + POTION_REQUIRES_TARGET] = bool(capture.potionRequiresTarget[i]);
+            codes[CODE_POTIONS + i] = capture.potionCodes[i];
+        }
+
+        if (capture.inCombat) {
+            encodeCombatState(capture, numeric, codes);
+        }
+    }
+
+    private static void encodeCombatState(StateCapture capture, float[] numeric, short[] codes) {
+        numeric[NUM_BLOCK] = capture.block;
+        numeric[NUM_ENERGY] = capture.energy;
+        numeric[NUM_TURN] = capture.turn;
+        numeric[NUM_CARDS_DISCARDED_THIS_TURN] = capture.cardsDiscardedThisTurn;
+        numeric[NUM_TIMES_DAMAGED] = capture.timesDamaged;
+        numeric[NUM_DRAW_PILE_SIZE] = capture.pileSize[StateCapture.PILE_DRAW];
+        numeric[NUM_DISCARD_PILE_SIZE] = capture.pileSize[StateCapture.PILE_DISCARD];
+        numeric[NUM_EXHAUST_PILE_SIZE] = capture.pileSize[StateCapture.PILE_EXHAUST];
+        numeric[NUM_HAND_SIZE] = capture.pileSize[StateCapture.PILE_HAND];
+        numeric[NUM_LIMBO_SIZE] = capture.pileSize[StateCapture.PILE_LIMBO];
+
+        int handStart = capture.pileStart[StateCapture.PILE_HAND];
+        for (int i = 0; i < MAX_HAND && i < capture.pileSize[StateCapture.PILE_HAND]; i++) {
+            int card = handStart + i;
+            int flags = capture.cardFlags[card];
+            int offset = NUM_HAND + i * HAND_STRIDE;
+            numeric[offset + CARD_PRESENT] = 1;
+            numeric[offset + CARD_COST] = capture.cardCosts[card];
+            numeric[offset + CARD_UPGRADES] = capture.cardUpgrades[card];
+            numeric[offset + CARD_IS_PLAYABLE] = bool((flags & StateCapture.CARD_IS_PLAYABLE) != 0);
+            numeric[offset + CARD_HAS_TARGET] = bool((flags & StateCapture.CARD_HAS_TARGET) != 0);
+            numeric[offset + CARD_EXHAUSTS] = bool((flags & StateCapture.CARD_EXHAUSTS) != 0);
+            numeric[offset + CARD_ETHEREAL] = bool((flags & StateCapture.CARD_ETHEREAL) != 0);
+            numeric[offset + CARD_MISC] = capture.cardMisc[card];
+            codes[CODE_HAND + i] = capture.cardCodes[card];
+        }
+
+        for (int i = 0; i < MAX_MONSTERS && i < capture.monsterCount; i++) {
+            int offset = NUM_MONSTERS + i * MONSTER_STRIDE;
+            numeric[offset + MONSTER_PRESENT] = 1;
+            numeric[offset + MONSTER_CURRENT_HP] = capture.monsterCurrentHp[i];
+            numeric[offset + MONSTER_MAX_HP] = capture.monsterMaxHp[i];
+            numeric[offset + MONSTER_BLOCK] = capture.monsterBlock[i];
+            numeric[offset + MONSTER_HALF_DEAD] = bool(capture.monsterHalfDead[i]);
+            numeric[offset + MONSTER_IS_GONE] = bool(capture.monsterIsGone[i]);
+            numeric[offset + MONSTER_MOVE_BASE_DAMAGE] = capture.monsterMoveBaseDamage[i];
+            numeric[offset + MONSTER_MOVE_ADJUSTED_DAMAGE] = capture.monsterMoveAdjustedDamage[i];
+            numeric[offset + MONSTER_MOVE_HITS] = capture.monsterMoveHits[i];
+            numeric[offset + MONSTER_POWER_COUNT] = capture.monsterPowerCount[i];
+            codes[CODE_MONSTERS + i] = capture.monsterCodes[i];
+            codes[CODE_MONSTER_INTENTS + i] = capture.monsterIntents[i];
+            encodePowers(capture, capture.monsterPowerStart[i], capture.monsterPowerCount[i],
+                    numeric, offset + MONSTER_POWER_AMOUNTS, codes, CODE_MONSTER_POWERS + i * MAX_POWERS);
+        }
+
+        encodePowers(capture, 0, capture.playerPowerCount, numeric, NUM_PLAYER_POWERS, codes, CODE_PLAYER_POWERS);
+    }
+
+    private static void encodePowers(StateCapture capture, int start, int count, float[] numeric, int numericOffset, short[] codes, int codeOffset) {
+        for (int i = 0; i < MAX_POWERS && i < count; i++) {
+            numeric[numericOffset + i] = capture.powerAmounts[start + i];
+            codes[codeOffset + i] = capture.powerCodes[start + i];
+        }
+    }
+
+    private static float bool(boolean value) {
+        return value ? 1 : 0;
+    }
+}
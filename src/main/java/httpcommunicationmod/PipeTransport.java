@@ -0,0 +1,256 @@
+package httpcommunicationmod;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional line-delimited transport over the standard input and output of an agent process, which the mod launches.
+ * Enabled by setting HTTP_MOD_PIPE_COMMAND to the agent's command line, whose arguments are split at whitespace
+ * outside of quotes, as a shell does (see splitCommandLine).
+ *
+ * The mod writes one JSON object per line to the agent's standard input: the state (as GET /state returns it) each
+ * time the game becomes stable, or {"error": ..., "ready_for_command": true} when a command fails. Each line the
+ * agent writes to its standard output is a command, executed on the game thread through the CommandQueue. A command
+ * that does not change the state is answered with the current state, and the command "state" requests it.
+ * The agent's standard error goes to the game's.
+ */
+public class PipeTransport {
+    private static final Logger logger = LogManager.getLogger(PipeTransport.class.getName());
+
+    private static final JsonStateWriter.Key ERROR = new JsonStateWriter.Key("error");
+    private static final JsonStateWriter.Key READY_FOR_COMMAND = new JsonStateWriter.Key("ready_for_command");
+
+    // How long the writer waits for a message before checking that the agent is still running
+    private static final long WRITER_POLL_MILLIS = 500;
+
+    private static Process process;
+    private static LinkedBlockingQueue<String> outgoing;
+    private static Thread readerThread;
+    private static Thread writerThread;
+    private static final AtomicBoolean stateRequested = new AtomicBoolean(false);
+
+    private static final CommandQueue.Callback callback = (command, stateChanged, error) -> {
+        if (error != null) {
+            JsonStateWriter writer = new JsonStateWriter();
+            writer.beginObject();
+            writer.name(ERROR).value(error);
+            writer.name(READY_FOR_COMMAND).value(true);
+            writer.endObject();
+            send(writer.toString());
+        } else if (!stateChanged) {
+            publishState();
+        }
+    };
+
+    /**
+     * Launches the agent if HTTP_MOD_PIPE_COMMAND is set.
+     */
+    public static void start() {
+        String envCommand = System.getenv("HTTP_MOD_PIPE_COMMAND");
+        if (envCommand == null || envCommand.trim().isEmpty()) {
+            return;
+        }
+        List<String> commandLine;
+        try {
+            commandLine = splitCommandLine(envCommand.trim());
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid pipe agent command '" + envCommand.trim() + "': " + e.getMessage());
+            return;
+        }
+        ProcessBuilder builder = new ProcessBuilder(commandLine);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        try {
+            process = builder.start();
+        } catch (IOException e) {
+            logger.error("Failed to launch pipe agent '" + envCommand.trim() + "': " + e.getMessage());
+            return;
+        }
+        outgoing = new LinkedBlockingQueue<>();
+        Process agent = process;
+        LinkedBlockingQueue<String> queue = outgoing;
+
+        readerThread = new Thread(() -> readCommands(agent), "HttpCommunicationMod-pipe-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+        writerThread = new Thread(() -> writeMessages(agent, queue), "HttpCommunicationMod-pipe-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Pipe transport started with agent '" + envCommand.trim() + "'");
+    }
+
+    /**
+     * Stops the agent and the threads that talk to it. Closing the agent's streams ends the reader, and the writer
+     * is interrupted out of its wait for a message.
+     */
+    public static void stop() {
+        if (process != null) {
+            logger.info("Stopping pipe agent...");
+            Process agent = process;
+            process = null;
+            outgoing = null;
+            writerThread.interrupt();
+            closeQuietly(agent.getOutputStream());
+            closeQuietly(agent.getInputStream());
+            agent.destroy();
+            try {
+                writerThread.join(1000);
+                readerThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writerThread = null;
+            readerThread = null;
+        }
+    }
+
+    public static boolean isRunning() {
+        return process != null;
+    }
+
+    /**
+     * Answers a "state" request from the agent. Called on the game thread.
+     */
+    public static void pollRequests() {
+        if (stateRequested.getAndSet(false)) {
+            publishState();
+        }
+    }
+
+    /**
+     * Sends the current state to the agent. Called on the game thread when the game becomes stable.
+     */
+    public static void publishState() {
+        if (process == null) {
+            return;
+        }
+        String gameState = GameAccessProvider.get().getState(StateOptions.DEFAULT);
+        CommunicationLog.logGameState(gameState);
+        send(gameState);
+    }
+
+    private static void send(String line) {
+        LinkedBlockingQueue<String> queue = outgoing;
+        if (queue != null) {
+            queue.add(line);
+        }
+    }
+
+    private static void readCommands(Process agent) {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(agent.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.trim();
+                if (command.isEmpty()) {
+                    continue;
+                }
+                if (command.equalsIgnoreCase("state")) {
+                    stateRequested.set(true);
+                } else {
+                    CommandQueue.submit(command, callback);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error reading from pipe agent: " + e.getMessage());
+        }
+        logger.info("Pipe agent closed its output");
+    }
+
+    private static void writeMessages(Process agent, LinkedBlockingQueue<String> queue) {
+        try (BufferedWriter out = new BufferedWriter(
+                new OutputStreamWriter(agent.getOutputStream(), StandardCharsets.UTF_8))) {
+            while (agent.isAlive()) {
+                String line = queue.poll(WRITER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    continue;
+                }
+                out.write(line);
+                out.write('\n');
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error writing to pipe agent: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Splits a command line into arguments at whitespace. Whitespace inside single or double quotes is kept, the
+     * quotes are removed, and outside of single quotes a backslash keeps the next character as it is, so
+     * python3 "/path/to/my agent.py" --name 'a b' gives four arguments.
+     * @param commandLine The command line
+     * @return The program and its arguments
+     * @throws IllegalArgumentException If a quote is not closed or the command line is empty
+     */
+    static List<String> splitCommandLine(String commandLine) {
+        List<String> arguments = new ArrayList<>();
+        StringBuilder argument = new StringBuilder();
+        boolean inArgument = false;
+        char quote = 0;
+        for (int i = 0; i < commandLine.length(); i++) {
+            char c = commandLine.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = 0;
+                } else {
+                    argument.append(c);
+                }
+            } else if (c == '\\' && i + 1 < commandLine.length()) {
+                argument.append(commandLine.charAt(++i));
+                inArgument = true;
+            } else if (quote == '"') {
+                if (c == '"') {
+                    quote = 0;
+                } else {
+                    argument.append(c);
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                inArgument = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArgument) {
+                    arguments.add(argument.toString());
+                    argument.setLength(0);
+                    inArgument = false;
+                }
+            } else {
+                argument.append(c);
+                inArgument = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unclosed " + quote + " quote");
+        }
+        if (inArgument) {
+            arguments.add(argument.toString());
+        }
+        if (arguments.isEmpty()) {
+            throw new IllegalArgumentException("Empty command");
+        }
+        return arguments;
+    }
+
+    private static void closeQuietly(Closeable stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // The agent is being stopped
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package httpcommunicationmod;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Game access backed by a sequence of recorded communication states, which does not need the game.
+ * The first state is served until a command is executed. A command is valid if it is in the "available_commands"
+ * of the current state, and each valid command advances to the next recorded state. After the last state, the
+ * replay starts over from the first one, so that a short recording can serve an unbounded number of requests.
+ * Starting or resetting a game also returns to the first state.
+ * An optional stabilization latency simulates the time the game takes to become stable after a command: for that
+ * long after a command, the new state is served with "ready_for_command" set to false, and commands are rejected.
+ * States are served as recorded, so requests with serialization options (compact, map=delta) are not supported.
+ * GET /map serves the map of the current recorded state. There is no observation, since observations are encoded
+ * from captures of the running game.
+ */
+public class ReplayGameAccess implements GameAccess {
+
+    private static final List<String> CHARACTERS = Arrays.asList("IRONCLAD", "THE_SILENT", "DEFECT", "WATCHER");
+    private static final List<String> CONFIRM_COMMANDS = Arrays.asList("confirm", "proceed");
+    private static final List<String> CANCEL_COMMANDS = Arrays.asList("skip", "cancel", "return", "leave");
+    // The alphabet of the game's seed strings (SeedHelper), which leaves out the letter O
+    private static final String SEED_CHARACTERS = "0123456789ABCDEFGHIJKLMNPQRSTUVWXYZ";
+    private static final String EMPTY_DICTIONARY = "{\"checksum\":\"\",\"cards\":[],\"relics\":[],\"potions\":[],"
+            + "\"powers\":[],\"monsters\":[],\"events\":[]}";
+
+    private static final JsonStateWriter.Key IN_GAME = new JsonStateWriter.Key("in_game");
+    private static final JsonStateWriter.Key MAP_KEY = new JsonStateWriter.Key("map_key");
+    private static final JsonStateWriter.Key ACT = new JsonStateWriter.Key("act");
+    private static final JsonStateWriter.Key MAP = new JsonStateWriter.Key("map");
+
+    private final ArrayList<String> states;
+    private final ArrayList<String> unstableStates;
+    private final ArrayList<List<String>> availableCommands;
+    private final long stabilizationNanos;
+    private final Random random = new Random();
+    private int index = 0;
+    private long stableAt = 0;
+
+    /**
+     * @param states The recorded communication states, in the order they are replayed
+     */
+    public ReplayGameAccess(List<String> states) {
+        this(states, 0);
+    }
+
+    /**
+     * @param states The recorded communication states, in the order they are replayed
+     * @param stabilizationMillis How long the state stays unstable after each command, in milliseconds
+     */
+    public ReplayGameAccess(List<String> states, long stabilizationMillis) {
+        if (states.isEmpty()) {
+            throw new IllegalArgumentException("At least one recorded state is required");
+        }
+        this.states = new ArrayList<>(states);
+        this.unstableStates = new ArrayList<>(states.size());
+        this.availableCommands = new ArrayList<>(states.size());
+        for (String state : states) {
+            JsonObject json = new JsonParser().parse(state).getAsJsonObject();
+            availableCommands.add(parseAvailableCommands(json));
+            json.addProperty("ready_for_command", false);
+            unstableStates.add(json.toString());
+        }
+        this.stabilizationNanos = TimeUnit.MILLISECONDS.toNanos(stabilizationMillis);
+        this.stableAt = System.nanoTime();
+    }
+
+    private static List<String> parseAvailableCommands(JsonObject json) {
+        ArrayList<String> commands = new ArrayList<>();
+        if (json.has("available_commands") && json.get("available_commands").isJsonArray()) {
+            JsonArray array = json.getAsJsonArray("available_commands");
+            for (JsonElement command : array) {
+                commands.add(command.getAsString().toLowerCase());
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * @return The number of recorded states
+     */
+    public int size() {
+        return states.size();
+    }
+
+    @Override
+    public synchronized String getState(StateOptions options) {
+        return isStable() ? states.get(index) : unstableStates.get(index);
+    }
+
+    private boolean isStable() {
+        return stabilizationNanos == 0 || System.nanoTime() - stableAt >= 0;
+    }
+
+    @Override
+    public boolean supports(StateOptions options) {
+        return !options.compact && !options.mapDelta;
+    }
+
+    @Override
+    public synchronized boolean executeCommand(String command) throws InvalidCommandException {
+        command = command.toLowerCase();
+        if (!isStable()) {
+            throw new InvalidCommandException("Invalid command: " + command + ". The game state is not stable yet.");
+        }
+        List<String> available = availableCommands.get(index);
+        if (!isCommandAvailable(command, available)) {
+            throw new InvalidCommandException("Invalid command: " + command + ". Possible commands: " + available);
+        }
+        index = (index + 1) % states.size();
+        stableAt = System.nanoTime() + stabilizationNanos;
+        return true;
+    }
+
+    private static boolean isCommandAvailable(String command, List<String> available) {
+        if (CONFIRM_COMMANDS.contains(command)) {
+            return containsAny(available, CONFIRM_COMMANDS);
+        } else if (CANCEL_COMMANDS.contains(command)) {
+            return containsAny(available, CANCEL_COMMANDS);
+        }
+        return available.contains(command);
+    }
+
+    private static boolean containsAny(List<String> available, List<String> commands) {
+        for (String command : commands) {
+            if (available.contains(command)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void registerCommandExecution() {
+    }
+
+    @Override
+    public synchronized HashMap<String, Object> startGame(String characterName, int ascensionLevel, String seedString)
+            throws InvalidCommandException {
+        String upperName = characterName.toUpperCase();
+        if (upperName.equals("SILENT")) {
+            upperName = "THE_SILENT";
+        }
+        if (!CHARACTERS.contains(upperName)) {
+            throw new InvalidCommandException("Invalid character: " + characterName + ". Valid options: IRONCLAD, THE_SILENT, DEFECT, WATCHER, or SILENT");
+        }
+        long seed = seedString != null ? getSeedLong(seedString.toUpperCase()) : random.nextLong();
+        index = 0;
+        stableAt = System.nanoTime() + stabilizationNanos;
+
+        HashMap<String, Object> response = new HashMap<>();
+        response.put("character", upperName);
+        response.put("ascension_level", ascensionLevel);
+        response.put("seed", seed);
+        response.put("seed_string", getSeedString(seed));
+        return response;
+    }
+
+    @Override
+    public synchronized void reset() {
+        index = 0;
+        stableAt = System.nanoTime() + stabilizationNanos;
+    }
+
+    @Override
+    public String setUpScenario(Scenario scenario) throws InvalidCommandException {
+        throw new InvalidCommandException("Scenarios cannot be set up from recorded states");
+    }
+
+    @Override
+    public void writeMap(JsonStateWriter writer) {
+        String state = getState(StateOptions.DEFAULT);
+        JsonObject json = new JsonParser().parse(state).getAsJsonObject();
+        JsonObject gameState = json.has("game_state") && json.get("game_state").isJsonObject()
+                ? json.getAsJsonObject("game_state") : null;
+        boolean isInGame = json.has("in_game") && json.get("in_game").getAsBoolean() && gameState != null
+                && gameState.has("map");
+        writer.beginObject();
+        writer.name(IN_GAME).value(isInGame);
+        if (isInGame) {
+            int act = gameState.has("act") ? gameState.get("act").getAsInt() : 0;
+            writer.name(MAP_KEY).value("replay-" + act);
+            writer.name(ACT).value(act);
+            writer.name(MAP).rawValue(gameState.get("map").toString());
+        }
+        writer.endObject();
+    }
+
+    @Override
+    public StateCaptureService.Snapshot getObservation() {
+        return null;
+    }
+
+    @Override
+    public String getDictionary() {
+        return EMPTY_DICTIONARY;
+    }
+
+    private static long getSeedLong(String seedString) {
+        long total = 0;
+        for (char c : seedString.replace('O', '0').toCharArray()) {
+            total = total * SEED_CHARACTERS.length() + SEED_CHARACTERS.indexOf(c);
+        }
+        return total;
+    }
+
+    private static String getSeedString(long seed) {
+        StringBuilder builder = new StringBuilder();
+        long base = SEED_CHARACTERS.length();
+        do {
+            int digit = (int) Long.remainderUnsigned(seed, base);
+            builder.append(SEED_CHARACTERS.charAt(digit));
+            seed = Long.divideUnsigned(seed, base);
+        } while (seed != 0);
+        return builder.reverse().toString();
+    }
+}
@@ -0,0 +1,79 @@
+package httpcommunicationmod;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the states to replay from a recording. Two formats are supported:
+ * - The mod's log file (http_mod.log), with "[timestamp] GAME_STATE: {...}" and "[timestamp] COMMAND: ..." lines.
+ *   A client usually polls GET /state several times between commands, so only the last state logged before each
+ *   command is kept (the state the command was chosen in), followed by the last state of the log.
+ * - A trajectory file with one communication state (as returned by GET /state) per line. Every line is kept.
+ * Blank lines, and states that are identical to the previous kept state, are skipped in both formats.
+ */
+public class ReplayRecording {
+
+    private static final Pattern LOG_LINE = Pattern.compile("^\\[[^\\]]*\\] (GAME_STATE|COMMAND): (.*)$");
+
+    public static List<String> load(Path path) throws IOException {
+        ArrayList<String> states = new ArrayList<>();
+        String pendingState = null;
+        boolean isLog = false;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                Matcher matcher = LOG_LINE.matcher(line);
+                if (matcher.matches()) {
+                    isLog = true;
+                    if (matcher.group(1).equals("GAME_STATE")) {
+                        pendingState = matcher.group(2);
+                    } else if (pendingState != null) {
+                        addState(states, pendingState, path, lineNumber);
+                        pendingState = null;
+                    }
+                } else if (!isLog) {
+                    addState(states, line.trim(), path, lineNumber);
+                }
+            }
+        }
+        if (pendingState != null) {
+            addState(states, pendingState, path, lineNumber);
+        }
+        if (states.isEmpty()) {
+            throw new IOException(path + " does not contain any game states");
+        }
+        return states;
+    }
+
+    private static void addState(ArrayList<String> states, String state, Path path, int lineNumber)
+            throws IOException {
+        if (!states.isEmpty() && states.get(states.size() - 1).equals(state)) {
+            return;
+        }
+        JsonElement json;
+        try {
+            json = new JsonParser().parse(state);
+        } catch (RuntimeException e) {
+            throw new IOException(path + ":" + lineNumber + ": the state is not valid JSON: " + e.getMessage());
+        }
+        if (!json.isJsonObject()) {
+            throw new IOException(path + ":" + lineNumber + ": the state is not a JSON object");
+        }
+        states.add(state);
+    }
+}
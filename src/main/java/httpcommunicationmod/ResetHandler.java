@@ -12,6 +12,12 @@ import java.nio.charset.StandardCharsets;
 public class ResetHandler implements HttpHandler {
     private static final Logger logger = LogManager.getLogger(ResetHandler.class.getName());
 
+    private final GameAccess game;
+
+    public ResetHandler(GameAccess game) {
+        this.game = game;
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         String method = exchange.getRequestMethod();
@@ -25,7 +31,7 @@ public class ResetHandler implements HttpHandler {
             logger.info("Handling POST /reset request");
 
             // Execute the reset logic
-            CommandExecutor.executeStartOver(new String[]{"reset"});
+            game.reset();
 
             logger.info("Game reset successfully");
 
@@ -0,0 +1,195 @@
+package httpcommunicationmod;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Map routes for RoutePlanner:
+ * - POST /route with {"act": ..., "nodes": [{"x": ..., "y": ...}, ...]} replaces the route. The act defaults to the
+ *   current one.
+ * - GET /route answers with the act and the nodes of the route that are left
+ * - DELETE /route drops the route
+ */
+public class RouteHandler implements HttpHandler {
+    private static final Logger logger = LogManager.getLogger(RouteHandler.class.getName());
+
+    private static final int MAX_BODY_LENGTH = 64 * 1024;
+
+    private static final JsonStateWriter.Key SUCCESS = new JsonStateWriter.Key("success");
+    private static final JsonStateWriter.Key ACT = new JsonStateWriter.Key("act");
+    private static final JsonStateWriter.Key NODES = new JsonStateWriter.Key("nodes");
+    private static final JsonStateWriter.Key DROPPED = new JsonStateWriter.Key("dropped");
+    private static final JsonStateWriter.Key ERROR = new JsonStateWriter.Key("error");
+
+    private final GameAccess game;
+
+    public RouteHandler(GameAccess game) {
+        this.game = game;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+
+        try {
+            if ("POST".equals(method)) {
+                handleRoute(exchange);
+            } else if ("GET".equals(method)) {
+                JsonStateWriter writer = new JsonStateWriter();
+                RoutePlanner.writeRoute(writer);
+                sendJson(exchange, 200, writer.toString());
+            } else if ("DELETE".equals(method)) {
+                int dropped = RoutePlanner.clear();
+                logger.info("Dropped a route with " + dropped + " nodes left");
+                JsonStateWriter writer = new JsonStateWriter();
+                writer.beginObject();
+                writer.name(SUCCESS).value(true);
+                writer.name(DROPPED).value(dropped);
+                writer.endObject();
+                sendJson(exchange, 200, writer.toString());
+            } else {
+                sendMethodNotAllowed(exchange);
+            }
+        } catch (Exception e) {
+            logger.error("Error handling /route request: " + e.getMessage());
+            e.printStackTrace();
+            sendInternalServerError(exchange, e.getMessage());
+        }
+    }
+
+    private void handleRoute(HttpExchange exchange) throws IOException {
+        logger.info("Handling POST /route request");
+
+        String requestBody = readRequestBody(exchange);
+        if (requestBody == null || requestBody.trim().isEmpty()) {
+            sendBadRequest(exchange, "Request body cannot be empty");
+            return;
+        }
+
+        JsonObject json;
+        try {
+            json = new JsonParser().parse(requestBody).getAsJsonObject();
+        } catch (Exception e) {
+            sendBadRequest(exchange, "Invalid JSON format");
+            return;
+        }
+
+        JsonElement nodesElement = json.get("nodes");
+        if (nodesElement == null || !nodesElement.isJsonArray()) {
+            sendBadRequest(exchange, "Missing required field: nodes");
+            return;
+        }
+        JsonArray nodesArray = nodesElement.getAsJsonArray();
+        ArrayList<int[]> nodes = new ArrayList<>();
+        int previousRow = -1;
+        for (int i = 0; i < nodesArray.size(); i++) {
+            int x;
+            int y;
+            try {
+                JsonObject node = nodesArray.get(i).getAsJsonObject();
+                x = node.get("x").getAsInt();
+                y = node.get("y").getAsInt();
+            } catch (Exception e) {
+                sendBadRequest(exchange, "Node " + i + " must be an object with x and y");
+                return;
+            }
+            if (x < 0 || y <= previousRow) {
+                sendBadRequest(exchange, "Node " + i + ": the nodes must be on successive rows, from the bottom of the map");
+                return;
+            }
+            nodes.add(new int[]{x, y});
+            previousRow = y;
+        }
+
+        int act;
+        if (json.has("act")) {
+            try {
+                act = json.get("act").getAsInt();
+            } catch (Exception e) {
+                sendBadRequest(exchange, "act must be an integer");
+                return;
+            }
+        } else if (CommandExecutor.isInDungeon()) {
+            act = game.getActNum();
+        } else {
+            sendBadRequest(exchange, "No run in progress. Give the act of the route.");
+            return;
+        }
+
+        RoutePlanner.setRoute(act, nodes);
+
+        JsonStateWriter writer = new JsonStateWriter();
+        writer.beginObject();
+        writer.name(SUCCESS).value(true);
+        writer.name(ACT).value(act);
+        writer.name(NODES).value(nodes.size());
+        writer.endObject();
+        sendJson(exchange, 200, writer.toString());
+    }
+
+    private String readRequestBody(HttpExchange exchange) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            StringBuilder body = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                body.append(line);
+                if (body.length() > MAX_BODY_LENGTH) {
+                    throw new IOException("Request body too large");
+                }
+            }
+            return body.toString();
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+
+    private void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
+        String response = "{\"error\":\"Method not allowed. Use GET, POST or DELETE.\"}";
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(405, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+
+    private void sendBadRequest(HttpExchange exchange, String errorMessage) throws IOException {
+        JsonStateWriter writer = new JsonStateWriter();
+        writer.beginObject();
+        writer.name(SUCCESS).value(false);
+        writer.name(ERROR).value(errorMessage);
+        writer.endObject();
+        sendJson(exchange, 400, writer.toString());
+    }
+
+    private void sendInternalServerError(HttpExchange exchange, String errorMessage) throws IOException {
+        JsonStateWriter writer = new JsonStateWriter();
+        writer.beginObject();
+        writer.name(SUCCESS).value(false);
+        writer.name(ERROR).value("Internal server error: " + errorMessage);
+        writer.endObject();
+        sendJson(exchange, 500, writer.toString());
+    }
+}
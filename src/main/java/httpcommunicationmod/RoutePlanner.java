@@ -0,0 +1,119 @@
+package httpcommunicationmod;
+
+import com.megacrit.cardcrawl.map.MapRoomNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Built-in DecisionPlugin that follows a planned route through the map of an act, from POST /route.
+ *
+ * At each map screen of the route's act, the next node of the route is chosen, so that the HTTP agent only sees the
+ * decisions between map screens. Nodes at or below the current row are skipped as already passed. The route is
+ * dropped when its next node cannot be chosen, when a later act starts, or with DELETE /route. The boss node is not
+ * part of the map, and is left to the agent.
+ */
+public class RoutePlanner implements DecisionPlugin {
+    private static final Logger logger = LogManager.getLogger(RoutePlanner.class.getName());
+
+    private static final JsonStateWriter.Key ACT = new JsonStateWriter.Key("act");
+    private static final JsonStateWriter.Key NODES = new JsonStateWriter.Key("nodes");
+    private static final JsonStateWriter.Key X = new JsonStateWriter.Key("x");
+    private static final JsonStateWriter.Key Y = new JsonStateWriter.Key("y");
+
+    private static final Object lock = new Object();
+    private static final ArrayDeque<int[]> route = new ArrayDeque<>();
+    private static int routeAct = 0;
+
+    /**
+     * Replaces the route.
+     * @param act The act whose map the nodes are on
+     * @param nodes The (x, y) coordinates of the nodes, in the order they are visited
+     */
+    public static void setRoute(int act, List<int[]> nodes) {
+        synchronized (lock) {
+            route.clear();
+            route.addAll(nodes);
+            routeAct = act;
+        }
+        logger.info("Following a route of " + nodes.size() + " nodes in act " + act);
+        if (CommandExecutor.isInDungeon()
+                && ChoiceScreenUtils.getCurrentChoiceType() == ChoiceScreenUtils.ChoiceType.MAP) {
+            // Already on a map screen: have the state reported again, so that the route is followed from here
+            GameStateListener.registerStateChange();
+        }
+    }
+
+    /**
+     * Drops the route.
+     * @return The number of nodes that were left
+     */
+    public static int clear() {
+        synchronized (lock) {
+            int count = route.size();
+            route.clear();
+            return count;
+        }
+    }
+
+    /**
+     * Writes {"act": act, "nodes": [{"x": x, "y": y}, ...]}, the nodes of the route that are left.
+     */
+    public static void writeRoute(JsonStateWriter writer) {
+        synchronized (lock) {
+            writer.beginObject();
+            writer.name(ACT).value(routeAct);
+            writer.name(NODES).beginArray();
+            for (int[] node : route) {
+                writer.beginObject();
+                writer.name(X).value(node[0]);
+                writer.name(Y).value(node[1]);
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+    }
+
+    /**
+     * @return "choose i" for the next node of the route, or null if there is none on this screen
+     */
+    @Override
+    public String decide(StableState state) {
+        if (state.getChoiceType() != ChoiceScreenUtils.ChoiceType.MAP) {
+            return null;
+        }
+        synchronized (lock) {
+            if (route.isEmpty() || state.getAct() < routeAct) {
+                return null;
+            }
+            if (state.getAct() > routeAct) {
+                logger.info("Act " + routeAct + " is over, dropping the rest of its route");
+                route.clear();
+                return null;
+            }
+            GameAccess game = state.getGame();
+            int currentRow = game.isFirstRoomChosen() ? game.getCurrentMapNode().y : -1;
+            while (!route.isEmpty() && route.peek()[1] <= currentRow) {
+                route.poll();
+            }
+            if (route.isEmpty() || state.getChoiceList().isEmpty() || ChoiceScreenUtils.bossNodeAvailable()) {
+                return null;
+            }
+            int[] next = route.peek();
+            ArrayList<MapRoomNode> nodes = ChoiceScreenUtils.getMapScreenNodeChoices();
+            for (int i = 0; i < nodes.size(); i++) {
+                if (nodes.get(i).x == next[0] && nodes.get(i).y == next[1]) {
+                    route.poll();
+                    return "choose " + i;
+                }
+            }
+            logger.warn("Route node x=" + next[0] + ", y=" + next[1] + " cannot be chosen, dropping the route");
+            route.clear();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package httpcommunicationmod;
+
+import com.megacrit.cardcrawl.core.CardCrawlGame;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Autopilot for unattended batches of runs, from POST /runs/queue.
+ *
+ * Jobs are queued from any thread. On the game thread, update() starts the next job as soon as the game is at the
+ * main menu, or as soon as a run reaches the game over screen, in which case it returns to the main menu first
+ * without the 200 frame wait of POST /reset. The agent plays each run through the usual endpoints. When a started run
+ * reaches the game over screen, or is abandoned, its result is recorded for GET /runs/results.
+ */
+public class RunQueue {
+    private static final Logger logger = LogManager.getLogger(RunQueue.class.getName());
+
+    private static final JsonStateWriter.Key ID = new JsonStateWriter.Key("id");
+    private static final JsonStateWriter.Key CHARACTER = new JsonStateWriter.Key("character");
+    private static final JsonStateWriter.Key ASCENSION_LEVEL = new JsonStateWriter.Key("ascension_level");
+    private static final JsonStateWriter.Key SEED = new JsonStateWriter.Key("seed");
+    private static final JsonStateWriter.Key SEED_STRING = new JsonStateWriter.Key("seed_string");
+    private static final JsonStateWriter.Key SCORE = new JsonStateWriter.Key("score");
+    private static final JsonStateWriter.Key FLOOR = new JsonStateWriter.Key("floor");
+    private static final JsonStateWriter.Key VICTORY = new JsonStateWriter.Key("victory");
+    private static final JsonStateWriter.Key ABANDONED = new JsonStateWriter.Key("abandoned");
+    private static final JsonStateWriter.Key ERROR = new JsonStateWriter.Key("error");
+    private static final JsonStateWriter.Key CURRENT = new JsonStateWriter.Key("current");
+    private static final JsonStateWriter.Key PENDING = new JsonStateWriter.Key("pending");
+    private static final JsonStateWriter.Key COMPLETED = new JsonStateWriter.Key("completed");
+    private static final JsonStateWriter.Key RESULTS = new JsonStateWriter.Key("results");
+
+    private static final Object lock = new Object();
+    private static final ArrayDeque<Job> pending = new ArrayDeque<>();
+    private static final ArrayList<Result> results = new ArrayList<>();
+    private static long nextId = 1;
+    private static volatile Job current;
+    // Whether the current job's run has entered the dungeon. Until then, the game is still leaving the main menu.
+    private static boolean entered = false;
+    // Whether a finished run is being left for the next job. The game over screen stays up while it fades out.
+    private static boolean returning = false;
+
+    private static class Job {
+        final long id;
+        final String character;
+        final int ascensionLevel;
+        final String seed;
+
+        Job(long id, String character, int ascensionLevel, String seed) {
+            this.id = id;
+            this.character = character;
+            this.ascensionLevel = ascensionLevel;
+            this.seed = seed;
+        }
+    }
+
+    private static class Result {
+        final Job job;
+        final String seedString;
+        final int score;
+        final int floor;
+        final boolean victory;
+        final boolean abandoned;
+        final String error;
+
+        Result(Job job, String seedString, int score, int floor, boolean victory, boolean abandoned, String error) {
+            this.job = job;
+            this.seedString = seedString;
+            this.score = score;
+            this.floor = floor;
+            this.victory = victory;
+            this.abandoned = abandoned;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Queues a run.
+     * @param character The character, as accepted by POST /start
+     * @param ascensionLevel The ascension level, between 0 and 20
+     * @param seed The seed, or null for a random seed
+     * @return The id of the job, which its result carries
+     */
+    public static long enqueue(String character, int ascensionLevel, String seed) {
+        synchronized (lock) {
+            Job job = new Job(nextId++, character, ascensionLevel, seed);
+            pending.add(job);
+            return job.id;
+        }
+    }
+
+    /**
+     * Drops the jobs that have not been started yet.
+     * @return The number of dropped jobs
+     */
+    public static int clear() {
+        synchronized (lock) {
+            int count = pending.size();
+            pending.clear();
+            return count;
+        }
+    }
+
+    /**
+     * Writes {"current": job or null, "pending": [jobs], "completed": count}, where each job has "id", "character",
+     * "ascension_level" and "seed", and count is the number of results not yet cleared from GET /runs/results.
+     */
+    public static void writeStatus(JsonStateWriter writer) {
+        synchronized (lock) {
+            writer.beginObject();
+            writer.name(CURRENT);
+            Job job = current;
+            if (job == null) {
+                writer.rawValue("null");
+            } else {
+                writeJob(writer, job);
+            }
+            writer.name(PENDING).beginArray();
+            for (Job pendingJob : pending) {
+                writeJob(writer, pendingJob);
+            }
+            writer.endArray();
+            writer.name(COMPLETED).value(results.size());
+            writer.endObject();
+        }
+    }
+
+    /**
+     * Writes {"results": [...]}, the results recorded so far, oldest first.
+     * @param clear Whether to drop the written results, so that the next call only returns newer ones
+     */
+    public static void writeResults(JsonStateWriter writer, boolean clear) {
+        synchronized (lock) {
+            writer.beginObject();
+            writer.name(RESULTS).beginArray();
+            for (Result result : results) {
+                writer.beginObject();
+                writer.name(ID).value(result.job.id);
+                writer.name(CHARACTER).value(result.job.character);
+                writer.name(ASCENSION_LEVEL).value(result.job.ascensionLevel);
+                if (result.seedString != null) {
+                    writer.name(SEED_STRING).value(result.seedString);
+                }
+                if (result.error != null) {
+                    writer.name(ERROR).value(result.error);
+                } else {
+                    writer.name(SCORE).value(result.score);
+                    writer.name(FLOOR).value(result.floor);
+                    writer.name(VICTORY).value(result.victory);
+                    writer.name(ABANDONED).value(result.abandoned);
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+            if (clear) {
+                results.clear();
+            }
+        }
+    }
+
+    /**
+     * Records finished runs and starts queued ones. Must be called on the game thread, once per frame.
+     */
+    public static void update() {
+        GameAccess game = GameAccessProvider.get();
+        boolean inDungeon = CommandExecutor.isInDungeon();
+        boolean gameOver = inDungeon
+                && ChoiceScreenUtils.getCurrentChoiceType() == ChoiceScreenUtils.ChoiceType.GAME_OVER;
+        boolean atMainMenu = !inDungeon && game.getGameMode() == CardCrawlGame.GameMode.CHAR_SELECT
+                && game.getMainMenuScreen() != null;
+        if (atMainMenu) {
+            returning = false;
+        }
+
+        Job job = current;
+        if (job != null) {
+            if (inDungeon) {
+                entered = true;
+            }
+            if (gameOver) {
+                finish(job, GameStateConverter.getGameOverScore(), game.getFloorNum(),
+                        GameStateConverter.isGameOverVictory(), false);
+            } else if (entered && atMainMenu) {
+                finish(job, 0, game.getFloorNum(), false, true);
+            } else {
+                return;
+            }
+        }
+
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (gameOver) {
+                if (!returning) {
+                    logger.info("Run over, returning to the main menu for the next queued run");
+                    CommandExecutor.startOver();
+                    returning = true;
+                }
+                return;
+            }
+            if (!atMainMenu || game.getMainMenuScreen().isFadingOut) {
+                return;
+            }
+            job = pending.poll();
+        }
+        start(game, job);
+    }
+
+    private static void start(GameAccess game, Job job) {
+        try {
+            HashMap<String, Object> response = game.startGame(job.character, job.ascensionLevel, job.seed);
+            synchronized (lock) {
+                current = new Job(job.id, job.character, job.ascensionLevel, (String) response.get("seed_string"));
+                entered = false;
+            }
+            logger.info("Started queued run " + job.id);
+        } catch (InvalidCommandException e) {
+            logger.error("Failed to start queued run " + job.id + ": " + e.getMessage());
+            synchronized (lock) {
+                results.add(new Result(job, job.seed, 0, 0, false, false, e.getMessage()));
+            }
+        }
+    }
+
+    private static void finish(Job job, int score, int floor, boolean victory, boolean abandoned) {
+        synchronized (lock) {
+            results.add(new Result(job, job.seed, score, floor, victory, abandoned, null));
+            current = null;
+        }
+        logger.info("Queued run " + job.id + " finished: score=" + score + ", floor=" + floor + ", victory=" + victory
+                + (abandoned ? ", abandoned" : ""));
+    }
+
+    private static void writeJob(JsonStateWriter writer, Job job) {
+        writer.beginObject();
+        writer.name(ID).value(job.id);
+        writer.name(CHARACTER).value(job.character);
+        writer.name(ASCENSION_LEVEL).value(job.ascensionLevel);
+        if (job.seed != null) {
+            writer.name(SEED).value(job.seed);
+        }
+        writer.endObject();
+    }
+}
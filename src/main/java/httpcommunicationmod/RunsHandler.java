@@ -0,0 +1,223 @@
+package httpcommunicationmod;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Batch runs through RunQueue:
+ * - POST /runs/queue with {"jobs": [{"character": ..., "ascension_level": ..., "seed": ...}, ...]} queues runs and
+ *   answers with {"success": true, "ids": [...]}
+ * - GET /runs/queue answers with the current and pending jobs
+ * - DELETE /runs/queue drops the pending jobs
+ * - GET /runs/results answers with the results of the finished runs. With ?clear=true, they are dropped afterwards.
+ */
+public class RunsHandler implements HttpHandler {
+    private static final Logger logger = LogManager.getLogger(RunsHandler.class.getName());
+
+    private static final int MAX_BODY_LENGTH = 1024 * 1024;
+
+    private static final JsonStateWriter.Key SUCCESS = new JsonStateWriter.Key("success");
+    private static final JsonStateWriter.Key IDS = new JsonStateWriter.Key("ids");
+    private static final JsonStateWriter.Key ERROR = new JsonStateWriter.Key("error");
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+
+        try {
+            if ("/runs/queue".equals(path)) {
+                if ("POST".equals(method)) {
+                    handleQueue(exchange);
+                } else if ("GET".equals(method)) {
+                    JsonStateWriter writer = new JsonStateWriter();
+                    RunQueue.writeStatus(writer);
+                    sendJson(exchange, 200, writer.toString());
+                } else if ("DELETE".equals(method)) {
+                    int dropped = RunQueue.clear();
+                    logger.info("Dropped " + dropped + " queued runs");
+                    sendJson(exchange, 200, "{\"success\":true,\"dropped\":" + dropped + "}");
+                } else {
+                    sendMethodNotAllowed(exchange, "GET, POST or DELETE");
+                }
+            } else if ("/runs/results".equals(path)) {
+                if ("GET".equals(method)) {
+                    boolean clear = isClearRequested(exchange.getRequestURI().getRawQuery());
+                    JsonStateWriter writer = new JsonStateWriter();
+                    RunQueue.writeResults(writer, clear);
+                    sendJson(exchange, 200, writer.toString());
+                } else {
+                    sendMethodNotAllowed(exchange, "GET");
+                }
+            } else {
+                sendJson(exchange, 404, "{\"error\":\"Unknown endpoint. Use /runs/queue or /runs/results.\"}");
+            }
+        } catch (Exception e) {
+            logger.error("Error handling " + path + " request: " + e.getMessage());
+            e.printStackTrace();
+            sendInternalServerError(exchange, e.getMessage());
+        }
+    }
+
+    private void handleQueue(HttpExchange exchange) throws IOException {
+        logger.info("Handling POST /runs/queue request");
+
+        String requestBody = readRequestBody(exchange);
+        if (requestBody == null || requestBody.trim().isEmpty()) {
+            sendBadRequest(exchange, "Request body cannot be empty");
+            return;
+        }
+
+        JsonArray jobs;
+        try {
+            JsonElement jobsElement = new JsonParser().parse(requestBody).getAsJsonObject().get("jobs");
+            if (jobsElement == null || !jobsElement.isJsonArray()) {
+                sendBadRequest(exchange, "Missing required field: jobs");
+                return;
+            }
+            jobs = jobsElement.getAsJsonArray();
+        } catch (Exception e) {
+            sendBadRequest(exchange, "Invalid JSON format");
+            return;
+        }
+
+        // Validate every job before queueing any, so that a bad batch is rejected as a whole
+        ArrayList<String> characters = new ArrayList<>();
+        ArrayList<Integer> ascensionLevels = new ArrayList<>();
+        ArrayList<String> seeds = new ArrayList<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            JsonObject job;
+            try {
+                job = jobs.get(i).getAsJsonObject();
+            } catch (IllegalStateException e) {
+                sendBadRequest(exchange, "Job " + i + " is not an object");
+                return;
+            }
+            if (!job.has("character")) {
+                sendBadRequest(exchange, "Job " + i + ": missing required field: character");
+                return;
+            }
+            int ascensionLevel = job.has("ascension_level") ? job.get("ascension_level").getAsInt() : 0;
+            if (ascensionLevel < 0 || ascensionLevel > 20) {
+                sendBadRequest(exchange, "Job " + i + ": ascension level must be between 0 and 20");
+                return;
+            }
+            String seedString = job.has("seed") ? job.get("seed").getAsString() : null;
+            if (seedString != null && seedString.trim().isEmpty()) {
+                seedString = null;
+            }
+            if (seedString != null && !seedString.toUpperCase().matches("^[A-Z0-9]+$")) {
+                sendBadRequest(exchange, "Job " + i + ": invalid seed format. Seed must contain only letters and numbers");
+                return;
+            }
+            String character = job.get("character").getAsString();
+            if (LiveGameAccess.parseCharacter(character) == null) {
+                sendBadRequest(exchange, "Job " + i + ": invalid character: " + character
+                        + ". Valid options: IRONCLAD, THE_SILENT, DEFECT, WATCHER, or SILENT");
+                return;
+            }
+            characters.add(character);
+            ascensionLevels.add(ascensionLevel);
+            seeds.add(seedString);
+        }
+
+        JsonStateWriter writer = new JsonStateWriter();
+        writer.beginObject();
+        writer.name(SUCCESS).value(true);
+        writer.name(IDS).beginArray();
+        for (int i = 0; i < characters.size(); i++) {
+            writer.value(RunQueue.enqueue(characters.get(i), ascensionLevels.get(i), seeds.get(i)));
+        }
+        writer.endArray();
+        writer.endObject();
+
+        logger.info("Queued " + characters.size() + " runs");
+        sendJson(exchange, 200, writer.toString());
+    }
+
+    /**
+     * Reads the "clear" parameter of GET /runs/results, which is enabled by "true", "1", or by being present without
+     * a value, like the flags of StateOptions.
+     * @param query The raw query string of the request (may be null)
+     */
+    private static boolean isClearRequested(String query) {
+        if (query == null || query.isEmpty()) {
+            return false;
+        }
+        boolean clear = false;
+        for (String parameter : query.split("&")) {
+            String[] keyValue = parameter.split("=", 2);
+            if (keyValue[0].equals("clear")) {
+                clear = keyValue.length == 1 || keyValue[1].equalsIgnoreCase("true") || keyValue[1].equals("1");
+            }
+        }
+        return clear;
+    }
+
+    private String readRequestBody(HttpExchange exchange) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            StringBuilder body = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                body.append(line);
+                if (body.length() > MAX_BODY_LENGTH) {
+                    throw new IOException("Request body too large");
+                }
+            }
+            return body.toString();
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+
+    private void sendMethodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        String response = "{\"error\":\"Method not allowed. Use " + allowed + ".\"}";
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(405, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+
+    private void sendBadRequest(HttpExchange exchange, String errorMessage) throws IOException {
+        JsonStateWriter writer = new JsonStateWriter();
+        writer.beginObject();
+        writer.name(SUCCESS).value(false);
+        writer.name(ERROR).value(errorMessage);
+        writer.endObject();
+        sendJson(exchange, 400, writer.toString());
+    }
+
+    private void sendInternalServerError(HttpExchange exchange, String errorMessage) throws IOException {
+        String response = "{\"error\":\"Internal server error: " + String.valueOf(errorMessage).replace("\"", "\\\"") + "\"}";
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(500, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+}
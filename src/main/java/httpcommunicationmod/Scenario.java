@@ -0,0 +1,233 @@
+package httpcommunicationmod;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A state to set up with ScenarioSetup, parsed from the body of POST /encounter or POST /scenario.
+ *
+ * An encounter starts a new run with the given character, ascension level and seed, replaces the parts of the player
+ * state that are given (deck, relics, potions, HP), and enters a fight with the given encounter. A scenario changes
+ * the current run instead: it can move to another act, add and remove cards, grant relics and potions, set gold, HP
+ * and floor, and enter a map node or a fight. Fields that are absent keep their values. Content IDs are checked
+ * against the game's registries by ScenarioSetup.
+ */
+public class Scenario {
+
+    /**
+     * The kind of room the encounter is fought in, which decides the rewards and the relics that trigger.
+     */
+    public enum RoomType {
+        MONSTER,
+        ELITE,
+        BOSS
+    }
+
+    // Whether to leave the current run and start a new one, with the character, ascension level and seed
+    boolean newRun;
+    String character;
+    int ascensionLevel = 0;
+    String seed;
+    String encounter;
+    RoomType roomType = RoomType.MONSTER;
+    // Replace the player's deck, relics and potions
+    List<String> deck;
+    List<String> relics;
+    List<String> potions;
+    // Change the player's deck, relics and potions
+    List<String> addCards;
+    List<String> removeCards;
+    List<String> addRelics;
+    List<String> addPotions;
+    Integer currentHp;
+    Integer maxHp;
+    Integer gold;
+    Integer act;
+    Integer floor;
+    Integer mapX;
+    Integer mapY;
+
+    /**
+     * Parses an encounter request: {"encounter": ..., "character": ..., "ascension_level": ..., "seed": ...,
+     * "room": "monster" | "elite" | "boss", "deck": [...], "relics": [...], "potions": [...], "current_hp": ...,
+     * "max_hp": ...}. Cards are card IDs, with "+" or "+N" for upgrades, e.g. "Bash+" or "Searing Blow+3".
+     * @throws InvalidCommandException If a field is missing or has the wrong type or range
+     */
+    public static Scenario fromEncounterJson(JsonObject json) throws InvalidCommandException {
+        Scenario scenario = new Scenario();
+        scenario.newRun = true;
+        scenario.encounter = getString(json, "encounter");
+        if (scenario.encounter == null) {
+            throw new InvalidCommandException("Missing required field: encounter");
+        }
+        scenario.character = getString(json, "character");
+        if (scenario.character == null) {
+            throw new InvalidCommandException("Missing required field: character");
+        }
+        Integer ascensionLevel = getInt(json, "ascension_level");
+        if (ascensionLevel != null) {
+            if (ascensionLevel < 0 || ascensionLevel > 20) {
+                throw new InvalidCommandException("Ascension level must be between 0 and 20");
+            }
+            scenario.ascensionLevel = ascensionLevel;
+        }
+        scenario.seed = getString(json, "seed");
+        if (scenario.seed != null && scenario.seed.trim().isEmpty()) {
+            scenario.seed = null;
+        }
+        if (scenario.seed != null && !scenario.seed.toUpperCase().matches("^[A-Z0-9]+$")) {
+            throw new InvalidCommandException("Invalid seed format. Seed must contain only letters and numbers");
+        }
+        scenario.roomType = getRoomType(json);
+        scenario.deck = getStrings(json, "deck");
+        scenario.relics = getStrings(json, "relics");
+        scenario.potions = getStrings(json, "potions");
+        parseHp(json, scenario);
+        return scenario;
+    }
+
+    /**
+     * Parses a scenario request, applied to the current run: {"act": ..., "floor": ..., "add_cards": [...],
+     * "remove_cards": [...], "add_relics": [...], "add_potions": [...], "gold": ..., "current_hp": ..., "max_hp": ...,
+     * "map_node": {"x": ..., "y": ...}} or, instead of "map_node", {"encounter": ..., "room": ...}. Cards are written as
+     * for fromEncounterJson, and a removed card must have exactly the given number of upgrades.
+     * @throws InvalidCommandException If a field has the wrong type or range
+     */
+    public static Scenario fromScenarioJson(JsonObject json) throws InvalidCommandException {
+        Scenario scenario = new Scenario();
+        scenario.act = getInt(json, "act");
+        if (scenario.act != null && (scenario.act < 1 || scenario.act > 4)) {
+            throw new InvalidCommandException("act must be between 1 and 4");
+        }
+        scenario.floor = getInt(json, "floor");
+        if (scenario.floor != null && scenario.floor < 0) {
+            throw new InvalidCommandException("floor cannot be negative");
+        }
+        scenario.addCards = getStrings(json, "add_cards");
+        scenario.removeCards = getStrings(json, "remove_cards");
+        scenario.addRelics = getStrings(json, "add_relics");
+        scenario.addPotions = getStrings(json, "add_potions");
+        scenario.gold = getInt(json, "gold");
+        if (scenario.gold != null && scenario.gold < 0) {
+            throw new InvalidCommandException("gold cannot be negative");
+        }
+        parseHp(json, scenario);
+        JsonElement mapNode = json.get("map_node");
+        if (mapNode != null && !mapNode.isJsonNull()) {
+            if (!mapNode.isJsonObject()) {
+                throw new InvalidCommandException("map_node must be an object with x and y");
+            }
+            scenario.mapX = getInt(mapNode.getAsJsonObject(), "x");
+            scenario.mapY = getInt(mapNode.getAsJsonObject(), "y");
+            if (scenario.mapX == null || scenario.mapY == null) {
+                throw new InvalidCommandException("map_node must be an object with x and y");
+            }
+        }
+        scenario.encounter = getString(json, "encounter");
+        if (scenario.encounter != null && scenario.mapX != null) {
+            throw new InvalidCommandException("Use either map_node or encounter");
+        }
+        scenario.roomType = getRoomType(json);
+        return scenario;
+    }
+
+    /**
+     * Splits a card of a deck list into its ID and number of upgrades: "Bash" is (Bash, 0), "Bash+" is (Bash, 1) and
+     * "Searing Blow+3" is (Searing Blow, 3).
+     */
+    static CardSpec parseCard(String card) throws InvalidCommandException {
+        int plus = card.lastIndexOf('+');
+        if (plus < 0) {
+            return new CardSpec(card, 0);
+        }
+        String count = card.substring(plus + 1);
+        try {
+            int upgrades = count.isEmpty() ? 1 : Integer.parseInt(count);
+            if (upgrades < 0) {
+                throw new NumberFormatException();
+            }
+            return new CardSpec(card.substring(0, plus), upgrades);
+        } catch (NumberFormatException e) {
+            throw new InvalidCommandException("Invalid card: " + card + ". Use the card ID, with + or +N for upgrades");
+        }
+    }
+
+    static class CardSpec {
+        final String id;
+        final int upgrades;
+
+        CardSpec(String id, int upgrades) {
+            this.id = id;
+            this.upgrades = upgrades;
+        }
+    }
+
+    private static RoomType getRoomType(JsonObject json) throws InvalidCommandException {
+        String room = getString(json, "room");
+        if (room == null) {
+            return RoomType.MONSTER;
+        }
+        try {
+            return RoomType.valueOf(room.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCommandException("Invalid room: " + room + ". Valid options: monster, elite, boss");
+        }
+    }
+
+    private static void parseHp(JsonObject json, Scenario scenario) throws InvalidCommandException {
+        scenario.maxHp = getInt(json, "max_hp");
+        if (scenario.maxHp != null && scenario.maxHp < 1) {
+            throw new InvalidCommandException("max_hp must be at least 1");
+        }
+        scenario.currentHp = getInt(json, "current_hp");
+        if (scenario.currentHp != null && scenario.currentHp < 1) {
+            throw new InvalidCommandException("current_hp must be at least 1");
+        }
+    }
+
+    private static String getString(JsonObject json, String name) throws InvalidCommandException {
+        JsonElement element = json.get(name);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        if (!element.isJsonPrimitive()) {
+            throw new InvalidCommandException(name + " must be a string");
+        }
+        return element.getAsString();
+    }
+
+    private static Integer getInt(JsonObject json, String name) throws InvalidCommandException {
+        JsonElement element = json.get(name);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        try {
+            return element.getAsInt();
+        } catch (RuntimeException e) {
+            throw new InvalidCommandException(name + " must be an integer");
+        }
+    }
+
+    private static List<String> getStrings(JsonObject json, String name) throws InvalidCommandException {
+        JsonElement element = json.get(name);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        if (!element.isJsonArray()) {
+            throw new InvalidCommandException(name + " must be a list of IDs");
+        }
+        JsonArray array = element.getAsJsonArray();
+        List<String> values = new ArrayList<>(array.size());
+        for (JsonElement value : array) {
+            if (!value.isJsonPrimitive()) {
+                throw new InvalidCommandException(name + " must be a list of IDs");
+            }
+            values.add(value.getAsString());
+        }
+        return values;
+    }
+}
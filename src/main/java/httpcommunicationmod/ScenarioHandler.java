@@ -0,0 +1,154 @@
+package httpcommunicationmod;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sets up a scenario from the JSON body of a POST request, and answers with {"success": true, "game_state": state}
+ * once the state is stable again. The state is the body of GET /state. It serves two endpoints, which differ in how
+ * the body is read:
+ * - POST /encounter starts a new run directly in a fight, with the given player state (Scenario.fromEncounterJson).
+ * - POST /scenario changes the current run without playing there: it can move to another act, change the deck,
+ *   relics, potions, gold, HP and floor, and enter a map node or a fight (Scenario.fromScenarioJson).
+ */
+public class ScenarioHandler implements NioWebServer.BlockingHandler {
+    private static final Logger logger = LogManager.getLogger(ScenarioHandler.class.getName());
+
+    /**
+     * Reads the scenario of an endpoint from the request body.
+     */
+    public interface Parser {
+        Scenario parse(JsonObject json) throws InvalidCommandException;
+    }
+
+    private static final int MAX_BODY_LENGTH = 64 * 1024;
+
+    private static final JsonStateWriter.Key SUCCESS = new JsonStateWriter.Key("success");
+    private static final JsonStateWriter.Key GAME_STATE = new JsonStateWriter.Key("game_state");
+    private static final JsonStateWriter.Key ERROR = new JsonStateWriter.Key("error");
+
+    private final GameAccess game;
+    private final String path;
+    private final Parser parser;
+
+    /**
+     * @param game The game to set the scenario up in
+     * @param path The path of the endpoint, for the log
+     * @param parser Reads the scenario from the request body
+     */
+    public ScenarioHandler(GameAccess game, String path, Parser parser) {
+        this.game = game;
+        this.path = path;
+        this.parser = parser;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendMethodNotAllowed(exchange);
+            return;
+        }
+
+        try {
+            logger.info("Handling POST " + path + " request");
+
+            String requestBody = readRequestBody(exchange);
+            if (requestBody == null || requestBody.trim().isEmpty()) {
+                sendBadRequest(exchange, "Request body cannot be empty");
+                return;
+            }
+
+            JsonObject json;
+            try {
+                json = new JsonParser().parse(requestBody).getAsJsonObject();
+            } catch (Exception e) {
+                sendBadRequest(exchange, "Invalid JSON format");
+                return;
+            }
+
+            String state;
+            try {
+                state = game.setUpScenario(parser.parse(json));
+            } catch (InvalidCommandException e) {
+                sendBadRequest(exchange, e.getMessage());
+                return;
+            }
+
+            JsonStateWriter writer = new JsonStateWriter();
+            writer.beginObject();
+            writer.name(SUCCESS).value(true);
+            writer.name(GAME_STATE).rawValue(state);
+            writer.endObject();
+            sendJson(exchange, 200, writer.toString());
+
+            logger.info("Successfully set up the scenario of " + path);
+
+        } catch (Exception e) {
+            logger.error("Error handling " + path + " request: " + e.getMessage());
+            e.printStackTrace();
+            sendInternalServerError(exchange, e.getMessage());
+        }
+    }
+
+    private String readRequestBody(HttpExchange exchange) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            StringBuilder body = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                body.append(line);
+                if (body.length() > MAX_BODY_LENGTH) {
+                    throw new IOException("Request body too large");
+                }
+            }
+            return body.toString();
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+
+    private void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
+        String response = "{\"error\":\"Method not allowed. Use POST.\"}";
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(405, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+
+    private void sendBadRequest(HttpExchange exchange, String errorMessage) throws IOException {
+        JsonStateWriter writer = new JsonStateWriter();
+        writer.beginObject();
+        writer.name(SUCCESS).value(false);
+        writer.name(ERROR).value(errorMessage);
+        writer.endObject();
+        sendJson(exchange, 400, writer.toString());
+    }
+
+    private void sendInternalServerError(HttpExchange exchange, String errorMessage) throws IOException {
+        JsonStateWriter writer = new JsonStateWriter();
+        writer.beginObject();
+        writer.name(SUCCESS).value(false);
+        writer.name(ERROR).value("Internal server error: " + errorMessage);
+        writer.endObject();
+        sendJson(exchange, 500, writer.toString());
+    }
+}
@@ -0,0 +1,471 @@
+package httpcommunicationmod;
+
+import basemod.BaseMod;
+import basemod.ReflectionHacks;
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.core.CardCrawlGame;
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.dungeons.Exordium;
+import com.megacrit.cardcrawl.dungeons.TheBeyond;
+import com.megacrit.cardcrawl.dungeons.TheCity;
+import com.megacrit.cardcrawl.dungeons.TheEnding;
+import com.megacrit.cardcrawl.events.GenericEventDialog;
+import com.megacrit.cardcrawl.events.RoomEventDialog;
+import com.megacrit.cardcrawl.helpers.CardLibrary;
+import com.megacrit.cardcrawl.helpers.MonsterHelper;
+import com.megacrit.cardcrawl.helpers.PotionHelper;
+import com.megacrit.cardcrawl.helpers.RelicLibrary;
+import com.megacrit.cardcrawl.map.MapEdge;
+import com.megacrit.cardcrawl.map.MapRoomNode;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.potions.PotionSlot;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+import com.megacrit.cardcrawl.rooms.MonsterRoom;
+import com.megacrit.cardcrawl.rooms.MonsterRoomBoss;
+import com.megacrit.cardcrawl.rooms.MonsterRoomElite;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Sets up Scenarios on the game thread, without playing up to them.
+ *
+ * A scenario is submitted from any thread, and update() advances it by one step per frame. For a new run: leave the
+ * current run, start a new one and wait until the run's first state (Neow's event) is stable. For the current run:
+ * wait until its state is stable. Then move to the scenario's act if needed, change the player state, enter the
+ * scenario's room if any, and wait until the state is stable again. The submitted future then completes with the
+ * state, as returned by GET /state.
+ */
+public class ScenarioSetup {
+    private static final Logger logger = LogManager.getLogger(ScenarioSetup.class.getName());
+
+    // A setup that does not reach its state in this many frames (about a minute at 60 fps) is given up
+    private static final int MAX_FRAMES = 3600;
+
+    private static final String[] DUNGEON_IDS = {Exordium.ID, TheCity.ID, TheBeyond.ID, TheEnding.ID};
+
+    private static final ConcurrentLinkedQueue<Setup> submitted = new ConcurrentLinkedQueue<>();
+    private static Setup active;
+    private static Set<String> encounterKeys;
+
+    private enum Phase {
+        LEAVING_RUN,
+        ENTERING_RUN,
+        CHANGING_ACT,
+        SETTLING
+    }
+
+    private static class Setup {
+        final Scenario scenario;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        Phase phase;
+        boolean leaving = false;
+        // The map node that the scenario enters, if any
+        MapRoomNode room;
+        int frames = 0;
+
+        Setup(Scenario scenario) {
+            this.scenario = scenario;
+            this.phase = scenario.newRun ? Phase.LEAVING_RUN : Phase.ENTERING_RUN;
+        }
+    }
+
+    private static GameAccess game() {
+        return GameAccessProvider.get();
+    }
+
+    /**
+     * Checks the character and content IDs of a scenario against the game's registries.
+     * @throws InvalidCommandException If an ID is unknown
+     */
+    public static void validate(Scenario scenario) throws InvalidCommandException {
+        if (scenario.newRun && LiveGameAccess.parseCharacter(scenario.character) == null) {
+            throw new InvalidCommandException("Invalid character: " + scenario.character + ". Valid options: IRONCLAD, THE_SILENT, DEFECT, WATCHER, or SILENT");
+        }
+        if (scenario.encounter != null && !getEncounterKeys().contains(scenario.encounter)) {
+            throw new InvalidCommandException("Unknown encounter: " + scenario.encounter);
+        }
+        validateCards(scenario.deck);
+        validateCards(scenario.addCards);
+        validateCards(scenario.removeCards);
+        validateIds("relic", scenario.relics, BaseMod.listAllRelicIDs());
+        validateIds("relic", scenario.addRelics, BaseMod.listAllRelicIDs());
+        validateIds("potion", scenario.potions, PotionHelper.getPotions(null, true));
+        validateIds("potion", scenario.addPotions, PotionHelper.getPotions(null, true));
+    }
+
+    /**
+     * Queues a validated scenario for the game thread.
+     * @return Completes with the state once the scenario is set up and stable, or exceptionally with an
+     *         InvalidCommandException if it cannot be set up. Cancel it to give up the setup.
+     */
+    public static CompletableFuture<String> submit(Scenario scenario) {
+        Setup setup = new Setup(scenario);
+        submitted.add(setup);
+        return setup.result;
+    }
+
+    /**
+     * Advances the current setup by one step. Must be called on the game thread, once per frame.
+     */
+    public static void update() {
+        if (active == null) {
+            active = submitted.poll();
+            if (active == null) {
+                return;
+            }
+        }
+        Setup setup = active;
+        if (setup.result.isDone()) {
+            // Given up by the requester
+            active = null;
+            return;
+        }
+        if (++setup.frames > MAX_FRAMES) {
+            fail(setup, new IllegalStateException("The scenario did not become stable within " + MAX_FRAMES + " frames"));
+            return;
+        }
+        try {
+            step(setup);
+        } catch (InvalidCommandException e) {
+            fail(setup, e);
+        } catch (RuntimeException e) {
+            logger.error("Error setting up scenario", e);
+            fail(setup, e);
+        }
+    }
+
+    private static void step(Setup setup) throws InvalidCommandException {
+        switch (setup.phase) {
+            case LEAVING_RUN:
+                if (CommandExecutor.isInDungeon()) {
+                    if (!setup.leaving) {
+                        CommandExecutor.startOver();
+                        setup.leaving = true;
+                    }
+                    return;
+                }
+                if (game().getGameMode() != CardCrawlGame.GameMode.CHAR_SELECT || game().getMainMenuScreen() == null
+                        || game().getMainMenuScreen().isFadingOut) {
+                    return;
+                }
+                Scenario scenario = setup.scenario;
+                game().startGame(scenario.character, scenario.ascensionLevel, scenario.seed);
+                setup.phase = Phase.ENTERING_RUN;
+                return;
+            case ENTERING_RUN:
+                if (!setup.scenario.newRun && !CommandExecutor.isInDungeon()) {
+                    throw new InvalidCommandException("No run in progress");
+                }
+                if (!CommandExecutor.isInDungeon() || !GameStateListener.isWaitingForCommand()) {
+                    return;
+                }
+                Integer act = setup.scenario.act;
+                if (act != null && !game().getDungeonId().equals(DUNGEON_IDS[act - 1])) {
+                    changeAct(act);
+                    GameStateListener.registerStateChange();
+                    setup.phase = Phase.CHANGING_ACT;
+                    return;
+                }
+                applyScenario(setup);
+                return;
+            case CHANGING_ACT:
+                if (!CommandExecutor.isInDungeon() || !GameStateListener.isWaitingForCommand()
+                        || !game().getDungeonId().equals(DUNGEON_IDS[setup.scenario.act - 1])) {
+                    return;
+                }
+                AbstractDungeon.actNum = setup.scenario.act;
+                applyScenario(setup);
+                return;
+            case SETTLING:
+                if (!GameStateListener.isWaitingForCommand()) {
+                    return;
+                }
+                if (setup.room != null && game().getCurrentMapNode() != setup.room) {
+                    return;
+                }
+                if (setup.scenario.encounter != null
+                        && game().getCurrentRoom().phase != AbstractRoom.RoomPhase.COMBAT) {
+                    return;
+                }
+                logger.info("Scenario set up in " + setup.frames + " frames");
+                active = null;
+                setup.result.complete(GameStateConverter.getCommunicationState());
+        }
+    }
+
+    private static void applyScenario(Setup setup) throws InvalidCommandException {
+        Scenario scenario = setup.scenario;
+        apply(scenario);
+        if (scenario.encounter != null) {
+            setup.room = enterCombat(scenario.encounter, scenario.roomType);
+        } else if (scenario.mapX != null) {
+            setup.room = enterMapNode(scenario.mapX, scenario.mapY);
+        }
+        // The state is only reported again once the scenario's state is stable
+        GameStateListener.registerStateChange();
+        setup.phase = Phase.SETTLING;
+    }
+
+    private static void fail(Setup setup, Exception error) {
+        logger.error("Failed to set up scenario: " + error.getMessage());
+        active = null;
+        setup.result.completeExceptionally(error);
+    }
+
+    private static void apply(Scenario scenario) throws InvalidCommandException {
+        AbstractPlayer player = game().getPlayer();
+        // Check everything that can fail before changing anything
+        if (scenario.potions != null && scenario.potions.size() > player.potionSlots) {
+            throw new InvalidCommandException("Too many potions: the player has " + player.potionSlots + " potion slots");
+        }
+        if (scenario.addPotions != null) {
+            int freeSlots = 0;
+            for (AbstractPotion potion : player.potions) {
+                if (potion instanceof PotionSlot) {
+                    freeSlots++;
+                }
+            }
+            if (scenario.addPotions.size() > freeSlots) {
+                throw new InvalidCommandException("Too many potions: the player has " + freeSlots + " free potion slots");
+            }
+        }
+        ArrayList<AbstractCard> removedCards = findCards(player, scenario.removeCards);
+        if (scenario.mapX != null) {
+            getMapNode(scenario.mapX, scenario.mapY);
+        }
+
+        if (scenario.deck != null) {
+            player.masterDeck.clear();
+            for (String card : scenario.deck) {
+                player.masterDeck.addToTop(createCard(card));
+            }
+        }
+        for (AbstractCard card : removedCards) {
+            player.masterDeck.removeCard(card);
+        }
+        if (scenario.addCards != null) {
+            for (String card : scenario.addCards) {
+                player.masterDeck.addToTop(createCard(card));
+            }
+        }
+        if (scenario.relics != null) {
+            // The starting relic is dropped without onUnequip, which none of them need
+            player.relics.clear();
+        }
+        obtainRelics(player, scenario.relics);
+        obtainRelics(player, scenario.addRelics);
+        if (scenario.potions != null) {
+            player.potions.clear();
+            for (int i = 0; i < player.potionSlots; i++) {
+                player.potions.add(new PotionSlot(i));
+            }
+        }
+        obtainPotions(player, scenario.potions);
+        obtainPotions(player, scenario.addPotions);
+        if (scenario.gold != null) {
+            player.gold = scenario.gold;
+        }
+        if (scenario.maxHp != null) {
+            player.maxHealth = scenario.maxHp;
+        }
+        if (scenario.currentHp != null) {
+            player.currentHealth = scenario.currentHp;
+        }
+        player.currentHealth = Math.min(player.currentHealth, player.maxHealth);
+        if (scenario.floor != null) {
+            // Entering a room counts its floor
+            boolean entersRoom = scenario.encounter != null || scenario.mapX != null;
+            AbstractDungeon.floorNum = entersRoom ? scenario.floor - 1 : scenario.floor;
+        }
+    }
+
+    private static void obtainRelics(AbstractPlayer player, List<String> relics) {
+        if (relics == null) {
+            return;
+        }
+        for (String relic : relics) {
+            RelicLibrary.getRelic(relic).makeCopy().instantObtain(player, player.relics.size(), true);
+        }
+    }
+
+    private static void obtainPotions(AbstractPlayer player, List<String> potions) {
+        if (potions == null) {
+            return;
+        }
+        for (String potion : potions) {
+            player.obtainPotion(PotionHelper.getPotion(potion));
+        }
+    }
+
+    /**
+     * @return The cards of the master deck that match the given cards, one for each, including their upgrades
+     * @throws InvalidCommandException If the deck does not have one of the cards
+     */
+    private static ArrayList<AbstractCard> findCards(AbstractPlayer player, List<String> cards)
+            throws InvalidCommandException {
+        ArrayList<AbstractCard> found = new ArrayList<>();
+        if (cards == null) {
+            return found;
+        }
+        ArrayList<AbstractCard> remaining = new ArrayList<>(player.masterDeck.group);
+        for (String spec : cards) {
+            Scenario.CardSpec card = Scenario.parseCard(spec);
+            AbstractCard match = null;
+            for (AbstractCard deckCard : remaining) {
+                if (deckCard.cardID.equals(card.id) && deckCard.timesUpgraded == card.upgrades) {
+                    match = deckCard;
+                    break;
+                }
+            }
+            if (match == null) {
+                throw new InvalidCommandException("The deck has no card " + spec + " to remove");
+            }
+            remaining.remove(match);
+            found.add(match);
+        }
+        return found;
+    }
+
+    /**
+     * Moves to the given act, like the proceed button after a boss chest: the dungeon fades out and the game creates
+     * the next dungeon.
+     */
+    private static void changeAct(int act) {
+        closeEventDialogs();
+        AbstractDungeon.closeCurrentScreen();
+        CardCrawlGame.nextDungeon = DUNGEON_IDS[act - 1];
+        AbstractDungeon.isDungeonBeaten = true;
+        AbstractDungeon.fadeOut();
+    }
+
+    private static MapRoomNode getMapNode(int x, int y) throws InvalidCommandException {
+        ArrayList<ArrayList<MapRoomNode>> map = game().getMap();
+        if (y < 0 || y >= map.size() || x < 0 || x >= map.get(y).size() || map.get(y).get(x).room == null) {
+            throw new InvalidCommandException("The map has no room at x=" + x + ", y=" + y);
+        }
+        return map.get(y).get(x);
+    }
+
+    /**
+     * Enters the room of the given map node, as if it had been chosen on the map.
+     * @return The entered node
+     */
+    private static MapRoomNode enterMapNode(int x, int y) throws InvalidCommandException {
+        MapRoomNode node = getMapNode(x, y);
+        enterRoom(node);
+        return node;
+    }
+
+    /**
+     * Enters a fight with the given encounter from the current room, like the fight command of BaseMod's console.
+     * The room takes the place of the current map node, with its edges, so the run can go on after the fight.
+     * @return The entered node
+     */
+    private static MapRoomNode enterCombat(String encounter, Scenario.RoomType roomType) {
+        MapRoomNode current = game().getCurrentMapNode();
+        MapRoomNode node = new MapRoomNode(current.x, current.y);
+        switch (roomType) {
+            case ELITE:
+                node.room = new MonsterRoomElite();
+                AbstractDungeon.eliteMonsterList.add(0, encounter);
+                break;
+            case BOSS:
+                node.room = new MonsterRoomBoss();
+                AbstractDungeon.bossKey = encounter;
+                break;
+            default:
+                node.room = new MonsterRoom();
+                AbstractDungeon.monsterList.add(0, encounter);
+        }
+        for (MapEdge edge : current.getEdges()) {
+            node.addEdge(edge);
+        }
+        enterRoom(node);
+        return node;
+    }
+
+    private static void enterRoom(MapRoomNode node) {
+        closeEventDialogs();
+        AbstractDungeon.closeCurrentScreen();
+        AbstractDungeon.nextRoom = node;
+        AbstractDungeon.nextRoomTransitionStart();
+    }
+
+    private static void closeEventDialogs() {
+        ReflectionHacks.setPrivateStatic(GenericEventDialog.class, "show", false);
+        AbstractRoom room = game().getCurrentRoom();
+        if (room.event != null) {
+            ReflectionHacks.setPrivate(room.event.roomEventText, RoomEventDialog.class, "show", false);
+        }
+    }
+
+    static AbstractCard createCard(String spec) throws InvalidCommandException {
+        Scenario.CardSpec card = Scenario.parseCard(spec);
+        AbstractCard template = CardLibrary.getCard(card.id);
+        if (template == null) {
+            throw new InvalidCommandException("Unknown card: " + card.id);
+        }
+        AbstractCard copy = template.makeCopy();
+        for (int i = 0; i < card.upgrades && copy.canUpgrade(); i++) {
+            copy.upgrade();
+        }
+        return copy;
+    }
+
+    private static void validateCards(List<String> cards) throws InvalidCommandException {
+        if (cards == null) {
+            return;
+        }
+        for (String spec : cards) {
+            Scenario.CardSpec card = Scenario.parseCard(spec);
+            if (CardLibrary.getCard(card.id) == null) {
+                throw new InvalidCommandException("Unknown card: " + card.id);
+            }
+        }
+    }
+
+    private static void validateIds(String kind, List<String> ids, Collection<String> registered)
+            throws InvalidCommandException {
+        if (ids == null) {
+            return;
+        }
+        Set<String> known = new HashSet<>(registered);
+        for (String id : ids) {
+            if (!known.contains(id)) {
+                throw new InvalidCommandException("Unknown " + kind + ": " + id);
+            }
+        }
+    }
+
+    /**
+     * @return The encounter keys of the base game, which MonsterHelper declares as its *_ENC constants
+     */
+    private static synchronized Set<String> getEncounterKeys() {
+        if (encounterKeys == null) {
+            Set<String> keys = new HashSet<>();
+            for (Field field : MonsterHelper.class.getFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class
+                        && field.getName().endsWith("_ENC")) {
+                    try {
+                        keys.add((String) field.get(null));
+                    } catch (IllegalAccessException e) {
+                        logger.warn("Could not read encounter key " + field.getName());
+                    }
+                }
+            }
+            encounterKeys = keys;
+        }
+        return encounterKeys;
+    }
+}
@@ -0,0 +1,140 @@
+package httpcommunicationmod;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reference client for SharedMemoryTransport. It only needs this class and SharedMemoryRing on the class path.
+ *
+ * Usage: java -cp HttpCommunicationMod.jar httpcommunicationmod.SharedMemoryClient SHM_PATH
+ * Prints the current state, then sends each line of standard input as a command and prints the reply.
+ */
+public class SharedMemoryClient implements Closeable {
+
+    // Spinning only helps when the mod can run on another core
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1000 : 0;
+    private static final int YIELDS = 100;
+
+    private final RandomAccessFile file;
+    private final SharedMemoryRing states;
+    private final SharedMemoryRing commands;
+
+    private SharedMemoryClient(RandomAccessFile file, SharedMemoryRing states, SharedMemoryRing commands) {
+        this.file = file;
+        this.states = states;
+        this.commands = commands;
+    }
+
+    /**
+     * Attaches to the file created by the mod.
+     * @param path The HTTP_MOD_SHM_PATH of the mod
+     * @throws IOException If the file cannot be mapped or has not been initialized by the mod
+     */
+    public static SharedMemoryClient open(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(path.toString());
+        }
+        RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SharedMemoryRing.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != SharedMemoryRing.MAGIC) {
+                throw new IOException("Not an initialized shared memory file: " + path);
+            }
+            SharedMemoryRing.loadFence();
+            if (header.getInt(4) != SharedMemoryRing.VERSION) {
+                throw new IOException("Unsupported shared memory version " + header.getInt(4) + " in " + path);
+            }
+            int capacity = header.getInt(8);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    SharedMemoryRing.fileSize(capacity));
+            return new SharedMemoryClient(file,
+                    new SharedMemoryRing(SharedMemoryRing.region(buffer, 0, capacity), capacity),
+                    new SharedMemoryRing(SharedMemoryRing.region(buffer, 1, capacity), capacity));
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return False if the command ring is full
+     */
+    public boolean sendCommand(String command) {
+        return commands.offer(SharedMemoryRing.COMMAND, command);
+    }
+
+    /**
+     * @return The next STATE or ERROR message, or null if there is none yet
+     */
+    public SharedMemoryRing.Message poll() {
+        return states.poll();
+    }
+
+    /**
+     * Waits for the next message, spinning first, then yielding, then parking.
+     * @return The next STATE or ERROR message, or null on timeout
+     */
+    public SharedMemoryRing.Message take(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int i = 0; ; i++) {
+            SharedMemoryRing.Message message = states.poll();
+            if (message != null) {
+                return message;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                return null;
+            }
+            if (i >= SPINS + YIELDS) {
+                LockSupport.parkNanos(50_000);
+            } else if (i >= SPINS) {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: SharedMemoryClient <shared memory file>");
+            System.exit(2);
+        }
+        try (SharedMemoryClient client = open(Paths.get(args[0]));
+             BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String command = "state";
+            do {
+                if (command.trim().isEmpty()) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                client.sendCommand(command);
+                SharedMemoryRing.Message message = client.take(10, TimeUnit.SECONDS);
+                long micros = (System.nanoTime() - start) / 1000;
+                if (message == null) {
+                    System.out.println("No reply to " + command);
+                } else {
+                    String type = message.type == SharedMemoryRing.ERROR ? "ERROR" : "STATE";
+                    System.out.println(type + " (" + micros + " us): " + message.text);
+                }
+            } while ((command = stdin.readLine()) != null);
+        }
+    }
+}
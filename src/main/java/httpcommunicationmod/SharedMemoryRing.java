@@ -0,0 +1,195 @@
+package httpcommunicationmod;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single-producer/single-consumer ring buffer of messages in a region of a memory-mapped file, shared between the
+ * mod and a client process.
+ *
+ * File layout: a 64-byte header (the int magic, version and capacity of the rings), then ring 0 and ring 1.
+ *
+ * Ring layout: the producer's write sequence (a long at 0), the consumer's read sequence (a long at 64, on its own
+ * cache line) and the data (at 128). The sequences count bytes since the ring was created, so the free space is
+ * capacity - (write - read). Each message is an int length, an int type and the UTF-8 payload, padded to 8 bytes.
+ * A message that does not fit before the end of the data is preceded by a padding record up to the end.
+ *
+ * The payload is written before the write sequence is published, with a store fence in between, and read after the
+ * write sequence is read, with a load fence in between. The same holds for the read sequence in the other direction.
+ */
+public class SharedMemoryRing {
+
+    public static final int MAGIC = 0x48434D52;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+
+    public static final int STATE = 1;
+    public static final int COMMAND = 2;
+    public static final int ERROR = 3;
+    private static final int PADDING = -1;
+
+    private static final int WRITE_SEQUENCE = 0;
+    private static final int READ_SEQUENCE = 64;
+    private static final int DATA = 128;
+    private static final int RECORD_HEADER = 8;
+
+    private static final Unsafe UNSAFE = getUnsafe();
+
+    private final ByteBuffer region;
+    private final ByteBuffer cursor;
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * A message read from a ring.
+     */
+    public static class Message {
+        public final int type;
+        public final String text;
+
+        Message(int type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+    }
+
+    /**
+     * @param region The region of the mapped file, of regionSize(capacity) bytes
+     * @param capacity The size of the data in bytes, a power of two
+     */
+    public SharedMemoryRing(ByteBuffer region, int capacity) {
+        if (Integer.bitCount(capacity) != 1 || capacity < 64) {
+            throw new IllegalArgumentException("The capacity must be a power of two of at least 64 bytes: " + capacity);
+        }
+        this.region = region.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.cursor = region.duplicate();
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    public static int regionSize(int capacity) {
+        return DATA + capacity;
+    }
+
+    /**
+     * @return The size of a file with a header and two rings of the given capacity
+     */
+    public static long fileSize(int capacity) {
+        return HEADER_SIZE + 2L * regionSize(capacity);
+    }
+
+    /**
+     * @param file The whole mapped file
+     * @param index The ring, 0 or 1
+     * @return The region of the ring in the file, to pass to the constructor
+     */
+    public static ByteBuffer region(ByteBuffer file, int index, int capacity) {
+        ByteBuffer region = file.duplicate();
+        int start = HEADER_SIZE + index * regionSize(capacity);
+        region.position(start);
+        region.limit(start + regionSize(capacity));
+        return region.slice();
+    }
+
+    /**
+     * Resets both sequences. Only the side that creates the file does this, before the other side attaches.
+     */
+    public void clear() {
+        region.putLong(WRITE_SEQUENCE, 0);
+        region.putLong(READ_SEQUENCE, 0);
+        UNSAFE.storeFence();
+    }
+
+    /**
+     * Appends a message. Called only by the producer.
+     * @return False if the ring does not have room for the message
+     */
+    public boolean offer(int type, String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        int size = align(RECORD_HEADER + payload.length);
+        if (size > capacity) {
+            return false;
+        }
+        long write = region.getLong(WRITE_SEQUENCE);
+        long read = region.getLong(READ_SEQUENCE);
+        UNSAFE.loadFence();
+        int index = (int) (write & mask);
+        int toEnd = capacity - index;
+        int needed = size > toEnd ? size + toEnd : size;
+        if (needed > capacity - (write - read)) {
+            return false;
+        }
+        if (size > toEnd) {
+            region.putInt(DATA + index, toEnd - RECORD_HEADER);
+            region.putInt(DATA + index + 4, PADDING);
+            write += toEnd;
+            index = 0;
+        }
+        region.putInt(DATA + index, payload.length);
+        region.putInt(DATA + index + 4, type);
+        cursor.position(DATA + index + RECORD_HEADER);
+        cursor.put(payload);
+        UNSAFE.storeFence();
+        region.putLong(WRITE_SEQUENCE, write + size);
+        return true;
+    }
+
+    /**
+     * Removes the oldest message. Called only by the consumer.
+     * @return The message, or null if the ring is empty
+     */
+    public Message poll() {
+        long read = region.getLong(READ_SEQUENCE);
+        long write = region.getLong(WRITE_SEQUENCE);
+        UNSAFE.loadFence();
+        while (read < write) {
+            int index = (int) (read & mask);
+            int length = region.getInt(DATA + index);
+            int type = region.getInt(DATA + index + 4);
+            if (type == PADDING) {
+                read += capacity - index;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            cursor.position(DATA + index + RECORD_HEADER);
+            cursor.get(payload);
+            // The payload must be read before the producer may overwrite it (LoadStore)
+            UNSAFE.loadFence();
+            region.putLong(READ_SEQUENCE, read + align(RECORD_HEADER + length));
+            return new Message(type, new String(payload, StandardCharsets.UTF_8));
+        }
+        return null;
+    }
+
+    /**
+     * Orders the stores before the fence before the stores after it, e.g. the file header before its magic.
+     */
+    static void storeFence() {
+        UNSAFE.storeFence();
+    }
+
+    /**
+     * Orders the loads before the fence before the loads and stores after it, e.g. the magic before the file header.
+     */
+    static void loadFence() {
+        UNSAFE.loadFence();
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    private static Unsafe getUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Memory fences are not available", e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package httpcommunicationmod;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Optional transport for a client on the same host, through a memory-mapped file instead of HTTP.
+ * Enabled by setting HTTP_MOD_SHM_PATH to the path of the file, which the mod creates.
+ *
+ * The file holds two rings, laid out as described in SharedMemoryRing: the state ring, which the mod produces, and the
+ * command ring, which the client produces. SharedMemoryClient is a reference client.
+ *
+ * The mod publishes the state JSON (as GET /state returns it) each time the game becomes stable. Commands are
+ * polled and executed through the CommandQueue every frame. A failed command is answered with an ERROR message, and
+ * a command that does not change the state with the current state. The command "state" requests the current state.
+ */
+public class SharedMemoryTransport {
+    private static final Logger logger = LogManager.getLogger(SharedMemoryTransport.class.getName());
+
+    private static final int DEFAULT_CAPACITY = 4 * 1024 * 1024;
+
+    private static RandomAccessFile file;
+    private static SharedMemoryRing states;
+    private static SharedMemoryRing commands;
+
+    private static final CommandQueue.Callback callback = (command, stateChanged, error) -> {
+        if (error != null) {
+            offer(SharedMemoryRing.ERROR, error);
+        } else if (!stateChanged) {
+            publishState();
+        }
+    };
+
+    /**
+     * Creates the shared file if HTTP_MOD_SHM_PATH is set.
+     */
+    public static void start() {
+        String envPath = System.getenv("HTTP_MOD_SHM_PATH");
+        if (envPath == null || envPath.trim().isEmpty()) {
+            return;
+        }
+        int capacity = getCapacity();
+        Path path = Paths.get(envPath.trim());
+        try {
+            file = new RandomAccessFile(path.toFile(), "rw");
+            long size = SharedMemoryRing.fileSize(capacity);
+            file.setLength(size);
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            states = new SharedMemoryRing(SharedMemoryRing.region(buffer, 0, capacity), capacity);
+            commands = new SharedMemoryRing(SharedMemoryRing.region(buffer, 1, capacity), capacity);
+            states.clear();
+            commands.clear();
+            // The magic is written last, so a client never attaches to a half-initialized file
+            buffer.putInt(4, SharedMemoryRing.VERSION);
+            buffer.putInt(8, capacity);
+            SharedMemoryRing.storeFence();
+            buffer.putInt(0, SharedMemoryRing.MAGIC);
+            logger.info("Shared memory transport started on " + path + " with " + capacity + " byte rings");
+        } catch (IOException e) {
+            logger.error("Failed to start shared memory transport on " + path + ": " + e.getMessage());
+            stop();
+        }
+    }
+
+    public static void stop() {
+        states = null;
+        commands = null;
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                logger.error("Error closing shared memory file: " + e.getMessage());
+            }
+            file = null;
+        }
+    }
+
+    public static boolean isRunning() {
+        return states != null;
+    }
+
+    /**
+     * Queues the commands written by the client. Called on the game thread, before CommandQueue.drain().
+     */
+    public static void pollCommands() {
+        if (commands == null) {
+            return;
+        }
+        SharedMemoryRing.Message message;
+        while ((message = commands.poll()) != null) {
+            if (message.type != SharedMemoryRing.COMMAND) {
+                continue;
+            }
+            String command = message.text.trim();
+            if (command.equalsIgnoreCase("state")) {
+                publishState();
+            } else {
+                CommandQueue.submit(command, callback);
+            }
+        }
+    }
+
+    /**
+     * Publishes the current state. Called on the game thread when the game becomes stable.
+     */
+    public static void publishState() {
+        if (states == null) {
+            return;
+        }
+        offer(SharedMemoryRing.STATE, GameAccessProvider.get().getState(StateOptions.DEFAULT));
+    }
+
+    private static void offer(int type, String text) {
+        if (!states.offer(type, text)) {
+            logger.warn("Shared memory state ring is full, dropping a message of " + text.length() + " characters");
+        }
+    }
+
+    private static int getCapacity() {
+        String envCapacity = System.getenv("HTTP_MOD_SHM_CAPACITY");
+        if (envCapacity != null && !envCapacity.trim().isEmpty()) {
+            try {
+                int capacity = Integer.parseInt(envCapacity.trim());
+                if (capacity >= 64 && Integer.bitCount(capacity) == 1) {
+                    return capacity;
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to the default
+            }
+            logger.warn("Invalid HTTP_MOD_SHM_CAPACITY value '" + envCapacity + "', using default: " + DEFAULT_CAPACITY);
+        }
+        return DEFAULT_CAPACITY;
+    }
+}
@@ -0,0 +1,92 @@
+package httpcommunicationmod;
+
+import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The stable state that DecisionPlugins decide on. The screen type and commands are read once, when the state becomes
+ * stable. The game objects themselves (player, monsters, ...) are read through getGame(), and getJson() builds the
+ * same JSON as GET /state, for plugins that prefer it.
+ */
+public class StableState {
+    private final GameAccess game;
+    private final ChoiceScreenUtils.ChoiceType choiceType;
+    private final List<String> availableCommands;
+    private final List<String> choiceList;
+    private String json;
+
+    StableState(GameAccess game) {
+        this.game = game;
+        this.choiceType = ChoiceScreenUtils.getCurrentChoiceType();
+        this.availableCommands = Collections.unmodifiableList(CommandExecutor.getAvailableCommands());
+        this.choiceList = CommandExecutor.isChooseCommandAvailable()
+                ? Collections.unmodifiableList(ChoiceScreenUtils.getCurrentChoiceList())
+                : Collections.<String>emptyList();
+    }
+
+    public GameAccess getGame() {
+        return game;
+    }
+
+    /**
+     * @return The type of the current choice screen, as in "screen_type"
+     */
+    public ChoiceScreenUtils.ChoiceType getChoiceType() {
+        return choiceType;
+    }
+
+    /**
+     * @return The commands that can be executed, as in "available_commands"
+     */
+    public List<String> getAvailableCommands() {
+        return availableCommands;
+    }
+
+    /**
+     * @return The options of the choose command, as in "choice_list". "choose i" picks the i-th option.
+     */
+    public List<String> getChoiceList() {
+        return choiceList;
+    }
+
+    public AbstractDungeon.CurrentScreen getScreen() {
+        return game.getScreen();
+    }
+
+    public AbstractRoom.RoomPhase getRoomPhase() {
+        return game.getCurrentRoom().phase;
+    }
+
+    public boolean isInCombat() {
+        return getRoomPhase() == AbstractRoom.RoomPhase.COMBAT;
+    }
+
+    public int getFloor() {
+        return game.getFloorNum();
+    }
+
+    public int getAct() {
+        return game.getActNum();
+    }
+
+    /**
+     * @return Whether the state offers the given command
+     */
+    public boolean isAvailable(String command) {
+        return availableCommands.contains(command);
+    }
+
+    /**
+     * @return The JSON of GET /state for this state, built on first use
+     */
+    public String getJson() {
+        if (json == null) {
+            json = GameStateConverter.getCommunicationState();
+        }
+        return json;
+    }
+}
@@ -3,14 +3,6 @@ package httpcommunicationmod;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.megacrit.cardcrawl.characters.AbstractPlayer;
-import com.megacrit.cardcrawl.characters.CharacterManager;
-import com.megacrit.cardcrawl.core.CardCrawlGame;
-import com.megacrit.cardcrawl.core.Settings;
-import com.megacrit.cardcrawl.dungeons.AbstractDungeon;
-import com.megacrit.cardcrawl.helpers.SeedHelper;
-import com.megacrit.cardcrawl.helpers.TrialHelper;
-import com.megacrit.cardcrawl.random.Random;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.apache.logging.log4j.LogManager;
@@ -26,6 +18,12 @@ import java.util.HashMap;
 public class StartHandler implements HttpHandler {
     private static final Logger logger = LogManager.getLogger(StartHandler.class.getName());
 
+    private final GameAccess game;
+
+    public StartHandler(GameAccess game) {
+        this.game = game;
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         String method = exchange.getRequestMethod();
@@ -70,57 +68,24 @@ public class StartHandler implements HttpHandler {
                 return;
             }
 
-            // Validate and parse character
-            AbstractPlayer.PlayerClass selectedClass = parseCharacter(characterName);
-            if (selectedClass == null) {
-                sendBadRequest(exchange, "Invalid character: " + characterName + ". Valid options: IRONCLAD, THE_SILENT, DEFECT, WATCHER, or SILENT");
-                return;
+            // Validate seed
+            if (seedString != null && seedString.trim().isEmpty()) {
+                seedString = null;
             }
-
-            // Validate and parse seed
-            long seed;
-            boolean seedSet = false;
-            if (seedString != null && !seedString.trim().isEmpty()) {
-                String upperSeed = seedString.toUpperCase();
-                if (!upperSeed.matches("^[A-Z0-9]+$")) {
-                    sendBadRequest(exchange, "Invalid seed format. Seed must contain only letters and numbers");
-                    return;
-                }
-                seedSet = true;
-                seed = SeedHelper.getLong(upperSeed);
-                boolean isTrialSeed = TrialHelper.isTrialSeed(upperSeed);
-                if (isTrialSeed) {
-                    Settings.specialSeed = seed;
-                    Settings.isTrial = true;
-                    seedSet = false;
-                }
-            } else {
-                seed = SeedHelper.generateUnoffensiveSeed(new Random(System.nanoTime()));
+            if (seedString != null && !seedString.toUpperCase().matches("^[A-Z0-9]+$")) {
+                sendBadRequest(exchange, "Invalid seed format. Seed must contain only letters and numbers");
+                return;
             }
 
             // Start the game
-            Settings.seed = seed;
-            Settings.seedSet = seedSet;
-            AbstractDungeon.generateSeeds();
-            AbstractDungeon.ascensionLevel = ascensionLevel;
-            AbstractDungeon.isAscensionMode = ascensionLevel > 0;
-            CardCrawlGame.startOver = true;
-            CardCrawlGame.mainMenuScreen.isFadingOut = true;
-            CardCrawlGame.mainMenuScreen.fadeOutMusic();
-            CharacterManager manager = new CharacterManager();
-            manager.setChosenCharacter(selectedClass);
-            CardCrawlGame.chosenCharacter = selectedClass;
-            GameStateListener.resetStateVariables();
-
-            logger.info("Starting game: character=" + selectedClass + ", ascension=" + ascensionLevel + ", seed=" + seed);
-
-            // Build response
-            HashMap<String, Object> response = new HashMap<>();
+            HashMap<String, Object> response;
+            try {
+                response = game.startGame(characterName, ascensionLevel, seedString);
+            } catch (InvalidCommandException e) {
+                sendBadRequest(exchange, e.getMessage());
+                return;
+            }
             response.put("success", true);
-            response.put("character", selectedClass.name());
-            response.put("ascension_level", ascensionLevel);
-            response.put("seed", seed);
-            response.put("seed_string", SeedHelper.getString(seed));
 
             // Send JSON response
             Gson gson = new Gson();
@@ -145,24 +110,6 @@ public class StartHandler implements HttpHandler {
         }
     }
 
-    private AbstractPlayer.PlayerClass parseCharacter(String characterName) {
-        String upperName = characterName.toUpperCase();
-
-        // Handle "SILENT" as an alias for "THE_SILENT"
-        if (upperName.equals("SILENT")) {
-            return AbstractPlayer.PlayerClass.THE_SILENT;
-        }
-
-        // Try to match against PlayerClass enum values
-        for (AbstractPlayer.PlayerClass playerClass : AbstractPlayer.PlayerClass.values()) {
-            if (playerClass.name().equals(upperName)) {
-                return playerClass;
-            }
-        }
-
-        return null;
-    }
-
     private String readRequestBody(HttpExchange exchange) throws IOException {
         try (BufferedReader reader = new BufferedReader(
                 new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
@@ -0,0 +1,335 @@
+package httpcommunicationmod;
+
+import com.megacrit.cardcrawl.cards.AbstractCard;
+import com.megacrit.cardcrawl.characters.AbstractPlayer;
+import com.megacrit.cardcrawl.core.AbstractCreature;
+import com.megacrit.cardcrawl.monsters.AbstractMonster;
+import com.megacrit.cardcrawl.monsters.EnemyMoveInfo;
+import com.megacrit.cardcrawl.potions.AbstractPotion;
+import com.megacrit.cardcrawl.potions.PotionSlot;
+import com.megacrit.cardcrawl.powers.AbstractPower;
+import com.megacrit.cardcrawl.relics.AbstractRelic;
+import com.megacrit.cardcrawl.relics.RunicDome;
+import com.megacrit.cardcrawl.rooms.AbstractRoom;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A reusable copy of the primitive game state values, filled on the game thread and encoded on another thread.
+ * Values are stored as a struct of arrays: every card, monster, power, relic and potion is an index into parallel
+ * primitive arrays, and content IDs are stored as ContentDictionary codes. The arrays are allocated once and only
+ * grow, so filling a capture does not allocate in the steady state.
+ *
+ * Cards of all combat piles share the card arrays. The cards of pile p are at indices
+ * pileStart[p] to pileStart[p] + pileSize[p] - 1. Powers work the same way: the player's powers come first, followed
+ * by the powers of each monster (monsterPowerStart, monsterPowerCount).
+ */
+public class StateCapture {
+
+    public static final int PILE_HAND = 0;
+    public static final int PILE_DRAW = 1;
+    public static final int PILE_DISCARD = 2;
+    public static final int PILE_EXHAUST = 3;
+    public static final int PILE_LIMBO = 4;
+    public static final int PILE_COUNT = 5;
+
+    // Looked up once, as ReflectionHacks.getPrivate() looks the field up on every call
+    private static final Field MONSTER_MOVE = getMonsterField("move");
+    private static final Field MONSTER_INTENT_DMG = getMonsterField("intentDmg");
+
+    public static final int CARD_IS_PLAYABLE = 1;
+    public static final int CARD_HAS_TARGET = 2;
+    public static final int CARD_EXHAUSTS = 4;
+    public static final int CARD_ETHEREAL = 8;
+
+    // Incremented for every capture, so encoders can tell which capture is the most recent
+    public long sequence;
+    // GameStateListener.getStableStateCount() when the capture was taken
+    public long stableState;
+
+    public boolean inGame;
+    public boolean inCombat;
+    public boolean readyForCommand;
+    public int screenType;
+    public int playerClass;
+    public int floor;
+    public int act;
+    public int ascensionLevel;
+    public int gold;
+    public int currentHp;
+    public int maxHp;
+    public int block;
+    public int energy;
+    public int turn;
+    public int cardsDiscardedThisTurn;
+    public int timesDamaged;
+    public int potionSlots;
+    public int deckSize;
+
+    public int relicCount;
+    public short[] relicCodes = new short[32];
+
+    public int potionCount;
+    public short[] potionCodes = new short[8];
+    public boolean[] potionCanUse = new boolean[8];
+    public boolean[] potionCanDiscard = new boolean[8];
+    public boolean[] potionRequiresTarget = new boolean[8];
+
+    public final int[] pileStart = new int[PILE_COUNT];
+    public final int[] pileSize = new int[PILE_COUNT];
+    public int cardCount;
+    public short[] cardCodes = new short[64];
+    public int[] cardCosts = new int[64];
+    public int[] cardUpgrades = new int[64];
+    public int[] cardMisc = new int[64];
+    public int[] cardFlags = new int[64];
+
+    public int monsterCount;
+    public short[] monsterCodes = new short[8];
+    public short[] monsterIntents = new short[8];
+    public int[] monsterCurrentHp = new int[8];
+    public int[] monsterMaxHp = new int[8];
+    public int[] monsterBlock = new int[8];
+    public int[] monsterMoveBaseDamage = new int[8];
+    public int[] monsterMoveAdjustedDamage = new int[8];
+    public int[] monsterMoveHits = new int[8];
+    public boolean[] monsterHalfDead = new boolean[8];
+    public boolean[] monsterIsGone = new boolean[8];
+    public int[] monsterPowerStart = new int[8];
+    public int[] monsterPowerCount = new int[8];
+
+    public int playerPowerCount;
+    public int powerCount;
+    public short[] powerCodes = new short[32];
+    public int[] powerAmounts = new int[32];
+
+    private static GameAccess game() {
+        return GameAccessProvider.get();
+    }
+
+    /**
+     * Copies the current game state into this capture. Must be called on the game thread.
+     * @param sequence The sequence number of this capture
+     */
+    public void capture(long sequence) {
+        this.sequence = sequence;
+        stableState = GameStateListener.getStableStateCount();
+        clear();
+        inGame = CommandExecutor.isInDungeon();
+        readyForCommand = GameStateListener.isWaitingForCommand();
+        if (inGame) {
+            captureGameState();
+        }
+    }
+
+    private void clear() {
+        inCombat = false;
+        screenType = playerClass = 0;
+        floor = act = ascensionLevel = gold = currentHp = maxHp = 0;
+        block = energy = turn = cardsDiscardedThisTurn = timesDamaged = potionSlots = deckSize = 0;
+        relicCount = potionCount = cardCount = monsterCount = playerPowerCount = powerCount = 0;
+        Arrays.fill(pileStart, 0);
+        Arrays.fill(pileSize, 0);
+    }
+
+    private void captureGameState() {
+        GameAccess game = game();
+        AbstractPlayer player = game.getPlayer();
+        AbstractRoom room = game.getCurrentRoom();
+        inCombat = room != null && room.phase.equals(AbstractRoom.RoomPhase.COMBAT);
+
+        screenType = ChoiceScreenUtils.getCurrentChoiceType().ordinal() + 1;
+        playerClass = player.chosenClass.ordinal() + 1;
+        floor = game.getFloorNum();
+        act = game.getActNum();
+        ascensionLevel = game.getAscensionLevel();
+        gold = player.gold;
+        currentHp = player.currentHealth;
+        maxHp = player.maxHealth;
+        potionSlots = player.potionSlots;
+        deckSize = player.masterDeck.size();
+
+        if (relicCodes.length < player.relics.size()) {
+            relicCodes = new short[player.relics.size() * 2];
+        }
+        for (AbstractRelic relic : player.relics) {
+            relicCodes[relicCount++] = code(ContentDictionary.Category.RELIC, relic.relicId);
+        }
+
+        ensurePotionCapacity(player.potions.size());
+        for (AbstractPotion potion : player.potions) {
+            int i = potionCount++;
+            if (potion instanceof PotionSlot) {
+                potionCodes[i] = 0;
+                potionCanUse[i] = potionCanDiscard[i] = potionRequiresTarget[i] = false;
+            } else {
+                potionCodes[i] = code(ContentDictionary.Category.POTION, potion.ID);
+                potionCanUse[i] = potion.canUse();
+                potionCanDiscard[i] = potion.canDiscard();
+                potionRequiresTarget[i] = potion.isThrown;
+            }
+        }
+
+        if (inCombat) {
+            captureCombatState(player);
+        }
+    }
+
+    private void captureCombatState(AbstractPlayer player) {
+        block = player.currentBlock;
+        energy = game().getEnergy();
+        turn = game().getTurn();
+        cardsDiscardedThisTurn = game().getCardsDiscardedThisTurn();
+        timesDamaged = player.damagedThisCombat;
+
+        // Playability is only checked for the hand, since canUse() is the most expensive call in a capture
+        capturePile(PILE_HAND, player.hand.group, player);
+        capturePile(PILE_DRAW, player.drawPile.group, null);
+        capturePile(PILE_DISCARD, player.discardPile.group, null);
+        capturePile(PILE_EXHAUST, player.exhaustPile.group, null);
+        capturePile(PILE_LIMBO, player.limbo.group, null);
+
+        capturePowers(player);
+        playerPowerCount = powerCount;
+
+        boolean hasRunicDome = player.hasRelic(RunicDome.ID);
+        ArrayList<AbstractMonster> monsters = game().getMonsters().monsters;
+        ensureMonsterCapacity(monsters.size());
+        for (AbstractMonster monster : monsters) {
+            int i = monsterCount++;
+            monsterCodes[i] = code(ContentDictionary.Category.MONSTER, monster.id);
+            monsterCurrentHp[i] = monster.currentHealth;
+            monsterMaxHp[i] = monster.maxHealth;
+            monsterBlock[i] = monster.currentBlock;
+            monsterHalfDead[i] = monster.halfDead;
+            monsterIsGone[i] = monster.isDeadOrEscaped();
+            monsterMoveBaseDamage[i] = monsterMoveAdjustedDamage[i] = monsterMoveHits[i] = 0;
+            if (hasRunicDome) {
+                monsterIntents[i] = (short) (AbstractMonster.Intent.NONE.ordinal() + 1);
+            } else {
+                monsterIntents[i] = (short) (monster.intent.ordinal() + 1);
+                EnemyMoveInfo moveInfo = (EnemyMoveInfo) readField(MONSTER_MOVE, monster);
+                if (moveInfo != null) {
+                    monsterMoveBaseDamage[i] = moveInfo.baseDamage;
+                    if (moveInfo.baseDamage > 0) {
+                        monsterMoveAdjustedDamage[i] = (int) readField(MONSTER_INTENT_DMG, monster);
+                    } else {
+                        monsterMoveAdjustedDamage[i] = moveInfo.baseDamage;
+                    }
+                    // Same convention as the JSON state: without isMultiDamage there is really 1 attack.
+                    monsterMoveHits[i] = moveInfo.isMultiDamage ? moveInfo.multiplier : 1;
+                }
+            }
+            monsterPowerStart[i] = powerCount;
+            capturePowers(monster);
+            monsterPowerCount[i] = powerCount - monsterPowerStart[i];
+        }
+    }
+
+    private void capturePile(int pile, ArrayList<AbstractCard> cards, AbstractPlayer player) {
+        pileStart[pile] = cardCount;
+        pileSize[pile] = cards.size();
+        ensureCardCapacity(cardCount + cards.size());
+        for (AbstractCard card : cards) {
+            int i = cardCount++;
+            int flags = 0;
+            if (player != null && card.canUse(player, null)) {
+                flags |= CARD_IS_PLAYABLE;
+            }
+            if (card.target == AbstractCard.CardTarget.SELF_AND_ENEMY || card.target == AbstractCard.CardTarget.ENEMY) {
+                flags |= CARD_HAS_TARGET;
+            }
+            if (card.exhaust) {
+                flags |= CARD_EXHAUSTS;
+            }
+            if (card.isEthereal) {
+                flags |= CARD_ETHEREAL;
+            }
+            cardCodes[i] = code(ContentDictionary.Category.CARD, card.cardID);
+            cardCosts[i] = card.costForTurn;
+            cardUpgrades[i] = card.timesUpgraded;
+            cardMisc[i] = card.misc;
+            cardFlags[i] = flags;
+        }
+    }
+
+    private void capturePowers(AbstractCreature creature) {
+        ensurePowerCapacity(powerCount + creature.powers.size());
+        for (AbstractPower power : creature.powers) {
+            int i = powerCount++;
+            powerCodes[i] = code(ContentDictionary.Category.POWER, power.ID);
+            powerAmounts[i] = power.amount;
+        }
+    }
+
+    private void ensurePotionCapacity(int capacity) {
+        if (potionCodes.length < capacity) {
+            int length = capacity * 2;
+            potionCodes = new short[length];
+            potionCanUse = new boolean[length];
+            potionCanDiscard = new boolean[length];
+            potionRequiresTarget = new boolean[length];
+        }
+    }
+
+    private void ensureCardCapacity(int capacity) {
+        if (cardCodes.length < capacity) {
+            int length = capacity * 2;
+            cardCodes = Arrays.copyOf(cardCodes, length);
+            cardCosts = Arrays.copyOf(cardCosts, length);
+            cardUpgrades = Arrays.copyOf(cardUpgrades, length);
+            cardMisc = Arrays.copyOf(cardMisc, length);
+            cardFlags = Arrays.copyOf(cardFlags, length);
+        }
+    }
+
+    private void ensureMonsterCapacity(int capacity) {
+        if (monsterCodes.length < capacity) {
+            int length = capacity * 2;
+            monsterCodes = new short[length];
+            monsterIntents = new short[length];
+            monsterCurrentHp = new int[length];
+            monsterMaxHp = new int[length];
+            monsterBlock = new int[length];
+            monsterMoveBaseDamage = new int[length];
+            monsterMoveAdjustedDamage = new int[length];
+            monsterMoveHits = new int[length];
+            monsterHalfDead = new boolean[length];
+            monsterIsGone = new boolean[length];
+            monsterPowerStart = new int[length];
+            monsterPowerCount = new int[length];
+        }
+    }
+
+    private void ensurePowerCapacity(int capacity) {
+        if (powerCodes.length < capacity) {
+            int length = capacity * 2;
+            powerCodes = Arrays.copyOf(powerCodes, length);
+            powerAmounts = Arrays.copyOf(powerAmounts, length);
+        }
+    }
+
+    private static Field getMonsterField(String name) {
+        try {
+            Field field = AbstractMonster.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("AbstractMonster has no field " + name, e);
+        }
+    }
+
+    private static Object readField(Field field, Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static short code(ContentDictionary.Category category, String id) {
+        return (short) Math.min(ContentDictionary.getCode(category, id), Short.MAX_VALUE);
+    }
+}
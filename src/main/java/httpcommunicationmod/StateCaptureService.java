@@ -0,0 +1,123 @@
+package httpcommunicationmod;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Splits the production of observations between the game thread and a small pool of encoder threads.
+ * When the game state becomes stable, capture() copies the state into a pooled StateCapture on the game thread,
+ * which only reads primitive fields and takes microseconds. An encoder thread then encodes the capture and publishes
+ * the result as the latest observation, so that serialization never delays the game loop.
+ */
+public class StateCaptureService {
+    private static final Logger logger = LogManager.getLogger(StateCaptureService.class.getName());
+
+    private static final int ENCODER_THREADS = 2;
+    private static final int POOLED_CAPTURES = 4;
+
+    /**
+     * An encoded observation, together with the sequence number of the capture it was encoded from and the stable
+     * state it was captured in (see GameStateListener.getStableStateCount()).
+     */
+    public static class Snapshot {
+        public final long sequence;
+        public final long stableState;
+        public final byte[] observation;
+
+        Snapshot(long sequence, long stableState, byte[] observation) {
+            this.sequence = sequence;
+            this.stableState = stableState;
+            this.observation = observation;
+        }
+    }
+
+    private static final ArrayBlockingQueue<StateCapture> freeCaptures = new ArrayBlockingQueue<>(POOLED_CAPTURES);
+    private static final AtomicReference<Snapshot> latestSnapshot = new AtomicReference<>(null);
+    private static volatile long latestSequence = 0;
+    private static ExecutorService encoders = null;
+
+    public static synchronized void start() {
+        if (encoders != null) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger(0);
+        encoders = Executors.newFixedThreadPool(ENCODER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "HttpCommunicationMod-encoder-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < POOLED_CAPTURES; i++) {
+            freeCaptures.offer(new StateCapture());
+        }
+    }
+
+    public static synchronized void stop() {
+        if (encoders != null) {
+            encoders.shutdownNow();
+            encoders = null;
+        }
+    }
+
+    /**
+     * Captures the current game state and hands it to the encoder pool. Must be called on the game thread.
+     */
+    public static void capture() {
+        ExecutorService pool = encoders;
+        if (pool == null) {
+            return;
+        }
+        StateCapture capture = freeCaptures.poll();
+        if (capture == null) {
+            // All pooled captures are waiting to be encoded, which only happens if states change faster than
+            // they can be encoded
+            capture = new StateCapture();
+        }
+        latestSequence += 1;
+        capture.capture(latestSequence);
+        StateCapture captured = capture;
+        try {
+            pool.execute(() -> encode(captured));
+        } catch (RejectedExecutionException e) {
+            freeCaptures.offer(captured);
+        }
+    }
+
+    private static void encode(StateCapture capture) {
+        try {
+            // A newer capture supersedes this one, so encoding it would be wasted work
+            if (capture.sequence < latestSequence) {
+                return;
+            }
+            publish(new Snapshot(capture.sequence, capture.stableState, ObservationEncoder.encode(capture)));
+        } catch (Exception e) {
+            logger.error("Failed to encode captured state: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            freeCaptures.offer(capture);
+        }
+    }
+
+    private static void publish(Snapshot snapshot) {
+        Snapshot current = latestSnapshot.get();
+        while (current == null || current.sequence < snapshot.sequence) {
+            if (latestSnapshot.compareAndSet(current, snapshot)) {
+                return;
+            }
+            current = latestSnapshot.get();
+        }
+    }
+
+    /**
+     * @return The most recently encoded observation, or null if no state has been captured yet
+     */
+    public static Snapshot getLatestSnapshot() {
+        return latestSnapshot.get();
+    }
+}
@@ -12,6 +12,12 @@ import java.nio.charset.StandardCharsets;
 public class StateHandler implements HttpHandler {
     private static final Logger logger = LogManager.getLogger(StateHandler.class.getName());
 
+    private final GameAccess game;
+
+    public StateHandler(GameAccess game) {
+        this.game = game;
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         String method = exchange.getRequestMethod();
@@ -25,10 +31,15 @@ public class StateHandler implements HttpHandler {
             logger.info("Handling GET /state request");
 
             // Get current game state
-            String gameState = HttpCommunicationMod.getCurrentGameState();
+            StateOptions options = StateOptions.fromQuery(exchange.getRequestURI().getRawQuery());
+            if (!game.supports(options)) {
+                sendBadRequest(exchange, "State options are not supported by this server");
+                return;
+            }
+            String gameState = game.getState(options);
 
             // Log game state to file
-            HttpCommunicationMod.logGameState(gameState);
+            CommunicationLog.logGameState(gameState);
 
             // Set response headers
             exchange.getResponseHeaders().set("Content-Type", "application/json");
@@ -61,6 +72,16 @@ public class StateHandler implements HttpHandler {
         }
     }
 
+    private void sendBadRequest(HttpExchange exchange, String errorMessage) throws IOException {
+        String response = "{\"error\":\"" + errorMessage.replace("\"", "\\\"") + "\"}";
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(400, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+
     private void sendInternalServerError(HttpExchange exchange, String errorMessage) throws IOException {
         String response = "{\"error\":\"Internal server error: " + errorMessage.replace("\"", "\\\"") + "\"}";
         exchange.getResponseHeaders().set("Content-Type", "application/json");
@@ -0,0 +1,54 @@
+package httpcommunicationmod;
+
+/**
+ * Options controlling how the game state is serialized for a single request.
+ * Options are read from the query string of the request, e.g. GET /state?compact=true&map=delta
+ */
+public class StateOptions {
+
+    public static final StateOptions DEFAULT = new StateOptions(false, false);
+
+    /**
+     * When true, content names and IDs are replaced by ContentDictionary codes, and card UUIDs by small
+     * per-act instance numbers. Static card, relic and potion metadata is omitted (see GET /dictionary).
+     */
+    public final boolean compact;
+
+    /**
+     * When true (map=delta), the full map is replaced by a map key, the visited path and the current node.
+     * The full map for a key can be fetched once from GET /map.
+     */
+    public final boolean mapDelta;
+
+    public StateOptions(boolean compact, boolean mapDelta) {
+        this.compact = compact;
+        this.mapDelta = mapDelta;
+    }
+
+    /**
+     * Parses the options from a raw query string. Flags are enabled by "true", "1", or by being present without
+     * a value (e.g. "?compact"). The map option accepts "full" (default) or "delta".
+     * @param query The raw query string of the request (may be null)
+     * @return The parsed options
+     */
+    public static StateOptions fromQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return DEFAULT;
+        }
+        boolean compact = false;
+        boolean mapDelta = false;
+        for (String parameter : query.split("&")) {
+            String[] keyValue = parameter.split("=", 2);
+            if (keyValue[0].equals("compact")) {
+                compact = isEnabled(keyValue);
+            } else if (keyValue[0].equals("map")) {
+                mapDelta = keyValue.length == 2 && keyValue[1].equalsIgnoreCase("delta");
+            }
+        }
+        return new StateOptions(compact, mapDelta);
+    }
+
+    private static boolean isEnabled(String[] keyValue) {
+        return keyValue.length == 1 || keyValue[1].equalsIgnoreCase("true") || keyValue[1].equals("1");
+    }
+}
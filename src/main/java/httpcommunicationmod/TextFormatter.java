@@ -0,0 +1,139 @@
+package httpcommunicationmod;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Removes the special text formatting characters found in the game's text. These characters are turned into things
+ * like colored (#y), wavy (~wavy~) or shaking (@shake@) text in game, and NL is used for line breaks.
+ * The output is identical to that of the regular expressions
+ * text.replaceAll("~|@(\\S+)~|@", "$1").replaceAll("#.|NL", ""), but the text is processed in a single pass without
+ * compiling any pattern, and results are cached, since event text is sent unchanged on every state request while an
+ * event is open.
+ */
+public class TextFormatter {
+
+    private static final int CACHE_SIZE = 256;
+
+    private static final Map<String, String> cache = new LinkedHashMap<String, String>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Removes all formatting characters from the given text.
+     * @param text The text for which the formatting should be removed
+     * @return The input text, with the formatting characters removed
+     */
+    public static String removeTextFormatting(String text) {
+        synchronized (cache) {
+            String cached = cache.get(text);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String result = strip(text, true);
+        synchronized (cache) {
+            cache.put(text, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes only the color codes (#y) and line breaks (NL) from the given text, like
+     * text.replaceAll("#.|NL", "").
+     * @param text The text for which the color codes should be removed
+     * @return The input text, with the color codes removed
+     */
+    public static String removeColorCodes(String text) {
+        return strip(text, false);
+    }
+
+    private static String strip(String text, boolean removeEffects) {
+        StringBuilder builder = new StringBuilder(text.length());
+        // The color code pass runs on the output of the effect pass, so it keeps one character of lookbehind:
+        // a pending '#' or 'N' that may start a color code or line break together with the next output character.
+        char pending = 0;
+        boolean skipLowSurrogate = false;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            int runStart = i;
+            int runEnd = i + 1;
+            if (removeEffects && c == '~') {
+                i += 1;
+                continue;
+            }
+            if (removeEffects && c == '@') {
+                // "@text~" keeps its text, up to the last '~' before the next whitespace. A lone '@' is removed.
+                int closing = -1;
+                int j = i + 1;
+                while (j < length && !isWhitespace(text.charAt(j))) {
+                    if (text.charAt(j) == '~' && j > i + 1) {
+                        closing = j;
+                    }
+                    j++;
+                }
+                if (closing < 0) {
+                    i += 1;
+                    continue;
+                }
+                runStart = i + 1;
+                runEnd = closing;
+                i = closing + 1;
+            } else {
+                i += 1;
+            }
+            for (int k = runStart; k < runEnd; k++) {
+                char out = text.charAt(k);
+                if (skipLowSurrogate) {
+                    skipLowSurrogate = false;
+                    if (Character.isLowSurrogate(out)) {
+                        continue;
+                    }
+                }
+                if (pending == '#') {
+                    pending = 0;
+                    if (!isLineTerminator(out)) {
+                        // '.' matches a whole code point, so a surrogate pair is removed together
+                        skipLowSurrogate = Character.isHighSurrogate(out);
+                        continue;
+                    }
+                    builder.append('#');
+                } else if (pending == 'N') {
+                    pending = 0;
+                    if (out == 'L') {
+                        continue;
+                    }
+                    builder.append('N');
+                }
+                if (out == '#' || out == 'N') {
+                    pending = out;
+                } else {
+                    builder.append(out);
+                }
+            }
+        }
+        if (pending != 0) {
+            builder.append(pending);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Matches the regular expression class \s.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Matches the characters that the regular expression '.' does not match.
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
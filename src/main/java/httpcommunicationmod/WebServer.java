@@ -1,37 +1,84 @@
 package httpcommunicationmod;
 
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Executors;
 
 public class WebServer {
     private static final Logger logger = LogManager.getLogger(WebServer.class.getName());
     private HttpServer server;
+    private NioWebServer nioServer;
     private String host;
     private int port;
+    private final GameAccess game;
+    private final Transport transport;
+
+    /**
+     * The server that accepts the connections. Both serve the same handlers.
+     */
+    public enum Transport {
+        /** com.sun.net.httpserver.HttpServer, with a worker thread pool */
+        JDK,
+        /** NioWebServer, a single selector thread with keep-alive and pipelining */
+        NIO
+    }
+
+    public WebServer(GameAccess game) {
+        this(game, Transport.JDK);
+    }
+
+    public WebServer(GameAccess game, Transport transport) {
+        this.game = game;
+        this.transport = transport;
+    }
 
     public void start(String host, int port) throws IOException {
         this.host = host;
         this.port = port;
 
-        server = HttpServer.create(new InetSocketAddress(host, port), 0);
-
         // Set up endpoints
-        server.createContext("/state", new StateHandler());
-        server.createContext("/command", new CommandHandler());
-        server.createContext("/start", new StartHandler());
-        server.createContext("/reset", new ResetHandler());
-        server.createContext("/health", new HealthHandler());
+        Map<String, HttpHandler> contexts = new LinkedHashMap<>();
+        contexts.put("/state", new StateHandler(game));
+        contexts.put("/command", new CommandHandler(game));
+        contexts.put("/start", new StartHandler(game));
+        contexts.put("/reset", new ResetHandler(game));
+        contexts.put("/health", new HealthHandler());
+        contexts.put("/observation", new ObservationHandler(game));
+        contexts.put("/dictionary", new DictionaryHandler(game));
+        contexts.put("/map", new MapHandler(game));
+        contexts.put("/runs", new RunsHandler());
+        contexts.put("/encounter", new ScenarioHandler(game, "/encounter", Scenario::fromEncounterJson));
+        contexts.put("/scenario", new ScenarioHandler(game, "/scenario", Scenario::fromScenarioJson));
+        contexts.put("/route", new RouteHandler(game));
 
-        // Use a thread pool for handling requests
-        server.setExecutor(Executors.newCachedThreadPool());
+        if (transport == Transport.NIO) {
+            nioServer = new NioWebServer(contexts);
+            nioServer.start(host, port);
+            // With port 0 the system picks a free port
+            this.port = nioServer.getAddress().getPort();
+        } else {
+            // The server writes the response headers and body separately, so with Nagle's algorithm every response
+            // on a keep-alive connection waits for the client's delayed ACK (about 40 ms)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+            server = HttpServer.create(new InetSocketAddress(host, port), 0);
+            for (Map.Entry<String, HttpHandler> context : contexts.entrySet()) {
+                server.createContext(context.getKey(), context.getValue());
+            }
 
-        server.start();
-        logger.info("HTTP Communication Mod web server started on http://" + host + ":" + port);
+            // Use a thread pool for handling requests
+            server.setExecutor(Executors.newCachedThreadPool());
+
+            server.start();
+            this.port = server.getAddress().getPort();
+        }
+        logger.info("HTTP Communication Mod web server (" + transport + ") started on http://" + host + ":" + this.port);
     }
 
     public void stop() {
@@ -40,14 +87,26 @@ public class WebServer {
             server.stop(1); // Stop with 1 second delay
             server = null;
         }
+        if (nioServer != null) {
+            logger.info("Stopping HTTP Communication Mod web server...");
+            nioServer.stop();
+            nioServer = null;
+        }
     }
 
     public boolean isRunning() {
-        return server != null;
+        return server != null || nioServer != null;
+    }
+
+    /**
+     * @return The port the server is bound to, which the system picked if it was started with port 0
+     */
+    public int getPort() {
+        return port;
     }
 
     public String getAddress() {
-        if (server != null) {
+        if (isRunning()) {
             return "http://" + host + ":" + port;
         }
         return null;
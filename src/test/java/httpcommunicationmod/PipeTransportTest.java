@@ -0,0 +1,47 @@
+package httpcommunicationmod;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks how PipeTransport splits the agent's command line into arguments.
+ */
+public class PipeTransportTest {
+
+    @Test
+    public void splitsAtWhitespace() {
+        assertEquals(Arrays.asList("python3", "/path/to/agent.py", "--seed", "123"),
+                PipeTransport.splitCommandLine("python3  /path/to/agent.py\t--seed 123"));
+    }
+
+    @Test
+    public void keepsQuotedWhitespace() {
+        assertEquals(Arrays.asList("python3", "/path/to/my agent.py", "--name", "a b", "x\"y"),
+                PipeTransport.splitCommandLine("python3 \"/path/to/my agent.py\" --name 'a b' 'x\"y'"));
+    }
+
+    @Test
+    public void keepsEscapedCharacters() {
+        assertEquals(Arrays.asList("C:\\agents\\agent.exe", "my agent", "\"", "a\\b"),
+                PipeTransport.splitCommandLine("'C:\\agents\\agent.exe' my\\ agent \\\" \"a\\\\b\""));
+    }
+
+    @Test
+    public void keepsEmptyQuotedArguments() {
+        assertEquals(Arrays.asList("agent", "", "x"), PipeTransport.splitCommandLine("agent '' x"));
+    }
+
+    @Test
+    public void rejectsUnclosedQuotes() {
+        try {
+            PipeTransport.splitCommandLine("agent \"unclosed");
+            fail("An unclosed quote should be rejected");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package httpcommunicationmod;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that TextFormatter gives the same output as the regular expressions it replaced.
+ */
+public class TextFormatterTest {
+
+    private static final String[] TEXTS = {
+            "",
+            "Plain text.",
+            "#yGold and #rred #bblue text",
+            "Line one NL line two NL NL",
+            "~wavy~ and ~not closed",
+            "@shake@ and @shake~ and @two~words~",
+            "@a~b~ c~",
+            "@~",
+            "@",
+            "@ ~",
+            "@@x~",
+            "~@text~",
+            "N~L and #~y",
+            "#",
+            "N",
+            "ends with N",
+            "#\nkept line break",
+            "#\rkept carriage return",
+            "NNL and ##y and #NL",
+            "#\uD83D\uDE00 emoji as a color code",
+            "@\uD83D\uDE00~ and \uD83D\uDE00 kept",
+            "tab\t@x~\tand\u000B@y~"
+    };
+
+    // Characters the formatting codes are made of, plus whitespace, line terminators and a surrogate pair
+    private static final String[] FUZZ_PARTS = {
+            "#", "N", "L", "~", "@", "y", "a", " ", "\t", "\n", "\r", "\u0085", "\u2028", "\uD83D\uDE00", "\uD83D"
+    };
+
+    @Test
+    public void removeTextFormattingMatchesRegex() {
+        for (String text : TEXTS) {
+            assertEquals(escape(text), regexRemoveTextFormatting(text), TextFormatter.removeTextFormatting(text));
+        }
+    }
+
+    @Test
+    public void removeColorCodesMatchesRegex() {
+        for (String text : TEXTS) {
+            assertEquals(escape(text), regexRemoveColorCodes(text), TextFormatter.removeColorCodes(text));
+        }
+    }
+
+    @Test
+    public void cachedResultMatchesRegex() {
+        String text = "#yCached @text~ NL";
+        assertEquals(regexRemoveTextFormatting(text), TextFormatter.removeTextFormatting(text));
+        assertEquals(regexRemoveTextFormatting(text), TextFormatter.removeTextFormatting(text));
+    }
+
+    @Test
+    public void randomTextMatchesRegex() {
+        Random random = new Random(42);
+        for (int n = 0; n < 20000; n++) {
+            StringBuilder builder = new StringBuilder();
+            int parts = random.nextInt(12);
+            for (int i = 0; i < parts; i++) {
+                builder.append(FUZZ_PARTS[random.nextInt(FUZZ_PARTS.length)]);
+            }
+            String text = builder.toString();
+            assertEquals(escape(text), regexRemoveTextFormatting(text), TextFormatter.removeTextFormatting(text));
+            assertEquals(escape(text), regexRemoveColorCodes(text), TextFormatter.removeColorCodes(text));
+        }
+    }
+
+    private static String regexRemoveTextFormatting(String text) {
+        return text.replaceAll("~|@(\\S+)~|@", "$1").replaceAll("#.|NL", "");
+    }
+
+    private static String regexRemoveColorCodes(String text) {
+        return text.replaceAll("#.|NL", "");
+    }
+
+    private static String escape(String text) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c < 0x20 || c > 0x7e) {
+                builder.append(String.format("\\u%04X", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+}